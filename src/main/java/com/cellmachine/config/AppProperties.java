@@ -1,5 +1,7 @@
 package com.cellmachine.config;
 
+import com.cellmachine.generator.ParallelStepper;
+import com.cellmachine.generator.SimulationService;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
 import java.util.Optional;
@@ -16,6 +18,13 @@ public class AppProperties {
     private final String telegramBaseUrl;
     private final String bindHost;
     private final int bindPort;
+    private final int simulationThreads;
+    private final long simulationParallelThresholdCells;
+    private final int hashLifeMaxNodes;
+    private final boolean engineCalibration;
+    private final int distributedWorkers;
+    private final long checkpointCacheBytes;
+    private final boolean randomRuleScreening;
 
     public AppProperties(Environment environment) {
         this.telegramBotToken = resolveRequired(environment, "app.telegram-bot-token", "TELEGRAM_BOT_TOKEN");
@@ -25,6 +34,20 @@ public class AppProperties {
         BindAddress address = determineBindAddress(environment);
         this.bindHost = address.host();
         this.bindPort = address.port();
+
+        this.simulationThreads = (int) resolvePositiveNumber(environment, "app.simulation-threads",
+                "SIMULATION_THREADS", Runtime.getRuntime().availableProcessors(), Integer.MAX_VALUE);
+        this.simulationParallelThresholdCells = resolvePositiveNumber(environment, "app.simulation-parallel-threshold",
+                "SIMULATION_PARALLEL_THRESHOLD", ParallelStepper.DEFAULT_THRESHOLD_CELLS, Long.MAX_VALUE);
+        this.hashLifeMaxNodes = (int) resolvePositiveNumber(environment, "app.hashlife-max-nodes",
+                "HASHLIFE_MAX_NODES", SimulationService.DEFAULT_HASHLIFE_MAX_NODES, Integer.MAX_VALUE);
+        this.engineCalibration = resolveBoolean(environment, "app.engine-calibration", "ENGINE_CALIBRATION", false);
+        this.distributedWorkers = (int) resolvePositiveNumber(environment, "app.distributed-workers",
+                "DISTRIBUTED_WORKERS", SimulationService.DEFAULT_DISTRIBUTED_WORKERS, Integer.MAX_VALUE);
+        this.checkpointCacheBytes = resolvePositiveNumber(environment, "app.checkpoint-cache-bytes",
+                "CHECKPOINT_CACHE_BYTES", SimulationService.DEFAULT_CHECKPOINT_CACHE_BYTES, Long.MAX_VALUE);
+        this.randomRuleScreening = resolveBoolean(environment, "app.random-rule-screening", "RANDOM_RULE_SCREENING",
+                false);
     }
 
     public String getTelegramBotToken() {
@@ -47,6 +70,34 @@ public class AppProperties {
         return bindPort;
     }
 
+    public int getSimulationThreads() {
+        return simulationThreads;
+    }
+
+    public long getSimulationParallelThresholdCells() {
+        return simulationParallelThresholdCells;
+    }
+
+    public int getHashLifeMaxNodes() {
+        return hashLifeMaxNodes;
+    }
+
+    public boolean isEngineCalibration() {
+        return engineCalibration;
+    }
+
+    public int getDistributedWorkers() {
+        return distributedWorkers;
+    }
+
+    public long getCheckpointCacheBytes() {
+        return checkpointCacheBytes;
+    }
+
+    public boolean isRandomRuleScreening() {
+        return randomRuleScreening;
+    }
+
     public InetAddress getBindAddress() {
         try {
             return InetAddress.getByName(bindHost);
@@ -95,6 +146,36 @@ public class AppProperties {
         return new BindAddress(defaultHost, defaultPort);
     }
 
+    private long resolvePositiveNumber(Environment environment, String propertyKey, String envKey, long defaultValue, long max) {
+        String value = resolveOptional(environment, propertyKey, envKey);
+        if (!StringUtils.hasText(value)) {
+            return defaultValue;
+        }
+        try {
+            long parsed = Long.parseLong(value.trim());
+            if (parsed <= 0 || parsed > max) {
+                throw new IllegalArgumentException();
+            }
+            return parsed;
+        } catch (Exception ex) {
+            throw new IllegalStateException("Invalid " + envKey + " value: " + value, ex);
+        }
+    }
+
+    private boolean resolveBoolean(Environment environment, String propertyKey, String envKey, boolean defaultValue) {
+        String value = resolveOptional(environment, propertyKey, envKey);
+        if (!StringUtils.hasText(value)) {
+            return defaultValue;
+        }
+        if ("true".equalsIgnoreCase(value)) {
+            return true;
+        }
+        if ("false".equalsIgnoreCase(value)) {
+            return false;
+        }
+        throw new IllegalStateException("Invalid " + envKey + " value: " + value);
+    }
+
     private int parsePort(String value) {
         try {
             int port = Integer.parseInt(value.trim());
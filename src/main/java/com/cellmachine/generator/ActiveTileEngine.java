@@ -0,0 +1,184 @@
+package com.cellmachine.generator;
+
+import java.util.Arrays;
+
+/**
+ * Steps one simulation run while tracking which tiles (one word wide, {@value #TILE_ROWS} rows high)
+ * changed in the previous generation. Only tiles that changed or touch a changed tile are recomputed;
+ * the others already hold the right cells when the caller swaps two buffers, and are copied otherwise.
+ */
+final class ActiveTileEngine {
+
+    static final int TILE_ROWS = 16;
+
+    private final ParallelStepper stepper;
+    private final int width;
+    private final int height;
+    private final int tileColumns;
+    private final int tileRows;
+    private final ParallelStepper.Band band = this::stepTileRows;
+    private boolean[] changed;
+    private boolean[] nextChanged;
+    private Grid lastSource;
+    private Grid lastTarget;
+    private Rule lastRule;
+    private boolean lastWrap;
+
+    private Grid current;
+    private Grid target;
+    private boolean targetHoldsPrevious;
+
+    ActiveTileEngine(int width, int height, ParallelStepper stepper) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Grid dimensions must be positive");
+        }
+        this.stepper = stepper;
+        this.width = width;
+        this.height = height;
+        this.tileColumns = Grid.wordsPerRow(width);
+        this.tileRows = (height + TILE_ROWS - 1) / TILE_ROWS;
+        this.changed = new boolean[tileColumns * tileRows];
+        this.nextChanged = new boolean[changed.length];
+    }
+
+    void advanceInto(Grid current, Grid target, Rule rule, boolean wrap) {
+        Grid.ensureStepTarget(current, target, rule);
+        if (current.width() != width || current.height() != height) {
+            throw new IllegalArgumentException("Grid dimensions do not match tile layout");
+        }
+        boolean continuing = current == lastTarget && rule.equals(lastRule) && wrap == lastWrap;
+        if (!continuing) {
+            Arrays.fill(changed, true);
+        }
+        this.current = current;
+        this.target = target;
+        this.targetHoldsPrevious = continuing && target == lastSource;
+        lastRule = rule;
+        lastWrap = wrap;
+        try {
+            stepper.forEachBand(tileRows, 1, (long) width * height, band);
+        } finally {
+            this.current = null;
+            this.target = null;
+        }
+        boolean[] previous = changed;
+        changed = nextChanged;
+        nextChanged = previous;
+        lastSource = current;
+        lastTarget = target;
+    }
+
+    boolean changed() {
+        for (boolean tile : changed) {
+            if (tile) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Bounding box of the tiles that changed in the last step, clipped to the grid, or {@code null} when
+     * the last step changed nothing.
+     */
+    CellRegion changedRegion() {
+        int minColumn = tileColumns;
+        int maxColumn = -1;
+        int minRow = tileRows;
+        int maxRow = -1;
+        for (int ty = 0; ty < tileRows; ty++) {
+            for (int tx = 0; tx < tileColumns; tx++) {
+                if (changed[ty * tileColumns + tx]) {
+                    minColumn = Math.min(minColumn, tx);
+                    maxColumn = Math.max(maxColumn, tx);
+                    minRow = Math.min(minRow, ty);
+                    maxRow = Math.max(maxRow, ty);
+                }
+            }
+        }
+        if (maxColumn < 0) {
+            return null;
+        }
+        int x = minColumn << 6;
+        int y = minRow * TILE_ROWS;
+        int right = Math.min((maxColumn + 1) << 6, width);
+        int bottom = Math.min((maxRow + 1) * TILE_ROWS, height);
+        return new CellRegion(x, y, right - x, bottom - y);
+    }
+
+    private void stepTileRows(int fromTileRow, int toTileRow) {
+        Rule rule = lastRule;
+        boolean wrap = lastWrap;
+        for (int ty = fromTileRow; ty < toTileRow; ty++) {
+            int fromRow = ty * TILE_ROWS;
+            int toRow = Math.min(fromRow + TILE_ROWS, height);
+            int tx = 0;
+            while (tx < tileColumns) {
+                if (!isActive(tx, ty, wrap)) {
+                    if (!targetHoldsPrevious) {
+                        copyTile(tx, fromRow, toRow);
+                    }
+                    nextChanged[ty * tileColumns + tx] = false;
+                    tx++;
+                    continue;
+                }
+                int runEnd = tx + 1;
+                while (runEnd < tileColumns && isActive(runEnd, ty, wrap)) {
+                    runEnd++;
+                }
+                Grid.stepRegion(current, target, rule, wrap, fromRow, toRow, tx, runEnd);
+                for (int column = tx; column < runEnd; column++) {
+                    nextChanged[ty * tileColumns + column] = tileDiffers(column, fromRow, toRow);
+                }
+                tx = runEnd;
+            }
+        }
+    }
+
+    private boolean isActive(int tx, int ty, boolean wrap) {
+        for (int dy = -1; dy <= 1; dy++) {
+            int row = ty + dy;
+            if (row < 0 || row >= tileRows) {
+                if (!wrap) {
+                    continue;
+                }
+                row = Math.floorMod(row, tileRows);
+            }
+            for (int dx = -1; dx <= 1; dx++) {
+                int column = tx + dx;
+                if (column < 0 || column >= tileColumns) {
+                    if (!wrap) {
+                        continue;
+                    }
+                    column = Math.floorMod(column, tileColumns);
+                }
+                if (changed[row * tileColumns + column]) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean tileDiffers(int column, int fromRow, int toRow) {
+        long[] source = current.words();
+        long[] dest = target.words();
+        for (int y = fromRow; y < toRow; y++) {
+            int index = y * tileColumns + column;
+            if (source[index] != dest[index]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // The target's totals already count the tile as it is in the source, so only the words move.
+    private void copyTile(int column, int fromRow, int toRow) {
+        long[] source = current.words();
+        long[] dest = target.words();
+        for (int y = fromRow; y < toRow; y++) {
+            int index = y * tileColumns + column;
+            dest[index] = source[index];
+        }
+    }
+}
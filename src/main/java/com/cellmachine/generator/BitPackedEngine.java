@@ -0,0 +1,253 @@
+package com.cellmachine.generator;
+
+import java.util.Arrays;
+
+/**
+ * Advances a bit-packed {@link Grid} 64 cells at a time. The eight neighbor planes of a word are summed
+ * with carry-save adders into a 4-bit count, which is then matched against the rule's born/survive sets.
+ * Wide rows go through {@link VectorBitPackedEngine} when the JVM runs with
+ * {@code --add-modules jdk.incubator.vector}; otherwise, or with {@code -Dcellmachine.vector=false}, the
+ * scalar loop below handles everything.
+ */
+final class BitPackedEngine {
+
+    static final boolean VECTORIZED = vectorKernelAvailable();
+    // Per-thread window of three ghost-bordered rows for stepScalar(), and the deltas it gathers.
+    private static final ThreadLocal<long[][]> WINDOW = ThreadLocal.withInitial(() -> new long[3][0]);
+    private static final ThreadLocal<Deltas> DELTAS = ThreadLocal.withInitial(Deltas::new);
+
+    private BitPackedEngine() {
+    }
+
+    static void step(Grid current, Grid next, Rule rule, boolean wrap, int fromRow, int toRow, int fromWord, int toWord) {
+        if (VECTORIZED && toWord - fromWord >= VectorBitPackedEngine.MIN_WORDS
+                && rule.neighborhood() == Neighborhood.MOORE) {
+            VectorBitPackedEngine.step(current, next, rule, wrap, fromRow, toRow, fromWord, toWord);
+        } else {
+            stepScalar(current, next, rule, wrap, fromRow, toRow, fromWord, toWord);
+        }
+    }
+
+    /**
+     * Steps words with a sliding window of three source rows, each copied into a buffer with one ghost word
+     * on either side. Ghost words and missing rows are filled once per row, from the opposite edge when
+     * {@code wrap} is set and with zeros otherwise, so the word loop itself never branches on edges. The
+     * cells born and died in each word are counted on the way, against the totals
+     * {@link Grid#ensureStepTarget} gave {@code next}, which keeps its population current without another
+     * pass.
+     */
+    static void stepScalar(Grid current, Grid next, Rule rule, boolean wrap, int fromRow, int toRow, int fromWord, int toWord) {
+        if (fromRow >= toRow || fromWord >= toWord) {
+            return;
+        }
+        Deltas deltas = deltas(toWord - fromWord);
+        stepScalar(current, next, rule, wrap, fromRow, toRow, fromWord, toWord, deltas, 0);
+        deltas.applyTo(next, fromWord, toWord - fromWord);
+    }
+
+    /**
+     * This thread's deltas, cleared for {@code span} columns. Kernels must not hand them on to anything that
+     * asks for them again.
+     */
+    static Deltas deltas(int span) {
+        return DELTAS.get().reset(span);
+    }
+
+    /**
+     * Like {@link #stepScalar(Grid, Grid, Rule, boolean, int, int, int, int)}, but gathers the changes in
+     * {@code deltas}, with word {@code fromWord} counted in column {@code column}, for the caller to apply.
+     * Totalistic rules run on their {@link RuleKernels specialized kernel} when there is one; rules on other
+     * neighborhoods always have one.
+     */
+    static void stepScalar(Grid current, Grid next, Rule rule, boolean wrap, int fromRow, int toRow, int fromWord, int toWord,
+            Deltas deltas, int column) {
+        if (fromRow >= toRow || fromWord >= toWord) {
+            return;
+        }
+        RuleKernels.Kernel kernel = rule.kernel();
+        if (kernel != null) {
+            kernel.step(current, next, wrap, fromRow, toRow, fromWord, toWord, deltas, column);
+        } else {
+            stepWithSelectors(current, next, rule.countSelectors(), wrap, fromRow, toRow, fromWord, toWord, deltas, column);
+        }
+    }
+
+    /**
+     * The generic scalar kernel, matching counts against {@link Rule#countSelectors()} read at run time.
+     */
+    static void stepWithSelectors(Grid current, Grid next, long[] selectors, boolean wrap, int fromRow, int toRow,
+            int fromWord, int toWord, Deltas deltas, int column) {
+        int wordsPerRow = current.wordsPerRow();
+        int span = toWord - fromWord;
+        long[] target = next.words();
+        long[][] window = window(span);
+        long[] above = window[0];
+        long[] middle = window[1];
+        long[] below = window[2];
+        long[] columnDeltas = deltas.columns;
+        loadRow(current, fromRow - 1, wrap, fromWord, toWord, above);
+        loadRow(current, fromRow, wrap, fromWord, toWord, middle);
+        // Bits past the right edge may come alive around the wrapped neighbour loadRow put there; clear them.
+        long spanMask = toWord == wordsPerRow ? Grid.lastWordMask(current.width()) : -1L;
+        long hashDelta = 0L;
+        long populationDelta = 0L;
+        long flipped = 0L;
+
+        for (int y = fromRow; y < toRow; y++) {
+            loadRow(current, y + 1, wrap, fromWord, toWord, below);
+            int index = y * wordsPerRow + fromWord;
+            int rowDelta = 0;
+            for (int i = 1; i <= span; i++, index++) {
+                long mask = i == span ? spanMask : -1L;
+                long alive = middle[i] & mask;
+                long result = nextWord(above, middle, below, i, selectors) & mask;
+                int births = Long.bitCount(result & ~alive);
+                int deaths = Long.bitCount(alive & ~result);
+                rowDelta += births - deaths;
+                columnDeltas[column + i - 1] += births - deaths;
+                flipped += births + deaths;
+                hashDelta += (result - alive) * Grid.hashKey(index);
+                target[index] = result;
+            }
+            next.addRowPopulation(y, rowDelta);
+            populationDelta += rowDelta;
+            long[] recycled = above;
+            above = middle;
+            middle = below;
+            below = recycled;
+        }
+        deltas.hash += hashDelta;
+        deltas.population += populationDelta;
+        deltas.flipped += flipped;
+    }
+
+    /**
+     * This thread's three row buffers, long enough for {@code span} words and their ghost words.
+     */
+    static long[][] window(int span) {
+        long[][] window = WINDOW.get();
+        if (window[0].length < span + 2) {
+            window = new long[][]{new long[span + 2], new long[span + 2], new long[span + 2]};
+            WINDOW.set(window);
+        }
+        return window;
+    }
+
+    static long nextWord(long[] above, long[] middle, long[] below, int i, long[] selectors) {
+        long ac = above[i];
+        long aw = (ac << 1) | (above[i - 1] >>> 63);
+        long ae = (ac >>> 1) | (above[i + 1] << 63);
+        long bc = below[i];
+        long bw = (bc << 1) | (below[i - 1] >>> 63);
+        long be = (bc >>> 1) | (below[i + 1] << 63);
+        long alive = middle[i];
+        long cw = (alive << 1) | (middle[i - 1] >>> 63);
+        long ce = (alive >>> 1) | (middle[i + 1] << 63);
+
+        long aboveSum = aw ^ ac ^ ae;
+        long aboveCarry = (aw & ac) | (ae & (aw ^ ac));
+        long belowSum = bw ^ bc ^ be;
+        long belowCarry = (bw & bc) | (be & (bw ^ bc));
+        long sideSum = cw ^ ce;
+        long sideCarry = cw & ce;
+
+        long ones = aboveSum ^ belowSum ^ sideSum;
+        long onesCarry = (aboveSum & belowSum) | (sideSum & (aboveSum ^ belowSum));
+
+        long pairSum = aboveCarry ^ belowCarry ^ sideCarry;
+        long pairCarry = (aboveCarry & belowCarry) | (sideCarry & (aboveCarry ^ belowCarry));
+        long twos = pairSum ^ onesCarry;
+        long twosCarry = pairSum & onesCarry;
+
+        long fours = pairCarry ^ twosCarry;
+        long eights = pairCarry & twosCarry;
+
+        long born = 0L;
+        long survive = 0L;
+        for (int s = 0; s < selectors.length; s += Rule.COUNT_SELECTOR_STRIDE) {
+            long matches = ~((ones ^ selectors[s]) | (twos ^ selectors[s + 1])
+                    | (fours ^ selectors[s + 2]) | (eights ^ selectors[s + 3]));
+            born |= matches & selectors[s + 4];
+            survive |= matches & selectors[s + 5];
+        }
+        return (alive & survive) | (~alive & born);
+    }
+
+    /**
+     * Copies words {@code [fromWord, toWord)} of row {@code y} to {@code buffer[1..]} with ghost words at
+     * both ends. On a wrapped row whose width is not a multiple of 64, the wrapped east neighbour of the last
+     * cell goes into the bit just past it instead, where the shifts in {@link #nextWord} expect it.
+     */
+    static void loadRow(Grid grid, int y, boolean wrap, int fromWord, int toWord, long[] buffer) {
+        int span = toWord - fromWord;
+        int start = grid.rowStart(y, wrap);
+        if (start < 0) {
+            Arrays.fill(buffer, 0, span + 2, 0L);
+            return;
+        }
+        long[] cells = grid.words();
+        int lastWord = grid.wordsPerRow() - 1;
+        int lastBit = (grid.width() - 1) & 63;
+        System.arraycopy(cells, start + fromWord, buffer, 1, span);
+        if (fromWord > 0) {
+            buffer[0] = cells[start + fromWord - 1];
+        } else {
+            buffer[0] = wrap ? cells[start + lastWord] << (63 - lastBit) : 0L;
+        }
+        if (toWord <= lastWord) {
+            buffer[span + 1] = cells[start + toWord];
+        } else {
+            long first = wrap ? cells[start] & 1L : 0L;
+            if (lastBit == 63) {
+                buffer[span + 1] = first;
+            } else {
+                buffer[span] |= first << (lastBit + 1);
+                buffer[span + 1] = 0L;
+            }
+        }
+    }
+
+    // Only probes the kernel class once the module is known to be present, so its incubator types never
+    // get resolved on a JVM started without it.
+    private static boolean vectorKernelAvailable() {
+        if (!Boolean.parseBoolean(System.getProperty("cellmachine.vector", "true"))) {
+            return false;
+        }
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return false;
+        }
+        try {
+            return VectorBitPackedEngine.lanes() >= VectorBitPackedEngine.MIN_LANES;
+        } catch (LinkageError ex) {
+            return false;
+        }
+    }
+
+    /**
+     * Changes to a {@link Grid}'s hash and live counts gathered over kernel calls, so they are applied, with
+     * their atomic updates, once per region rather than once per call.
+     */
+    static final class Deltas {
+        long hash;
+        long population;
+        long flipped;
+        long[] columns = new long[0];
+
+        Deltas reset(int span) {
+            if (columns.length < span) {
+                columns = new long[span];
+            } else {
+                Arrays.fill(columns, 0, span, 0L);
+            }
+            hash = 0L;
+            population = 0L;
+            flipped = 0L;
+            return this;
+        }
+
+        void applyTo(Grid grid, int fromWord, int span) {
+            grid.addColumnPopulation(fromWord, columns, 0, span);
+            grid.applyDeltas(hash, population, flipped);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.cellmachine.generator;
+
+import java.util.Objects;
+
+/**
+ * Advances a {@link Grid} two rows at a time by looking up every 2x2 block of the next generation in the
+ * rule's {@link Rule#blockTable}, indexed by the 4x4 block around it. Rows are read through the same
+ * ghost-bordered window as {@link BitPackedEngine#stepScalar}, four at a time. Works for any rule; whether
+ * it beats the bit-sliced counters depends on the CPU, which calibration finds out.
+ */
+final class BlockTableEngine {
+
+    private static final int MIN_BAND_PAIRS = 8;
+
+    private final ParallelStepper stepper;
+
+    BlockTableEngine(ParallelStepper stepper) {
+        this.stepper = Objects.requireNonNull(stepper, "stepper");
+    }
+
+    void advanceInto(Grid current, Grid target, Rule rule, boolean wrap) {
+        Grid.ensureStepTarget(current, target, rule);
+        byte[] table = rule.blockTable();
+        int height = current.height();
+        stepper.forEachBand((height + 1) / 2, MIN_BAND_PAIRS, (long) current.width() * height,
+                (fromPair, toPair) -> stepRows(current, target, table, wrap, fromPair * 2, Math.min(toPair * 2, height)));
+    }
+
+    /**
+     * Computes rows {@code [fromRow, toRow)} of the next generation, {@code fromRow} being even. Disjoint
+     * ranges can run concurrently.
+     */
+    static void stepRows(Grid current, Grid next, byte[] table, boolean wrap, int fromRow, int toRow) {
+        int wordsPerRow = current.wordsPerRow();
+        long[] target = next.words();
+        long lastMask = Grid.lastWordMask(current.width());
+        long[][] rows = new long[4][wordsPerRow + 2];
+        BitPackedEngine.Deltas deltas = new BitPackedEngine.Deltas().reset(wordsPerRow);
+        long[] columnDeltas = deltas.columns;
+        long hashDelta = 0L;
+        long populationDelta = 0L;
+        long flipped = 0L;
+        BitPackedEngine.loadRow(current, fromRow - 1, wrap, 0, wordsPerRow, rows[0]);
+        BitPackedEngine.loadRow(current, fromRow, wrap, 0, wordsPerRow, rows[1]);
+
+        for (int y = fromRow; y < toRow; y += 2) {
+            BitPackedEngine.loadRow(current, y + 1, wrap, 0, wordsPerRow, rows[2]);
+            BitPackedEngine.loadRow(current, y + 2, wrap, 0, wordsPerRow, rows[3]);
+            boolean pair = y + 1 < toRow;
+            int topDelta = 0;
+            int bottomDelta = 0;
+            for (int i = 1; i <= wordsPerRow; i++) {
+                // lo holds each row shifted so bit b is cell b - 1; hi holds cells 63 and 64 in bits 0 and 1.
+                long lo0 = (rows[0][i] << 1) | (rows[0][i - 1] >>> 63);
+                long lo1 = (rows[1][i] << 1) | (rows[1][i - 1] >>> 63);
+                long lo2 = (rows[2][i] << 1) | (rows[2][i - 1] >>> 63);
+                long lo3 = (rows[3][i] << 1) | (rows[3][i - 1] >>> 63);
+                long top = 0L;
+                long bottom = 0L;
+                for (int b = 0; b < 62; b += 2) {
+                    int block = (int) ((lo0 >>> b) & 0xF) | (int) ((lo1 >>> b) & 0xF) << 4
+                            | (int) ((lo2 >>> b) & 0xF) << 8 | (int) ((lo3 >>> b) & 0xF) << 12;
+                    int cells = table[block];
+                    top |= (long) (cells & 3) << b;
+                    bottom |= (long) (cells >>> 2 & 3) << b;
+                }
+                int block = edgeNibble(lo0, rows[0], i) | edgeNibble(lo1, rows[1], i) << 4
+                        | edgeNibble(lo2, rows[2], i) << 8 | edgeNibble(lo3, rows[3], i) << 12;
+                int cells = table[block];
+                top |= (long) (cells & 3) << 62;
+                bottom |= (long) (cells >>> 2 & 3) << 62;
+
+                long mask = i == wordsPerRow ? lastMask : -1L;
+                int index = y * wordsPerRow + i - 1;
+                long alive = rows[1][i] & mask;
+                top &= mask;
+                int births = Long.bitCount(top & ~alive);
+                int deaths = Long.bitCount(alive & ~top);
+                topDelta += births - deaths;
+                columnDeltas[i - 1] += births - deaths;
+                flipped += births + deaths;
+                hashDelta += (top - alive) * Grid.hashKey(index);
+                target[index] = top;
+                if (pair) {
+                    index += wordsPerRow;
+                    alive = rows[2][i] & mask;
+                    bottom &= mask;
+                    births = Long.bitCount(bottom & ~alive);
+                    deaths = Long.bitCount(alive & ~bottom);
+                    bottomDelta += births - deaths;
+                    columnDeltas[i - 1] += births - deaths;
+                    flipped += births + deaths;
+                    hashDelta += (bottom - alive) * Grid.hashKey(index);
+                    target[index] = bottom;
+                }
+            }
+            next.addRowPopulation(y, topDelta);
+            populationDelta += topDelta;
+            if (pair) {
+                next.addRowPopulation(y + 1, bottomDelta);
+                populationDelta += bottomDelta;
+            }
+            long[] recycled = rows[0];
+            rows[0] = rows[2];
+            rows[2] = recycled;
+            recycled = rows[1];
+            rows[1] = rows[3];
+            rows[3] = recycled;
+        }
+        deltas.hash = hashDelta;
+        deltas.population = populationDelta;
+        deltas.flipped = flipped;
+        deltas.applyTo(next, 0, wordsPerRow);
+    }
+
+    // Cells 61 to 64 of a row for the block at bit 62, the last one coming from the next word.
+    private static int edgeNibble(long lo, long[] row, int i) {
+        return (int) (lo >>> 62) | (int) (row[i] >>> 63) << 2 | (int) (row[i + 1] & 1L) << 3;
+    }
+}
@@ -0,0 +1,31 @@
+package com.cellmachine.generator;
+
+public record CellRegion(int x, int y, int width, int height) {
+
+    public CellRegion {
+        if (x < 0 || y < 0 || width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Region must be non-empty with a non-negative origin");
+        }
+    }
+
+    public static CellRegion of(GridView grid) {
+        return new CellRegion(0, 0, grid.width(), grid.height());
+    }
+
+    /**
+     * Bounding box of both regions; either may be null for "nothing changed".
+     */
+    static CellRegion union(CellRegion first, CellRegion second) {
+        if (first == null) {
+            return second;
+        }
+        if (second == null) {
+            return first;
+        }
+        int x = Math.min(first.x, second.x);
+        int y = Math.min(first.y, second.y);
+        int right = Math.max(first.x + first.width, second.x + second.width);
+        int bottom = Math.max(first.y + first.height, second.y + second.height);
+        return new CellRegion(x, y, right - x, bottom - y);
+    }
+}
@@ -0,0 +1,70 @@
+package com.cellmachine.generator;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The final generations of finished runs, encoded as {@link GridCheckpoint}s and keyed by the run's
+ * {@link SimulationOptions#serialize() serialized options}, so a run can be extended without stepping
+ * from the seed again. Holds at most a byte budget of checkpoints, dropping the least recently used.
+ */
+final class CheckpointStore {
+
+    static final long DEFAULT_MAX_BYTES = 64L << 20;
+
+    private final long maxBytes;
+    private final Map<String, byte[]> checkpoints = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+
+    CheckpointStore(long maxBytes) {
+        if (maxBytes < 0) {
+            throw new IllegalArgumentException("Checkpoint budget must not be negative");
+        }
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Keeps the checkpoint unless it alone exceeds the budget, replacing any under the same key, and
+     * tells whether it was kept.
+     */
+    synchronized boolean put(String key, GridCheckpoint checkpoint) {
+        byte[] encoded = checkpoint.encode();
+        byte[] replaced = checkpoints.remove(key);
+        if (replaced != null) {
+            bytes -= replaced.length;
+        }
+        if (encoded.length > maxBytes) {
+            return false;
+        }
+        checkpoints.put(key, encoded);
+        bytes += encoded.length;
+        for (Iterator<byte[]> eldest = checkpoints.values().iterator(); bytes > maxBytes; ) {
+            bytes -= eldest.next().length;
+            eldest.remove();
+        }
+        return true;
+    }
+
+    /**
+     * The checkpoint stored under {@code key}, or null if there is none.
+     */
+    GridCheckpoint get(String key) {
+        byte[] encoded;
+        synchronized (this) {
+            encoded = checkpoints.get(key);
+        }
+        return encoded == null ? null : GridCheckpoint.decode(encoded);
+    }
+
+    /**
+     * The budget, which no single checkpoint kept can exceed.
+     */
+    long maxBytes() {
+        return maxBytes;
+    }
+
+    synchronized long bytes() {
+        return bytes;
+    }
+}
@@ -0,0 +1,68 @@
+package com.cellmachine.generator;
+
+/**
+ * Spots a run that has fallen into a cycle. The last {@code window} frames are kept as 64-bit hashes
+ * alongside snapshots of the grids, so a hash match is confirmed by an exact comparison before a period is
+ * reported. The window shrinks for large grids to keep the snapshots under {@link #SNAPSHOT_BUDGET_BYTES}.
+ */
+final class CycleDetector<S extends GridState<S>> {
+
+    static final int DEFAULT_MAX_PERIOD = 64;
+    static final long SNAPSHOT_BUDGET_BYTES = 32L << 20;
+
+    private final long[] hashes;
+    private final Object[] snapshots;
+    private long frames;
+
+    CycleDetector(S initial, int maxPeriod) {
+        if (maxPeriod <= 0) {
+            throw new IllegalArgumentException("Max period must be positive");
+        }
+        long gridBytes = Math.max(1L, initial.footprintBytes());
+        int window = (int) Math.max(1, Math.min(maxPeriod, SNAPSHOT_BUDGET_BYTES / gridBytes));
+        this.hashes = new long[window];
+        this.snapshots = new Object[window];
+        remember(initial, initial.contentHash());
+    }
+
+    int window() {
+        return hashes.length;
+    }
+
+    /**
+     * Records the next frame and returns the number of frames after which it repeats an earlier one within
+     * the window, or 0 if it does not.
+     */
+    int record(S frame) {
+        long hash = frame.contentHash();
+        int available = (int) Math.min(frames, hashes.length);
+        for (int period = 1; period <= available; period++) {
+            int slot = slot(frames - period);
+            if (hashes[slot] == hash && snapshot(slot).equals(frame)) {
+                return period;
+            }
+        }
+        remember(frame, hash);
+        return 0;
+    }
+
+    private void remember(S frame, long hash) {
+        int slot = slot(frames);
+        if (snapshots[slot] == null) {
+            snapshots[slot] = frame.copy();
+        } else {
+            snapshot(slot).copyFrom(frame);
+        }
+        hashes[slot] = hash;
+        frames++;
+    }
+
+    @SuppressWarnings("unchecked")
+    private S snapshot(int slot) {
+        return (S) snapshots[slot];
+    }
+
+    private int slot(long frame) {
+        return (int) (frame % hashes.length);
+    }
+}
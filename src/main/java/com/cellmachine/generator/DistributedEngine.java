@@ -0,0 +1,471 @@
+package com.cellmachine.generator;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Steps one board in several processes on this machine, each a {@link ShardWorker} holding a band of the
+ * board's rows, full width, and driven over a loopback socket. A band needs the rows next to it to step:
+ * each round the coordinator hands every band the {@code g} rows above and below it that the neighbors sent
+ * back last round, and the bands step {@code g} generations, after which those halo rows are used up. The halo
+ * is at most {@link #MAX_HALO} rows deep and never deeper than a frame's generations or the thinnest band, so a
+ * frame of {@code s} generations takes {@code ceil(s / halo)} rounds. The workers never talk to each other;
+ * every exchange is a request and its answer, which cannot deadlock.
+ *
+ * <p>With wrapping the first band's rows above are the last band's bottom rows, and each row wraps east and
+ * west within its worker, as on one grid; without it the board's top and bottom stay edges. The writers get
+ * {@link DownsampledFrame}s, shrunk by a whole factor until the image fits {@link #MAX_FRAME_SIDE} pixels.
+ *
+ * <p>Any local process can connect to the loopback port, so each run hands its workers a random token on
+ * their command line and only takes connections that open with it.
+ */
+final class DistributedEngine implements AutoCloseable {
+
+    static final int DEFAULT_WORKERS = 2;
+    static final int MAX_HALO = 8;
+    static final int MAX_FRAME_SIDE = 4096;
+    private static final int CONNECT_TIMEOUT_MILLIS = 30_000;
+    static final int TOKEN_BYTES = 32;
+    private static final long EXIT_TIMEOUT_MILLIS = 5_000L;
+    private static final int TRANSFER_WORDS = 8192;
+
+    private final int width;
+    private final int height;
+    private final int wordsPerRow;
+    private final int bandRows;
+    private final int halo;
+    private final Shard[] shards;
+    private final List<Process> processes = new ArrayList<>();
+    private final DownsampledFrame frame;
+    private final ByteBuffer transfer = ByteBuffer.allocate(TRANSFER_WORDS * Long.BYTES);
+    private DownsampledFrame previousFrame;
+    private CellRegion changedRegion;
+    private boolean changed;
+    private long births;
+    private long deaths;
+    private boolean closed;
+
+    /**
+     * Starts up to {@code workers} workers of {@code threads} threads each, one per band, and seeds the
+     * board the options describe into them. Density soups and checkpoints go out band by band as they are
+     * set; other seeds, random masks included, are put together here before any band is sent.
+     */
+    DistributedEngine(SimulationOptions options, int workers, int threads, int maxFrameSide) {
+        if (workers <= 0 || threads <= 0 || maxFrameSide <= 0) {
+            throw new IllegalArgumentException("Workers, threads and frame side must be positive");
+        }
+        SimulationDimensions dimensions = options.dimensions();
+        this.width = dimensions.width();
+        this.height = dimensions.height();
+        this.wordsPerRow = Grid.wordsPerRow(width);
+        int factor = frameFactor(dimensions, maxFrameSide);
+        // Bands start on a frame row, so each worker shades whole blocks.
+        int blockRows = (height + factor - 1) / factor;
+        int bandBlocks = (blockRows + Math.min(workers, blockRows) - 1) / Math.min(workers, blockRows);
+        this.bandRows = bandBlocks * factor;
+        int bands = (height + bandRows - 1) / bandRows;
+        int thinnest = height - (bands - 1) * bandRows;
+        this.halo = Math.min(MAX_HALO, Math.min(options.stepsPerFrame(), Math.min(bandRows, thinnest)));
+        this.shards = new Shard[bands];
+        this.frame = new DownsampledFrame((width + factor - 1) / factor, blockRows, factor);
+        try {
+            launch(options, threads, factor);
+            // Soups and checkpoints set their cells row by row; masks land anywhere.
+            SeedSink sink = new SeedSink(options.resumeFrom() != null
+                    || !SimulationEngines.isPatternSeed(options) && options.initMask() == null);
+            SimulationEngines.seed(sink, options);
+            sink.finish();
+            for (Shard shard : shards) {
+                shard.readEdges();
+            }
+            fetchFrame();
+        } catch (IOException ex) {
+            close();
+            throw new IllegalStateException("Failed to start " + bands + " shard workers", ex);
+        } catch (RuntimeException ex) {
+            close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Board cells per frame cell, the smallest that keeps the scaled frame within {@code maxFrameSide}.
+     */
+    static int frameFactor(SimulationDimensions dimensions, int maxFrameSide) {
+        long side = (long) Math.max(dimensions.width(), dimensions.height()) * dimensions.scale();
+        return (int) Math.max(1L, (side + maxFrameSide - 1) / maxFrameSide);
+    }
+
+    int bands() {
+        return shards.length;
+    }
+
+    int halo() {
+        return halo;
+    }
+
+    DownsampledFrame frame() {
+        return frame;
+    }
+
+    CellRegion changedRegion() {
+        return changedRegion;
+    }
+
+    /**
+     * Whether the frame moved: the last generation flipped cells when advancing by one, otherwise the frame
+     * differs from the one before, by levels and the board's hash.
+     */
+    boolean changed() {
+        return changed;
+    }
+
+    long births() {
+        return births;
+    }
+
+    long deaths() {
+        return deaths;
+    }
+
+    /**
+     * Steps every band by {@code generations}, stopping early once a generation leaves the board as it was,
+     * and assembles the frame.
+     */
+    void advance(int generations) {
+        if (generations > 1) {
+            if (previousFrame == null) {
+                previousFrame = frame.copy();
+            } else {
+                previousFrame.copyFrom(frame);
+            }
+        }
+        births = 0L;
+        deaths = 0L;
+        boolean moved = false;
+        long flipped = 0L;
+        try {
+            for (int done = 0; done < generations; ) {
+                int round = Math.min(halo, generations - done);
+                for (int band = 0; band < shards.length; band++) {
+                    sendStep(band, round);
+                }
+                flipped = 0L;
+                long roundFlips = 0L;
+                for (Shard shard : shards) {
+                    long born = shard.in.readLong();
+                    long died = shard.in.readLong();
+                    births += born;
+                    deaths += died;
+                    roundFlips += born + died;
+                    flipped += shard.in.readLong();
+                    shard.readEdges();
+                }
+                done += round;
+                moved |= roundFlips != 0L;
+                if (flipped == 0L) {
+                    break;
+                }
+            }
+            fetchFrame();
+        } catch (IOException ex) {
+            throw new IllegalStateException("Lost a shard worker", ex);
+        }
+        changedRegion = moved ? CellRegion.of(frame) : null;
+        changed = generations > 1 ? !frame.equals(previousFrame) : flipped != 0L;
+    }
+
+    private void sendStep(int band, int generations) throws IOException {
+        Shard shard = shards[band];
+        DataOutputStream out = shard.out;
+        out.writeByte(ShardWorker.STEP);
+        out.writeInt(generations);
+        if (!shard.topEdge) {
+            Shard above = shards[(band + shards.length - 1) % shards.length];
+            writeWords(out, above.edges, (2 * halo - generations) * wordsPerRow, generations * wordsPerRow);
+        }
+        if (!shard.bottomEdge) {
+            Shard below = shards[(band + 1) % shards.length];
+            writeWords(out, below.edges, 0, generations * wordsPerRow);
+        }
+        out.flush();
+    }
+
+    private void fetchFrame() throws IOException {
+        for (Shard shard : shards) {
+            shard.out.writeByte(ShardWorker.FRAME);
+            shard.out.flush();
+        }
+        int factor = frame.factor();
+        byte[] levels = frame.levels();
+        long population = 0L;
+        long hash = 0L;
+        CellRegion bounds = null;
+        for (Shard shard : shards) {
+            int frameRows = (shard.toRow - shard.fromRow + factor - 1) / factor;
+            shard.in.readFully(levels, shard.fromRow / factor * frame.width(), frameRows * frame.width());
+            population += shard.in.readLong();
+            hash += shard.in.readLong();
+            int left = shard.in.readInt();
+            int top = shard.in.readInt();
+            int right = shard.in.readInt();
+            int bottom = shard.in.readInt();
+            if (left >= 0) {
+                bounds = CellRegion.union(bounds, new CellRegion(left, top, right - left + 1, bottom - top + 1));
+            }
+        }
+        frame.update(population, hash, bounds);
+    }
+
+    private void launch(SimulationOptions options, int threads, int factor) throws IOException {
+        byte[] token = new byte[TOKEN_BYTES];
+        new SecureRandom().nextBytes(token);
+        try (ServerSocket server = new ServerSocket(0, shards.length, InetAddress.getLoopbackAddress())) {
+            List<String> command = workerCommand(server.getInetAddress().getHostAddress(), server.getLocalPort(),
+                    HexFormat.of().formatHex(token));
+            for (int i = 0; i < shards.length; i++) {
+                processes.add(new ProcessBuilder(command).inheritIO().start());
+            }
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(CONNECT_TIMEOUT_MILLIS);
+            // Workers take bands in the order they connect; which process holds which band does not matter.
+            for (int band = 0; band < shards.length; band++) {
+                int fromRow = band * bandRows;
+                Shard shard = new Shard(acceptWorker(server, token, deadline), fromRow,
+                        Math.min(height, fromRow + bandRows), options.wrap());
+                shards[band] = shard;
+                DataOutputStream out = shard.out;
+                out.writeInt(width);
+                out.writeInt(height);
+                out.writeInt(shard.fromRow);
+                out.writeInt(shard.toRow);
+                out.writeBoolean(options.wrap());
+                out.writeInt(halo);
+                out.writeInt(threads);
+                out.writeInt(factor);
+                out.writeUTF(options.rule().label());
+                out.flush();
+            }
+        }
+    }
+
+    /**
+     * The next connection that opens with {@code token}, by {@code deadline} in {@link System#nanoTime}
+     * terms. Connections that send anything else, or nothing in time, are closed and skipped.
+     */
+    static Socket acceptWorker(ServerSocket server, byte[] token, long deadline) throws IOException {
+        while (true) {
+            long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remaining <= 0) {
+                throw new SocketTimeoutException("Shard workers did not connect in time");
+            }
+            server.setSoTimeout((int) Math.min(Integer.MAX_VALUE, remaining));
+            Socket socket = server.accept();
+            try {
+                socket.setSoTimeout((int) Math.min(Integer.MAX_VALUE, remaining));
+                // Read unbuffered, so nothing after the token is taken from the stream the shard wraps.
+                byte[] presented = new byte[token.length];
+                new DataInputStream(socket.getInputStream()).readFully(presented);
+                if (MessageDigest.isEqual(token, presented)) {
+                    socket.setSoTimeout(0);
+                    return socket;
+                }
+            } catch (IOException ex) {
+                // Closed below like any other connection without the token.
+            }
+            socket.close();
+        }
+    }
+
+    /**
+     * This JVM's launcher, module and preview flags and class path, running {@link ShardWorker}. From a
+     * Spring Boot jar, whose classes the system class loader cannot see, the worker goes through the jar's
+     * own launcher instead.
+     */
+    private static List<String> workerCommand(String host, int port, String token) {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        for (String argument : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+            if (argument.startsWith("--add-modules") || argument.equals("--enable-preview")
+                    || argument.startsWith("-Dcellmachine.")) {
+                command.add(argument);
+            }
+        }
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        if (ShardWorker.class.getClassLoader() == ClassLoader.getSystemClassLoader()) {
+            command.add(ShardWorker.class.getName());
+        } else {
+            command.add("-Dloader.main=" + ShardWorker.class.getName());
+            command.add("org.springframework.boot.loader.launch.PropertiesLauncher");
+        }
+        command.add(host);
+        command.add(Integer.toString(port));
+        command.add(token);
+        return command;
+    }
+
+    private void writeWords(DataOutputStream out, long[] words, int offset, int count) throws IOException {
+        ShardWorker.writeWords(out, words, offset, count, transfer);
+    }
+
+    /**
+     * Tells the workers to exit and waits for them briefly before killing the ones still running.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        for (Shard shard : shards) {
+            if (shard != null) {
+                shard.close();
+            }
+        }
+        for (Process process : processes) {
+            try {
+                if (!process.waitFor(EXIT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                    process.destroyForcibly();
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    /**
+     * The coordinator's end of one worker's connection, with the band's edge rows from its last answer.
+     */
+    private final class Shard {
+        final Socket socket;
+        final DataInputStream in;
+        final DataOutputStream out;
+        final int fromRow;
+        final int toRow;
+        final boolean topEdge;
+        final boolean bottomEdge;
+        // The band's top halo rows, then its bottom ones.
+        final long[] edges;
+
+        Shard(Socket socket, int fromRow, int toRow, boolean wrap) throws IOException {
+            this.socket = socket;
+            socket.setTcpNoDelay(true);
+            this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            this.fromRow = fromRow;
+            this.toRow = toRow;
+            this.topEdge = !wrap && fromRow == 0;
+            this.bottomEdge = !wrap && toRow == height;
+            this.edges = new long[2 * halo * wordsPerRow];
+        }
+
+        void load(Grid cells) throws IOException {
+            out.writeByte(ShardWorker.LOAD);
+            out.writeBoolean(cells != null);
+            if (cells != null) {
+                writeWords(out, cells.words(), 0, (toRow - fromRow) * wordsPerRow);
+            }
+            out.flush();
+        }
+
+        void readEdges() throws IOException {
+            ShardWorker.readWords(in, edges, 0, edges.length, transfer);
+        }
+
+        void close() {
+            try (socket) {
+                out.writeByte(ShardWorker.CLOSE);
+                out.flush();
+            } catch (IOException ex) {
+                // The worker is gone already; its process is reaped below either way.
+            }
+        }
+    }
+
+    /**
+     * Takes the seed's cells and sends each band to its worker. When the seed is drawn row by row, a band
+     * goes out as soon as the seed moves past it, so the board is never held here whole; bands the seed
+     * leaves empty go out without cells.
+     */
+    private final class SeedSink implements SeedTarget {
+        private final boolean streaming;
+        private final Grid[] bands = new Grid[shards.length];
+        private int sent;
+
+        SeedSink(boolean streaming) {
+            this.streaming = streaming;
+        }
+
+        @Override
+        public int width() {
+            return width;
+        }
+
+        @Override
+        public int height() {
+            return height;
+        }
+
+        @Override
+        public boolean get(int x, int y) {
+            Grid cells = band(y / bandRows);
+            return cells != null && cells.get(x, y % bandRows);
+        }
+
+        @Override
+        public void set(int x, int y, boolean alive) {
+            int band = y / bandRows;
+            while (streaming && sent < band) {
+                send();
+            }
+            Grid cells = band(band);
+            if (cells == null) {
+                if (!alive) {
+                    return;
+                }
+                cells = new Grid(width, shards[band].toRow - shards[band].fromRow);
+                bands[band] = cells;
+            }
+            cells.set(x, y % bandRows, alive);
+        }
+
+        private Grid band(int band) {
+            if (band < sent) {
+                throw new IllegalStateException("Band " + band + " was already sent to its worker");
+            }
+            return bands[band];
+        }
+
+        private void send() {
+            try {
+                shards[sent].load(bands[sent]);
+            } catch (IOException ex) {
+                throw new IllegalStateException("Failed to seed shard worker " + sent, ex);
+            }
+            bands[sent++] = null;
+        }
+
+        void finish() {
+            while (sent < bands.length) {
+                send();
+            }
+        }
+    }
+}
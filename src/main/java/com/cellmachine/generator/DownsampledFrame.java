@@ -0,0 +1,125 @@
+package com.cellmachine.generator;
+
+import java.util.Arrays;
+
+/**
+ * A frame of a board no one process holds, as {@link DistributedEngine} assembles it from its workers: one
+ * level per {@code factor x factor} block of cells, 0 for an empty block and from 1 to 255 by the share of
+ * live cells otherwise, so frames shade each block with the palette's gradient. With a factor of 1 it shows
+ * the cells themselves, state 1 for the live ones, like any two-state grid.
+ *
+ * <p>The population, hash and live bounds are the whole board's, the last in board cells, so runs report
+ * what a single grid would. Two frames are equal when those and the levels are: the board's hash stands in
+ * for the cell-by-cell comparison nobody can make.
+ */
+final class DownsampledFrame implements GridState<DownsampledFrame> {
+
+    private final int width;
+    private final int height;
+    private final int factor;
+    private final byte[] levels;
+    private long population;
+    private long hash;
+    private CellRegion bounds;
+
+    DownsampledFrame(int width, int height, int factor) {
+        if (width <= 0 || height <= 0 || factor <= 0) {
+            throw new IllegalArgumentException("Frame dimensions and factor must be positive");
+        }
+        this.width = width;
+        this.height = height;
+        this.factor = factor;
+        this.levels = new byte[Math.multiplyExact(width, height)];
+    }
+
+    @Override
+    public int width() {
+        return width;
+    }
+
+    @Override
+    public int height() {
+        return height;
+    }
+
+    /**
+     * Board cells per frame cell along either side.
+     */
+    int factor() {
+        return factor;
+    }
+
+    @Override
+    public boolean get(int x, int y) {
+        return levels[y * width + x] != 0;
+    }
+
+    @Override
+    public int state(int x, int y) {
+        return levels[y * width + x] & 0xFF;
+    }
+
+    /**
+     * Levels row by row, for the coordinator to fill in.
+     */
+    byte[] levels() {
+        return levels;
+    }
+
+    void update(long boardPopulation, long boardHash, CellRegion boardBounds) {
+        population = boardPopulation;
+        hash = boardHash;
+        bounds = boardBounds;
+    }
+
+    @Override
+    public long aliveCount() {
+        return population;
+    }
+
+    @Override
+    public CellRegion liveBounds() {
+        return bounds;
+    }
+
+    @Override
+    public long contentHash() {
+        return hash;
+    }
+
+    @Override
+    public DownsampledFrame copy() {
+        DownsampledFrame copy = new DownsampledFrame(width, height, factor);
+        copy.copyFrom(this);
+        return copy;
+    }
+
+    @Override
+    public void copyFrom(DownsampledFrame source) {
+        if (source.width != width || source.height != height || source.factor != factor) {
+            throw new IllegalArgumentException("Frame dimensions do not match");
+        }
+        System.arraycopy(source.levels, 0, levels, 0, levels.length);
+        update(source.population, source.hash, source.bounds);
+    }
+
+    @Override
+    public long footprintBytes() {
+        return levels.length;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        return obj instanceof DownsampledFrame other && width == other.width && height == other.height
+                && factor == other.factor && population == other.population && hash == other.hash
+                && Arrays.equals(levels, other.levels);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(hash);
+    }
+}
@@ -0,0 +1,256 @@
+package com.cellmachine.generator;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Picks the {@link SimulationEngine} for each run. A request may name one; otherwise the choice follows
+ * the workload: native memory for boards whose dense grids would crowd the heap, HashLife for time-lapses
+ * of compact patterns, sparse chunks while the population leaves most of a large board empty, and the tiled
+ * dense engine for everything else. {@link #calibrate} replaces
+ * the per-generation part of that choice with timings taken on this machine.
+ */
+final class EngineSelector {
+
+    // Sparse chunks are single-threaded, so the board must grow with the threads dense stepping can use.
+    static final long SPARSE_MIN_CELLS_PER_THREAD = 1L << 20;
+    // A run holds two grids, a cycle snapshot and a time-lapse snapshot: four longs per word. Boards needing
+    // more than half the heap that way go off-heap, where the same four live in native memory, if they fit
+    // its limit.
+    static final long RUN_BYTES_PER_WORD = 4L * Long.BYTES;
+    static final int DEFAULT_CALIBRATION_GENERATIONS = 16;
+    // One representative board side per size class; see sizeClass().
+    private static final int[] CALIBRATION_SIDES = {128, 512, 2048};
+
+    private final Map<String, SimulationEngine> engines = new LinkedHashMap<>();
+    private final int threads;
+    private final long heapBytes;
+    private final long nativeBytes;
+    private volatile Map<Workload, String> calibrated = Map.of();
+
+    EngineSelector(List<SimulationEngine> engines, int threads) {
+        this(engines, threads, Runtime.getRuntime().maxMemory(), OffHeapEngine.nativeLimitBytes());
+    }
+
+    EngineSelector(List<SimulationEngine> engines, int threads, long heapBytes, long nativeBytes) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Thread count must be positive");
+        }
+        for (SimulationEngine engine : engines) {
+            if (this.engines.putIfAbsent(engine.name(), engine) != null) {
+                throw new IllegalArgumentException("Duplicate simulation engine '" + engine.name() + "'");
+            }
+        }
+        if (this.engines.isEmpty()) {
+            throw new IllegalArgumentException("At least one simulation engine is required");
+        }
+        this.threads = threads;
+        this.heapBytes = heapBytes;
+        this.nativeBytes = nativeBytes;
+    }
+
+    Set<String> names() {
+        return Collections.unmodifiableSet(engines.keySet());
+    }
+
+    SimulationEngine select(SimulationOptions options) {
+        String requested = options.engine();
+        if (requested == null) {
+            return automatic(options);
+        }
+        SimulationEngine engine = engines.get(requested);
+        if (engine == null) {
+            throw new IllegalArgumentException(
+                    "Unknown simulation engine '" + requested + "'; expected one of " + engines.keySet());
+        }
+        if (!engine.supports(options)) {
+            throw new IllegalArgumentException(
+                    "Simulation engine '" + requested + "' does not support rule " + options.rule().label());
+        }
+        return engine;
+    }
+
+    private SimulationEngine automatic(SimulationOptions options) {
+        long words = words(options);
+        if (words * RUN_BYTES_PER_WORD > heapBytes / 2) {
+            SimulationEngine sparse = mostlyEmpty(options) ? supporting(SimulationEngines.SPARSE, options) : null;
+            if (sparse != null) {
+                return sparse;
+            }
+            SimulationEngine offHeap = supporting(SimulationEngines.OFF_HEAP, options);
+            if (offHeap != null && words * RUN_BYTES_PER_WORD <= nativeBytes) {
+                return offHeap;
+            }
+        }
+        if (options.stepsPerFrame() > 1 && SimulationEngines.isPatternSeed(options)) {
+            SimulationEngine hashLife = supporting(SimulationEngines.HASHLIFE, options);
+            if (hashLife != null) {
+                return hashLife;
+            }
+        }
+        SimulationEngine measured = supporting(calibrated.get(Workload.of(options)), options);
+        if (measured != null) {
+            return measured;
+        }
+        if (mostlyEmpty(options)) {
+            SimulationEngine sparse = supporting(SimulationEngines.SPARSE, options);
+            if (sparse != null) {
+                return sparse;
+            }
+        }
+        for (String name : new String[]{SimulationEngines.TILED, SimulationEngines.REFERENCE}) {
+            SimulationEngine engine = supporting(name, options);
+            if (engine != null) {
+                return engine;
+            }
+        }
+        for (SimulationEngine engine : engines.values()) {
+            if (engine.supports(options)) {
+                return engine;
+            }
+        }
+        throw new IllegalArgumentException("No simulation engine supports rule " + options.rule().label());
+    }
+
+    private SimulationEngine supporting(String name, SimulationOptions options) {
+        SimulationEngine engine = name == null ? null : engines.get(name);
+        return engine != null && engine.supports(options) ? engine : null;
+    }
+
+    private static long words(SimulationOptions options) {
+        SimulationDimensions dimensions = options.dimensions();
+        return (long) Grid.wordsPerRow(dimensions.width()) * dimensions.height();
+    }
+
+    /**
+     * Whether the seed is expected to leave all but a ninth of the chunks (and their neighbours) empty on a
+     * board large enough for skipping them to beat dense stepping on the available threads.
+     */
+    private boolean mostlyEmpty(SimulationOptions options) {
+        SimulationDimensions dimensions = options.dimensions();
+        long cells = (long) dimensions.width() * dimensions.height();
+        if (cells < SPARSE_MIN_CELLS_PER_THREAD * threads) {
+            return false;
+        }
+        long chunks = (long) chunks(dimensions.width()) * chunks(dimensions.height());
+        long liveChunks = Math.min(chunks, estimatedPopulation(options));
+        return liveChunks * 9 < chunks;
+    }
+
+    private static int chunks(int cells) {
+        return (cells + SparseGrid.CHUNK_SIZE - 1) >>> SparseGrid.CHUNK_SHIFT;
+    }
+
+    static long estimatedPopulation(SimulationOptions options) {
+        if (options.resumeFrom() != null) {
+            return options.resumeFrom().population();
+        }
+        if (!options.seedCells().isEmpty()) {
+            return options.seedCells().size();
+        }
+        boolean[] mask = options.initMask();
+        if (mask != null && options.density() == null) {
+            long active = 0;
+            for (boolean cell : mask) {
+                if (cell) {
+                    active++;
+                }
+            }
+            return active;
+        }
+        SimulationDimensions dimensions = options.dimensions();
+        double density = options.density() != null ? options.density() : SeedService.DEFAULT_RANDOM_DENSITY;
+        return (long) Math.ceil(density * dimensions.width() * dimensions.height());
+    }
+
+    /**
+     * Times every engine on a compact pattern and on a random soup at one board size per size class, and
+     * uses the fastest for matching runs from then on. On the smallest boards each engine runs twice, so
+     * the first one measured is not charged for warming up the JIT. Returns the choices by workload.
+     */
+    Map<Workload, String> calibrate(int generations) {
+        if (generations <= 0) {
+            throw new IllegalArgumentException("Calibration generations must be positive");
+        }
+        Map<Workload, String> choices = new LinkedHashMap<>();
+        for (int sizeClass = 0; sizeClass < CALIBRATION_SIDES.length; sizeClass++) {
+            for (boolean pattern : new boolean[]{true, false}) {
+                SimulationOptions probe = probe(CALIBRATION_SIDES[sizeClass], pattern);
+                String fastest = null;
+                long best = Long.MAX_VALUE;
+                for (SimulationEngine engine : engines.values()) {
+                    // Worker processes take longer to start than any probe takes to step.
+                    if (!engine.supports(probe) || engine.name().equals(SimulationEngines.DISTRIBUTED)) {
+                        continue;
+                    }
+                    if (sizeClass == 0) {
+                        time(engine, probe, generations);
+                    }
+                    long nanos = time(engine, probe, generations);
+                    if (nanos < best) {
+                        best = nanos;
+                        fastest = engine.name();
+                    }
+                }
+                if (fastest != null) {
+                    choices.put(new Workload(sizeClass, pattern), fastest);
+                }
+            }
+        }
+        calibrated = Map.copyOf(choices);
+        return choices;
+    }
+
+    private static SimulationOptions probe(int side, boolean pattern) {
+        SimulationOptions.Builder builder = SimulationOptions.builder()
+                .dimensions(new SimulationDimensions(side, side, 1))
+                .wrap(true);
+        if (pattern) {
+            builder.initMask(SeedService.parseInitMask("011110010"));
+        }
+        return builder.build();
+    }
+
+    private static long time(SimulationEngine engine, SimulationOptions probe, int generations) {
+        try (SimulationEngine.Run<?> run = engine.start(probe)) {
+            long start = System.nanoTime();
+            for (int generation = 0; generation < generations; generation++) {
+                run.advance(1);
+            }
+            return System.nanoTime() - start;
+        }
+    }
+
+    /**
+     * The part of a run calibration distinguishes: board size class and whether the seed is a pattern.
+     */
+    record Workload(int sizeClass, boolean pattern) {
+
+        static Workload of(SimulationOptions options) {
+            SimulationDimensions dimensions = options.dimensions();
+            long cells = (long) dimensions.width() * dimensions.height();
+            return new Workload(sizeClass(cells), SimulationEngines.isPatternSeed(options));
+        }
+
+        // Class boundaries sit between the calibration sides. Boards from 4096x4096 up are a class of their
+        // own that is never calibrated, since timings at 2048x2048 say little about them.
+        static int sizeClass(long cells) {
+            if (cells < 256L * 256) {
+                return 0;
+            }
+            if (cells < 1024L * 1024) {
+                return 1;
+            }
+            return cells < 4096L * 4096 ? 2 : CALIBRATION_SIDES.length;
+        }
+
+        @Override
+        public String toString() {
+            String size = sizeClass < CALIBRATION_SIDES.length ? Integer.toString(CALIBRATION_SIDES[sizeClass]) : "huge";
+            return (pattern ? "pattern" : "soup") + "@" + size;
+        }
+    }
+}
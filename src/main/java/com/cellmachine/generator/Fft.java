@@ -0,0 +1,139 @@
+package com.cellmachine.generator;
+
+/**
+ * In-place radix-2 fast Fourier transforms of one power-of-two size on float arrays, with the twiddle
+ * factors and the bit-reversal permutation computed once. Neither direction scales its output, so a
+ * transform followed by its inverse multiplies by the size. Real signals of twice the size go through
+ * {@link #realForward} and {@link #realInverse}, which pack even and odd samples into one complex transform
+ * and return the {@code size + 1} bins up to the Nyquist frequency. Instances are immutable and shared
+ * between threads; callers pass their own scratch arrays.
+ */
+final class Fft {
+
+    private final int size;
+    private final int[] reversed;
+    // cos and sin of 2*pi*j/size for j < size/2.
+    private final float[] cos;
+    private final float[] sin;
+    // cos and sin of pi*k/size for k <= size: the twiddles of the real transforms of length 2*size.
+    private final float[] realCos;
+    private final float[] realSin;
+
+    Fft(int size) {
+        if (size < 1 || Integer.bitCount(size) != 1) {
+            throw new IllegalArgumentException("FFT size must be a power of two");
+        }
+        this.size = size;
+        int bits = Integer.numberOfTrailingZeros(size);
+        reversed = new int[size];
+        for (int i = 0; i < size; i++) {
+            reversed[i] = bits == 0 ? 0 : Integer.reverse(i) >>> (32 - bits);
+        }
+        cos = new float[Math.max(1, size / 2)];
+        sin = new float[cos.length];
+        for (int j = 0; j < size / 2; j++) {
+            double angle = 2.0 * Math.PI * j / size;
+            cos[j] = (float) Math.cos(angle);
+            sin[j] = (float) Math.sin(angle);
+        }
+        realCos = new float[size + 1];
+        realSin = new float[size + 1];
+        for (int k = 0; k <= size; k++) {
+            double angle = Math.PI * k / size;
+            realCos[k] = (float) Math.cos(angle);
+            realSin[k] = (float) Math.sin(angle);
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Transforms {@code re} and {@code im}, both {@link #size()} long, forward (exponent {@code -i}) or back.
+     */
+    void transform(float[] re, float[] im, boolean inverse) {
+        for (int i = 0; i < size; i++) {
+            int j = reversed[i];
+            if (j > i) {
+                float r = re[i];
+                re[i] = re[j];
+                re[j] = r;
+                float m = im[i];
+                im[i] = im[j];
+                im[j] = m;
+            }
+        }
+        float sign = inverse ? 1f : -1f;
+        for (int length = 2; length <= size; length <<= 1) {
+            int half = length >>> 1;
+            int stride = size / length;
+            for (int j = 0; j < half; j++) {
+                float wr = cos[j * stride];
+                float wi = sign * sin[j * stride];
+                for (int a = j; a < size; a += length) {
+                    int b = a + half;
+                    float tr = re[b] * wr - im[b] * wi;
+                    float ti = re[b] * wi + im[b] * wr;
+                    re[b] = re[a] - tr;
+                    im[b] = im[a] - ti;
+                    re[a] += tr;
+                    im[a] += ti;
+                }
+            }
+        }
+    }
+
+    /**
+     * Transforms the real {@code signal} of {@code 2 * size} samples forward into bins {@code 0..size} of
+     * {@code re} and {@code im} from {@code offset}. {@code zr} and {@code zi} are {@link #size()} long scratch.
+     */
+    void realForward(float[] signal, float[] zr, float[] zi, float[] re, float[] im, int offset) {
+        for (int k = 0; k < size; k++) {
+            zr[k] = signal[2 * k];
+            zi[k] = signal[2 * k + 1];
+        }
+        transform(zr, zi, false);
+        for (int k = 0; k <= size; k++) {
+            int a = k == size ? 0 : k;
+            int b = k == 0 ? 0 : size - k;
+            // Even samples' spectrum: (Z[k] + conj Z[-k]) / 2; odd samples': (Z[k] - conj Z[-k]) / 2i.
+            float evenRe = 0.5f * (zr[a] + zr[b]);
+            float evenIm = 0.5f * (zi[a] - zi[b]);
+            float oddRe = 0.5f * (zi[a] + zi[b]);
+            float oddIm = -0.5f * (zr[a] - zr[b]);
+            float c = realCos[k];
+            float s = realSin[k];
+            re[offset + k] = evenRe + c * oddRe + s * oddIm;
+            im[offset + k] = evenIm + c * oddIm - s * oddRe;
+        }
+    }
+
+    /**
+     * The inverse of {@link #realForward}: turns bins {@code 0..size} of {@code re} and {@code im} from
+     * {@code offset} back into {@code 2 * size} real samples of {@code signal}, scaled by {@link #size()}.
+     */
+    void realInverse(float[] re, float[] im, int offset, float[] zr, float[] zi, float[] signal) {
+        for (int k = 0; k < size; k++) {
+            float xr = re[offset + k];
+            float xi = im[offset + k];
+            float cr = re[offset + size - k];
+            float ci = -im[offset + size - k];
+            float evenRe = 0.5f * (xr + cr);
+            float evenIm = 0.5f * (xi + ci);
+            float dr = 0.5f * (xr - cr);
+            float di = 0.5f * (xi - ci);
+            float c = realCos[k];
+            float s = realSin[k];
+            float oddRe = dr * c - di * s;
+            float oddIm = dr * s + di * c;
+            zr[k] = evenRe - oddIm;
+            zi[k] = evenIm + oddRe;
+        }
+        transform(zr, zi, true);
+        for (int k = 0; k < size; k++) {
+            signal[2 * k] = zr[k];
+            signal[2 * k + 1] = zi[k];
+        }
+    }
+}
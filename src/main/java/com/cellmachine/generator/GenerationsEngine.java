@@ -0,0 +1,97 @@
+package com.cellmachine.generator;
+
+import java.util.Objects;
+
+/**
+ * Advances a {@link GenerationsGrid}. The live bitplane is stepped as if the rule had two states, on the
+ * usual kernels and bands of the {@link ParallelStepper}; a second pass over the words then drops the
+ * births that land on decaying cells, starts the decay of live cells that did not survive, and moves every
+ * decaying cell one state on. Only decaying cells and cells that start decaying touch their state bytes.
+ */
+final class GenerationsEngine {
+
+    private static final int MIN_BAND_ROWS = 16;
+
+    private final ParallelStepper stepper;
+
+    GenerationsEngine(ParallelStepper stepper) {
+        this.stepper = Objects.requireNonNull(stepper, "stepper");
+    }
+
+    void advanceInto(GenerationsGrid current, GenerationsGrid target, Rule rule, boolean wrap) {
+        if (current.states() != rule.states() || target.states() != rule.states()) {
+            throw new IllegalArgumentException("Grids must have the " + rule.states() + " states of rule " + rule.label());
+        }
+        stepper.advanceInto(current.alive(), target.alive(), rule, wrap);
+        target.resetDecaying();
+        int height = current.height();
+        stepper.forEachBand(height, MIN_BAND_ROWS, (long) current.width() * height,
+                (fromRow, toRow) -> decayRows(current, target, fromRow, toRow));
+    }
+
+    /**
+     * Finishes rows {@code [fromRow, toRow)} of {@code target}, whose live plane holds the two-state step of
+     * {@code current}.
+     */
+    static void decayRows(GenerationsGrid current, GenerationsGrid target, int fromRow, int toRow) {
+        Grid next = target.alive();
+        int width = current.width();
+        int wordsPerRow = next.wordsPerRow();
+        int lastState = current.states() - 1;
+        long[] alive = current.alive().words();
+        long[] candidates = next.words();
+        long[] decaying = current.decaying();
+        long[] nextDecaying = target.decaying();
+        byte[] cells = current.cells();
+        byte[] nextCells = target.cells();
+        BitPackedEngine.Deltas deltas = new BitPackedEngine.Deltas().reset(wordsPerRow);
+        long[] columnDeltas = deltas.columns;
+        long decayingCount = 0L;
+        long decayingHash = 0L;
+
+        for (int y = fromRow; y < toRow; y++) {
+            int rowDelta = 0;
+            for (int i = 0; i < wordsPerRow; i++) {
+                int index = y * wordsPerRow + i;
+                int firstCell = y * width + (i << 6);
+                long live = alive[index];
+                long candidate = candidates[index];
+                long decay = decaying[index];
+                // Decaying cells cannot be born; the two-state step counted them as births.
+                long blocked = candidate & decay;
+                if (blocked != 0L) {
+                    int count = Long.bitCount(blocked);
+                    candidates[index] = candidate & ~decay;
+                    rowDelta -= count;
+                    columnDeltas[i] -= count;
+                    deltas.flipped -= count;
+                    deltas.hash -= blocked * Grid.hashKey(index);
+                }
+                long stillDecaying = 0L;
+                for (long bits = decay; bits != 0L; bits &= bits - 1) {
+                    int bit = Long.numberOfTrailingZeros(bits);
+                    int cell = firstCell + bit;
+                    int state = (cells[cell] & 0xFF) + 1;
+                    if (state <= lastState) {
+                        nextCells[cell] = (byte) state;
+                        stillDecaying |= 1L << bit;
+                        decayingHash += Grid.hashKey(cell) * state;
+                    }
+                }
+                long started = lastState >= 2 ? live & ~candidate : 0L;
+                for (long bits = started; bits != 0L; bits &= bits - 1) {
+                    int cell = firstCell + Long.numberOfTrailingZeros(bits);
+                    nextCells[cell] = 2;
+                    decayingHash += Grid.hashKey(cell) * 2;
+                }
+                long nextDecay = stillDecaying | started;
+                nextDecaying[index] = nextDecay;
+                decayingCount += Long.bitCount(nextDecay);
+            }
+            next.addRowPopulation(y, rowDelta);
+            deltas.population += rowDelta;
+        }
+        deltas.applyTo(next, 0, wordsPerRow);
+        target.addDecaying(decayingCount, decayingHash);
+    }
+}
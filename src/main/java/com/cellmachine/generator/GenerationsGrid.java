@@ -0,0 +1,195 @@
+package com.cellmachine.generator;
+
+import java.util.Arrays;
+
+/**
+ * Cells of a Generations rule. Live cells are a bit-packed {@link Grid}, so neighbor counting runs on the
+ * same bit-parallel kernels as two-state rules; decaying cells are a second bitplane laid out like it, and
+ * their states sit in one byte per cell. Bytes are only meaningful where the decaying plane has a bit,
+ * which lets a step touch just the decaying cells instead of rewriting every byte.
+ */
+final class GenerationsGrid implements GridState<GenerationsGrid>, SeedTarget {
+
+    private final int states;
+    private final Grid alive;
+    private final long[] decaying;
+    private final byte[] cells;
+    // Decaying cells and the sum of Grid.hashKey(cell) * state over them, rebuilt by every step.
+    private long decayingCells;
+    private long decayingHash;
+
+    GenerationsGrid(int width, int height, int states) {
+        if (states < 2 || states > Rule.MAX_STATES) {
+            throw new IllegalArgumentException("State count must be between 2 and " + Rule.MAX_STATES);
+        }
+        this.states = states;
+        this.alive = new Grid(width, height);
+        this.decaying = new long[alive.words().length];
+        this.cells = new byte[Math.multiplyExact(width, height)];
+    }
+
+    int states() {
+        return states;
+    }
+
+    @Override
+    public int width() {
+        return alive.width();
+    }
+
+    @Override
+    public int height() {
+        return alive.height();
+    }
+
+    /**
+     * Whether the cell is alive, that is in state 1.
+     */
+    @Override
+    public boolean get(int x, int y) {
+        return alive.get(x, y);
+    }
+
+    @Override
+    public int state(int x, int y) {
+        if (alive.get(x, y)) {
+            return 1;
+        }
+        int word = y * alive.wordsPerRow() + (x >>> 6);
+        return (decaying[word] >>> (x & 63) & 1L) != 0 ? cells[y * width() + x] & 0xFF : 0;
+    }
+
+    @Override
+    public void set(int x, int y, boolean alive) {
+        setState(x, y, alive ? 1 : 0);
+    }
+
+    void setState(int x, int y, int state) {
+        if (state < 0 || state >= states) {
+            throw new IllegalArgumentException("State " + state + " is out of range 0-" + (states - 1));
+        }
+        alive.set(x, y, state == 1);
+        int word = y * alive.wordsPerRow() + (x >>> 6);
+        int cell = y * width() + x;
+        long bit = 1L << (x & 63);
+        if ((decaying[word] & bit) != 0) {
+            decaying[word] &= ~bit;
+            decayingCells--;
+            decayingHash -= Grid.hashKey(cell) * (cells[cell] & 0xFF);
+        }
+        if (state >= 2) {
+            decaying[word] |= bit;
+            cells[cell] = (byte) state;
+            decayingCells++;
+            decayingHash += Grid.hashKey(cell) * state;
+        }
+    }
+
+    /**
+     * Live cells, the decaying ones not included.
+     */
+    @Override
+    public long aliveCount() {
+        return alive.aliveCount();
+    }
+
+    long decayingCount() {
+        return decayingCells;
+    }
+
+    @Override
+    public CellRegion liveBounds() {
+        return alive.liveBounds();
+    }
+
+    /**
+     * Live cells that differ from the generation this grid was last stepped from.
+     */
+    long flipped() {
+        return alive.flipped();
+    }
+
+    @Override
+    public long contentHash() {
+        return alive.contentHash() + decayingHash;
+    }
+
+    @Override
+    public GenerationsGrid copy() {
+        GenerationsGrid copy = new GenerationsGrid(width(), height(), states);
+        copy.copyFrom(this);
+        return copy;
+    }
+
+    @Override
+    public void copyFrom(GenerationsGrid source) {
+        if (source.states != states) {
+            throw new IllegalArgumentException("State counts differ");
+        }
+        alive.copyFrom(source.alive);
+        System.arraycopy(source.decaying, 0, decaying, 0, decaying.length);
+        System.arraycopy(source.cells, 0, cells, 0, cells.length);
+        decayingCells = source.decayingCells;
+        decayingHash = source.decayingHash;
+    }
+
+    @Override
+    public long footprintBytes() {
+        return alive.footprintBytes() + (long) decaying.length * Long.BYTES + cells.length;
+    }
+
+    Grid alive() {
+        return alive;
+    }
+
+    long[] decaying() {
+        return decaying;
+    }
+
+    byte[] cells() {
+        return cells;
+    }
+
+    /**
+     * Adds one band's decaying cells and their hash after a step; see {@link GenerationsEngine}.
+     */
+    synchronized void addDecaying(long count, long hash) {
+        decayingCells += count;
+        decayingHash += hash;
+    }
+
+    void resetDecaying() {
+        decayingCells = 0L;
+        decayingHash = 0L;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof GenerationsGrid other)) {
+            return false;
+        }
+        if (states != other.states || decayingCells != other.decayingCells || !alive.equals(other.alive)
+                || !Arrays.equals(decaying, other.decaying)) {
+            return false;
+        }
+        int wordsPerRow = alive.wordsPerRow();
+        for (int word = 0; word < decaying.length; word++) {
+            int rowCell = (word / wordsPerRow) * width() + (word % wordsPerRow) * 64;
+            for (long bits = decaying[word]; bits != 0L; bits &= bits - 1) {
+                int cell = rowCell + Long.numberOfTrailingZeros(bits);
+                if (cells[cell] != other.cells[cell]) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(contentHash());
+    }
+}
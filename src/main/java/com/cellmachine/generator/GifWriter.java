@@ -20,6 +20,8 @@ public final class GifWriter implements Closeable {
     private final int width;
     private final int height;
     private final int scale;
+    // Pixels odd rows are drawn to the right of even ones, half a cell for hexagonal rules.
+    private final int rowShift;
     private final int delayCs;
     private final ImageWriter writer;
     private final ImageWriteParam writeParam;
@@ -29,13 +31,46 @@ public final class GifWriter implements Closeable {
     private boolean closed;
 
     public GifWriter(OutputStream output, int width, int height, int scale, int delayCs, Palette2D palette) throws IOException {
+        this(output, width, height, scale, delayCs, palette, 2);
+    }
+
+    /**
+     * A writer for cells with {@code states} states, each drawn with its entry of
+     * {@link Palette2D#colors(int)} in the frame's indexed color table.
+     */
+    public GifWriter(OutputStream output, int width, int height, int scale, int delayCs, Palette2D palette, int states)
+            throws IOException {
+        this(output, width, height, scale, delayCs, Objects.requireNonNull(palette, "palette").colors(states));
+    }
+
+    /**
+     * A writer drawing each cell {@link GridView#state state} with its entry of {@code colors}, 0xRRGGBB values
+     * such as {@link Palette2D#gradient(int)} returns.
+     */
+    GifWriter(OutputStream output, int width, int height, int scale, int delayCs, int[] colors) throws IOException {
+        this(output, width, height, scale, delayCs, colors, false);
+    }
+
+    /**
+     * Like {@link #GifWriter(OutputStream, int, int, int, int, int[])}; with {@code hexagonal} set, odd rows are
+     * drawn half a cell to the right, so each cell touches the six cells a {@link Neighborhood#HEXAGONAL}
+     * rule counts. Frames are then {@code scale / 2} pixels wider, and redraw whole rows.
+     */
+    GifWriter(OutputStream output, int width, int height, int scale, int delayCs, int[] colors, boolean hexagonal)
+            throws IOException {
         if (scale <= 0) {
             throw new IllegalArgumentException("Scale must be greater than zero");
         }
-        Objects.requireNonNull(palette, "palette");
+        if (hexagonal && scale < 2) {
+            throw new IllegalArgumentException("Hexagonal frames need a scale of at least 2");
+        }
+        if (colors.length < 2 || colors.length > 256) {
+            throw new IllegalArgumentException("GIF frames hold between 2 and 256 colors");
+        }
         this.width = width;
         this.height = height;
         this.scale = scale;
+        this.rowShift = hexagonal ? scale / 2 : 0;
         this.delayCs = delayCs;
         var writers = ImageIO.getImageWritersBySuffix("gif");
         if (!writers.hasNext()) {
@@ -46,37 +81,57 @@ public final class GifWriter implements Closeable {
         this.outputStream = ImageIO.createImageOutputStream(output);
         this.writer.setOutput(outputStream);
         this.writer.prepareWriteSequence(null);
-        this.colorModel = buildColorModel(palette.deadColor, palette.aliveColor);
+        this.colorModel = buildColorModel(colors);
+    }
+
+    public void writeFrame(GridView grid) throws IOException {
+        writeFrame(grid, CellRegion.of(grid));
     }
 
-    public void writeFrame(Grid grid) throws IOException {
+    /**
+     * Writes a frame that only redraws {@code changed}; the rest of the previous frame stays on screen.
+     * A {@code null} region repeats the previous frame. The first frame is always drawn in full.
+     */
+    public void writeFrame(GridView grid, CellRegion changed) throws IOException {
         ensureDimensions(grid);
-        BufferedImage image = rasterize(grid);
-        IIOMetadata metadata = buildMetadata(image, firstFrame);
+        CellRegion region;
+        if (firstFrame) {
+            region = CellRegion.of(grid);
+        } else if (changed == null) {
+            region = new CellRegion(0, 0, 1, 1);
+        } else {
+            region = changed;
+        }
+        if (rowShift != 0) {
+            // Shifted rows straddle the cell columns; redraw them whole.
+            region = new CellRegion(0, region.y(), width, region.height());
+        }
+        BufferedImage image = rasterize(grid, region);
+        IIOMetadata metadata = buildMetadata(image, region, firstFrame);
         writer.writeToSequence(new IIOImage(image, null, metadata), writeParam);
         firstFrame = false;
     }
 
-    private void ensureDimensions(Grid grid) {
+    private void ensureDimensions(GridView grid) {
         if (grid.width() != width || grid.height() != height) {
             throw new IllegalArgumentException("Grid dimensions do not match writer dimensions");
         }
     }
 
-    private BufferedImage rasterize(Grid grid) {
-        int scaledWidth = width * scale;
-        int scaledHeight = height * scale;
+    private BufferedImage rasterize(GridView grid, CellRegion region) {
+        int scaledWidth = region.width() * scale + rowShift;
+        int scaledHeight = region.height() * scale;
         BufferedImage image = new BufferedImage(scaledWidth, scaledHeight, BufferedImage.TYPE_BYTE_INDEXED, colorModel);
-        for (int y = 0; y < grid.height(); y++) {
-            for (int x = 0; x < grid.width(); x++) {
-                if (!grid.get(x, y)) {
+        for (int y = 0; y < region.height(); y++) {
+            int shift = ((region.y() + y) & 1) != 0 ? rowShift : 0;
+            for (int x = 0; x < region.width(); x++) {
+                int state = grid.state(region.x() + x, region.y() + y);
+                if (state == 0) {
                     continue;
                 }
                 for (int sy = 0; sy < scale; sy++) {
-                    int row = (y * scale + sy) * scaledWidth;
                     for (int sx = 0; sx < scale; sx++) {
-                        int pixelX = x * scale + sx;
-                        image.getRaster().setSample(pixelX, y * scale + sy, 0, 1);
+                        image.getRaster().setSample(x * scale + shift + sx, y * scale + sy, 0, state);
                     }
                 }
             }
@@ -84,7 +139,7 @@ public final class GifWriter implements Closeable {
         return image;
     }
 
-    private IIOMetadata buildMetadata(BufferedImage image, boolean includeLoop) throws IOException {
+    private IIOMetadata buildMetadata(BufferedImage image, CellRegion region, boolean includeLoop) throws IOException {
         ImageTypeSpecifier typeSpecifier = ImageTypeSpecifier.createFromRenderedImage(image);
         IIOMetadata metadata = writer.getDefaultImageMetadata(typeSpecifier, writeParam);
         String formatName = metadata.getNativeMetadataFormatName();
@@ -98,8 +153,8 @@ public final class GifWriter implements Closeable {
         graphicsControl.setAttribute("transparentColorIndex", "0");
 
         IIOMetadataNode imageDescriptor = getNode(root, "ImageDescriptor");
-        imageDescriptor.setAttribute("imageLeftPosition", "0");
-        imageDescriptor.setAttribute("imageTopPosition", "0");
+        imageDescriptor.setAttribute("imageLeftPosition", Integer.toString(region.x() * scale));
+        imageDescriptor.setAttribute("imageTopPosition", Integer.toString(region.y() * scale));
         imageDescriptor.setAttribute("imageWidth", Integer.toString(image.getWidth()));
         imageDescriptor.setAttribute("imageHeight", Integer.toString(image.getHeight()));
         imageDescriptor.setAttribute("interlaceFlag", "FALSE");
@@ -164,29 +219,17 @@ public final class GifWriter implements Closeable {
         }
     }
 
-    private IndexColorModel buildColorModel(String deadHex, String aliveHex) {
-        int deadRgb = parseHexColor(deadHex);
-        int aliveRgb = parseHexColor(aliveHex);
-        byte[] reds = new byte[]{
-            (byte) ((deadRgb >> 16) & 0xFF),
-            (byte) ((aliveRgb >> 16) & 0xFF)
-        };
-        byte[] greens = new byte[]{
-            (byte) ((deadRgb >> 8) & 0xFF),
-            (byte) ((aliveRgb >> 8) & 0xFF)
-        };
-        byte[] blues = new byte[]{
-            (byte) (deadRgb & 0xFF),
-            (byte) (aliveRgb & 0xFF)
-        };
-        return new IndexColorModel(1, 2, reds, greens, blues);
-    }
-
-    private int parseHexColor(String hex) {
-        String normalized = hex.startsWith("#") ? hex.substring(1) : hex;
-        if (normalized.length() != 6) {
-            throw new IllegalArgumentException("Expected RGB hex color in format RRGGBB: " + hex);
+    private IndexColorModel buildColorModel(int[] colors) {
+        // GIF color tables come in powers of two; the entries past the last state stay black.
+        int bits = Math.max(1, 32 - Integer.numberOfLeadingZeros(colors.length - 1));
+        byte[] reds = new byte[1 << bits];
+        byte[] greens = new byte[1 << bits];
+        byte[] blues = new byte[1 << bits];
+        for (int i = 0; i < colors.length; i++) {
+            reds[i] = (byte) ((colors[i] >> 16) & 0xFF);
+            greens[i] = (byte) ((colors[i] >> 8) & 0xFF);
+            blues[i] = (byte) (colors[i] & 0xFF);
         }
-        return Integer.parseInt(normalized, 16);
+        return new IndexColorModel(bits, 1 << bits, reds, greens, blues);
     }
 }
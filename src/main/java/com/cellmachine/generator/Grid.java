@@ -1,12 +1,40 @@
 package com.cellmachine.generator;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.util.Arrays;
+import java.util.Objects;
 
-public final class Grid {
+public final class Grid implements GridState<Grid>, SeedTarget, PackedRows {
+
+    private static final VarHandle HASH;
+    private static final VarHandle POPULATION;
+    private static final VarHandle FLIPPED;
+    private static final VarHandle COLUMN_POPULATION = MethodHandles.arrayElementVarHandle(long[].class);
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            HASH = lookup.findVarHandle(Grid.class, "hash", long.class);
+            POPULATION = lookup.findVarHandle(Grid.class, "population", long.class);
+            FLIPPED = lookup.findVarHandle(Grid.class, "flipped", long.class);
+        } catch (ReflectiveOperationException ex) {
+            throw new ExceptionInInitializerError(ex);
+        }
+    }
 
     private final int width;
     private final int height;
-    private final boolean[] cells;
+    private final int wordsPerRow;
+    private final long[] words;
+    // Sum of hashKey(i) * words[i], kept current by every write; see contentHash().
+    private long hash;
+    // Live cells in total, per row and per word column, kept current by every write like the hash.
+    private long population;
+    private final int[] rowPopulation;
+    private final long[] columnPopulation;
+    // Cells that differ from the generation this grid was last stepped from.
+    private long flipped;
 
     public Grid(int width, int height) {
         if (width <= 0 || height <= 0) {
@@ -14,68 +42,244 @@ public final class Grid {
         }
         this.width = width;
         this.height = height;
-        this.cells = new boolean[width * height];
-    }
-
-    private Grid(int width, int height, boolean[] cells) {
-        this.width = width;
-        this.height = height;
-        this.cells = cells;
+        this.wordsPerRow = wordsPerRow(width);
+        this.words = new long[Math.multiplyExact(wordsPerRow, height)];
+        this.rowPopulation = new int[height];
+        this.columnPopulation = new long[wordsPerRow];
     }
 
+    @Override
     public int width() {
         return width;
     }
 
+    @Override
     public int height() {
         return height;
     }
 
+    @Override
     public void set(int x, int y, boolean alive) {
         int idx = index(x, y);
-        cells[idx] = alive;
+        long bit = 1L << (x & 63);
+        long previous = words[idx];
+        long updated = alive ? previous | bit : previous & ~bit;
+        words[idx] = updated;
+        hash += (updated - previous) * hashKey(idx);
+        if (updated != previous) {
+            int delta = alive ? 1 : -1;
+            population += delta;
+            rowPopulation[y] += delta;
+            columnPopulation[x >>> 6] += delta;
+        }
     }
 
+    @Override
     public boolean get(int x, int y) {
         int idx = index(x, y);
-        return cells[idx];
+        return (words[idx] & (1L << (x & 63))) != 0;
     }
 
-    public int aliveCount() {
-        int count = 0;
-        for (boolean cell : cells) {
-            if (cell) {
-                count++;
-            }
+    @Override
+    public long aliveCount() {
+        return population;
+    }
+
+    /**
+     * The rows and columns holding live cells, found from the per-row and per-column counts plus one
+     * word column at either side, without scanning the cells.
+     */
+    @Override
+    public CellRegion liveBounds() {
+        if (population == 0) {
+            return null;
         }
-        return count;
+        int top = 0;
+        while (rowPopulation[top] == 0) {
+            top++;
+        }
+        int bottom = height - 1;
+        while (rowPopulation[bottom] == 0) {
+            bottom--;
+        }
+        int left = 0;
+        while (columnPopulation[left] == 0) {
+            left++;
+        }
+        int right = wordsPerRow - 1;
+        while (columnPopulation[right] == 0) {
+            right--;
+        }
+        long leftBits = 0L;
+        long rightBits = 0L;
+        for (int y = top; y <= bottom; y++) {
+            leftBits |= words[y * wordsPerRow + left];
+            rightBits |= words[y * wordsPerRow + right];
+        }
+        int x = (left << 6) + Long.numberOfTrailingZeros(leftBits);
+        int lastX = (right << 6) + 63 - Long.numberOfLeadingZeros(rightBits);
+        return new CellRegion(x, top, lastX - x + 1, bottom - top + 1);
+    }
+
+    /**
+     * Cells that differ from the grid this one was last stepped from, counted by the kernels while they
+     * write; 0 before the first step.
+     */
+    long flipped() {
+        return flipped;
+    }
+
+    int wordsPerRow() {
+        return wordsPerRow;
+    }
+
+    @Override
+    public long rowWord(int y, int w) {
+        return words[y * wordsPerRow + w];
+    }
+
+    long[] words() {
+        return words;
+    }
+
+    /**
+     * Hash key of word {@code index} in {@link #words()}, derived from the index alone so no grid stores its
+     * keys. Step kernels write targets prepared by {@link #ensureStepTarget}, whose totals are still those of
+     * the source generation: they add {@code (new - source) * hashKey(i)} to a delta and pass it to
+     * {@link #applyDeltas}, along with the change in live cells, and keep the row and column counts current
+     * with {@link #addRowPopulation} and {@link #addColumnPopulation}. Words a step leaves as they were in
+     * the source need no bookkeeping.
+     */
+    static long hashKey(long index) {
+        long z = (index + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return (z ^ (z >>> 31)) | 1L;
+    }
+
+    /**
+     * Key of row {@code y} for grids hashed row by row, each row's own sum over {@link #hashKey}s weighed by
+     * it. Drawn from the negative indexes, so no row key is also a cell's and transposed cells hash apart.
+     */
+    static long rowKey(int y) {
+        return hashKey(~(long) y);
+    }
+
+    /**
+     * Offset of row {@code y} in {@link #words()}, wrapping rows outside the grid when {@code wrap} is set
+     * and returning -1 for them otherwise.
+     */
+    int rowStart(int y, boolean wrap) {
+        if (y < 0) {
+            return wrap ? (height - 1) * wordsPerRow : -1;
+        }
+        if (y >= height) {
+            return wrap ? 0 : -1;
+        }
+        return y * wordsPerRow;
+    }
+
+    static int wordsPerRow(int width) {
+        return (width + 63) >>> 6;
+    }
+
+    static long lastWordMask(int width) {
+        int tail = width & 63;
+        return tail == 0 ? -1L : (1L << tail) - 1;
     }
 
     private int index(int x, int y) {
         if (x < 0 || x >= width || y < 0 || y >= height) {
             throw new IndexOutOfBoundsException("Coordinates out of range: (" + x + ", " + y + ")");
         }
-        return y * width + x;
+        return y * wordsPerRow + (x >>> 6);
     }
 
     public static Grid advance(Grid current, Rule rule, boolean wrap) {
         Grid next = new Grid(current.width, current.height);
+        advanceInto(current, next, rule, wrap);
+        return next;
+    }
+
+    /**
+     * Writes the next generation of {@code current} into {@code target}, overwriting all of its cells.
+     * Callers can alternate two grids this way so stepping allocates nothing.
+     */
+    public static void advanceInto(Grid current, Grid target, Rule rule, boolean wrap) {
+        ensureStepTarget(current, target, rule);
+        stepRows(current, target, rule, wrap, 0, current.height);
+    }
+
+    /**
+     * Validates a step from {@code current} into {@code target} and gives the target the hash and live
+     * counts of {@code current}, so step kernels only add what changed between the generations. Restarts
+     * the target's {@link #flipped} count.
+     */
+    static void ensureStepTarget(Grid current, Grid target, Rule rule) {
+        Objects.requireNonNull(current, "current");
+        Objects.requireNonNull(target, "target");
+        Objects.requireNonNull(rule, "rule");
+        if (current == target) {
+            throw new IllegalArgumentException("Target grid must not be the current grid");
+        }
+        if (current.width != target.width || current.height != target.height) {
+            throw new IllegalArgumentException("Target grid dimensions do not match current grid");
+        }
+        target.hash = current.hash;
+        target.population = current.population;
+        System.arraycopy(current.rowPopulation, 0, target.rowPopulation, 0, current.height);
+        System.arraycopy(current.columnPopulation, 0, target.columnPopulation, 0, current.wordsPerRow);
+        target.flipped = 0L;
+    }
+
+    /**
+     * Computes rows {@code [fromRow, toRow)} of the next generation. Rows only read {@code current}, so
+     * disjoint row ranges can be computed concurrently.
+     */
+    static void stepRows(Grid current, Grid target, Rule rule, boolean wrap, int fromRow, int toRow) {
+        stepRegion(current, target, rule, wrap, fromRow, toRow, 0, current.wordsPerRow);
+    }
+
+    /**
+     * Computes the words {@code [fromWord, toWord)} of rows {@code [fromRow, toRow)}, leaving the rest of
+     * {@code target} untouched.
+     */
+    static void stepRegion(Grid current, Grid target, Rule rule, boolean wrap,
+            int fromRow, int toRow, int fromWord, int toWord) {
+        if (rule.isTotalistic()) {
+            BitPackedEngine.step(current, target, rule, wrap, fromRow, toRow, fromWord, toWord);
+        } else {
+            NeighborhoodTableEngine.step(current, target, rule, wrap, fromRow, toRow, fromWord, toWord);
+        }
+    }
+
+    static Grid advanceReference(Grid current, Rule rule, boolean wrap) {
+        Grid next = new Grid(current.width, current.height);
+        Neighborhood counted = rule.neighborhood();
         for (int y = 0; y < current.height; y++) {
             for (int x = 0; x < current.width; x++) {
-                boolean alive = current.get(x, y);
-                int neighbors = neighborCount(current, x, y, wrap);
-                boolean nextState = rule.shouldLive(alive, neighbors);
-                next.set(x, y, nextState);
+                if (counted == Neighborhood.MOORE) {
+                    next.set(x, y, rule.nextState(neighborhood(current, x, y, wrap)));
+                } else {
+                    next.set(x, y, rule.shouldLive(current.get(x, y), neighborCount(current, x, y, wrap, counted)));
+                }
             }
         }
         return next;
     }
 
     static int neighborCount(Grid grid, int x, int y, boolean wrap) {
+        return neighborCount(grid, x, y, wrap, Neighborhood.MOORE);
+    }
+
+    /**
+     * Live cells among the {@code counted} neighbors of {@code (x, y)}.
+     */
+    static int neighborCount(Grid grid, int x, int y, boolean wrap, Neighborhood counted) {
         int count = 0;
         for (int dy = -1; dy <= 1; dy++) {
             for (int dx = -1; dx <= 1; dx++) {
-                if (dx == 0 && dy == 0) {
+                if (!counted.includes(dx, dy, y)) {
                     continue;
                 }
                 int nx = x + dx;
@@ -103,6 +307,27 @@ public final class Grid {
         return count;
     }
 
+    static int neighborhood(Grid grid, int x, int y, boolean wrap) {
+        int index = 0;
+        for (int dx = -1; dx <= 1; dx++) {
+            for (int dy = -1; dy <= 1; dy++) {
+                index <<= 1;
+                int nx = x + dx;
+                int ny = y + dy;
+                if (wrap) {
+                    nx = wrapCoordinate(nx, grid.width);
+                    ny = wrapCoordinate(ny, grid.height);
+                } else if (nx < 0 || nx >= grid.width || ny < 0 || ny >= grid.height) {
+                    continue;
+                }
+                if (grid.get(nx, ny)) {
+                    index |= 1;
+                }
+            }
+        }
+        return index;
+    }
+
     private static int wrapCoordinate(int value, int limit) {
         int mod = value % limit;
         if (mod < 0) {
@@ -111,8 +336,84 @@ public final class Grid {
         return mod;
     }
 
+    @Override
     public Grid copy() {
-        return new Grid(width, height, Arrays.copyOf(cells, cells.length));
+        Grid copy = new Grid(width, height);
+        copy.copyFrom(this);
+        return copy;
+    }
+
+    /**
+     * A 64-bit Zobrist-style hash of the cells: every word position has a random key, and the hash is the
+     * sum of key times word, so a write updates it with one multiply. Keys are odd, so changing any single
+     * word always changes the hash. It is strong enough to pick candidates for an exact comparison, and
+     * reading it costs nothing.
+     */
+    @Override
+    public long contentHash() {
+        return hash;
+    }
+
+    @Override
+    public long footprintBytes() {
+        return (long) words.length * Long.BYTES;
+    }
+
+    /**
+     * Adds a writer's deltas to the hash and the live cell count, and the cells it flipped relative to the
+     * source generation to {@link #flipped}. Atomic, so bands writing disjoint rows concurrently compose.
+     */
+    void applyDeltas(long hashDelta, long populationDelta, long flippedCells) {
+        if (hashDelta != 0L) {
+            HASH.getAndAdd(this, hashDelta);
+        }
+        if (populationDelta != 0L) {
+            POPULATION.getAndAdd(this, populationDelta);
+        }
+        if (flippedCells != 0L) {
+            FLIPPED.getAndAdd(this, flippedCells);
+        }
+    }
+
+    /**
+     * Adds to the live count of row {@code y}. Not atomic: each row has one writer at a time.
+     */
+    void addRowPopulation(int y, int delta) {
+        rowPopulation[y] += delta;
+    }
+
+    /**
+     * Adds {@code deltas[offset..offset + count)} to the live counts of the word columns from
+     * {@code fromWord}. Atomic, since bands share columns.
+     */
+    void addColumnPopulation(int fromWord, long[] deltas, int offset, int count) {
+        for (int i = 0; i < count; i++) {
+            long delta = deltas[offset + i];
+            if (delta != 0L) {
+                COLUMN_POPULATION.getAndAdd(columnPopulation, fromWord + i, delta);
+            }
+        }
+    }
+
+    @Override
+    public void copyFrom(Grid source) {
+        if (source.width != width || source.height != height) {
+            throw new IllegalArgumentException("Grid dimensions differ");
+        }
+        System.arraycopy(source.words, 0, words, 0, words.length);
+        System.arraycopy(source.rowPopulation, 0, rowPopulation, 0, height);
+        System.arraycopy(source.columnPopulation, 0, columnPopulation, 0, wordsPerRow);
+        hash = source.hash;
+        population = source.population;
+        flipped = source.flipped;
+    }
+
+    void clear() {
+        Arrays.fill(words, 0L);
+        Arrays.fill(rowPopulation, 0);
+        Arrays.fill(columnPopulation, 0L);
+        hash = 0L;
+        population = 0L;
     }
 
     @Override
@@ -123,14 +424,15 @@ public final class Grid {
         if (!(obj instanceof Grid other)) {
             return false;
         }
-        return width == other.width && height == other.height && Arrays.equals(cells, other.cells);
+        return width == other.width && height == other.height && hash == other.hash
+                && Arrays.equals(words, other.words);
     }
 
     @Override
     public int hashCode() {
         int result = Integer.hashCode(width);
         result = 31 * result + Integer.hashCode(height);
-        result = 31 * result + Arrays.hashCode(cells);
+        result = 31 * result + Long.hashCode(hash);
         return result;
     }
 }
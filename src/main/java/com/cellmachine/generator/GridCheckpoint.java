@@ -0,0 +1,367 @@
+package com.cellmachine.generator;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Objects;
+
+/**
+ * A two-state board at one generation, with what it takes to go on stepping it: the rule, whether the
+ * edges wrap and the generation number. It is held only in its compact binary form:
+ *
+ * <pre>
+ * "CMCK", version byte
+ * rule label (as {@link DataOutputStream#writeUTF} writes it), wrap flag, generation, width, height, population,
+ * period (0 unless the run was seen to repeat)
+ * the grid's words row by row, in runs: a varint {@code count << 2 | kind} for {@code count} empty words
+ * (kind 0), full words (kind 1) or literal words (kind 2), the literals following eight bytes each
+ * </pre>
+ *
+ * Empty stretches, most of a sparse board, take a byte or two; soups stay close to a bit per cell. Grids are
+ * encoded straight from their words and restored straight into the target, never copied whole on the heap.
+ */
+final class GridCheckpoint {
+
+    private static final int MAGIC = 0x434D434B;
+    private static final int VERSION = 1;
+    private static final int EMPTY = 0;
+    private static final int FULL = 1;
+    private static final int LITERAL = 2;
+    // Longer literal stretches are split, so the encoder buffers no more than this many words.
+    private static final int MAX_LITERAL_RUN = 256;
+
+    private final byte[] encoded;
+    private final Rule rule;
+    private final boolean wrap;
+    private final int step;
+    private final int width;
+    private final int height;
+    private final long population;
+    private final int period;
+    private final int cellsOffset;
+
+    private GridCheckpoint(byte[] encoded, Rule rule, boolean wrap, int step, int width, int height,
+            long population, int period, int cellsOffset) {
+        this.encoded = encoded;
+        this.rule = rule;
+        this.wrap = wrap;
+        this.step = step;
+        this.width = width;
+        this.height = height;
+        this.population = population;
+        this.period = period;
+        this.cellsOffset = cellsOffset;
+    }
+
+    /**
+     * A checkpoint of any two-state grid, which the run can go on reusing.
+     */
+    static GridCheckpoint of(GridView grid, Rule rule, boolean wrap, int step) {
+        return of(grid, rule, wrap, step, Long.MAX_VALUE);
+    }
+
+    /**
+     * Like {@link #of(GridView, Rule, boolean, int)}, but gives up and returns null as soon as the encoding
+     * grows past {@code maxBytes}, so a board too dense to keep costs no more than that.
+     */
+    static GridCheckpoint of(GridView grid, Rule rule, boolean wrap, int step, long maxBytes) {
+        Objects.requireNonNull(grid, "grid");
+        Objects.requireNonNull(rule, "rule");
+        if (!supports(rule)) {
+            throw new IllegalArgumentException("Checkpoints hold two-state rules only, not " + rule.label());
+        }
+        if (step < 0) {
+            throw new IllegalArgumentException("Checkpoint generation must not be negative");
+        }
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(buffer)) {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeUTF(rule.label());
+            out.writeBoolean(wrap);
+            out.writeInt(step);
+            out.writeInt(grid.width());
+            out.writeInt(grid.height());
+            // The population is only known once the words are read, so it is filled in afterwards.
+            int populationOffset = buffer.size();
+            out.writeLong(0L);
+            out.writeInt(0);
+            int cellsOffset = buffer.size();
+            long population = writeCells(out, buffer, grid, maxBytes);
+            if (population < 0) {
+                return null;
+            }
+            byte[] encoded = buffer.toByteArray();
+            writeLong(encoded, populationOffset, population);
+            return new GridCheckpoint(encoded, rule, wrap, step, grid.width(), grid.height(), population, 0,
+                    cellsOffset);
+        } catch (IOException ex) {
+            throw new IllegalStateException("Failed to encode checkpoint", ex);
+        }
+    }
+
+    /**
+     * Whether the rule's generations are just live and dead cells, all a checkpoint holds.
+     */
+    static boolean supports(Rule rule) {
+        return rule.states() == 2 && rule.range() == 1 && !rule.isContinuous() && !rule.isElementary();
+    }
+
+    Rule rule() {
+        return rule;
+    }
+
+    boolean wrap() {
+        return wrap;
+    }
+
+    /**
+     * Generations stepped from the seed to these cells.
+     */
+    int step() {
+        return step;
+    }
+
+    int width() {
+        return width;
+    }
+
+    int height() {
+        return height;
+    }
+
+    long population() {
+        return population;
+    }
+
+    /**
+     * Generations after which these cells come back, or 0 if the run was not seen to repeat.
+     */
+    int period() {
+        return period;
+    }
+
+    /**
+     * This checkpoint, marked as a state the run was found to come back to every {@code period} generations.
+     */
+    GridCheckpoint repeating(int period) {
+        if (period <= 0) {
+            throw new IllegalArgumentException("Period must be positive");
+        }
+        byte[] marked = encoded.clone();
+        int offset = cellsOffset - Integer.BYTES;
+        for (int i = 0; i < Integer.BYTES; i++) {
+            marked[offset + i] = (byte) (period >>> (24 - 8 * i));
+        }
+        return new GridCheckpoint(marked, rule, wrap, step, width, height, population, period, cellsOffset);
+    }
+
+    /**
+     * Sets the checkpoint's live cells in an empty grid of any layout.
+     */
+    <T extends SeedTarget> T restore(T grid) {
+        if (grid.width() != width || grid.height() != height) {
+            throw new IllegalArgumentException("Checkpoint is " + width + "x" + height
+                    + ", not " + grid.width() + "x" + grid.height());
+        }
+        try {
+            readCells(cells(), width, height, grid);
+        } catch (IOException ex) {
+            throw new IllegalStateException("Checkpoint was validated when decoded", ex);
+        }
+        return grid;
+    }
+
+    /**
+     * The encoded form; shared, not copied, so callers must not change it.
+     */
+    byte[] encode() {
+        return encoded;
+    }
+
+    /**
+     * Reads back an {@link #encode encoded} checkpoint, checking all of it but keeping the bytes as they
+     * are; the cells are only unpacked by {@link #restore}.
+     */
+    static GridCheckpoint decode(byte[] encoded) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(encoded))) {
+            if (in.readInt() != MAGIC) {
+                throw new IllegalArgumentException("Not a grid checkpoint");
+            }
+            int version = in.readUnsignedByte();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Unsupported checkpoint version " + version);
+            }
+            Rule rule = Rule.parse(in.readUTF());
+            if (!supports(rule)) {
+                throw new IllegalArgumentException("Checkpoints hold two-state rules only, not " + rule.label());
+            }
+            boolean wrap = in.readBoolean();
+            int step = in.readInt();
+            int width = in.readInt();
+            int height = in.readInt();
+            long population = in.readLong();
+            int period = in.readInt();
+            if (width <= 0 || height <= 0 || step < 0 || period < 0) {
+                throw new IllegalArgumentException("Corrupt checkpoint header");
+            }
+            int cellsOffset = encoded.length - in.available();
+            Counter counted = new Counter();
+            readCells(in, width, height, counted);
+            if (in.read() != -1) {
+                throw new IllegalArgumentException("Trailing bytes after checkpoint cells");
+            }
+            if (counted.population != population) {
+                throw new IllegalArgumentException("Checkpoint holds " + counted.population + " live cells, not "
+                        + population);
+            }
+            return new GridCheckpoint(encoded, rule, wrap, step, width, height, population, period, cellsOffset);
+        } catch (IOException ex) {
+            throw new IllegalArgumentException("Truncated grid checkpoint", ex);
+        }
+    }
+
+    private DataInputStream cells() {
+        return new DataInputStream(new ByteArrayInputStream(encoded, cellsOffset, encoded.length - cellsOffset));
+    }
+
+    // Writes the runs, returning the live cells, or -1 once the output passes maxBytes.
+    private static long writeCells(DataOutputStream out, ByteArrayOutputStream buffer, GridView grid, long maxBytes)
+            throws IOException {
+        PackedRows packed = grid instanceof PackedRows rows ? rows : null;
+        int wordsPerRow = Grid.wordsPerRow(grid.width());
+        long[] literals = new long[MAX_LITERAL_RUN];
+        int kind = -1;
+        long count = 0L;
+        long population = 0L;
+        for (int y = 0; y < grid.height(); y++) {
+            for (int w = 0; w < wordsPerRow; w++) {
+                long word = packed != null ? packed.rowWord(y, w) : word(grid, y, w);
+                population += Long.bitCount(word);
+                int next = kind(word);
+                if (next != kind || (kind == LITERAL && count == MAX_LITERAL_RUN)) {
+                    writeRun(out, kind, count, literals);
+                    if (buffer.size() > maxBytes) {
+                        return -1L;
+                    }
+                    kind = next;
+                    count = 0L;
+                }
+                if (kind == LITERAL) {
+                    literals[(int) count] = word;
+                }
+                count++;
+            }
+        }
+        writeRun(out, kind, count, literals);
+        return buffer.size() > maxBytes ? -1L : population;
+    }
+
+    private static void writeRun(DataOutputStream out, int kind, long count, long[] literals) throws IOException {
+        if (count == 0L) {
+            return;
+        }
+        writeVarint(out, count << 2 | kind);
+        if (kind == LITERAL) {
+            for (int i = 0; i < count; i++) {
+                out.writeLong(literals[i]);
+            }
+        }
+    }
+
+    // A word of a grid without packed rows, read cell by cell.
+    private static long word(GridView grid, int y, int w) {
+        int x0 = w << 6;
+        int cells = Math.min(64, grid.width() - x0);
+        long word = 0L;
+        for (int bit = 0; bit < cells; bit++) {
+            if (grid.get(x0 + bit, y)) {
+                word |= 1L << bit;
+            }
+        }
+        return word;
+    }
+
+    private static void readCells(DataInputStream in, int width, int height, SeedTarget grid) throws IOException {
+        int wordsPerRow = Grid.wordsPerRow(width);
+        long lastWordMask = Grid.lastWordMask(width);
+        long total = (long) wordsPerRow * height;
+        for (long index = 0; index < total; ) {
+            long token = readVarint(in);
+            int kind = (int) (token & 3);
+            long count = token >>> 2;
+            if (kind > LITERAL || count == 0 || count > total - index) {
+                throw new IllegalArgumentException("Corrupt checkpoint run at word " + index);
+            }
+            for (long end = index + count; index < end; index++) {
+                long word = kind == EMPTY ? 0L : kind == FULL ? -1L : in.readLong();
+                int y = (int) (index / wordsPerRow);
+                int w = (int) (index % wordsPerRow);
+                if (w == wordsPerRow - 1) {
+                    word &= lastWordMask;
+                }
+                int x0 = w << 6;
+                for (long bits = word; bits != 0L; bits &= bits - 1) {
+                    grid.set(x0 + Long.numberOfTrailingZeros(bits), y, true);
+                }
+            }
+        }
+    }
+
+    private static int kind(long word) {
+        return word == 0L ? EMPTY : word == -1L ? FULL : LITERAL;
+    }
+
+    private static void writeLong(byte[] bytes, int offset, long value) {
+        for (int i = 0; i < Long.BYTES; i++) {
+            bytes[offset + i] = (byte) (value >>> (56 - 8 * i));
+        }
+    }
+
+    private static void writeVarint(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0L) {
+            out.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarint(DataInputStream in) throws IOException {
+        long value = 0L;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Corrupt checkpoint run length");
+    }
+
+    // Counts the cells a decode would set, to check the header's population without a grid.
+    private static final class Counter implements SeedTarget {
+        long population;
+
+        @Override
+        public int width() {
+            return Integer.MAX_VALUE;
+        }
+
+        @Override
+        public int height() {
+            return Integer.MAX_VALUE;
+        }
+
+        @Override
+        public boolean get(int x, int y) {
+            return false;
+        }
+
+        @Override
+        public void set(int x, int y, boolean alive) {
+            population++;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.cellmachine.generator;
+
+/**
+ * Cell storage the simulation loop steps through. Dense and sparse grids both implement it, so frame
+ * writing and {@link CycleDetector} do not care how the cells are laid out; those that can be seeded are
+ * {@link SeedTarget}s as well.
+ */
+interface GridState<S extends GridState<S>> extends GridView {
+
+    /**
+     * Live cells, kept current by every write rather than counted on demand.
+     */
+    long aliveCount();
+
+    /**
+     * Bounding box of the live cells, or null when there are none.
+     */
+    CellRegion liveBounds();
+
+    /**
+     * Hash of the cells that equal grids share; see {@link Grid#contentHash()}.
+     */
+    long contentHash();
+
+    S copy();
+
+    void copyFrom(S source);
+
+    /**
+     * Approximate bytes held by the cells, used to budget snapshots.
+     */
+    long footprintBytes();
+}
@@ -0,0 +1,22 @@
+package com.cellmachine.generator;
+
+/**
+ * Read-only access to one generation. Views handed to frame consumers are only stable for the duration
+ * of the call; the simulation loop reuses the underlying buffers for later generations.
+ */
+public interface GridView {
+
+    int width();
+
+    int height();
+
+    boolean get(int x, int y);
+
+    /**
+     * State of a cell: 0 when dead, 1 when alive, and from 2 up the decay states of multi-state rules.
+     * Continuous rules report a level from 0 to 255 instead.
+     */
+    default int state(int x, int y) {
+        return get(x, y) ? 1 : 0;
+    }
+}
@@ -0,0 +1,505 @@
+package com.cellmachine.generator;
+
+/**
+ * HashLife for one simulation run: the pattern is kept as a hash-consed quadtree whose nodes memoize their
+ * future, so compact or repetitive patterns advance by power-of-two jumps at a cost far below the number
+ * of cells times generations.
+ *
+ * <p>The quadtree evolves on an unbounded plane. A jump of {@code T} generations is only taken while the
+ * live bounding box, grown by {@code T + 1}, stays inside the grid; light speed then guarantees that no
+ * cell ever reads across an edge, so the result is identical for wrapped and unwrapped grids. Otherwise the
+ * run continues on dense grids with {@link ActiveTileEngine} and returns to the quadtree at the next frame
+ * where the pattern is clear of the edges again.
+ *
+ * <p>Canonical nodes live in a hash table of at most {@code maxNodes} entries. A jump that would grow it
+ * further is abandoned: the table is rebuilt from the nodes reachable from the current root, dropping
+ * memoized results, and the jump is retried at half the length. When not even a single generation fits,
+ * the run steps densely until the next frame. Memory is thus bounded within a jump, not just between them.
+ */
+final class HashLifeEngine {
+
+    static final int DEFAULT_MAX_NODES = 1 << 21;
+
+    private final Rule rule;
+    private final boolean wrap;
+    private final int width;
+    private final int height;
+    private final int maxNodes;
+    private final byte[] transitions;
+    private final int rootLevel;
+    private final int rootX;
+    private final int rootY;
+    private final Node off = new Node(null, null, null, null, 0, 0, 0);
+    private final Node on = new Node(null, null, null, null, 0, 1, 1);
+    private final Node[] empty;
+    private Node[] table = new Node[1 << 16];
+    private int size;
+    private int peakNodes;
+    // Set while a jump runs; join() then refuses to grow the table past maxNodes.
+    private boolean jumping;
+    private int nextId = 2;
+    private Node root;
+
+    private final Grid frame;
+    private Grid dense;
+    private Grid denseNext;
+    private ActiveTileEngine tiles;
+    private final ParallelStepper stepper;
+    private boolean changed = true;
+
+    private int minX;
+    private int minY;
+    private int maxX;
+    private int maxY;
+
+    HashLifeEngine(Grid initial, Rule rule, boolean wrap, ParallelStepper stepper, int maxNodes) {
+        if (!supports(rule)) {
+            throw new IllegalArgumentException("HashLife does not support rule " + rule.label() + " with B0");
+        }
+        if (maxNodes <= 0) {
+            throw new IllegalArgumentException("Node cache size must be positive");
+        }
+        this.rule = rule;
+        this.wrap = wrap;
+        this.width = initial.width();
+        this.height = initial.height();
+        this.maxNodes = maxNodes;
+        this.stepper = stepper;
+        this.transitions = rule.transitions();
+        int level = 2;
+        while ((1L << (level - 2)) < Math.max(width, height)) {
+            level++;
+        }
+        this.rootLevel = level;
+        this.rootX = width / 2 - (1 << (level - 1));
+        this.rootY = height / 2 - (1 << (level - 1));
+        this.empty = new Node[level + 1];
+        internEmptyNodes();
+        this.frame = initial.copy();
+        this.root = build(rootLevel, rootX, rootY, initial);
+    }
+
+    static boolean supports(Rule rule) {
+        return !rule.nextState(0);
+    }
+
+    /**
+     * Advances the run by {@code generations}, taking the largest power-of-two jumps that stay exact.
+     */
+    void advance(int generations) {
+        Node before = root;
+        int remaining = generations;
+        while (remaining > 0) {
+            if (dense == null) {
+                int jump = exactJump(remaining);
+                if (jump > 0) {
+                    jump = jumpWithinLimit(jump);
+                }
+                if (jump > 0) {
+                    remaining -= jump;
+                    collectIfFull();
+                    continue;
+                }
+                enterDense();
+            }
+            tiles.advanceInto(dense, denseNext, rule, wrap);
+            Grid previous = dense;
+            dense = denseNext;
+            denseNext = previous;
+            remaining--;
+        }
+        if (dense != null) {
+            changed = !dense.equals(frame);
+            leaveDenseIfClear();
+            if (dense != null) {
+                frame.copyFrom(dense);
+                return;
+            }
+        } else {
+            changed = root != before;
+        }
+        frame.clear();
+        render(root, rootX, rootY, frame);
+    }
+
+    /**
+     * The generation reached by the last {@link #advance}; valid until the next call.
+     */
+    Grid frame() {
+        return frame;
+    }
+
+    /**
+     * Whether the last {@link #advance} produced a frame that differs from the one before it.
+     */
+    boolean changed() {
+        return changed;
+    }
+
+    int cachedNodes() {
+        return size;
+    }
+
+    /**
+     * The most nodes the table has held at once.
+     */
+    int peakNodes() {
+        return peakNodes;
+    }
+
+    private int exactJump(int remaining) {
+        resetBounds();
+        bounds(root, rootX, rootY);
+        int margin = margin();
+        int jump = Integer.highestOneBit(remaining);
+        while (jump > 0 && jump + 1 > margin) {
+            jump >>>= 1;
+        }
+        return jump;
+    }
+
+    /**
+     * Distance from the live bounding box to the nearest grid edge, or {@link Integer#MAX_VALUE} when empty.
+     */
+    private int margin() {
+        if (minX > maxX) {
+            return Integer.MAX_VALUE;
+        }
+        return Math.min(Math.min(minX, minY), Math.min(width - 1 - maxX, height - 1 - maxY));
+    }
+
+    private void resetBounds() {
+        minX = Integer.MAX_VALUE;
+        minY = Integer.MAX_VALUE;
+        maxX = Integer.MIN_VALUE;
+        maxY = Integer.MIN_VALUE;
+    }
+
+    private void denseBounds() {
+        resetBounds();
+        long[] words = dense.words();
+        int wordsPerRow = dense.wordsPerRow();
+        for (int y = 0; y < height; y++) {
+            int row = y * wordsPerRow;
+            for (int w = 0; w < wordsPerRow; w++) {
+                long word = words[row + w];
+                if (word == 0L) {
+                    continue;
+                }
+                minY = Math.min(minY, y);
+                maxY = y;
+                minX = Math.min(minX, (w << 6) + Long.numberOfTrailingZeros(word));
+                maxX = Math.max(maxX, (w << 6) + 63 - Long.numberOfLeadingZeros(word));
+            }
+        }
+    }
+
+    /**
+     * Advances the root by {@code jump} generations, or by the largest smaller power of two whose jump fits
+     * in the node table, collecting before each retry. Returns the generations taken, 0 if none fit.
+     */
+    private int jumpWithinLimit(int jump) {
+        while (jump > 0) {
+            jumping = true;
+            try {
+                root = expand(successor(root, Integer.numberOfTrailingZeros(jump)));
+                return jump;
+            } catch (NodeLimitReached ex) {
+                jumping = false;
+                collect();
+                jump >>>= 1;
+            } finally {
+                jumping = false;
+            }
+        }
+        return 0;
+    }
+
+    private void enterDense() {
+        dense = new Grid(width, height);
+        render(root, rootX, rootY, dense);
+        denseNext = new Grid(width, height);
+        tiles = new ActiveTileEngine(width, height, stepper);
+        root = null;
+    }
+
+    private void leaveDenseIfClear() {
+        denseBounds();
+        if (margin() < 3) {
+            return;
+        }
+        root = build(rootLevel, rootX, rootY, dense);
+        dense = null;
+        denseNext = null;
+        tiles = null;
+    }
+
+    private Node successor(Node node, int exponent) {
+        if (node.population == 0) {
+            return empty[node.level - 1];
+        }
+        int effective = Math.min(exponent, node.level - 2);
+        if (node.result != null && node.resultExponent == effective) {
+            return node.result;
+        }
+        Node result;
+        if (node.level == 2) {
+            result = baseStep(node);
+        } else {
+            Node c1 = successor(node.nw, effective);
+            Node c2 = successor(join(node.nw.ne, node.ne.nw, node.nw.se, node.ne.sw), effective);
+            Node c3 = successor(node.ne, effective);
+            Node c4 = successor(join(node.nw.sw, node.nw.se, node.sw.nw, node.sw.ne), effective);
+            Node c5 = successor(join(node.nw.se, node.ne.sw, node.sw.ne, node.se.nw), effective);
+            Node c6 = successor(join(node.ne.sw, node.ne.se, node.se.nw, node.se.ne), effective);
+            Node c7 = successor(node.sw, effective);
+            Node c8 = successor(join(node.sw.ne, node.se.nw, node.sw.se, node.se.sw), effective);
+            Node c9 = successor(node.se, effective);
+            if (effective < node.level - 2) {
+                result = join(
+                        join(c1.se, c2.sw, c4.ne, c5.nw),
+                        join(c2.se, c3.sw, c5.ne, c6.nw),
+                        join(c4.se, c5.sw, c7.ne, c8.nw),
+                        join(c5.se, c6.sw, c8.ne, c9.nw));
+            } else {
+                result = join(
+                        successor(join(c1, c2, c4, c5), effective),
+                        successor(join(c2, c3, c5, c6), effective),
+                        successor(join(c4, c5, c7, c8), effective),
+                        successor(join(c5, c6, c8, c9), effective));
+            }
+        }
+        node.result = result;
+        node.resultExponent = effective;
+        return result;
+    }
+
+    private Node baseStep(Node node) {
+        int cells = 0;
+        for (int row = 0; row < 4; row++) {
+            for (int column = 0; column < 4; column++) {
+                Node quadrant = row < 2 ? (column < 2 ? node.nw : node.ne) : (column < 2 ? node.sw : node.se);
+                Node leaf = (row & 1) == 0
+                        ? ((column & 1) == 0 ? quadrant.nw : quadrant.ne)
+                        : ((column & 1) == 0 ? quadrant.sw : quadrant.se);
+                cells |= leaf.population == 0 ? 0 : 1 << (row * 4 + column);
+            }
+        }
+        return join(
+                leaf(nextCenter(cells, 1, 1)),
+                leaf(nextCenter(cells, 1, 2)),
+                leaf(nextCenter(cells, 2, 1)),
+                leaf(nextCenter(cells, 2, 2)));
+    }
+
+    private boolean nextCenter(int cells, int row, int column) {
+        int west = columnBits(cells, row, column - 1);
+        int center = columnBits(cells, row, column);
+        int east = columnBits(cells, row, column + 1);
+        return transitions[Rule.neighborhoodIndex(west, center, east)] != 0;
+    }
+
+    private static int columnBits(int cells, int row, int column) {
+        int above = (cells >>> ((row - 1) * 4 + column)) & 1;
+        int middle = (cells >>> (row * 4 + column)) & 1;
+        int below = (cells >>> ((row + 1) * 4 + column)) & 1;
+        return (above << 2) | (middle << 1) | below;
+    }
+
+    private Node leaf(boolean alive) {
+        return alive ? on : off;
+    }
+
+    private Node expand(Node node) {
+        Node border = empty[node.level - 1];
+        return join(
+                join(border, border, border, node.nw),
+                join(border, border, node.ne, border),
+                join(border, node.sw, border, border),
+                join(node.se, border, border, border));
+    }
+
+    private Node build(int level, int x, int y, Grid grid) {
+        int side = 1 << level;
+        if (x >= width || y >= height || x + side <= 0 || y + side <= 0) {
+            return empty[level];
+        }
+        if (level == 0) {
+            return grid.get(x, y) ? on : off;
+        }
+        int half = side >>> 1;
+        return join(
+                build(level - 1, x, y, grid),
+                build(level - 1, x + half, y, grid),
+                build(level - 1, x, y + half, grid),
+                build(level - 1, x + half, y + half, grid));
+    }
+
+    private void render(Node node, int x, int y, Grid target) {
+        int side = 1 << node.level;
+        if (node.population == 0 || x >= width || y >= height || x + side <= 0 || y + side <= 0) {
+            return;
+        }
+        if (node.level == 0) {
+            target.set(x, y, true);
+            return;
+        }
+        int half = side >>> 1;
+        render(node.nw, x, y, target);
+        render(node.ne, x + half, y, target);
+        render(node.sw, x, y + half, target);
+        render(node.se, x + half, y + half, target);
+    }
+
+    private void bounds(Node node, int x, int y) {
+        int side = 1 << node.level;
+        if (node.population == 0) {
+            return;
+        }
+        if (x >= minX && y >= minY && x + side - 1 <= maxX && y + side - 1 <= maxY) {
+            return;
+        }
+        if (node.level == 0) {
+            minX = Math.min(minX, x);
+            minY = Math.min(minY, y);
+            maxX = Math.max(maxX, x);
+            maxY = Math.max(maxY, y);
+            return;
+        }
+        int half = side >>> 1;
+        bounds(node.nw, x, y);
+        bounds(node.ne, x + half, y);
+        bounds(node.sw, x, y + half);
+        bounds(node.se, x + half, y + half);
+    }
+
+    private Node join(Node nw, Node ne, Node sw, Node se) {
+        int hash = hash(nw, ne, sw, se);
+        int slot = hash & (table.length - 1);
+        for (Node node = table[slot]; node != null; node = node.chain) {
+            if (node.nw == nw && node.ne == ne && node.sw == sw && node.se == se) {
+                return node;
+            }
+        }
+        if (jumping && size >= maxNodes) {
+            throw NodeLimitReached.INSTANCE;
+        }
+        long population = nw.population + ne.population + sw.population + se.population;
+        Node node = new Node(nw, ne, sw, se, nw.level + 1, population, nextId++);
+        insert(node, slot);
+        return node;
+    }
+
+    private void insert(Node node, int slot) {
+        node.chain = table[slot];
+        table[slot] = node;
+        size++;
+        peakNodes = Math.max(peakNodes, size);
+        if (size > table.length - (table.length >>> 2)) {
+            rehash(table.length << 1);
+        }
+    }
+
+    private void rehash(int capacity) {
+        Node[] previous = table;
+        table = new Node[capacity];
+        for (Node head : previous) {
+            Node node = head;
+            while (node != null) {
+                Node following = node.chain;
+                int slot = hash(node.nw, node.ne, node.sw, node.se) & (capacity - 1);
+                node.chain = table[slot];
+                table[slot] = node;
+                node = following;
+            }
+        }
+    }
+
+    private void collectIfFull() {
+        if (size > maxNodes) {
+            collect();
+        }
+    }
+
+    private void collect() {
+        table = new Node[table.length];
+        size = 0;
+        internEmptyNodes();
+        reintern(root);
+    }
+
+    private void reintern(Node node) {
+        if (node.level == 0) {
+            return;
+        }
+        int slot = hash(node.nw, node.ne, node.sw, node.se) & (table.length - 1);
+        for (Node existing = table[slot]; existing != null; existing = existing.chain) {
+            if (existing == node) {
+                return;
+            }
+        }
+        node.result = null;
+        node.resultExponent = -1;
+        insert(node, slot);
+        reintern(node.nw);
+        reintern(node.ne);
+        reintern(node.sw);
+        reintern(node.se);
+    }
+
+    private void internEmptyNodes() {
+        empty[0] = off;
+        for (int level = 1; level < empty.length; level++) {
+            Node child = empty[level - 1];
+            Node existing = empty[level];
+            if (existing != null) {
+                existing.result = null;
+                existing.resultExponent = -1;
+                insert(existing, hash(child, child, child, child) & (table.length - 1));
+            } else {
+                empty[level] = join(child, child, child, child);
+            }
+        }
+    }
+
+    private static int hash(Node nw, Node ne, Node sw, Node se) {
+        int hash = nw.id;
+        hash = hash * 0x9E3779B1 + ne.id;
+        hash = hash * 0x9E3779B1 + sw.id;
+        hash = hash * 0x9E3779B1 + se.id;
+        return hash ^ (hash >>> 16);
+    }
+
+    // Unwinds a jump that ran out of nodes; shared and without a stack trace, as it is pure control flow.
+    private static final class NodeLimitReached extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+        static final NodeLimitReached INSTANCE = new NodeLimitReached();
+
+        private NodeLimitReached() {
+            super(null, null, false, false);
+        }
+    }
+
+    private static final class Node {
+        final Node nw;
+        final Node ne;
+        final Node sw;
+        final Node se;
+        final int level;
+        final long population;
+        final int id;
+        Node chain;
+        Node result;
+        int resultExponent = -1;
+
+        Node(Node nw, Node ne, Node sw, Node se, int level, long population, int id) {
+            this.nw = nw;
+            this.ne = ne;
+            this.sw = sw;
+            this.se = se;
+            this.level = level;
+            this.population = population;
+            this.id = id;
+        }
+    }
+}
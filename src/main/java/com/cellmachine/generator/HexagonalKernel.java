@@ -0,0 +1,158 @@
+package com.cellmachine.generator;
+
+import java.lang.constant.ConstantDescs;
+import java.lang.invoke.MethodHandles;
+
+/**
+ * Steps rules on the {@link Neighborhood#HEXAGONAL hexagonal} neighborhood. Besides the row shifted each way, a
+ * cell counts the cell straight above and below it and, on even rows, the one to the west of those, on odd
+ * rows the one to the east; which one is fixed for the whole row. Two full adders take three of the six
+ * planes each, and their sums and carries add up to a three-digit count.
+ *
+ * <p>Defined per rule by {@link RuleKernels} like {@link VonNeumannKernel}, with the same fallback.
+ */
+final class HexagonalKernel implements RuleKernels.Kernel {
+
+    // -1 without class data, when the masks come from the constructor instead.
+    private static final int BORN = mask(0);
+    private static final int SURVIVE = mask(1);
+    private static final boolean SPECIALIZED = BORN >= 0;
+
+    private final int born;
+    private final int survive;
+
+    HexagonalKernel() {
+        this(0, 0);
+    }
+
+    HexagonalKernel(int bornMask, int surviveMask) {
+        this.born = bornMask;
+        this.survive = surviveMask;
+    }
+
+    @Override
+    public void step(Grid current, Grid next, boolean wrap, int fromRow, int toRow, int fromWord, int toWord,
+            BitPackedEngine.Deltas deltas, int column) {
+        int wordsPerRow = current.wordsPerRow();
+        int span = toWord - fromWord;
+        long[] target = next.words();
+        long[][] window = BitPackedEngine.window(span);
+        long[] above = window[0];
+        long[] middle = window[1];
+        long[] below = window[2];
+        long[] columnDeltas = deltas.columns;
+        BitPackedEngine.loadRow(current, fromRow - 1, wrap, fromWord, toWord, above);
+        BitPackedEngine.loadRow(current, fromRow, wrap, fromWord, toWord, middle);
+        long spanMask = toWord == wordsPerRow ? Grid.lastWordMask(current.width()) : -1L;
+        long hashDelta = 0L;
+        long populationDelta = 0L;
+        long flipped = 0L;
+
+        for (int y = fromRow; y < toRow; y++) {
+            BitPackedEngine.loadRow(current, y + 1, wrap, fromWord, toWord, below);
+            int index = y * wordsPerRow + fromWord;
+            int rowDelta = 0;
+            boolean odd = (y & 1) != 0;
+            for (int i = 1; i <= span; i++, index++) {
+                long mask = i == span ? spanMask : -1L;
+                long alive = middle[i] & mask;
+                long result = nextWord(above, middle, below, i, odd) & mask;
+                int births = Long.bitCount(result & ~alive);
+                int deaths = Long.bitCount(alive & ~result);
+                rowDelta += births - deaths;
+                columnDeltas[column + i - 1] += births - deaths;
+                flipped += births + deaths;
+                hashDelta += (result - alive) * Grid.hashKey(index);
+                target[index] = result;
+            }
+            next.addRowPopulation(y, rowDelta);
+            populationDelta += rowDelta;
+            long[] recycled = above;
+            above = middle;
+            middle = below;
+            below = recycled;
+        }
+        deltas.hash += hashDelta;
+        deltas.population += populationDelta;
+        deltas.flipped += flipped;
+    }
+
+    private long nextWord(long[] above, long[] middle, long[] below, int i, boolean odd) {
+        long ac = above[i];
+        long aside = odd ? (ac >>> 1) | (above[i + 1] << 63) : (ac << 1) | (above[i - 1] >>> 63);
+        long bc = below[i];
+        long bside = odd ? (bc >>> 1) | (below[i + 1] << 63) : (bc << 1) | (below[i - 1] >>> 63);
+        long alive = middle[i];
+        long cw = (alive << 1) | (middle[i - 1] >>> 63);
+        long ce = (alive >>> 1) | (middle[i + 1] << 63);
+
+        // The pair above goes into one adder with the west neighbor, the pair below with the east one.
+        long aboveSum = ac ^ aside ^ cw;
+        long aboveCarry = (ac & aside) | (cw & (ac ^ aside));
+        long belowSum = bc ^ bside ^ ce;
+        long belowCarry = (bc & bside) | (ce & (bc ^ bside));
+        long ones = aboveSum ^ belowSum;
+        long onesCarry = aboveSum & belowSum;
+        long twos = aboveCarry ^ belowCarry ^ onesCarry;
+        long fours = (aboveCarry & belowCarry) | (onesCarry & (aboveCarry ^ belowCarry));
+
+        int bornMask = SPECIALIZED ? BORN : born;
+        int surviveMask = SPECIALIZED ? SURVIVE : survive;
+        long bornCells = 0L;
+        long surviving = 0L;
+        long matches;
+        if (uses(bornMask, surviveMask, 0)) {
+            matches = ~(ones | twos | fours);
+            bornCells |= select(bornMask, 0, matches);
+            surviving |= select(surviveMask, 0, matches);
+        }
+        if (uses(bornMask, surviveMask, 1)) {
+            matches = ones & ~twos & ~fours;
+            bornCells |= select(bornMask, 1, matches);
+            surviving |= select(surviveMask, 1, matches);
+        }
+        if (uses(bornMask, surviveMask, 2)) {
+            matches = ~ones & twos & ~fours;
+            bornCells |= select(bornMask, 2, matches);
+            surviving |= select(surviveMask, 2, matches);
+        }
+        if (uses(bornMask, surviveMask, 3)) {
+            matches = ones & twos & ~fours;
+            bornCells |= select(bornMask, 3, matches);
+            surviving |= select(surviveMask, 3, matches);
+        }
+        if (uses(bornMask, surviveMask, 4)) {
+            matches = ~ones & ~twos & fours;
+            bornCells |= select(bornMask, 4, matches);
+            surviving |= select(surviveMask, 4, matches);
+        }
+        if (uses(bornMask, surviveMask, 5)) {
+            matches = ones & ~twos & fours;
+            bornCells |= select(bornMask, 5, matches);
+            surviving |= select(surviveMask, 5, matches);
+        }
+        if (uses(bornMask, surviveMask, 6)) {
+            matches = ~ones & twos & fours;
+            bornCells |= select(bornMask, 6, matches);
+            surviving |= select(surviveMask, 6, matches);
+        }
+        return (alive & surviving) | (~alive & bornCells);
+    }
+
+    private static boolean uses(int bornMask, int surviveMask, int count) {
+        return ((bornMask | surviveMask) >>> count & 1) != 0;
+    }
+
+    private static long select(int mask, int count, long matches) {
+        return (mask >>> count & 1) != 0 ? matches : 0L;
+    }
+
+    private static int mask(int index) {
+        try {
+            Integer mask = MethodHandles.classDataAt(MethodHandles.lookup(), ConstantDescs.DEFAULT_NAME, Integer.class, index);
+            return mask == null ? -1 : mask;
+        } catch (IllegalAccessException ex) {
+            throw new ExceptionInInitializerError(ex);
+        }
+    }
+}
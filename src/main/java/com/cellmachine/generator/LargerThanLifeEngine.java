@@ -0,0 +1,132 @@
+package com.cellmachine.generator;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Advances a {@link Grid} under a Larger than Life rule in time independent of its range. Each band of rows
+ * keeps, for every column, the live cells in the {@code 2R+1} rows around the current one; moving down a
+ * row adds the row entering that window and removes the one leaving it. A window of {@code 2R+1} of these
+ * column sums then slides along the row, one addition and one subtraction per cell. With wrapping both
+ * windows run around the torus, so a board narrower than the box counts a cell once per time it covers it.
+ */
+final class LargerThanLifeEngine {
+
+    private static final int MIN_BAND_ROWS = 16;
+
+    private final ParallelStepper stepper;
+    // Per-thread column sums, padded with R columns on either side.
+    private final ThreadLocal<int[]> columnSums = ThreadLocal.withInitial(() -> new int[0]);
+
+    LargerThanLifeEngine(ParallelStepper stepper) {
+        this.stepper = Objects.requireNonNull(stepper, "stepper");
+    }
+
+    void advanceInto(Grid current, Grid target, Rule rule, boolean wrap) {
+        if (!rule.isLargerThanLife()) {
+            throw new IllegalArgumentException("Rule " + rule.label() + " is not a Larger than Life rule");
+        }
+        Grid.ensureStepTarget(current, target, rule);
+        int height = current.height();
+        stepper.forEachBand(height, MIN_BAND_ROWS, (long) current.width() * height,
+                (fromRow, toRow) -> stepRows(current, target, rule, wrap, fromRow, toRow));
+    }
+
+    private void stepRows(Grid current, Grid target, Rule rule, boolean wrap, int fromRow, int toRow) {
+        int width = current.width();
+        int height = current.height();
+        int wordsPerRow = current.wordsPerRow();
+        int range = rule.range();
+        int[] sums = columnSums.get();
+        if (sums.length < width + 2 * range) {
+            sums = new int[width + 2 * range];
+            columnSums.set(sums);
+        } else {
+            Arrays.fill(sums, 0, width + 2 * range, 0);
+        }
+        long[] cells = current.words();
+        long[] results = target.words();
+        int bornMin = rule.bornMin();
+        int bornSpan = rule.bornMax() - bornMin;
+        int surviveMin = rule.surviveMin();
+        int surviveSpan = rule.surviveMax() - surviveMin;
+        // The box always counts the cell itself; without M1 a live center is taken back off.
+        int center = rule.countsCenter() ? 0 : 1;
+        BitPackedEngine.Deltas deltas = new BitPackedEngine.Deltas().reset(wordsPerRow);
+        long[] columnDeltas = deltas.columns;
+
+        for (int dy = -range; dy <= range; dy++) {
+            slide(cells, sums, rowStart(fromRow + dy, height, wordsPerRow, wrap), -1, width, range);
+        }
+        for (int y = fromRow; y < toRow; y++) {
+            if (y > fromRow) {
+                slide(cells, sums, rowStart(y + range, height, wordsPerRow, wrap),
+                        rowStart(y - range - 1, height, wordsPerRow, wrap), width, range);
+            }
+            if (wrap) {
+                for (int i = 0; i < range; i++) {
+                    sums[i] = sums[range + Math.floorMod(i - range, width)];
+                    sums[range + width + i] = sums[range + Math.floorMod(i + width, width)];
+                }
+            }
+            int window = 0;
+            for (int i = 0; i < 2 * range; i++) {
+                window += sums[i];
+            }
+            int rowDelta = 0;
+            for (int i = 0; i < wordsPerRow; i++) {
+                int index = y * wordsPerRow + i;
+                long alive = cells[index];
+                int first = i << 6;
+                int bits = Math.min(64, width - first);
+                long result = 0L;
+                for (int b = 0; b < bits; b++) {
+                    int x = first + b;
+                    window += sums[x + 2 * range];
+                    int live = (int) (alive >>> b) & 1;
+                    // Picks the interval arithmetically: whether a random cell is alive is too costly to predict.
+                    int min = bornMin + live * (surviveMin - bornMin);
+                    int span = bornSpan + live * (surviveSpan - bornSpan);
+                    boolean next = Integer.compareUnsigned(window - (live & center) - min, span) <= 0;
+                    result |= (next ? 1L : 0L) << b;
+                    window -= sums[x];
+                }
+                int births = Long.bitCount(result & ~alive);
+                int deaths = Long.bitCount(alive & ~result);
+                rowDelta += births - deaths;
+                columnDeltas[i] += births - deaths;
+                deltas.flipped += births + deaths;
+                deltas.hash += (result - alive) * Grid.hashKey(index);
+                results[index] = result;
+            }
+            target.addRowPopulation(y, rowDelta);
+            deltas.population += rowDelta;
+        }
+        deltas.applyTo(target, 0, wordsPerRow);
+    }
+
+    // Where row y starts in the words, or -1 for a row past a board edge that does not wrap.
+    private static int rowStart(int y, int height, int wordsPerRow, boolean wrap) {
+        if (wrap) {
+            return Math.floorMod(y, height) * wordsPerRow;
+        }
+        return y >= 0 && y < height ? y * wordsPerRow : -1;
+    }
+
+    // Adds the row starting at word added to the column sums and takes off the one at removed.
+    private static void slide(long[] cells, int[] sums, int added, int removed, int width, int range) {
+        int wordsPerRow = Grid.wordsPerRow(width);
+        for (int i = 0; i < wordsPerRow; i++) {
+            long in = added < 0 ? 0L : cells[added + i];
+            long out = removed < 0 ? 0L : cells[removed + i];
+            if ((in | out) == 0L) {
+                continue;
+            }
+            int column = range + (i << 6);
+            int bits = Math.min(64, width - (i << 6));
+            for (int b = 0; b < bits; b++) {
+                sums[column + b] += ((int) (in >>> b) & 1) - ((int) (out >>> b) & 1);
+            }
+        }
+    }
+}
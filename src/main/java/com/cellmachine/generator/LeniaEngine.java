@@ -0,0 +1,308 @@
+package com.cellmachine.generator;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Advances a {@link LeniaGrid} under a continuous rule. The kernel covers {@code (2R+1)^2} cells, far too many
+ * to sum per cell, so the convolution runs in the frequency domain: a real transform of every row, a complex
+ * transform of every column, a product with the kernel's spectrum, and the same transforms back. Sizes are
+ * powers of two; boards that are not, or that do not wrap, are padded with {@code R} cells of halo (copied
+ * across the torus, or zero) so the transforms' circular convolution equals the board's. The kernel spectrum,
+ * the transforms and every buffer are made once per board size and rule, so steps allocate nothing.
+ */
+final class LeniaEngine {
+
+    private static final int MIN_BAND_ROWS = 8;
+    // Potentials lie in [0, 1]; growth is tabulated at this many steps and interpolated in between, since
+    // one exponential per cell would cost more than the transforms.
+    static final int GROWTH_STEPS = 1 << 14;
+
+    private final ParallelStepper stepper;
+    private final ThreadLocal<float[][]> scratch = new ThreadLocal<>();
+    private Plan plan;
+
+    LeniaEngine(ParallelStepper stepper) {
+        this.stepper = Objects.requireNonNull(stepper, "stepper");
+    }
+
+    void advanceInto(LeniaGrid current, LeniaGrid target, Rule rule, boolean wrap) {
+        if (!rule.isContinuous()) {
+            throw new IllegalArgumentException("Rule " + rule.label() + " is not a continuous rule");
+        }
+        if (current == target) {
+            throw new IllegalArgumentException("Target grid must not be the current grid");
+        }
+        if (current.width() != target.width() || current.height() != target.height()) {
+            throw new IllegalArgumentException("Target grid dimensions do not match current grid");
+        }
+        Plan plan = plan(current.width(), current.height(), rule, wrap);
+        long cells = (long) plan.columns * plan.rows;
+        target.resetCounts();
+        stepper.forEachBand(plan.rows, MIN_BAND_ROWS, cells, (from, to) -> forwardRows(plan, current, from, to));
+        stepper.forEachBand(plan.bins, MIN_BAND_ROWS, cells, (from, to) -> convolveColumns(plan, from, to));
+        stepper.forEachBand(current.height(), MIN_BAND_ROWS, cells,
+                (from, to) -> growRows(plan, current, target, from, to));
+    }
+
+    /**
+     * The convolution of {@code grid} with the rule's kernel, as the next step would see it; for tests.
+     */
+    float[] potential(LeniaGrid grid, Rule rule, boolean wrap) {
+        Plan plan = plan(grid.width(), grid.height(), rule, wrap);
+        forwardRows(plan, grid, 0, plan.rows);
+        convolveColumns(plan, 0, plan.bins);
+        float[][] buffers = buffers(plan);
+        float[] potential = new float[grid.width() * grid.height()];
+        for (int y = 0; y < grid.height(); y++) {
+            plan.rowFft.realInverse(plan.re, plan.im, y * plan.bins, buffers[1], buffers[2], buffers[0]);
+            System.arraycopy(buffers[0], 0, potential, y * grid.width(), grid.width());
+        }
+        return potential;
+    }
+
+    private Plan plan(int width, int height, Rule rule, boolean wrap) {
+        Plan cached = plan;
+        if (cached == null || cached.width != width || cached.height != height || cached.wrap != wrap
+                || !cached.rule.equals(rule)) {
+            cached = new Plan(width, height, rule, wrap);
+            plan = cached;
+        }
+        return cached;
+    }
+
+    // Transforms padded rows [from, to) into the spectrum buffers.
+    private void forwardRows(Plan plan, LeniaGrid grid, int from, int to) {
+        float[][] buffers = buffers(plan);
+        float[] row = buffers[0];
+        float[] cells = grid.cells();
+        int width = grid.width();
+        for (int j = from; j < to; j++) {
+            int source = plan.rowSource[j];
+            if (source < 0) {
+                Arrays.fill(plan.re, j * plan.bins, (j + 1) * plan.bins, 0f);
+                Arrays.fill(plan.im, j * plan.bins, (j + 1) * plan.bins, 0f);
+                continue;
+            }
+            int start = source * width;
+            for (int i = 0; i < plan.columns; i++) {
+                int column = plan.columnSource[i];
+                row[i] = column < 0 ? 0f : cells[start + column];
+            }
+            plan.rowFft.realForward(row, buffers[1], buffers[2], plan.re, plan.im, j * plan.bins);
+        }
+    }
+
+    // Transforms columns [from, to) of the row spectra, multiplies by the kernel and transforms them back.
+    private void convolveColumns(Plan plan, int from, int to) {
+        float[][] buffers = buffers(plan);
+        float[] re = buffers[3];
+        float[] im = buffers[4];
+        int bins = plan.bins;
+        for (int k = from; k < to; k++) {
+            for (int j = 0, index = k; j < plan.rows; j++, index += bins) {
+                re[j] = plan.re[index];
+                im[j] = plan.im[index];
+            }
+            plan.columnFft.transform(re, im, false);
+            for (int j = 0, index = k; j < plan.rows; j++, index += bins) {
+                float kernel = plan.kernel[index];
+                re[j] *= kernel;
+                im[j] *= kernel;
+            }
+            plan.columnFft.transform(re, im, true);
+            for (int j = 0, index = k; j < plan.rows; j++, index += bins) {
+                plan.re[index] = re[j];
+                plan.im[index] = im[j];
+            }
+        }
+    }
+
+    // Turns board rows [from, to) of the convolved spectra back into potentials and grows the cells.
+    private void growRows(Plan plan, LeniaGrid current, LeniaGrid target, int from, int to) {
+        float[][] buffers = buffers(plan);
+        float[] potential = buffers[0];
+        float[] cells = current.cells();
+        float[] next = target.cells();
+        int width = current.width();
+        float[] growth = plan.growth;
+        long visible = 0L;
+        long hash = 0L;
+        long flipped = 0L;
+        long changed = 0L;
+        for (int y = from; y < to; y++) {
+            plan.rowFft.realInverse(plan.re, plan.im, y * plan.bins, buffers[1], buffers[2], potential);
+            long rowHash = 0L;
+            for (int x = 0, cell = y * width; x < width; x++, cell++) {
+                float position = potential[x] * GROWTH_STEPS;
+                position = position < 0f ? 0f : position;
+                int index = Math.min(GROWTH_STEPS - 1, (int) position);
+                float value = cells[cell];
+                float grown = value + growth[index] + (position - index) * (growth[index + 1] - growth[index]);
+                grown = grown < 0f ? 0f : grown > 1f ? 1f : grown;
+                next[cell] = grown;
+                boolean shown = LeniaGrid.visible(grown);
+                visible += shown ? 1 : 0;
+                flipped += shown != LeniaGrid.visible(value) ? 1 : 0;
+                changed += grown != value ? 1 : 0;
+                rowHash += (x + 1L) * Float.floatToIntBits(grown);
+            }
+            hash += Grid.rowKey(y) * rowHash;
+        }
+        target.addCounts(visible, hash, flipped, changed);
+    }
+
+    // Per-thread rows: a padded real row, two halves of it for the row transform, and a column pair.
+    private float[][] buffers(Plan plan) {
+        float[][] buffers = scratch.get();
+        if (buffers == null || buffers[0].length != plan.columns || buffers[3].length != plan.rows) {
+            int half = plan.columns / 2;
+            buffers = new float[][]{new float[plan.columns], new float[half], new float[half], new float[plan.rows],
+                new float[plan.rows]};
+            scratch.set(buffers);
+        }
+        return buffers;
+    }
+
+    /**
+     * Padded transform size for one side: the side itself when it wraps and is a power of two, otherwise
+     * room for the side and its halo, which a wrapping side needs on both ends.
+     */
+    static int paddedSize(int size, int range, boolean wrap) {
+        if (wrap && size >= 2 && Integer.bitCount(size) == 1) {
+            return size;
+        }
+        int needed = Math.max(2, size + (wrap ? 2 : 1) * range);
+        return Integer.highestOneBit(needed - 1) << 1;
+    }
+
+    // Which board cell each padded position copies, or -1 for zero.
+    private static int[] sources(int size, int padded, int range, boolean wrap) {
+        int[] sources = new int[padded];
+        for (int j = 0; j < padded; j++) {
+            if (j < size) {
+                sources[j] = j;
+            } else if (wrap && j < size + range) {
+                sources[j] = Math.floorMod(j, size);
+            } else if (wrap && j >= padded - range) {
+                sources[j] = Math.floorMod(j - padded, size);
+            } else {
+                sources[j] = -1;
+            }
+        }
+        return sources;
+    }
+
+    /**
+     * The kernel's weight at offset {@code (dx, dy)} before normalizing: concentric shells, one per peak,
+     * each a smooth bump that vanishes at its edges.
+     */
+    static double kernelWeight(int dx, int dy, int range, double[] peaks) {
+        double radius = Math.sqrt((double) dx * dx + (double) dy * dy) / range;
+        if (radius >= 1.0) {
+            return 0.0;
+        }
+        double shells = radius * peaks.length;
+        int shell = (int) shells;
+        double within = shells - shell;
+        if (within <= 0.0) {
+            return 0.0;
+        }
+        return peaks[shell] * Math.exp(4.0 - 1.0 / (within * (1.0 - within)));
+    }
+
+    /**
+     * Everything one board size and rule needs: the transforms, padding maps, the kernel's spectrum, the
+     * growth per step by potential, and the spectrum buffers, {@code rows} padded rows of {@code bins} bins
+     * each.
+     */
+    private static final class Plan {
+        final int width;
+        final int height;
+        final Rule rule;
+        final boolean wrap;
+        final int columns;
+        final int rows;
+        final int bins;
+        final int[] columnSource;
+        final int[] rowSource;
+        final Fft rowFft;
+        final Fft columnFft;
+        final float[] kernel;
+        final float[] growth;
+        final float[] re;
+        final float[] im;
+
+        Plan(int width, int height, Rule rule, boolean wrap) {
+            this.width = width;
+            this.height = height;
+            this.rule = rule;
+            this.wrap = wrap;
+            int range = rule.range();
+            columns = paddedSize(width, range, wrap);
+            rows = paddedSize(height, range, wrap);
+            bins = columns / 2 + 1;
+            if ((long) rows * bins > Integer.MAX_VALUE / 2) {
+                throw new IllegalArgumentException("Board " + width + "x" + height + " is too large for the kernel");
+            }
+            columnSource = sources(width, columns, range, wrap);
+            rowSource = sources(height, rows, range, wrap);
+            rowFft = new Fft(columns / 2);
+            columnFft = new Fft(rows);
+            re = new float[rows * bins];
+            im = new float[rows * bins];
+            kernel = kernelSpectrum(range, rule.kernelPeaks());
+            growth = new float[GROWTH_STEPS + 1];
+            double spread = 2.0 * rule.growthWidth() * rule.growthWidth();
+            for (int i = 0; i <= GROWTH_STEPS; i++) {
+                double distance = (double) i / GROWTH_STEPS - rule.growthCenter();
+                growth[i] = (float) ((2.0 * Math.exp(-distance * distance / spread) - 1.0) / rule.timeSteps());
+            }
+        }
+
+        // The kernel wrapped around the padded board, normalized to sum to one, transformed like the cells;
+        // its spectrum is real since the kernel is symmetric. Folds in the transforms' scaling.
+        private float[] kernelSpectrum(int range, double[] peaks) {
+            double total = 0.0;
+            for (int dy = -range; dy <= range; dy++) {
+                for (int dx = -range; dx <= range; dx++) {
+                    total += kernelWeight(dx, dy, range, peaks);
+                }
+            }
+            if (total == 0.0) {
+                throw new IllegalArgumentException("Rule " + rule.label() + " has an empty kernel");
+            }
+            double[] field = new double[rows * columns];
+            for (int dy = -range; dy <= range; dy++) {
+                for (int dx = -range; dx <= range; dx++) {
+                    field[Math.floorMod(dy, rows) * columns + Math.floorMod(dx, columns)] +=
+                            kernelWeight(dx, dy, range, peaks) / total;
+                }
+            }
+            float[] row = new float[columns];
+            float[] zr = new float[columns / 2];
+            float[] zi = new float[columns / 2];
+            for (int j = 0; j < rows; j++) {
+                for (int i = 0; i < columns; i++) {
+                    row[i] = (float) field[j * columns + i];
+                }
+                rowFft.realForward(row, zr, zi, re, im, j * bins);
+            }
+            float[] columnRe = new float[rows];
+            float[] columnIm = new float[rows];
+            float[] spectrum = new float[rows * bins];
+            float scale = 1f / ((columns / 2) * (float) rows);
+            for (int k = 0; k < bins; k++) {
+                for (int j = 0; j < rows; j++) {
+                    columnRe[j] = re[j * bins + k];
+                    columnIm[j] = im[j * bins + k];
+                }
+                columnFft.transform(columnRe, columnIm, false);
+                for (int j = 0; j < rows; j++) {
+                    spectrum[j * bins + k] = columnRe[j] * scale;
+                }
+            }
+            return spectrum;
+        }
+    }
+}
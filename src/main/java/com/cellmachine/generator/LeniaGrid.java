@@ -0,0 +1,194 @@
+package com.cellmachine.generator;
+
+import java.util.Arrays;
+
+/**
+ * Cells of a continuous rule, one float in [0, 1] per cell, row by row. Frames show each value as one of
+ * {@link #LEVELS} levels; a cell counts as alive, for the population and for births and deaths, whenever
+ * its level is above zero.
+ */
+final class LeniaGrid implements GridState<LeniaGrid>, SeedTarget {
+
+    static final int LEVELS = 256;
+
+    private final int width;
+    private final int height;
+    private final float[] cells;
+    // Visible cells and the sum of Grid.rowKey(y) * (x + 1) * value bits, rebuilt by every step.
+    private long visible;
+    private long hash;
+    private long flipped;
+    private long changed;
+
+    LeniaGrid(int width, int height) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Grid dimensions must be positive");
+        }
+        this.width = width;
+        this.height = height;
+        this.cells = new float[Math.multiplyExact(width, height)];
+    }
+
+    @Override
+    public int width() {
+        return width;
+    }
+
+    @Override
+    public int height() {
+        return height;
+    }
+
+    @Override
+    public boolean get(int x, int y) {
+        return visible(cells[y * width + x]);
+    }
+
+    /**
+     * The cell's value as a level from 0 to {@code LEVELS - 1}.
+     */
+    @Override
+    public int state(int x, int y) {
+        return level(cells[y * width + x]);
+    }
+
+    float value(int x, int y) {
+        return cells[y * width + x];
+    }
+
+    @Override
+    public void set(int x, int y, boolean alive) {
+        setValue(x, y, alive ? 1f : 0f);
+    }
+
+    void setValue(int x, int y, float value) {
+        if (!(value >= 0f && value <= 1f)) {
+            throw new IllegalArgumentException("Cell value " + value + " is out of range 0-1");
+        }
+        int cell = y * width + x;
+        float previous = cells[cell];
+        cells[cell] = value;
+        visible += (visible(value) ? 1 : 0) - (visible(previous) ? 1 : 0);
+        hash += Grid.rowKey(y) * (x + 1) * ((long) Float.floatToIntBits(value) - Float.floatToIntBits(previous));
+    }
+
+    @Override
+    public long aliveCount() {
+        return visible;
+    }
+
+    @Override
+    public CellRegion liveBounds() {
+        int top = -1;
+        int bottom = -1;
+        int left = width;
+        int right = -1;
+        for (int y = 0; y < height; y++) {
+            int row = y * width;
+            int first = -1;
+            int last = -1;
+            for (int x = 0; x < width; x++) {
+                if (visible(cells[row + x])) {
+                    first = first < 0 ? x : first;
+                    last = x;
+                }
+            }
+            if (first >= 0) {
+                top = top < 0 ? y : top;
+                bottom = y;
+                left = Math.min(left, first);
+                right = Math.max(right, last);
+            }
+        }
+        return top < 0 ? null : new CellRegion(left, top, right - left + 1, bottom - top + 1);
+    }
+
+    @Override
+    public long contentHash() {
+        return hash;
+    }
+
+    /**
+     * Cells that turned visible or invisible in the step that wrote this grid.
+     */
+    long flipped() {
+        return flipped;
+    }
+
+    /**
+     * Cells whose value the step that wrote this grid changed at all.
+     */
+    long changedCells() {
+        return changed;
+    }
+
+    @Override
+    public LeniaGrid copy() {
+        LeniaGrid copy = new LeniaGrid(width, height);
+        copy.copyFrom(this);
+        return copy;
+    }
+
+    @Override
+    public void copyFrom(LeniaGrid source) {
+        if (source.width != width || source.height != height) {
+            throw new IllegalArgumentException("Grid dimensions do not match");
+        }
+        System.arraycopy(source.cells, 0, cells, 0, cells.length);
+        visible = source.visible;
+        hash = source.hash;
+        flipped = source.flipped;
+        changed = source.changed;
+    }
+
+    @Override
+    public long footprintBytes() {
+        return (long) cells.length * Float.BYTES;
+    }
+
+    float[] cells() {
+        return cells;
+    }
+
+    void resetCounts() {
+        visible = 0L;
+        hash = 0L;
+        flipped = 0L;
+        changed = 0L;
+    }
+
+    /**
+     * Adds one band's counts after a step; see {@link LeniaEngine}.
+     */
+    synchronized void addCounts(long visibleCells, long cellHash, long flippedCells, long changedCells) {
+        visible += visibleCells;
+        hash += cellHash;
+        flipped += flippedCells;
+        changed += changedCells;
+    }
+
+    static int level(float value) {
+        return (int) (value * (LEVELS - 1) + 0.5f);
+    }
+
+    /**
+     * Whether a value shows as a level above zero, the same as {@code level(value) != 0}.
+     */
+    static boolean visible(float value) {
+        return value * (LEVELS - 1) + 0.5f >= 1f;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        return obj instanceof LeniaGrid other && width == other.width && height == other.height
+                && Arrays.equals(cells, other.cells);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(hash);
+    }
+}
@@ -18,33 +18,63 @@ public final class Mp4Writer implements Closeable {
     private final int width;
     private final int height;
     private final int scale;
+    // Pixels odd rows are drawn to the right of even ones, half a cell for hexagonal rules.
+    private final int rowShift;
     private final Path tempFile;
     private final AWTSequenceEncoder encoder;
-    private final Color deadColor;
-    private final Color aliveColor;
+    // One color per cell state, indexed by state.
+    private final Color[] colors;
     private boolean closed;
     private boolean consumed;
 
     public Mp4Writer(int width, int height, int scale, int delayCs, Palette2D palette) throws IOException {
+        this(width, height, scale, delayCs, palette, 2);
+    }
+
+    /**
+     * A writer for cells with {@code states} states, each drawn with its entry of {@link Palette2D#colors(int)}.
+     */
+    public Mp4Writer(int width, int height, int scale, int delayCs, Palette2D palette, int states) throws IOException {
+        this(width, height, scale, delayCs, Objects.requireNonNull(palette, "palette").colors(states));
+    }
+
+    /**
+     * A writer drawing each cell {@link GridView#state state} with its entry of {@code colors}, 0xRRGGBB values
+     * such as {@link Palette2D#gradient(int)} returns.
+     */
+    Mp4Writer(int width, int height, int scale, int delayCs, int[] colors) throws IOException {
+        this(width, height, scale, delayCs, colors, false);
+    }
+
+    /**
+     * With {@code hexagonal} set, odd rows are drawn half a cell to the right, like
+     * {@link GifWriter}'s hexagonal frames.
+     */
+    Mp4Writer(int width, int height, int scale, int delayCs, int[] colors, boolean hexagonal) throws IOException {
         if (scale <= 0) {
             throw new IllegalArgumentException("Scale must be greater than zero");
         }
+        if (hexagonal && scale < 2) {
+            throw new IllegalArgumentException("Hexagonal frames need a scale of at least 2");
+        }
         if (delayCs <= 0) {
             throw new IllegalArgumentException("Delay must be positive");
         }
-        Objects.requireNonNull(palette, "palette");
         this.width = width;
         this.height = height;
         this.scale = scale;
+        this.rowShift = hexagonal ? scale / 2 : 0;
         this.tempFile = Files.createTempFile("cell-machine-", ".mp4");
         double fpsValue = 100.0 / delayCs;
         int fps = (int) Math.max(1, Math.round(fpsValue));
         this.encoder = AWTSequenceEncoder.createSequenceEncoder(tempFile.toFile(), fps);
-        this.deadColor = decodeColor(palette.deadColor);
-        this.aliveColor = decodeColor(palette.aliveColor);
+        this.colors = new Color[colors.length];
+        for (int state = 0; state < colors.length; state++) {
+            this.colors[state] = new Color(colors[state]);
+        }
     }
 
-    public void writeFrame(Grid grid) throws IOException {
+    public void writeFrame(GridView grid) throws IOException {
         ensureDimensions(grid);
         encoder.encodeImage(rasterize(grid));
     }
@@ -62,29 +92,31 @@ public final class Mp4Writer implements Closeable {
         return bytes;
     }
 
-    private void ensureDimensions(Grid grid) {
+    private void ensureDimensions(GridView grid) {
         if (grid.width() != width || grid.height() != height) {
             throw new IllegalArgumentException("Grid dimensions do not match writer dimensions");
         }
     }
 
-    private BufferedImage rasterize(Grid grid) {
-        int scaledWidth = width * scale;
+    private BufferedImage rasterize(GridView grid) {
+        int scaledWidth = width * scale + rowShift;
         int scaledHeight = height * scale;
         int paddedWidth = alignToMacroblock(scaledWidth);
         int paddedHeight = alignToMacroblock(scaledHeight);
         BufferedImage image = new BufferedImage(paddedWidth, paddedHeight, BufferedImage.TYPE_3BYTE_BGR);
         Graphics2D graphics = image.createGraphics();
         try {
-            graphics.setColor(deadColor);
+            graphics.setColor(colors[0]);
             graphics.fillRect(0, 0, paddedWidth, paddedHeight);
-            graphics.setColor(aliveColor);
             for (int y = 0; y < grid.height(); y++) {
+                int shift = (y & 1) != 0 ? rowShift : 0;
                 for (int x = 0; x < grid.width(); x++) {
-                    if (!grid.get(x, y)) {
+                    int state = grid.state(x, y);
+                    if (state == 0) {
                         continue;
                     }
-                    graphics.fillRect(x * scale, y * scale, scale, scale);
+                    graphics.setColor(colors[state]);
+                    graphics.fillRect(x * scale + shift, y * scale, scale, scale);
                 }
             }
         } finally {
@@ -98,15 +130,6 @@ public final class Mp4Writer implements Closeable {
         return ((value + block - 1) / block) * block;
     }
 
-    private Color decodeColor(String hex) {
-        String normalized = hex.startsWith("#") ? hex.substring(1) : hex;
-        if (normalized.length() != 6) {
-            throw new IllegalArgumentException("Expected RGB hex color in format RRGGBB: " + hex);
-        }
-        int rgb = Integer.parseInt(normalized, 16);
-        return new Color((rgb >> 16) & 0xFF, (rgb >> 8) & 0xFF, rgb & 0xFF);
-    }
-
     @Override
     public void close() throws IOException {
         if (closed) {
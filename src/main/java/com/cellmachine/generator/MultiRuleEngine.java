@@ -0,0 +1,236 @@
+package com.cellmachine.generator;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Advances one seed under up to 64 totalistic rules at once. Each cell is a {@code long} whose bit
+ * {@code r} is the cell's state under rule {@code r}, so the carry-save adders that count neighbors work on
+ * all rules in one pass, and the born/survive selection uses per-count masks with one bit per rule, the
+ * same way {@link BitPackedEngine#nextWord} uses masks with one bit per cell. Populations per rule are
+ * counted on the way with bit-sliced counters.
+ */
+final class MultiRuleEngine {
+
+    static final int MAX_RULES = Long.SIZE;
+
+    private final int ruleCount;
+    private final int width;
+    private final int height;
+    private final boolean wrap;
+    // Laid out like Rule#countSelectors(), but the born and survive masks hold one bit per rule.
+    private final long[] selectors;
+    // Cells with a ghost border one cell wide, refilled before every step.
+    private long[] cells;
+    private long[] next;
+    private final long[] populations;
+    // Bit-sliced counters: bit r of planes[k] is bit k of rule r's population.
+    private final long[] planes = new long[Long.SIZE];
+    private long changedRules;
+    private int generation;
+
+    MultiRuleEngine(List<Rule> rules, GridView seed, boolean wrap) {
+        Objects.requireNonNull(rules, "rules");
+        Objects.requireNonNull(seed, "seed");
+        if (rules.isEmpty() || rules.size() > MAX_RULES) {
+            throw new IllegalArgumentException("Between 1 and " + MAX_RULES + " rules can be stepped together");
+        }
+        this.ruleCount = rules.size();
+        this.width = seed.width();
+        this.height = seed.height();
+        this.wrap = wrap;
+        long[] bornRules = new long[9];
+        long[] surviveRules = new long[9];
+        int counts = 0;
+        for (int r = 0; r < ruleCount; r++) {
+            Rule rule = rules.get(r);
+            if (!rule.isTotalistic()) {
+                throw new IllegalArgumentException("Rule " + rule.label() + " is not totalistic");
+            }
+            for (int n = 0; n <= 8; n++) {
+                bornRules[n] |= (long) (rule.bornMask() >>> n & 1) << r;
+                surviveRules[n] |= (long) (rule.surviveMask() >>> n & 1) << r;
+            }
+            counts |= rule.bornMask() | rule.surviveMask();
+        }
+        this.selectors = new long[Integer.bitCount(counts) * Rule.COUNT_SELECTOR_STRIDE];
+        int index = 0;
+        for (int n = 0; n <= 8; n++) {
+            if ((counts & (1 << n)) == 0) {
+                continue;
+            }
+            for (int digit = 0; digit < 4; digit++) {
+                selectors[index++] = (n & (1 << digit)) != 0 ? -1L : 0L;
+            }
+            selectors[index++] = bornRules[n];
+            selectors[index++] = surviveRules[n];
+        }
+        int stride = width + 2;
+        this.cells = new long[stride * (height + 2)];
+        this.next = new long[cells.length];
+        long lanes = ruleCount == MAX_RULES ? -1L : (1L << ruleCount) - 1;
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                if (seed.get(x, y)) {
+                    cells[(y + 1) * stride + x + 1] = lanes;
+                }
+            }
+        }
+        this.populations = new long[ruleCount];
+        for (int i = 0; i < cells.length; i++) {
+            count(cells[i]);
+        }
+        readPopulations();
+    }
+
+    int ruleCount() {
+        return ruleCount;
+    }
+
+    int generation() {
+        return generation;
+    }
+
+    /**
+     * Live cells under rule {@code rule} after the last step.
+     */
+    long population(int rule) {
+        return populations[Objects.checkIndex(rule, ruleCount)];
+    }
+
+    /**
+     * Rules whose grid changed in the last step, one bit per rule.
+     */
+    long changedRules() {
+        return changedRules;
+    }
+
+    /**
+     * The cells under rule {@code rule}, as a grid of their own.
+     */
+    Grid grid(int rule) {
+        Objects.checkIndex(rule, ruleCount);
+        Grid grid = new Grid(width, height);
+        int stride = width + 2;
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                if ((cells[(y + 1) * stride + x + 1] >>> rule & 1) != 0) {
+                    grid.set(x, y, true);
+                }
+            }
+        }
+        return grid;
+    }
+
+    void step() {
+        fillBorder();
+        Arrays.fill(planes, 0L);
+        int stride = width + 2;
+        long changed = 0L;
+        for (int y = 1; y <= height; y++) {
+            int row = y * stride;
+            for (int i = row + 1; i <= row + width; i++) {
+                long aw = cells[i - stride - 1];
+                long ac = cells[i - stride];
+                long ae = cells[i - stride + 1];
+                long bw = cells[i + stride - 1];
+                long bc = cells[i + stride];
+                long be = cells[i + stride + 1];
+                long cw = cells[i - 1];
+                long ce = cells[i + 1];
+                long alive = cells[i];
+
+                long aboveSum = aw ^ ac ^ ae;
+                long aboveCarry = (aw & ac) | (ae & (aw ^ ac));
+                long belowSum = bw ^ bc ^ be;
+                long belowCarry = (bw & bc) | (be & (bw ^ bc));
+                long sideSum = cw ^ ce;
+                long sideCarry = cw & ce;
+
+                long ones = aboveSum ^ belowSum ^ sideSum;
+                long onesCarry = (aboveSum & belowSum) | (sideSum & (aboveSum ^ belowSum));
+                long pairSum = aboveCarry ^ belowCarry ^ sideCarry;
+                long pairCarry = (aboveCarry & belowCarry) | (sideCarry & (aboveCarry ^ belowCarry));
+                long twos = pairSum ^ onesCarry;
+                long twosCarry = pairSum & onesCarry;
+                long fours = pairCarry ^ twosCarry;
+                long eights = pairCarry & twosCarry;
+
+                long born = 0L;
+                long survive = 0L;
+                for (int s = 0; s < selectors.length; s += Rule.COUNT_SELECTOR_STRIDE) {
+                    long matches = ~((ones ^ selectors[s]) | (twos ^ selectors[s + 1])
+                            | (fours ^ selectors[s + 2]) | (eights ^ selectors[s + 3]));
+                    born |= matches & selectors[s + 4];
+                    survive |= matches & selectors[s + 5];
+                }
+                long result = (alive & survive) | (~alive & born);
+                changed |= result ^ alive;
+                next[i] = result;
+                count(result);
+            }
+        }
+        long[] previous = cells;
+        cells = next;
+        next = previous;
+        changedRules = changed;
+        generation++;
+        readPopulations();
+    }
+
+    /**
+     * Steps {@code generations} times and returns each rule's population after every step, with the seed's
+     * in column 0.
+     */
+    long[][] populationCurves(int generations) {
+        if (generations < 0) {
+            throw new IllegalArgumentException("Generations must not be negative");
+        }
+        long[][] curves = new long[ruleCount][generations + 1];
+        for (int r = 0; r < ruleCount; r++) {
+            curves[r][0] = populations[r];
+        }
+        for (int g = 1; g <= generations; g++) {
+            step();
+            for (int r = 0; r < ruleCount; r++) {
+                curves[r][g] = populations[r];
+            }
+        }
+        return curves;
+    }
+
+    private void fillBorder() {
+        int stride = width + 2;
+        int last = (height + 1) * stride;
+        for (int y = 1; y <= height; y++) {
+            int row = y * stride;
+            cells[row] = wrap ? cells[row + width] : 0L;
+            cells[row + width + 1] = wrap ? cells[row + 1] : 0L;
+        }
+        for (int x = 0; x < stride; x++) {
+            cells[x] = wrap ? cells[height * stride + x] : 0L;
+            cells[last + x] = wrap ? cells[stride + x] : 0L;
+        }
+    }
+
+    // Adds one to the population of every rule whose bit is set, rippling carries up the planes.
+    private void count(long word) {
+        long carry = word;
+        for (int k = 0; carry != 0L; k++) {
+            long overflow = planes[k] & carry;
+            planes[k] ^= carry;
+            carry = overflow;
+        }
+    }
+
+    private void readPopulations() {
+        for (int r = 0; r < ruleCount; r++) {
+            long count = 0L;
+            for (int k = 0; k < planes.length; k++) {
+                count |= (planes[k] >>> r & 1) << k;
+            }
+            populations[r] = count;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.cellmachine.generator;
+
+/**
+ * The cells a two-state rule counts around each cell. Rules name it with Golly's suffix on the survive
+ * part: none for Moore, {@code V} for von Neumann ({@code B1/S1V}) and {@code H} for hexagonal
+ * ({@code B2/S34H}).
+ */
+public enum Neighborhood {
+
+    /**
+     * The eight cells around.
+     */
+    MOORE("", 8),
+
+    /**
+     * The four orthogonal cells.
+     */
+    VON_NEUMANN("V", 4),
+
+    /**
+     * Six cells of a hexagonal grid stored with offset rows: odd rows sit half a cell to the right, so besides
+     * its left and right neighbors a cell of an even row touches cells {@code x - 1} and {@code x} of the rows
+     * above and below it, and a cell of an odd row cells {@code x} and {@code x + 1}.
+     */
+    HEXAGONAL("H", 6);
+
+    private final String suffix;
+    private final int size;
+
+    Neighborhood(String suffix, int size) {
+        this.suffix = suffix;
+        this.size = size;
+    }
+
+    /**
+     * The suffix rule strings end with for this neighborhood.
+     */
+    public String suffix() {
+        return suffix;
+    }
+
+    /**
+     * Number of neighbors, the highest count a rule can react to.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Whether the cell at offset {@code (dx, dy)}, each from -1 to 1, is a neighbor of a cell in row {@code y}.
+     */
+    boolean includes(int dx, int dy, int y) {
+        if (dx == 0 && dy == 0) {
+            return false;
+        }
+        return switch (this) {
+            case MOORE -> true;
+            case VON_NEUMANN -> dx == 0 || dy == 0;
+            case HEXAGONAL -> dy == 0 || dx == 0 || dx == ((y & 1) == 0 ? -1 : 1);
+        };
+    }
+
+    /**
+     * The neighborhood whose suffix is {@code letter}, in either case, or null if none has it.
+     */
+    static Neighborhood ofSuffix(char letter) {
+        for (Neighborhood neighborhood : values()) {
+            if (!neighborhood.suffix.isEmpty() && neighborhood.suffix.charAt(0) == Character.toUpperCase(letter)) {
+                return neighborhood;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,71 @@
+package com.cellmachine.generator;
+
+/**
+ * Advances a {@link Grid} by sliding a 9-bit neighborhood index along each row and reading the next
+ * state from the rule's compiled table. Handles any rule, including isotropic non-totalistic ones.
+ */
+final class NeighborhoodTableEngine {
+
+    private NeighborhoodTableEngine() {
+    }
+
+    static void step(Grid current, Grid next, Rule rule, boolean wrap, int fromRow, int toRow, int fromWord, int toWord) {
+        int width = current.width();
+        int wordsPerRow = current.wordsPerRow();
+        long[] cells = current.words();
+        long[] target = next.words();
+        byte[] transitions = rule.transitions();
+        int fromX = fromWord << 6;
+        int toX = Math.min(toWord << 6, width);
+        long[] columnDeltas = new long[toWord - fromWord];
+        long hashDelta = 0L;
+        long populationDelta = 0L;
+        long flipped = 0L;
+
+        for (int y = fromRow; y < toRow; y++) {
+            int row = y * wordsPerRow;
+            int rowDelta = 0;
+            int above = current.rowStart(y - 1, wrap);
+            int below = current.rowStart(y + 1, wrap);
+            int west;
+            if (fromX > 0) {
+                west = column(cells, above, row, below, fromX - 1);
+            } else {
+                west = wrap ? column(cells, above, row, below, width - 1) : 0;
+            }
+            int eastEdge = wrap ? column(cells, above, row, below, 0) : 0;
+            int index = Rule.neighborhoodIndex(0, west, column(cells, above, row, below, fromX));
+            long word = 0L;
+            for (int x = fromX; x < toX; x++) {
+                int east = x + 1 < width ? column(cells, above, row, below, x + 1) : eastEdge;
+                index = ((index << 3) | east) & (Rule.NEIGHBORHOOD_SIZE - 1);
+                word |= (long) transitions[index] << (x & 63);
+                if ((x & 63) == 63 || x == toX - 1) {
+                    int slot = row + (x >>> 6);
+                    long alive = cells[slot];
+                    int births = Long.bitCount(word & ~alive);
+                    int deaths = Long.bitCount(alive & ~word);
+                    rowDelta += births - deaths;
+                    columnDeltas[(x >>> 6) - fromWord] += births - deaths;
+                    flipped += births + deaths;
+                    hashDelta += (word - alive) * Grid.hashKey(slot);
+                    target[slot] = word;
+                    word = 0L;
+                }
+            }
+            next.addRowPopulation(y, rowDelta);
+            populationDelta += rowDelta;
+        }
+        next.addColumnPopulation(fromWord, columnDeltas, 0, columnDeltas.length);
+        next.applyDeltas(hashDelta, populationDelta, flipped);
+    }
+
+    private static int column(long[] cells, int above, int row, int below, int x) {
+        int w = x >>> 6;
+        int bit = x & 63;
+        long a = above < 0 ? 0L : (cells[above + w] >>> bit) & 1L;
+        long c = (cells[row + w] >>> bit) & 1L;
+        long b = below < 0 ? 0L : (cells[below + w] >>> bit) & 1L;
+        return (int) ((a << 2) | (c << 1) | b);
+    }
+}
@@ -0,0 +1,202 @@
+package com.cellmachine.generator;
+
+import com.sun.management.HotSpotDiagnosticMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Steps {@link OffHeapGrid}s in row bands. Each band slides the same window of three ghost-bordered rows as
+ * {@link BitPackedEngine#stepScalar} over the board, reading rows out of native memory and writing each
+ * finished row back in one pass, so the heap only ever holds a few rows per band. Rules that are not
+ * totalistic go through the neighbourhood table instead of the counters.
+ */
+final class OffHeapEngine {
+
+    /**
+     * Whether {@link OffHeapGrid} can be used, which needs {@code --enable-preview} on Java 21.
+     */
+    static final boolean AVAILABLE = offHeapGridAvailable();
+    private static final int MIN_BAND_ROWS = 16;
+
+    private final ParallelStepper stepper;
+    private boolean[] rowChanged = new boolean[0];
+    private final AtomicLong flippedCells = new AtomicLong();
+    private long flipped;
+    private boolean changed;
+    private CellRegion changedRegion;
+
+    OffHeapEngine(ParallelStepper stepper) {
+        this.stepper = Objects.requireNonNull(stepper, "stepper");
+    }
+
+    void advanceInto(OffHeapGrid current, OffHeapGrid target, Rule rule, boolean wrap) {
+        Objects.requireNonNull(rule, "rule");
+        if (current == target) {
+            throw new IllegalArgumentException("Target grid must not be the current grid");
+        }
+        if (current.width() != target.width() || current.height() != target.height()) {
+            throw new IllegalArgumentException("Target grid dimensions do not match current grid");
+        }
+        int height = current.height();
+        if (rowChanged.length != height) {
+            rowChanged = new boolean[height];
+        }
+        long cells = (long) current.width() * height;
+        target.startStepFrom(current);
+        flippedCells.set(0L);
+        stepper.forEachBand(height, MIN_BAND_ROWS, cells,
+                (fromRow, toRow) -> stepRows(current, target, rule, wrap, fromRow, toRow));
+
+        int first = 0;
+        while (first < height && !rowChanged[first]) {
+            first++;
+        }
+        int last = height - 1;
+        while (last > first && !rowChanged[last]) {
+            last--;
+        }
+        flipped = flippedCells.get();
+        changed = first < height;
+        changedRegion = changed ? new CellRegion(0, first, current.width(), last - first + 1) : null;
+    }
+
+    boolean changed() {
+        return changed;
+    }
+
+    CellRegion changedRegion() {
+        return changedRegion;
+    }
+
+    /**
+     * Cells that differ between the grids of the last step.
+     */
+    long flipped() {
+        return flipped;
+    }
+
+    private void stepRows(OffHeapGrid current, OffHeapGrid target, Rule rule, boolean wrap, int fromRow, int toRow) {
+        int width = current.width();
+        int wordsPerRow = current.wordsPerRow();
+        long[] selectors = rule.countSelectors();
+        long lastMask = Grid.lastWordMask(width);
+        long[] above = new long[wordsPerRow + 2];
+        long[] middle = new long[wordsPerRow + 2];
+        long[] below = new long[wordsPerRow + 2];
+        long[] result = new long[wordsPerRow];
+        long[] columnDeltas = new long[wordsPerRow];
+        long bandFlipped = 0L;
+        loadRow(current, fromRow - 1, wrap, above);
+        loadRow(current, fromRow, wrap, middle);
+        for (int y = fromRow; y < toRow; y++) {
+            loadRow(current, y + 1, wrap, below);
+            if (rule.isTotalistic()) {
+                for (int i = 1; i <= wordsPerRow; i++) {
+                    result[i - 1] = BitPackedEngine.nextWord(above, middle, below, i, selectors);
+                }
+                // Clears the bits past the right edge, which may have come alive around the wrapped neighbour.
+                result[wordsPerRow - 1] &= lastMask;
+            } else {
+                tableRow(above, middle, below, width, wrap, rule.transitions(), result);
+            }
+            long rowFlipped = target.writeRow(y, result, 0, middle, 1, columnDeltas);
+            rowChanged[y] = rowFlipped != 0L;
+            bandFlipped += rowFlipped;
+            long[] recycled = above;
+            above = middle;
+            middle = below;
+            below = recycled;
+        }
+        target.addColumnPopulation(columnDeltas);
+        flippedCells.addAndGet(bandFlipped);
+    }
+
+    /**
+     * One row of a rule without a totalistic count, slid along like {@link NeighborhoodTableEngine}.
+     */
+    private static void tableRow(long[] above, long[] middle, long[] below, int width, boolean wrap,
+            byte[] transitions, long[] result) {
+        int west = wrap ? column(above, middle, below, width - 1) : 0;
+        int eastEdge = wrap ? column(above, middle, below, 0) : 0;
+        int index = Rule.neighborhoodIndex(0, west, column(above, middle, below, 0));
+        long word = 0L;
+        for (int x = 0; x < width; x++) {
+            int east = x + 1 < width ? column(above, middle, below, x + 1) : eastEdge;
+            index = ((index << 3) | east) & (Rule.NEIGHBORHOOD_SIZE - 1);
+            word |= (long) transitions[index] << (x & 63);
+            if ((x & 63) == 63 || x == width - 1) {
+                result[x >>> 6] = word;
+                word = 0L;
+            }
+        }
+    }
+
+    private static int column(long[] above, long[] middle, long[] below, int x) {
+        int w = (x >>> 6) + 1;
+        int bit = x & 63;
+        long a = (above[w] >>> bit) & 1L;
+        long c = (middle[w] >>> bit) & 1L;
+        long b = (below[w] >>> bit) & 1L;
+        return (int) ((a << 2) | (c << 1) | b);
+    }
+
+    /**
+     * Copies row {@code y} to {@code buffer[1..]} with ghost words at both ends, like
+     * {@code BitPackedEngine.loadRow} for a whole row.
+     */
+    private static void loadRow(OffHeapGrid grid, int y, boolean wrap, long[] buffer) {
+        int height = grid.height();
+        if (y < 0 || y >= height) {
+            if (!wrap) {
+                Arrays.fill(buffer, 0L);
+                return;
+            }
+            y = Math.floorMod(y, height);
+        }
+        int wordsPerRow = grid.wordsPerRow();
+        int lastBit = (grid.width() - 1) & 63;
+        grid.readRow(y, buffer, 1);
+        if (!wrap) {
+            buffer[0] = 0L;
+            buffer[wordsPerRow + 1] = 0L;
+            return;
+        }
+        buffer[0] = buffer[wordsPerRow] << (63 - lastBit);
+        long first = buffer[1] & 1L;
+        if (lastBit == 63) {
+            buffer[wordsPerRow + 1] = first;
+        } else {
+            buffer[wordsPerRow] |= first << (lastBit + 1);
+            buffer[wordsPerRow + 1] = 0L;
+        }
+    }
+
+    /**
+     * Native memory segments may reserve in total: {@code -XX:MaxDirectMemorySize}, which defaults to the
+     * heap limit.
+     */
+    static long nativeLimitBytes() {
+        try {
+            HotSpotDiagnosticMXBean diagnostics = ManagementFactory.getPlatformMXBean(HotSpotDiagnosticMXBean.class);
+            long configured = Long.parseLong(diagnostics.getVMOption("MaxDirectMemorySize").getValue());
+            if (configured > 0) {
+                return configured;
+            }
+        } catch (RuntimeException | LinkageError ex) {
+            // Not a HotSpot JVM; assume the default.
+        }
+        return Runtime.getRuntime().maxMemory();
+    }
+
+    // Loading the grid class is the probe: without --enable-preview it fails to link rather than run.
+    private static boolean offHeapGridAvailable() {
+        try {
+            OffHeapGrid.open(1, 1).close();
+            return true;
+        } catch (LinkageError ex) {
+            return false;
+        }
+    }
+}
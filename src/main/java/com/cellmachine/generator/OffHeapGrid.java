@@ -0,0 +1,297 @@
+package com.cellmachine.generator;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * A bit-packed grid laid out like {@link Grid} but held in native memory, so boards of billions of cells
+ * neither need a larger heap nor sit under the garbage collector. Word indices are longs.
+ * <p>
+ * Grids are allocated in a shared arena: {@link #open} starts one, and {@link #blank} and {@link #copy}
+ * add grids to it. {@link #close} frees the arena, and with it every grid allocated there; a run opens one
+ * arena and closes it when it ends. This is the only class using {@code java.lang.foreign}, a preview API
+ * on Java 21, so it fails to load unless the JVM runs with {@code --enable-preview}; see
+ * {@link OffHeapEngine#AVAILABLE}.
+ */
+final class OffHeapGrid implements GridState<OffHeapGrid>, SeedTarget, PackedRows, AutoCloseable {
+
+    private static final VarHandle HASH;
+    private static final VarHandle POPULATION;
+    private static final VarHandle COLUMN_POPULATION = MethodHandles.arrayElementVarHandle(long[].class);
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            HASH = lookup.findVarHandle(OffHeapGrid.class, "hash", long.class);
+            POPULATION = lookup.findVarHandle(OffHeapGrid.class, "population", long.class);
+        } catch (ReflectiveOperationException ex) {
+            throw new ExceptionInInitializerError(ex);
+        }
+    }
+
+    private final Arena arena;
+    private final MemorySegment words;
+    private final int width;
+    private final int height;
+    private final int wordsPerRow;
+    // Sum of Grid.hashKey(i) * word(i); see Grid#contentHash().
+    private long hash;
+    // Live cells in total, per row and per word column, as in Grid; the counts stay on the heap.
+    private long population;
+    private final int[] rowPopulation;
+    private final long[] columnPopulation;
+
+    private OffHeapGrid(Arena arena, int width, int height) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Grid dimensions must be positive");
+        }
+        this.arena = arena;
+        this.width = width;
+        this.height = height;
+        this.wordsPerRow = (width + 63) >>> 6;
+        // Native arenas hand out zeroed memory.
+        this.words = arena.allocate((long) wordsPerRow * height * Long.BYTES, Long.BYTES);
+        this.rowPopulation = new int[height];
+        this.columnPopulation = new long[wordsPerRow];
+    }
+
+    /**
+     * An empty grid in a new arena.
+     */
+    static OffHeapGrid open(int width, int height) {
+        Arena arena = Arena.ofShared();
+        try {
+            return new OffHeapGrid(arena, width, height);
+        } catch (RuntimeException | OutOfMemoryError ex) {
+            arena.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * An empty grid of the same size in this grid's arena.
+     */
+    OffHeapGrid blank() {
+        return new OffHeapGrid(arena, width, height);
+    }
+
+    /**
+     * Frees the arena, invalidating this grid and every grid allocated alongside it.
+     */
+    @Override
+    public void close() {
+        arena.close();
+    }
+
+    @Override
+    public int width() {
+        return width;
+    }
+
+    @Override
+    public int height() {
+        return height;
+    }
+
+    int wordsPerRow() {
+        return wordsPerRow;
+    }
+
+    @Override
+    public long rowWord(int y, int w) {
+        return word((long) y * wordsPerRow + w);
+    }
+
+    @Override
+    public boolean get(int x, int y) {
+        checkBounds(x, y);
+        return (word(index(x, y)) & (1L << x)) != 0;
+    }
+
+    @Override
+    public void set(int x, int y, boolean alive) {
+        checkBounds(x, y);
+        long index = index(x, y);
+        long previous = word(index);
+        long updated = alive ? previous | (1L << x) : previous & ~(1L << x);
+        words.setAtIndex(ValueLayout.JAVA_LONG, index, updated);
+        hash += (updated - previous) * Grid.hashKey(index);
+        if (updated != previous) {
+            int delta = alive ? 1 : -1;
+            population += delta;
+            rowPopulation[y] += delta;
+            columnPopulation[x >>> 6] += delta;
+        }
+    }
+
+    @Override
+    public long aliveCount() {
+        return population;
+    }
+
+    @Override
+    public CellRegion liveBounds() {
+        if (population == 0) {
+            return null;
+        }
+        int top = 0;
+        while (rowPopulation[top] == 0) {
+            top++;
+        }
+        int bottom = height - 1;
+        while (rowPopulation[bottom] == 0) {
+            bottom--;
+        }
+        int left = 0;
+        while (columnPopulation[left] == 0) {
+            left++;
+        }
+        int right = wordsPerRow - 1;
+        while (columnPopulation[right] == 0) {
+            right--;
+        }
+        long leftBits = 0L;
+        long rightBits = 0L;
+        for (int y = top; y <= bottom; y++) {
+            leftBits |= word((long) y * wordsPerRow + left);
+            rightBits |= word((long) y * wordsPerRow + right);
+        }
+        int x = (left << 6) + Long.numberOfTrailingZeros(leftBits);
+        int lastX = (right << 6) + 63 - Long.numberOfLeadingZeros(rightBits);
+        return new CellRegion(x, top, lastX - x + 1, bottom - top + 1);
+    }
+
+    /**
+     * Copies row {@code y} to {@code buffer[offset..offset + wordsPerRow)}.
+     */
+    void readRow(int y, long[] buffer, int offset) {
+        MemorySegment.copy(words, ValueLayout.JAVA_LONG, rowOffset(y), buffer, offset, wordsPerRow);
+    }
+
+    /**
+     * Gives this grid the hash and live counts of {@code source} before a step writes the next generation
+     * of {@code source} into it with {@link #writeRow}.
+     */
+    void startStepFrom(OffHeapGrid source) {
+        hash = source.hash;
+        population = source.population;
+        System.arraycopy(source.rowPopulation, 0, rowPopulation, 0, height);
+        System.arraycopy(source.columnPopulation, 0, columnPopulation, 0, wordsPerRow);
+    }
+
+    /**
+     * Replaces row {@code y} with {@code buffer[offset..offset + wordsPerRow)}, the successor of the same row
+     * of the step's source held in {@code source[sourceOffset..]}; bits of the source past the right edge are
+     * ignored. Adds the change in live cells of each word column to {@code columnDeltas} for
+     * {@link #addColumnPopulation} and returns the number of cells that flipped. Rows may be written
+     * concurrently as long as each row has a single writer.
+     */
+    long writeRow(int y, long[] buffer, int offset, long[] source, int sourceOffset, long[] columnDeltas) {
+        long start = (long) y * wordsPerRow;
+        long lastMask = Grid.lastWordMask(width);
+        long hashDelta = 0L;
+        int rowDelta = 0;
+        long flipped = 0L;
+        for (int i = 0; i < wordsPerRow; i++) {
+            long index = start + i;
+            long alive = source[sourceOffset + i] & (i == wordsPerRow - 1 ? lastMask : -1L);
+            long updated = buffer[offset + i];
+            int births = Long.bitCount(updated & ~alive);
+            int deaths = Long.bitCount(alive & ~updated);
+            rowDelta += births - deaths;
+            columnDeltas[i] += births - deaths;
+            flipped += births + deaths;
+            hashDelta += (updated - alive) * Grid.hashKey(index);
+            words.setAtIndex(ValueLayout.JAVA_LONG, index, updated);
+        }
+        rowPopulation[y] += rowDelta;
+        if (hashDelta != 0L) {
+            HASH.getAndAdd(this, hashDelta);
+        }
+        if (rowDelta != 0) {
+            POPULATION.getAndAdd(this, (long) rowDelta);
+        }
+        return flipped;
+    }
+
+    /**
+     * Adds a band's column deltas from {@link #writeRow}. Atomic, since bands share columns.
+     */
+    void addColumnPopulation(long[] columnDeltas) {
+        for (int i = 0; i < wordsPerRow; i++) {
+            if (columnDeltas[i] != 0L) {
+                COLUMN_POPULATION.getAndAdd(columnPopulation, i, columnDeltas[i]);
+            }
+        }
+    }
+
+    @Override
+    public long contentHash() {
+        return hash;
+    }
+
+    @Override
+    public long footprintBytes() {
+        return words.byteSize();
+    }
+
+    @Override
+    public OffHeapGrid copy() {
+        OffHeapGrid copy = blank();
+        copy.copyFrom(this);
+        return copy;
+    }
+
+    @Override
+    public void copyFrom(OffHeapGrid source) {
+        if (source.width != width || source.height != height) {
+            throw new IllegalArgumentException("Grid dimensions differ");
+        }
+        MemorySegment.copy(source.words, 0L, words, 0L, words.byteSize());
+        System.arraycopy(source.rowPopulation, 0, rowPopulation, 0, height);
+        System.arraycopy(source.columnPopulation, 0, columnPopulation, 0, wordsPerRow);
+        hash = source.hash;
+        population = source.population;
+    }
+
+    private long word(long index) {
+        return words.getAtIndex(ValueLayout.JAVA_LONG, index);
+    }
+
+    private long index(int x, int y) {
+        return (long) y * wordsPerRow + (x >>> 6);
+    }
+
+    private long rowOffset(int y) {
+        return (long) y * wordsPerRow * Long.BYTES;
+    }
+
+    private void checkBounds(int x, int y) {
+        if (x < 0 || x >= width || y < 0 || y >= height) {
+            throw new IndexOutOfBoundsException("Coordinates out of range: (" + x + ", " + y + ")");
+        }
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof OffHeapGrid other)) {
+            return false;
+        }
+        return width == other.width && height == other.height && hash == other.hash
+                && words.mismatch(other.words) == -1L;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = Integer.hashCode(width);
+        result = 31 * result + Integer.hashCode(height);
+        result = 31 * result + Long.hashCode(hash);
+        return result;
+    }
+}
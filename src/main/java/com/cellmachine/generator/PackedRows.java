@@ -0,0 +1,10 @@
+package com.cellmachine.generator;
+
+/**
+ * Two-state cells readable 64 at a time, in {@link Grid}'s layout: word {@code w} of row {@code y} holds cells
+ * {@code 64w} to {@code 64w + 63}, lowest bit first, and the bits past the width are clear.
+ */
+interface PackedRows extends GridView {
+
+    long rowWord(int y, int w);
+}
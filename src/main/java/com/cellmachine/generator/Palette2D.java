@@ -19,4 +19,58 @@ public enum Palette2D {
         this.deadColor = deadColor;
         this.aliveColor = aliveColor;
     }
+
+    /**
+     * One 0xRRGGBB color per cell state: dead, alive, then the decay states of multi-state rules fading from
+     * the alive color toward the dead one.
+     */
+    int[] colors(int states) {
+        if (states < 2 || states > Rule.MAX_STATES) {
+            throw new IllegalArgumentException("State count must be between 2 and " + Rule.MAX_STATES);
+        }
+        int dead = rgb(deadColor);
+        int alive = rgb(aliveColor);
+        int[] colors = new int[states];
+        colors[0] = dead;
+        colors[1] = alive;
+        for (int state = 2; state < states; state++) {
+            colors[state] = blend(alive, dead, (state - 1) / (double) (states - 1));
+        }
+        return colors;
+    }
+
+    /**
+     * {@code levels} colors for continuous cell values, blending evenly from the dead color at level 0 to the
+     * alive color at the last level.
+     */
+    int[] gradient(int levels) {
+        if (levels < 2 || levels > LeniaGrid.LEVELS) {
+            throw new IllegalArgumentException("Gradient levels must be between 2 and " + LeniaGrid.LEVELS);
+        }
+        int dead = rgb(deadColor);
+        int alive = rgb(aliveColor);
+        int[] colors = new int[levels];
+        for (int level = 0; level < levels; level++) {
+            colors[level] = blend(dead, alive, level / (double) (levels - 1));
+        }
+        return colors;
+    }
+
+    static int rgb(String hex) {
+        String normalized = hex.startsWith("#") ? hex.substring(1) : hex;
+        if (normalized.length() != 6) {
+            throw new IllegalArgumentException("Expected RGB hex color in format RRGGBB: " + hex);
+        }
+        return Integer.parseInt(normalized, 16);
+    }
+
+    private static int blend(int from, int to, double amount) {
+        int blended = 0;
+        for (int shift = 0; shift <= 16; shift += 8) {
+            int a = (from >> shift) & 0xFF;
+            int b = (to >> shift) & 0xFF;
+            blended |= (int) Math.round(a + (b - a) * amount) << shift;
+        }
+        return blended;
+    }
 }
@@ -0,0 +1,104 @@
+package com.cellmachine.generator;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Computes a generation step as horizontal row bands on a dedicated {@link ForkJoinPool}. Each band reads
+ * only the current generation and writes only its own rows, so the result matches {@link Grid#advanceInto}
+ * exactly, including wrapped and unwrapped edges at band boundaries. Closing the stepper shuts its pool down.
+ */
+public final class ParallelStepper implements AutoCloseable {
+
+    public static final long DEFAULT_THRESHOLD_CELLS = 1L << 18;
+    private static final int BANDS_PER_THREAD = 4;
+    private static final int MIN_BAND_ROWS = 16;
+
+    private final int threads;
+    private final long thresholdCells;
+    private final ForkJoinPool pool;
+
+    public ParallelStepper(int threads, long thresholdCells) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Thread count must be positive");
+        }
+        if (thresholdCells < 0) {
+            throw new IllegalArgumentException("Parallel threshold must not be negative");
+        }
+        this.threads = threads;
+        this.thresholdCells = thresholdCells;
+        this.pool = threads == 1 ? null : new ForkJoinPool(threads);
+    }
+
+    public static ParallelStepper defaults() {
+        return new ParallelStepper(Runtime.getRuntime().availableProcessors(), DEFAULT_THRESHOLD_CELLS);
+    }
+
+    public int threads() {
+        return threads;
+    }
+
+    public long thresholdCells() {
+        return thresholdCells;
+    }
+
+    public void advanceInto(Grid current, Grid target, Rule rule, boolean wrap) {
+        Grid.ensureStepTarget(current, target, rule);
+        long cells = (long) current.width() * current.height();
+        forEachBand(current.height(), MIN_BAND_ROWS, cells,
+                (fromRow, toRow) -> Grid.stepRows(current, target, rule, wrap, fromRow, toRow));
+    }
+
+    /**
+     * Runs {@code band} over {@code [0, units)} split into contiguous ranges of at least
+     * {@code minUnitsPerBand}, concurrently once {@code cells} reaches the threshold. Bands must only
+     * write state owned by their own range.
+     */
+    void forEachBand(int units, int minUnitsPerBand, long cells, Band band) {
+        if (pool == null || cells < thresholdCells || units < 2 * minUnitsPerBand) {
+            band.run(0, units);
+            return;
+        }
+        int bands = threads * BANDS_PER_THREAD;
+        int bandUnits = Math.max(minUnitsPerBand, (units + bands - 1) / bands);
+        pool.invoke(new BandTask(band, 0, units, bandUnits));
+    }
+
+    @Override
+    public void close() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    @FunctionalInterface
+    interface Band {
+        void run(int from, int to);
+    }
+
+    private static final class BandTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final transient Band band;
+        private final int from;
+        private final int to;
+        private final int bandUnits;
+
+        BandTask(Band band, int from, int to, int bandUnits) {
+            this.band = band;
+            this.from = from;
+            this.to = to;
+            this.bandUnits = bandUnits;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= bandUnits) {
+                band.run(from, to);
+                return;
+            }
+            int middle = from + (to - from) / 2;
+            invokeAll(new BandTask(band, from, middle, bandUnits), new BandTask(band, middle, to, bandUnits));
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.cellmachine.generator;
+
+import java.util.Arrays;
+
+/**
+ * Population statistics of every rendered frame of a run, kept column by column in primitive arrays so
+ * long runs stay compact. The counts come from the grids and engines as by-products of stepping.
+ */
+public final class PopulationSeries {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private int size;
+    private int[] generations = new int[INITIAL_CAPACITY];
+    private long[] populations = new long[INITIAL_CAPACITY];
+    private long[] births = new long[INITIAL_CAPACITY];
+    private long[] deaths = new long[INITIAL_CAPACITY];
+    // x, y, width and height of each frame's live cells; all zero when none are alive.
+    private int[] bounds = new int[INITIAL_CAPACITY * 4];
+
+    void add(int generation, long population, long born, long died, CellRegion live) {
+        if (size == generations.length) {
+            int capacity = size * 2;
+            generations = Arrays.copyOf(generations, capacity);
+            populations = Arrays.copyOf(populations, capacity);
+            births = Arrays.copyOf(births, capacity);
+            deaths = Arrays.copyOf(deaths, capacity);
+            bounds = Arrays.copyOf(bounds, capacity * 4);
+        }
+        generations[size] = generation;
+        populations[size] = population;
+        births[size] = born;
+        deaths[size] = died;
+        if (live != null) {
+            bounds[size * 4] = live.x();
+            bounds[size * 4 + 1] = live.y();
+            bounds[size * 4 + 2] = live.width();
+            bounds[size * 4 + 3] = live.height();
+        }
+        size++;
+    }
+
+    /**
+     * Number of frames, the initial one included.
+     */
+    public int size() {
+        return size;
+    }
+
+    public int generation(int frame) {
+        return generations[checkFrame(frame)];
+    }
+
+    public long population(int frame) {
+        return populations[checkFrame(frame)];
+    }
+
+    /**
+     * Cells born during the generations leading up to the frame, or -1 if the engine jumped over them.
+     * Always 0 for the initial frame.
+     */
+    public long births(int frame) {
+        return births[checkFrame(frame)];
+    }
+
+    /**
+     * Cells that died during the generations leading up to the frame; see {@link #births}.
+     */
+    public long deaths(int frame) {
+        return deaths[checkFrame(frame)];
+    }
+
+    /**
+     * Bounding box of the frame's live cells, or null when none are alive.
+     */
+    public CellRegion bounds(int frame) {
+        int offset = checkFrame(frame) * 4;
+        if (bounds[offset + 2] == 0) {
+            return null;
+        }
+        return new CellRegion(bounds[offset], bounds[offset + 1], bounds[offset + 2], bounds[offset + 3]);
+    }
+
+    /**
+     * One line per frame under a header; unknown counts and the bounds of empty frames are left blank.
+     */
+    public String toCsv() {
+        StringBuilder csv = new StringBuilder(32 * (size + 1));
+        csv.append("generation,population,births,deaths,x,y,width,height\n");
+        for (int frame = 0; frame < size; frame++) {
+            csv.append(generations[frame]).append(',').append(populations[frame]).append(',');
+            appendCount(csv, births[frame]);
+            csv.append(',');
+            appendCount(csv, deaths[frame]);
+            int offset = frame * 4;
+            if (bounds[offset + 2] == 0) {
+                csv.append(",,,,");
+            } else {
+                for (int i = 0; i < 4; i++) {
+                    csv.append(',').append(bounds[offset + i]);
+                }
+            }
+            csv.append('\n');
+        }
+        return csv.toString();
+    }
+
+    private static void appendCount(StringBuilder csv, long count) {
+        if (count >= 0) {
+            csv.append(count);
+        }
+    }
+
+    private int checkFrame(int frame) {
+        if (frame < 0 || frame >= size) {
+            throw new IndexOutOfBoundsException("Frame " + frame + " outside 0.." + (size - 1));
+        }
+        return frame;
+    }
+}
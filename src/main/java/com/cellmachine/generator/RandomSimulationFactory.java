@@ -1,7 +1,10 @@
 package com.cellmachine.generator;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
 
 public final class RandomSimulationFactory {
 
@@ -9,6 +12,10 @@ public final class RandomSimulationFactory {
     private static final double RANDOM_DENSITY = 0.05d;
     private static final int GRID_WIDTH = 200;
     private static final int GRID_HEIGHT = 200;
+    private static final int SCREENED_RULES = MultiRuleEngine.MAX_RULES;
+    // Share of the board a screened rule may cover at the end of the run.
+    static final double MIN_FINAL_SHARE = 0.01d;
+    static final double MAX_FINAL_SHARE = 0.5d;
 
     private RandomSimulationFactory() {
     }
@@ -17,7 +24,48 @@ public final class RandomSimulationFactory {
         return create(ThreadLocalRandom.current(), withMask);
     }
 
-    static RandomSelection create(ThreadLocalRandom random, boolean withMask) {
+    /**
+     * Like {@link #create(boolean)}, but screens a batch of rules first so the one returned is more likely to
+     * stay lively; see {@link #screen}. Costs a run of up to 64 rules on the random board.
+     */
+    public static RandomSelection createScreened(boolean withMask) {
+        return screen(ThreadLocalRandom.current(), withMask);
+    }
+
+    /**
+     * Draws a batch of rules for one seed and runs them all at once through the length of the real run,
+     * keeping the first whose board still changes at the end and is neither nearly empty nor crowded. Falls
+     * back to the first rule drawn when none does.
+     */
+    static RandomSelection screen(RandomGenerator random, boolean withMask) {
+        RandomSelection first = create(random, withMask);
+        List<RandomSelection> candidates = new ArrayList<>(SCREENED_RULES);
+        List<Rule> rules = new ArrayList<>(SCREENED_RULES);
+        candidates.add(first);
+        while (candidates.size() < SCREENED_RULES) {
+            candidates.add(new RandomSelection(randomRuleDigits(random), randomRuleDigits(random), first.mask));
+        }
+        for (RandomSelection candidate : candidates) {
+            rules.add(Rule.parse(candidate.ruleLabel()));
+        }
+        SimulationOptions options = buildOptions(first);
+        Grid seed = SimulationEngines.denseSeed(options);
+        MultiRuleEngine engine = new MultiRuleEngine(rules, seed, options.wrap());
+        for (int generation = 0; generation < options.steps(); generation++) {
+            engine.step();
+        }
+        double cells = (double) seed.width() * seed.height();
+        for (int r = 0; r < candidates.size(); r++) {
+            double share = engine.population(r) / cells;
+            boolean changing = (engine.changedRules() >>> r & 1) != 0;
+            if (changing && share >= MIN_FINAL_SHARE && share <= MAX_FINAL_SHARE) {
+                return candidates.get(r);
+            }
+        }
+        return first;
+    }
+
+    static RandomSelection create(RandomGenerator random, boolean withMask) {
         Objects.requireNonNull(random, "random");
         String birthDigits = randomRuleDigits(random);
         String survivalDigits = randomRuleDigits(random);
@@ -47,7 +95,7 @@ public final class RandomSimulationFactory {
         return builder.build();
     }
 
-    private static String randomRuleDigits(ThreadLocalRandom random) {
+    private static String randomRuleDigits(RandomGenerator random) {
         int mask = random.nextInt(1, 1 << 9);
         StringBuilder digits = new StringBuilder();
         for (int value = 0; value < 9; value++) {
@@ -58,7 +106,7 @@ public final class RandomSimulationFactory {
         return digits.toString();
     }
 
-    private static boolean[] randomMask(ThreadLocalRandom random) {
+    private static boolean[] randomMask(RandomGenerator random) {
         int maskSide = random.nextInt(SeedService.MIN_MASK_SIDE, SeedService.MAX_MASK_SIDE + 1);
         boolean[] mask = new boolean[maskSide * maskSide];
         int active = 0;
@@ -1,12 +1,86 @@
 package com.cellmachine.generator;
 
 import java.util.Arrays;
+import java.util.Locale;
 
+/**
+ * A two-state rule on the Moore neighborhood, written either as a totalistic {@code B#/S#} string or in
+ * Hensel notation for isotropic non-totalistic rules (e.g. {@code B2-a/S12}). Parsing compiles the rule
+ * into a 512-entry table indexed by the 3x3 neighborhood, see {@link #neighborhoodIndex}. An optional
+ * {@code /C#} segment makes it a Generations rule (e.g. Brian's Brain, {@code B2/S/C3}): a live cell that does
+ * not survive decays through the states 2 to {@code C - 1} before it is dead, and decaying cells neither
+ * count as neighbors nor can be born.
+ *
+ * <p>Totalistic two-state rules may end in a {@link Neighborhood} suffix instead, {@code V} for the von Neumann
+ * neighborhood ({@code B1/S1V}) or {@code H} for the hexagonal one ({@code B2/S34H}), and then count only
+ * those neighbors. Their 3x3 table stays empty: hexagonal neighbors depend on the row, so they are stepped
+ * by count with the kernels {@link RuleKernels} provides.
+ *
+ * <p>Larger than Life rules use Golly's notation instead, e.g. Bosco's rule {@code R5,C0,M1,S34..58,B34..45,NM}:
+ * a cell counts the live cells in the {@code (2R+1)x(2R+1)} box around it, itself included when {@code M1}, and
+ * is born or survives when the count lies in the {@code B} or {@code S} interval. The 3x3 tables, masks and
+ * kernels above describe range 1 only; wider rules leave them empty and report {@link #range()} above 1.
+ *
+ * <p>{@code Lenia/R13,T10,m0.15,s0.015,b1} is a continuous Lenia rule (Orbium): cells hold values in [0, 1],
+ * each step convolves them with a ring kernel of radius {@code R} whose concentric shells peak at the
+ * {@code b} heights (separated by {@code ;}), and adds {@code 1/T} of the bell-shaped growth centered at
+ * {@code m} with width {@code s}. See {@link LeniaEngine}.
+ *
+ * <p>{@code W30} is the elementary one-dimensional rule with Wolfram code 30: each cell of a row looks at itself
+ * and its left and right neighbors, and bit {@code 4*left + 2*center + right} of the code is its state in the
+ * next row. See {@link ElementaryEngine}.
+ */
 public final class Rule {
 
-    private final boolean[] born = new boolean[9];
-    private final boolean[] survive = new boolean[9];
+    static final int NEIGHBORHOOD_SIZE = 512;
+    static final int CENTER_BIT = 1 << 4;
+    static final int COUNT_SELECTOR_STRIDE = 6;
+    static final int BLOCK_TABLE_SIZE = 1 << 16;
+    static final int MAX_STATES = 256;
+    static final int MAX_RANGE = 500;
+
+    // Neighborhood index bit of each neighbor in Hensel ring order: N, NE, E, SE, S, SW, W, NW.
+    private static final int[] RING_BITS = {5, 2, 1, 0, 3, 6, 7, 8};
+    private static final String[] HENSEL_LETTERS = {
+        "", "ce", "cekain", "cekainyqjr", "cekainyqjrtwz", "cekainyqjr", "cekain", "ce", ""
+    };
+    // Canonical neighbor sets for counts 1-4, aligned with HENSEL_LETTERS. Counts 5-7 use the complements.
+    private static final int[][] HENSEL_PATTERNS = {
+        {},
+        {ring(1), ring(0)},
+        {ring(1, 3), ring(0, 2), ring(0, 3), ring(0, 1), ring(0, 4), ring(1, 5)},
+        {ring(1, 3, 5), ring(0, 2, 4), ring(0, 2, 5), ring(0, 1, 2), ring(0, 1, 7),
+            ring(0, 1, 3), ring(0, 3, 5), ring(0, 1, 5), ring(0, 1, 6), ring(0, 1, 4)},
+        {ring(1, 3, 5, 7), ring(0, 2, 4, 6), ring(0, 1, 3, 6), ring(0, 1, 2, 3), ring(0, 1, 3, 4),
+            ring(0, 1, 3, 7), ring(0, 1, 3, 5), ring(0, 1, 2, 5), ring(0, 1, 4, 6), ring(0, 1, 2, 4),
+            ring(0, 1, 4, 7), ring(0, 1, 5, 6), ring(0, 1, 4, 5)}
+    };
+    private static final char[] HENSEL_CLASSES = buildHenselClasses();
+
+    private final byte[] transitions = new byte[NEIGHBORHOOD_SIZE];
     private final String label;
+    private boolean totalistic;
+    private int states = 2;
+    private int range = 1;
+    private boolean largerThanLife;
+    private boolean countsCenter;
+    private int bornMin;
+    private int bornMax;
+    private int surviveMin;
+    private int surviveMax;
+    private boolean continuous;
+    private int timeSteps;
+    private double growthCenter;
+    private double growthWidth;
+    private double[] kernelPeaks;
+    private Neighborhood neighborhood = Neighborhood.MOORE;
+    private boolean elementary;
+    private int wolframCode;
+    private int bornMask;
+    private int surviveMask;
+    private long[] countSelectors;
+    private volatile byte[] blockTable;
+    private volatile RuleKernels.Kernel kernel;
 
     private Rule(String label) {
         this.label = label;
@@ -18,14 +92,40 @@ public final class Rule {
         }
         String trimmed = raw.trim();
         Rule rule = new Rule(trimmed);
+        if (Character.toUpperCase(trimmed.charAt(0)) == 'R') {
+            rule.parseLargerThanLife(trimmed);
+            return rule;
+        }
+        if (Character.toUpperCase(trimmed.charAt(0)) == 'W') {
+            rule.parseElementary(trimmed.substring(1));
+            return rule;
+        }
         String[] parts = trimmed.split("/", -1);
-        if (parts.length != 2) {
+        if (parts.length == 2 && parts[0].trim().equalsIgnoreCase("lenia")) {
+            rule.parseLenia(parts[1]);
+            return rule;
+        }
+        if (parts.length != 2 && parts.length != 3) {
             throw new IllegalArgumentException("Rule must follow B#/S# format");
         }
+        String survivePart = parts[1].trim();
+        Neighborhood suffixed = survivePart.isEmpty() ? null
+                : Neighborhood.ofSuffix(survivePart.charAt(survivePart.length() - 1));
+        if (suffixed != null) {
+            survivePart = survivePart.substring(0, survivePart.length() - 1);
+        }
         boolean[] born = parseSegment(parts[0], 'B');
-        boolean[] survive = parseSegment(parts[1], 'S');
-        System.arraycopy(born, 0, rule.born, 0, born.length);
-        System.arraycopy(survive, 0, rule.survive, 0, survive.length);
+        boolean[] survive = parseSegment(survivePart, 'S');
+        rule.compile(born, survive);
+        if (parts.length == 3) {
+            if (suffixed != null) {
+                throw new IllegalArgumentException("Generations rules count the Moore neighborhood only");
+            }
+            rule.states = parseStates(parts[2]);
+        }
+        if (suffixed != null) {
+            rule.restrictTo(suffixed);
+        }
         return rule;
     }
 
@@ -37,13 +137,464 @@ public final class Rule {
         if (neighborCount < 0 || neighborCount > 8) {
             throw new IllegalArgumentException("Neighbor count must be between 0 and 8");
         }
-        return currentlyAlive ? survive[neighborCount] : born[neighborCount];
+        if (!totalistic) {
+            throw new IllegalStateException("Rule " + label + " is not totalistic; use the neighborhood table");
+        }
+        int mask = currentlyAlive ? surviveMask : bornMask;
+        return (mask & (1 << neighborCount)) != 0;
+    }
+
+    public boolean isTotalistic() {
+        return totalistic;
     }
 
     public String label() {
         return label;
     }
 
+    /**
+     * Number of cell states: 2 for life-like rules, more for Generations rules.
+     */
+    public int states() {
+        return states;
+    }
+
+    /**
+     * Radius of the square neighborhood: 1 for the Moore neighborhood, more for Larger than Life rules.
+     */
+    public int range() {
+        return range;
+    }
+
+    /**
+     * Whether the rule was written in Larger than Life notation, whatever its range.
+     */
+    boolean isLargerThanLife() {
+        return largerThanLife;
+    }
+
+    /**
+     * Whether a Larger than Life count includes the cell itself ({@code M1}).
+     */
+    boolean countsCenter() {
+        return countsCenter;
+    }
+
+    int bornMin() {
+        return bornMin;
+    }
+
+    int bornMax() {
+        return bornMax;
+    }
+
+    int surviveMin() {
+        return surviveMin;
+    }
+
+    int surviveMax() {
+        return surviveMax;
+    }
+
+    /**
+     * The next state of a Larger than Life cell whose box holds {@code count} live cells, counted as
+     * {@link #countsCenter} says.
+     */
+    boolean nextState(boolean alive, int count) {
+        return alive ? count >= surviveMin && count <= surviveMax : count >= bornMin && count <= bornMax;
+    }
+
+    /**
+     * Whether cells hold continuous values, as in Lenia rules, rather than states.
+     */
+    boolean isContinuous() {
+        return continuous;
+    }
+
+    /**
+     * Steps per unit of time of a Lenia rule; each adds {@code 1/T} of the growth.
+     */
+    int timeSteps() {
+        return timeSteps;
+    }
+
+    double growthCenter() {
+        return growthCenter;
+    }
+
+    double growthWidth() {
+        return growthWidth;
+    }
+
+    /**
+     * Heights of the Lenia kernel's shells, innermost first. Callers must not modify it.
+     */
+    double[] kernelPeaks() {
+        return kernelPeaks;
+    }
+
+    /**
+     * The neighbors the rule counts; see {@link Neighborhood}.
+     */
+    public Neighborhood neighborhood() {
+        return neighborhood;
+    }
+
+    /**
+     * This rule counting {@code other} neighbors instead, written with the other suffix.
+     */
+    Rule withNeighborhood(Neighborhood other) {
+        if (other == neighborhood) {
+            return this;
+        }
+        String[] parts = label.split("/", -1);
+        if (parts.length != 2 || !totalistic || isLargerThanLife()) {
+            throw new IllegalArgumentException("Rule " + label + " cannot change its neighborhood");
+        }
+        String survivePart = parts[1].trim();
+        if (neighborhood != Neighborhood.MOORE) {
+            survivePart = survivePart.substring(0, survivePart.length() - 1);
+        }
+        return parse(parts[0].trim() + "/" + survivePart + other.suffix());
+    }
+
+    /**
+     * Whether this is an elementary one-dimensional rule ({@code W#}), whose rows are stepped by
+     * {@link ElementaryEngine} rather than the 3x3 tables above.
+     */
+    boolean isElementary() {
+        return elementary;
+    }
+
+    /**
+     * The Wolfram code, 0 to 255, of an elementary rule.
+     */
+    int wolframCode() {
+        return wolframCode;
+    }
+
+    /**
+     * The next state of an elementary rule's cell given its left neighbor, itself and its right neighbor.
+     */
+    boolean nextState(boolean left, boolean center, boolean right) {
+        int pattern = (left ? 4 : 0) | (center ? 2 : 0) | (right ? 1 : 0);
+        return (wolframCode >>> pattern & 1) != 0;
+    }
+
+    boolean nextState(int neighborhood) {
+        return transitions[neighborhood] != 0;
+    }
+
+    /**
+     * Returns the compiled table itself, one 0/1 entry per {@link #neighborhoodIndex}; callers must not modify it.
+     */
+    byte[] transitions() {
+        return transitions;
+    }
+
+    int bornMask() {
+        return bornMask;
+    }
+
+    int surviveMask() {
+        return surviveMask;
+    }
+
+    /**
+     * For each neighbour count a totalistic rule reacts to, {@value #COUNT_SELECTOR_STRIDE} words: the count's
+     * four binary digits as all-ones or all-zero masks, then whether it births and whether it survives, as
+     * masks of the same kind. Bit-sliced kernels match counts with these without branching.
+     */
+    long[] countSelectors() {
+        return countSelectors;
+    }
+
+    /**
+     * This rule's {@link RuleKernels specialized kernel}, looked up on first use, or null if it has none.
+     */
+    RuleKernels.Kernel kernel() {
+        RuleKernels.Kernel specialized = kernel;
+        if (specialized == null && totalistic && (RuleKernels.ENABLED || neighborhood != Neighborhood.MOORE)) {
+            specialized = RuleKernels.forRule(this);
+            kernel = specialized;
+        }
+        return specialized;
+    }
+
+    /**
+     * The next 2x2 block for every 4x4 block, built on first use. The index holds the 4x4 block row by row
+     * from the top, four bits per row with the westmost cell in the lowest bit; the entry holds the 2x2
+     * center the same way, two bits per row. Callers must not modify it.
+     */
+    byte[] blockTable() {
+        byte[] table = blockTable;
+        if (table == null) {
+            table = new byte[BLOCK_TABLE_SIZE];
+            for (int block = 0; block < BLOCK_TABLE_SIZE; block++) {
+                int next = 0;
+                for (int cell = 0; cell < 4; cell++) {
+                    int row = 1 + (cell >>> 1);
+                    int column = 1 + (cell & 1);
+                    int neighborhood = 0;
+                    for (int dx = -1; dx <= 1; dx++) {
+                        for (int dy = -1; dy <= 1; dy++) {
+                            int bit = (block >>> ((row + dy) * 4 + column + dx)) & 1;
+                            neighborhood |= bit << ((1 - dx) * 3 + (1 - dy));
+                        }
+                    }
+                    next |= transitions[neighborhood] << cell;
+                }
+                table[block] = (byte) next;
+            }
+            blockTable = table;
+        }
+        return table;
+    }
+
+    /**
+     * Packs a 3x3 neighborhood column by column, west to east, each column contributing its
+     * above/center/below cells as three bits. Stepping one cell east is then {@code ((index << 3) | column) & 511}.
+     */
+    static int neighborhoodIndex(int westColumn, int centerColumn, int eastColumn) {
+        return (westColumn << 6) | (centerColumn << 3) | eastColumn;
+    }
+
+    private void compile(boolean[] born, boolean[] survive) {
+        for (int neighborhood = 0; neighborhood < NEIGHBORHOOD_SIZE; neighborhood++) {
+            int neighbors = ringNeighbors(neighborhood);
+            boolean alive = (neighborhood & CENTER_BIT) != 0;
+            boolean next = alive ? survive[neighbors] : born[neighbors];
+            transitions[neighborhood] = (byte) (next ? 1 : 0);
+        }
+        totalistic = true;
+        for (int neighbors = 0; neighbors < 256; neighbors++) {
+            int count = Integer.bitCount(neighbors);
+            int canonical = (1 << count) - 1;
+            if (born[neighbors] != born[canonical] || survive[neighbors] != survive[canonical]) {
+                totalistic = false;
+            }
+            if (neighbors == canonical) {
+                bornMask |= born[neighbors] ? 1 << count : 0;
+                surviveMask |= survive[neighbors] ? 1 << count : 0;
+            }
+        }
+        int counts = bornMask | surviveMask;
+        countSelectors = new long[Integer.bitCount(counts) * COUNT_SELECTOR_STRIDE];
+        int index = 0;
+        for (int count = 0; count <= 8; count++) {
+            if ((counts & (1 << count)) == 0) {
+                continue;
+            }
+            for (int digit = 0; digit < 4; digit++) {
+                countSelectors[index++] = (count & (1 << digit)) != 0 ? -1L : 0L;
+            }
+            countSelectors[index++] = (bornMask & (1 << count)) != 0 ? -1L : 0L;
+            countSelectors[index++] = (surviveMask & (1 << count)) != 0 ? -1L : 0L;
+        }
+    }
+
+    private void parseLargerThanLife(String raw) {
+        Integer parsedRange = null;
+        int[] born = null;
+        int[] survive = null;
+        for (String token : raw.split(",", -1)) {
+            String part = token.trim();
+            if (part.isEmpty()) {
+                throw new IllegalArgumentException("Rule must follow R#,C#,M#,S#..#,B#..#,NM format");
+            }
+            String value = part.substring(1);
+            switch (Character.toUpperCase(part.charAt(0))) {
+                case 'R' -> parsedRange = parseNumber(value, "range");
+                case 'C' -> {
+                    int count = parseNumber(value, "state count");
+                    if (count > 2) {
+                        throw new IllegalArgumentException("Larger than Life rules support two states only");
+                    }
+                }
+                case 'M' -> {
+                    int middle = parseNumber(value, "middle flag");
+                    if (middle > 1) {
+                        throw new IllegalArgumentException("Middle flag must be 0 or 1");
+                    }
+                    countsCenter = middle == 1;
+                }
+                case 'S' -> survive = parseInterval(value);
+                case 'B' -> born = parseInterval(value);
+                case 'N' -> {
+                    if (!value.equalsIgnoreCase("M")) {
+                        throw new IllegalArgumentException("Only the Moore neighborhood (NM) is supported");
+                    }
+                }
+                default -> throw new IllegalArgumentException("Unknown rule segment '" + part + "'");
+            }
+        }
+        if (parsedRange == null || born == null || survive == null) {
+            throw new IllegalArgumentException("Rule must follow R#,C#,M#,S#..#,B#..#,NM format");
+        }
+        if (parsedRange < 1 || parsedRange > MAX_RANGE) {
+            throw new IllegalArgumentException("Range " + parsedRange + " is out of range 1-" + MAX_RANGE);
+        }
+        int cells = (2 * parsedRange + 1) * (2 * parsedRange + 1);
+        if (born[1] > cells || survive[1] > cells) {
+            throw new IllegalArgumentException("Counts of a range " + parsedRange + " rule cannot exceed " + cells);
+        }
+        largerThanLife = true;
+        range = parsedRange;
+        bornMin = born[0];
+        bornMax = born[1];
+        surviveMin = survive[0];
+        surviveMax = survive[1];
+        if (range == 1) {
+            // The 3x3 box is the Moore neighborhood, so the rule compiles to an ordinary table.
+            boolean[] bornFlags = new boolean[256];
+            boolean[] surviveFlags = new boolean[256];
+            for (int neighbors = 0; neighbors < 256; neighbors++) {
+                int count = Integer.bitCount(neighbors);
+                bornFlags[neighbors] = nextState(false, count);
+                surviveFlags[neighbors] = nextState(true, count + (countsCenter ? 1 : 0));
+            }
+            compile(bornFlags, surviveFlags);
+        }
+    }
+
+    private void parseLenia(String segment) {
+        Integer parsedRange = null;
+        Integer parsedTimeSteps = null;
+        Double center = null;
+        Double width = null;
+        double[] peaks = {1.0};
+        for (String token : segment.split(",", -1)) {
+            String part = token.trim();
+            if (part.isEmpty()) {
+                throw new IllegalArgumentException("Rule must follow Lenia/R#,T#,m#,s#,b# format");
+            }
+            String value = part.substring(1);
+            switch (part.charAt(0)) {
+                case 'R' -> parsedRange = parseNumber(value, "range");
+                case 'T' -> parsedTimeSteps = parseNumber(value, "time steps");
+                case 'm' -> center = parseFraction(value, "growth center");
+                case 's' -> width = parseFraction(value, "growth width");
+                case 'b' -> {
+                    String[] heights = value.split(";", -1);
+                    peaks = new double[heights.length];
+                    for (int i = 0; i < heights.length; i++) {
+                        peaks[i] = parseFraction(heights[i], "kernel peak");
+                    }
+                }
+                default -> throw new IllegalArgumentException("Unknown rule segment '" + part + "'");
+            }
+        }
+        if (parsedRange == null || parsedTimeSteps == null || center == null || width == null) {
+            throw new IllegalArgumentException("Rule must follow Lenia/R#,T#,m#,s#,b# format");
+        }
+        if (parsedRange < 2 || parsedRange > MAX_RANGE) {
+            throw new IllegalArgumentException("Range " + parsedRange + " is out of range 2-" + MAX_RANGE);
+        }
+        if (parsedTimeSteps < 1) {
+            throw new IllegalArgumentException("Time steps must be positive");
+        }
+        if (width == 0.0) {
+            throw new IllegalArgumentException("Growth width must be positive");
+        }
+        double highest = 0.0;
+        for (double peak : peaks) {
+            highest = Math.max(highest, peak);
+        }
+        if (highest == 0.0) {
+            throw new IllegalArgumentException("At least one kernel peak must be positive");
+        }
+        continuous = true;
+        range = parsedRange;
+        timeSteps = parsedTimeSteps;
+        growthCenter = center;
+        growthWidth = width;
+        kernelPeaks = peaks;
+    }
+
+    private void restrictTo(Neighborhood counted) {
+        if (!totalistic) {
+            throw new IllegalArgumentException("Hensel letters describe the Moore neighborhood only");
+        }
+        int highest = 31 - Integer.numberOfLeadingZeros(bornMask | surviveMask);
+        if (highest > counted.size()) {
+            throw new IllegalArgumentException(
+                    "Neighbor count " + highest + " is out of range 0-" + counted.size() + " for " + counted);
+        }
+        neighborhood = counted;
+        Arrays.fill(transitions, (byte) 0);
+    }
+
+    private void parseElementary(String code) {
+        int parsed = parseNumber(code, "Wolfram code");
+        if (parsed > 255) {
+            throw new IllegalArgumentException("Wolfram code " + parsed + " is out of range 0-255");
+        }
+        elementary = true;
+        wolframCode = parsed;
+    }
+
+    private static double parseFraction(String value, String label) {
+        double number;
+        try {
+            number = Double.parseDouble(value.trim());
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Invalid " + label + " '" + value + "' in rule", ex);
+        }
+        if (!(number >= 0.0 && number <= 1.0)) {
+            throw new IllegalArgumentException("The " + label + " " + value + " is out of range 0-1");
+        }
+        return number;
+    }
+
+    private static int[] parseInterval(String value) {
+        int separator = value.indexOf("..");
+        int min = parseNumber(separator < 0 ? value : value.substring(0, separator), "count");
+        int max = separator < 0 ? min : parseNumber(value.substring(separator + 2), "count");
+        if (min > max) {
+            throw new IllegalArgumentException("Count interval " + value + " is empty");
+        }
+        return new int[]{min, max};
+    }
+
+    private static int parseNumber(String value, String label) {
+        try {
+            int number = Integer.parseInt(value.trim());
+            if (number < 0) {
+                throw new IllegalArgumentException("Invalid " + label + " '" + value + "' in rule");
+            }
+            return number;
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Invalid " + label + " '" + value + "' in rule", ex);
+        }
+    }
+
+    private static int ringNeighbors(int neighborhood) {
+        int neighbors = 0;
+        for (int position = 0; position < RING_BITS.length; position++) {
+            if ((neighborhood & (1 << RING_BITS[position])) != 0) {
+                neighbors |= 1 << position;
+            }
+        }
+        return neighbors;
+    }
+
+    private static int parseStates(String segment) {
+        String trimmed = segment.trim();
+        if (trimmed.length() < 2 || Character.toUpperCase(trimmed.charAt(0)) != 'C') {
+            throw new IllegalArgumentException("Rule must follow B#/S#/C# format");
+        }
+        int states;
+        try {
+            states = Integer.parseInt(trimmed.substring(1));
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Invalid state count '" + trimmed.substring(1) + "' in rule", ex);
+        }
+        if (states < 2 || states > MAX_STATES) {
+            throw new IllegalArgumentException("State count " + states + " is out of range 2-" + MAX_STATES);
+        }
+        return states;
+    }
+
     private static boolean[] parseSegment(String segment, char prefix) {
         if (segment == null || segment.isEmpty()) {
             throw new IllegalArgumentException("Rule must follow B#/S# format");
@@ -56,9 +607,11 @@ public final class Rule {
         if (first != prefix) {
             throw new IllegalArgumentException("Rule must follow B#/S# format");
         }
-        boolean[] flags = new boolean[9];
-        for (int i = 1; i < segment.length(); i++) {
-            char ch = segment.charAt(i);
+        boolean[] flags = new boolean[256];
+        boolean[] seen = new boolean[9];
+        int i = 1;
+        while (i < segment.length()) {
+            char ch = segment.charAt(i++);
             if (!Character.isDigit(ch)) {
                 throw new IllegalArgumentException("Invalid digit '" + ch + "' in rule");
             }
@@ -66,14 +619,95 @@ public final class Rule {
             if (value < 0 || value > 8) {
                 throw new IllegalArgumentException("Neighbor count " + value + " is out of range 0-8");
             }
-            if (flags[value]) {
+            if (seen[value]) {
                 throw new IllegalArgumentException("Digit " + value + " is duplicated in rule");
             }
-            flags[value] = true;
+            seen[value] = true;
+            boolean exclude = i < segment.length() && segment.charAt(i) == '-';
+            if (exclude) {
+                i++;
+            }
+            int lettersStart = i;
+            while (i < segment.length() && Character.isLetter(segment.charAt(i))) {
+                i++;
+            }
+            String letters = segment.substring(lettersStart, i).toLowerCase(Locale.ROOT);
+            if (exclude && letters.isEmpty()) {
+                throw new IllegalArgumentException("Expected Hensel letters after '-' for neighbor count " + value);
+            }
+            ensureLetters(value, letters);
+            for (int neighbors = 0; neighbors < flags.length; neighbors++) {
+                if (Integer.bitCount(neighbors) != value) {
+                    continue;
+                }
+                boolean listed = letters.indexOf(HENSEL_CLASSES[neighbors]) >= 0;
+                flags[neighbors] = letters.isEmpty() || listed != exclude;
+            }
         }
         return flags;
     }
 
+    private static void ensureLetters(int count, String letters) {
+        for (int i = 0; i < letters.length(); i++) {
+            char letter = letters.charAt(i);
+            if (HENSEL_LETTERS[count].indexOf(letter) < 0) {
+                throw new IllegalArgumentException("Hensel letter '" + letter + "' is not defined for neighbor count " + count);
+            }
+            if (letters.indexOf(letter) != i) {
+                throw new IllegalArgumentException("Hensel letter '" + letter + "' is duplicated for neighbor count " + count);
+            }
+        }
+    }
+
+    private static char[] buildHenselClasses() {
+        char[] classes = new char[256];
+        for (int count = 1; count <= 7; count++) {
+            String letters = HENSEL_LETTERS[count];
+            for (int i = 0; i < letters.length(); i++) {
+                int pattern = count <= 4 ? HENSEL_PATTERNS[count][i] : ~HENSEL_PATTERNS[8 - count][i] & 0xFF;
+                for (int mirrored = 0; mirrored < 2; mirrored++) {
+                    int oriented = mirrored == 0 ? pattern : mirror(pattern);
+                    for (int turn = 0; turn < 4; turn++) {
+                        if (classes[oriented] != 0 && classes[oriented] != letters.charAt(i)) {
+                            throw new IllegalStateException("Hensel letters overlap on neighbor set " + oriented);
+                        }
+                        classes[oriented] = letters.charAt(i);
+                        oriented = rotate(oriented);
+                    }
+                }
+            }
+        }
+        for (int neighbors = 0; neighbors < classes.length; neighbors++) {
+            int count = Integer.bitCount(neighbors);
+            if (count > 0 && count < 8 && classes[neighbors] == 0) {
+                throw new IllegalStateException("Hensel letters do not cover neighbor set " + neighbors);
+            }
+        }
+        return classes;
+    }
+
+    private static int ring(int... positions) {
+        int neighbors = 0;
+        for (int position : positions) {
+            neighbors |= 1 << position;
+        }
+        return neighbors;
+    }
+
+    private static int rotate(int neighbors) {
+        return ((neighbors << 2) | (neighbors >>> 6)) & 0xFF;
+    }
+
+    private static int mirror(int neighbors) {
+        int mirrored = 0;
+        for (int position = 0; position < 8; position++) {
+            if ((neighbors & (1 << position)) != 0) {
+                mirrored |= 1 << ((8 - position) & 7);
+            }
+        }
+        return mirrored;
+    }
+
     @Override
     public String toString() {
         return label;
@@ -87,13 +721,12 @@ public final class Rule {
         if (!(obj instanceof Rule other)) {
             return false;
         }
-        return label.equals(other.label) && Arrays.equals(born, other.born) && Arrays.equals(survive, other.survive);
+        return label.equals(other.label) && Arrays.equals(transitions, other.transitions);
     }
 
     @Override
     public int hashCode() {
-        int result = Arrays.hashCode(born);
-        result = 31 * result + Arrays.hashCode(survive);
+        int result = Arrays.hashCode(transitions);
         result = 31 * result + label.hashCode();
         return result;
     }
@@ -0,0 +1,120 @@
+package com.cellmachine.generator;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Scalar kernels specialized to one totalistic rule. Each is a hidden class defined from the bytes of
+ * {@link SpecializedKernel} with the rule's masks as class data, so the JIT compiles a separate copy of the
+ * word loop per rule with only that rule's count tests left in it. Kernels are cached per {@link Rule}, at
+ * most {@value #MAX_KERNELS} of them; the least recently used one is dropped, and its class unloaded once
+ * no {@link Rule} instance holds on to it. Turn off with {@code -Dcellmachine.specialize=false}.
+ *
+ * <p>Rules on the von Neumann and hexagonal neighborhoods get their copies from {@link VonNeumannKernel} and
+ * {@link HexagonalKernel}. The generic kernel counts the Moore neighborhood only, so when specializing is off
+ * or unavailable those rules get an instance of the template with the masks as plain fields instead.
+ */
+final class RuleKernels {
+
+    static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("cellmachine.specialize", "true"));
+    static final int MAX_KERNELS = 64;
+
+    private static final Logger log = LoggerFactory.getLogger(RuleKernels.class);
+    private static final Map<Rule, Kernel> KERNELS = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Rule, Kernel> eldest) {
+            return size() > MAX_KERNELS;
+        }
+    };
+    private static final Map<Neighborhood, byte[]> TEMPLATES = new EnumMap<>(Neighborhood.class);
+    private static boolean unavailable;
+
+    private RuleKernels() {
+    }
+
+    /**
+     * Steps words {@code [fromWord, toWord)} of rows {@code [fromRow, toRow)} like
+     * {@link BitPackedEngine#stepScalar(Grid, Grid, Rule, boolean, int, int, int, int, BitPackedEngine.Deltas, int)}.
+     */
+    interface Kernel {
+        void step(Grid current, Grid next, boolean wrap, int fromRow, int toRow, int fromWord, int toWord,
+                BitPackedEngine.Deltas deltas, int column);
+    }
+
+    /**
+     * The kernel for {@code rule}, defining it on first use, or null when the rule is not totalistic or
+     * kernels cannot be defined here and the rule counts the Moore neighborhood.
+     */
+    static synchronized Kernel forRule(Rule rule) {
+        if (!rule.isTotalistic()) {
+            return null;
+        }
+        if (!ENABLED || unavailable) {
+            return generic(rule);
+        }
+        Kernel kernel = KERNELS.get(rule);
+        if (kernel == null) {
+            kernel = define(rule.neighborhood(), rule.bornMask(), rule.surviveMask());
+            if (kernel == null) {
+                return generic(rule);
+            }
+            KERNELS.put(rule, kernel);
+        }
+        return kernel;
+    }
+
+    static synchronized int cachedKernels() {
+        return KERNELS.size();
+    }
+
+    private static Kernel generic(Rule rule) {
+        return switch (rule.neighborhood()) {
+            case MOORE -> null;
+            case VON_NEUMANN -> new VonNeumannKernel(rule.bornMask(), rule.surviveMask());
+            case HEXAGONAL -> new HexagonalKernel(rule.bornMask(), rule.surviveMask());
+        };
+    }
+
+    private static Class<? extends Kernel> templateClass(Neighborhood neighborhood) {
+        return switch (neighborhood) {
+            case MOORE -> SpecializedKernel.class;
+            case VON_NEUMANN -> VonNeumannKernel.class;
+            case HEXAGONAL -> HexagonalKernel.class;
+        };
+    }
+
+    private static Kernel define(Neighborhood neighborhood, int bornMask, int surviveMask) {
+        try {
+            byte[] template = TEMPLATES.get(neighborhood);
+            if (template == null) {
+                Class<? extends Kernel> templateClass = templateClass(neighborhood);
+                String resource = templateClass.getSimpleName() + ".class";
+                try (InputStream in = templateClass.getResourceAsStream(resource)) {
+                    if (in == null) {
+                        throw new IOException(resource + " not found");
+                    }
+                    template = in.readAllBytes();
+                }
+                TEMPLATES.put(neighborhood, template);
+            }
+            MethodHandles.Lookup kernelClass = MethodHandles.lookup()
+                    .defineHiddenClassWithClassData(template, List.of(bornMask, surviveMask), true);
+            return (Kernel) kernelClass.findConstructor(kernelClass.lookupClass(), MethodType.methodType(void.class))
+                    .invoke();
+        } catch (Throwable ex) {
+            // Whatever failed will fail for every rule; stay on the generic kernel from now on.
+            log.warn("Rule-specialized kernels unavailable, using the generic kernel: {}", ex.toString());
+            unavailable = true;
+            return null;
+        }
+    }
+}
@@ -47,8 +47,16 @@ public final class SeedService {
 
     public static Grid randomGrid(int width, int height, double density, long seed) {
         ensurePositiveDimensions(width, height);
+        return withRandomCells(new Grid(width, height), density, seed);
+    }
+
+    /**
+     * Sets each cell of an empty grid of any layout with the given probability.
+     */
+    static <T extends SeedTarget> T withRandomCells(T grid, double density, long seed) {
         ensureDensity(density);
-        Grid grid = new Grid(width, height);
+        int width = grid.width();
+        int height = grid.height();
         Random random = new Random(seed);
         for (int y = 0; y < height; y++) {
             for (int x = 0; x < width; x++) {
@@ -90,12 +98,21 @@ public final class SeedService {
     }
 
     public static Grid gridWithCenteredMask(int width, int height, boolean[] mask) {
+        ensureMask(mask);
+        return withCenteredMask(new Grid(width, height), mask);
+    }
+
+    /**
+     * Sets the mask's cells in the middle of an empty grid of any layout.
+     */
+    static <T extends SeedTarget> T withCenteredMask(T grid, boolean[] mask) {
         ensureMask(mask);
         int maskSide = maskDimension(mask);
+        int width = grid.width();
+        int height = grid.height();
         if (width < maskSide || height < maskSide) {
             throw new IllegalArgumentException("Grid must be at least " + maskSide + "x" + maskSide + " for init mask");
         }
-        Grid grid = new Grid(width, height);
         int baseX = (width - maskSide) / 2;
         int baseY = (height - maskSide) / 2;
         applyMask(grid, baseX, baseY, mask);
@@ -105,13 +122,23 @@ public final class SeedService {
     public static Grid randomMaskGrid(int width, int height, boolean[] mask, double density, long seed) {
         ensureMask(mask);
         ensurePositiveDimensions(width, height);
+        return withRandomMasks(new Grid(width, height), mask, density, seed);
+    }
+
+    /**
+     * Stamps copies of the mask at random positions of an empty grid of any layout until the density is
+     * reached.
+     */
+    static <T extends SeedTarget> T withRandomMasks(T grid, boolean[] mask, double density, long seed) {
+        ensureMask(mask);
         ensureDensity(density);
+        int width = grid.width();
+        int height = grid.height();
         int maskSide = maskDimension(mask);
         if (width < maskSide || height < maskSide) {
             throw new IllegalArgumentException("Grid must be at least " + maskSide + "x" + maskSide + " for init mask");
         }
 
-        Grid grid = new Grid(width, height);
         int activeCells = 0;
         for (boolean active : mask) {
             if (active) {
@@ -122,24 +149,30 @@ public final class SeedService {
             return grid;
         }
 
-        int targetAlive = (int) Math.round(width * height * density);
+        long targetAlive = Math.round((double) width * height * density);
         if (targetAlive == 0) {
             return grid;
         }
 
-        int shapesNeeded = (targetAlive + activeCells - 1) / activeCells;
-        int maxAttempts = shapesNeeded * 10 + 100;
+        long shapesNeeded = (targetAlive + activeCells - 1) / activeCells;
+        long maxAttempts = shapesNeeded * 10 + 100;
         Random random = new Random(seed);
         int maxX = width - maskSide;
         int maxY = height - maskSide;
         List<int[]> offsets = maskOffsets(mask);
 
-        int attempts = 0;
-        while (grid.aliveCount() < targetAlive && attempts < maxAttempts) {
+        long attempts = 0;
+        long alive = 0;
+        while (alive < targetAlive && attempts < maxAttempts) {
             int x0 = maxX == 0 ? 0 : random.nextInt(maxX + 1);
             int y0 = maxY == 0 ? 0 : random.nextInt(maxY + 1);
             for (int[] offset : offsets) {
-                grid.set(x0 + offset[0], y0 + offset[1], true);
+                int x = x0 + offset[0];
+                int y = y0 + offset[1];
+                if (!grid.get(x, y)) {
+                    grid.set(x, y, true);
+                    alive++;
+                }
             }
             attempts++;
         }
@@ -182,7 +215,7 @@ public final class SeedService {
         }
     }
 
-    private static void applyMask(Grid grid, int baseX, int baseY, boolean[] mask) {
+    private static void applyMask(SeedTarget grid, int baseX, int baseY, boolean[] mask) {
         int maskSide = maskDimension(mask);
         for (int idx = 0; idx < mask.length; idx++) {
             if (!mask[idx]) {
@@ -0,0 +1,10 @@
+package com.cellmachine.generator;
+
+/**
+ * Where seeding writes the first generation: an empty grid of any layout, or anything that takes the cells
+ * on elsewhere, like the bands {@link DistributedEngine} hands to its workers.
+ */
+interface SeedTarget extends GridView {
+
+    void set(int x, int y, boolean alive);
+}
@@ -0,0 +1,267 @@
+package com.cellmachine.generator;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.util.Arrays;
+import java.util.HexFormat;
+
+/**
+ * One process of a {@link DistributedEngine} run: holds a band of the board's rows, full width, and steps it
+ * on the coordinator's commands over a loopback socket. The band sits in a grid with room for {@code k} halo
+ * rows above and below it; before stepping {@code g <= k} generations the coordinator fills the {@code g}
+ * halo rows next to the band with its neighbors' edge rows, and the band is stepped like
+ * {@link TemporalBlockEngine} steps its bands, the valid rows shrinking by one per side each generation
+ * until exactly the band's own are left. Without wrapping, the halo stops at the board's top and bottom,
+ * which stay edges here too.
+ *
+ * <p>Started by the coordinator with its host, port and the run's token as arguments, and sends the token
+ * back first thing; exits when told to or when the connection drops.
+ */
+public final class ShardWorker implements AutoCloseable {
+
+    static final byte LOAD = 1;
+    static final byte STEP = 2;
+    static final byte FRAME = 3;
+    static final byte CLOSE = 4;
+    private static final int MIN_BAND_ROWS = 16;
+    // Words moved per socket read or write.
+    private static final int TRANSFER_WORDS = 8192;
+
+    private final int width;
+    private final int fromRow;
+    private final int toRow;
+    private final boolean wrap;
+    private final int halo;
+    private final int factor;
+    private final Rule rule;
+    private final ParallelStepper stepper;
+    private final boolean topEdge;
+    private final boolean bottomEdge;
+    private final int wordsPerRow;
+    // Row of the band's first own row in the grids.
+    private final int ownFrom;
+    private final int ownTo;
+    private final int rows;
+    private Grid source;
+    private Grid next;
+    private final ByteBuffer transfer = ByteBuffer.allocate(TRANSFER_WORDS * Long.BYTES);
+
+    ShardWorker(int width, int height, int fromRow, int toRow, boolean wrap, int halo, int threads, int factor,
+            Rule rule) {
+        this.width = width;
+        this.fromRow = fromRow;
+        this.toRow = toRow;
+        this.wrap = wrap;
+        this.halo = halo;
+        this.factor = factor;
+        this.rule = rule;
+        this.stepper = new ParallelStepper(threads, ParallelStepper.DEFAULT_THRESHOLD_CELLS);
+        this.topEdge = !wrap && fromRow == 0;
+        this.bottomEdge = !wrap && toRow == height;
+        this.wordsPerRow = Grid.wordsPerRow(width);
+        this.ownFrom = topEdge ? 0 : halo;
+        this.ownTo = ownFrom + toRow - fromRow;
+        this.rows = ownTo + (bottomEdge ? 0 : halo);
+        this.source = new Grid(width, rows);
+        this.next = new Grid(width, rows);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 3) {
+            throw new IllegalArgumentException("Usage: ShardWorker <coordinator host> <port> <token>");
+        }
+        byte[] token = HexFormat.of().parseHex(args[2]);
+        try (Socket socket = new Socket(args[0], Integer.parseInt(args[1]))) {
+            socket.setTcpNoDelay(true);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            // The coordinator hangs up on connections that do not open with its token.
+            out.write(token);
+            out.flush();
+            try (ShardWorker worker = new ShardWorker(in.readInt(), in.readInt(), in.readInt(), in.readInt(),
+                    in.readBoolean(), in.readInt(), in.readInt(), in.readInt(), Rule.parse(in.readUTF()))) {
+                worker.serve(in, out);
+            }
+        } catch (EOFException ex) {
+            // The coordinator went away without saying goodbye; nothing is left to do.
+        }
+    }
+
+    void serve(DataInputStream in, DataOutputStream out) throws IOException {
+        while (true) {
+            byte command = in.readByte();
+            switch (command) {
+                case LOAD -> load(in, out);
+                case STEP -> step(in, out);
+                case FRAME -> frame(out);
+                case CLOSE -> {
+                    return;
+                }
+                default -> throw new IOException("Unknown shard command " + command);
+            }
+            out.flush();
+        }
+    }
+
+    /**
+     * Shuts down the stepping threads once the coordinator is done with this band.
+     */
+    @Override
+    public void close() {
+        stepper.close();
+    }
+
+    // The band's cells, unless it is empty, answered with its edge rows.
+    private void load(DataInputStream in, DataOutputStream out) throws IOException {
+        if (in.readBoolean()) {
+            readWords(in, source.words(), ownFrom * wordsPerRow, (ownTo - ownFrom) * wordsPerRow);
+        }
+        writeEdges(out);
+    }
+
+    // The generations to step and the halo rows they need, answered with the cells born and died over
+    // them, the cells flipped by the last one and the new edge rows.
+    private void step(DataInputStream in, DataOutputStream out) throws IOException {
+        int generations = in.readInt();
+        if (generations < 1 || generations > halo) {
+            throw new IOException("Cannot step " + generations + " generations with " + halo + " halo rows");
+        }
+        if (!topEdge) {
+            readWords(in, source.words(), (ownFrom - generations) * wordsPerRow, generations * wordsPerRow);
+        }
+        if (!bottomEdge) {
+            readWords(in, source.words(), ownTo * wordsPerRow, generations * wordsPerRow);
+        }
+        long births = 0L;
+        long deaths = 0L;
+        long flipped = 0L;
+        for (int generation = 1; generation <= generations; generation++) {
+            // The grids' counts cover stale halo rows too; only the changes in the band's own rows are read.
+            Grid.ensureStepTarget(source, next, rule);
+            stepRows(ownFrom, ownTo);
+            flipped = next.flipped();
+            long growth = next.aliveCount() - source.aliveCount();
+            births += (flipped + growth) / 2;
+            deaths += (flipped - growth) / 2;
+            stepRows(topEdge ? 0 : ownFrom - generations + generation, ownFrom);
+            stepRows(ownTo, bottomEdge ? rows : ownTo + generations - generation);
+            Grid stepped = next;
+            next = source;
+            source = stepped;
+        }
+        out.writeLong(births);
+        out.writeLong(deaths);
+        out.writeLong(flipped);
+        writeEdges(out);
+    }
+
+    private void stepRows(int from, int to) {
+        if (from < to) {
+            stepper.forEachBand(to - from, MIN_BAND_ROWS, (long) width * (to - from),
+                    (first, last) -> Grid.stepRows(source, next, rule, wrap, from + first, from + last));
+        }
+    }
+
+    // The band's top and bottom halo-deep rows, which its neighbors need as halos.
+    private void writeEdges(DataOutputStream out) throws IOException {
+        writeWords(out, source.words(), ownFrom * wordsPerRow, halo * wordsPerRow);
+        writeWords(out, source.words(), (ownTo - halo) * wordsPerRow, halo * wordsPerRow);
+    }
+
+    // The band's part of the frame, one level per factor x factor block, from 1 to 255 by the share of live
+    // cells when the block has any; then its live cells, hash and live bounds in board coordinates.
+    private void frame(DataOutputStream out) throws IOException {
+        long[] words = source.words();
+        int frameWidth = (width + factor - 1) / factor;
+        int frameRows = (toRow - fromRow + factor - 1) / factor;
+        long population = 0L;
+        long hash = 0L;
+        int left = width;
+        int right = -1;
+        int top = -1;
+        int bottom = -1;
+        int[] counts = new int[frameWidth];
+        byte[] levels = new byte[frameWidth];
+        for (int frameRow = 0; frameRow < frameRows; frameRow++) {
+            int blockFrom = frameRow * factor;
+            int blockTo = Math.min(blockFrom + factor, toRow - fromRow);
+            Arrays.fill(counts, 0);
+            for (int y = blockFrom; y < blockTo; y++) {
+                int start = (ownFrom + y) * wordsPerRow;
+                long rowHash = 0L;
+                int rowPopulation = 0;
+                for (int i = 0; i < wordsPerRow; i++) {
+                    long word = words[start + i];
+                    if (word == 0L) {
+                        continue;
+                    }
+                    rowHash += word * Grid.hashKey(i);
+                    rowPopulation += Long.bitCount(word);
+                    left = Math.min(left, (i << 6) + Long.numberOfTrailingZeros(word));
+                    right = Math.max(right, (i << 6) + 63 - Long.numberOfLeadingZeros(word));
+                    for (long bits = word; bits != 0L; bits &= bits - 1) {
+                        counts[((i << 6) + Long.numberOfTrailingZeros(bits)) / factor]++;
+                    }
+                }
+                if (rowPopulation != 0) {
+                    top = top < 0 ? fromRow + y : top;
+                    bottom = fromRow + y;
+                }
+                population += rowPopulation;
+                hash += rowHash * Grid.rowKey(fromRow + y);
+            }
+            for (int x = 0; x < frameWidth; x++) {
+                int cells = (Math.min((x + 1) * factor, width) - x * factor) * (blockTo - blockFrom);
+                levels[x] = (byte) (factor == 1 ? counts[x] : (counts[x] * 255 + cells - 1) / cells);
+            }
+            out.write(levels);
+        }
+        out.writeLong(population);
+        out.writeLong(hash);
+        out.writeInt(population == 0L ? -1 : left);
+        out.writeInt(top);
+        out.writeInt(right);
+        out.writeInt(bottom);
+    }
+
+    /**
+     * Writes {@code count} words of {@code words} from {@code offset}, big-endian like
+     * {@link DataOutputStream#writeLong}, through this worker's transfer buffer.
+     */
+    void writeWords(DataOutputStream out, long[] words, int offset, int count) throws IOException {
+        writeWords(out, words, offset, count, transfer);
+    }
+
+    void readWords(DataInputStream in, long[] words, int offset, int count) throws IOException {
+        readWords(in, words, offset, count, transfer);
+    }
+
+    static void writeWords(DataOutputStream out, long[] words, int offset, int count, ByteBuffer transfer)
+            throws IOException {
+        LongBuffer view = transfer.clear().asLongBuffer();
+        for (int done = 0; done < count; ) {
+            int chunk = Math.min(count - done, view.capacity());
+            view.clear().put(words, offset + done, chunk);
+            out.write(transfer.array(), 0, chunk * Long.BYTES);
+            done += chunk;
+        }
+    }
+
+    static void readWords(DataInputStream in, long[] words, int offset, int count, ByteBuffer transfer)
+            throws IOException {
+        LongBuffer view = transfer.clear().asLongBuffer();
+        for (int done = 0; done < count; ) {
+            int chunk = Math.min(count - done, view.capacity());
+            in.readFully(transfer.array(), 0, chunk * Long.BYTES);
+            view.clear().get(words, offset + done, chunk);
+            done += chunk;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.cellmachine.generator;
+
+/**
+ * A way of computing the generations of a run. {@link SimulationService} asks an {@link EngineSelector}
+ * for one per run; engines only differ in speed and memory, so every engine that supports a run must
+ * produce the same generations. Frames show them cell by cell, except that an engine may hand out
+ * {@link DownsampledFrame}s shading blocks of cells for boards too large to draw whole; those keep the
+ * board's population, hash and bounds but not its cells, so such runs leave no {@link GridCheckpoint}.
+ */
+interface SimulationEngine {
+
+    /**
+     * Stable lowercase name, used for per-request overrides and reported with the result.
+     */
+    String name();
+
+    /**
+     * Whether this engine can run the options at all, regardless of how fast it would be.
+     */
+    boolean supports(SimulationOptions options);
+
+    /**
+     * Seeds the first generation described by {@code options} and returns a run positioned on it.
+     */
+    Run<?> start(SimulationOptions options);
+
+    /**
+     * One run's frames. Runs are closed when the simulation ends, which releases any memory they hold outside
+     * the heap.
+     */
+    interface Run<S extends GridState<S>> extends AutoCloseable {
+
+        /**
+         * Advances by the given generations and returns false once the frame stopped changing.
+         */
+        boolean advance(int generations);
+
+        /**
+         * The current generation; the run may reuse it for later generations.
+         */
+        S current();
+
+        /**
+         * Cells that may differ from the previous frame, or null if none do.
+         */
+        CellRegion changedRegion();
+
+        /**
+         * Cells that came alive during the generations of the last {@link #advance}, summed per generation,
+         * or -1 if the engine jumped over them without stepping each one.
+         */
+        default long births() {
+            return -1L;
+        }
+
+        /**
+         * Cells that died during the generations of the last {@link #advance}; see {@link #births}.
+         */
+        default long deaths() {
+            return -1L;
+        }
+
+        @Override
+        default void close() {
+        }
+    }
+}
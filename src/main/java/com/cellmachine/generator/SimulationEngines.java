@@ -0,0 +1,942 @@
+package com.cellmachine.generator;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The built-in {@link SimulationEngine}s and the seeding they share.
+ */
+final class SimulationEngines {
+
+    static final String REFERENCE = "reference";
+    static final String TILED = "tiled";
+    static final String BLOCK_TABLE = "blocktable";
+    static final String TEMPORAL = "temporal";
+    static final String HASHLIFE = "hashlife";
+    static final String SPARSE = "sparse";
+    static final String OFF_HEAP = "offheap";
+    static final String GENERATIONS = "generations";
+    static final String LARGER_THAN_LIFE = "largerthanlife";
+    static final String LENIA = "lenia";
+    static final String ELEMENTARY = "elementary";
+    static final String DISTRIBUTED = "distributed";
+
+    private SimulationEngines() {
+    }
+
+    /**
+     * Every built-in engine, the reference first.
+     */
+    static List<SimulationEngine> defaults(ParallelStepper stepper, int hashLifeMaxNodes) {
+        return defaults(stepper, hashLifeMaxNodes, DistributedEngine.DEFAULT_WORKERS);
+    }
+
+    static List<SimulationEngine> defaults(ParallelStepper stepper, int hashLifeMaxNodes, int distributedWorkers) {
+        return List.of(
+                new ReferenceEngine(),
+                new TiledEngine(stepper),
+                new BlockTableSimulationEngine(stepper),
+                new TemporalSimulationEngine(stepper),
+                new HashLifeSimulationEngine(stepper, hashLifeMaxNodes),
+                new SparseEngine(),
+                new OffHeapSimulationEngine(stepper),
+                new GenerationsSimulationEngine(stepper),
+                new LargerThanLifeSimulationEngine(stepper),
+                new LeniaSimulationEngine(stepper),
+                new ElementarySimulationEngine(),
+                new DistributedSimulationEngine(stepper, distributedWorkers));
+    }
+
+    /**
+     * Whether the rule has just the live and dead states, the only ones the bit-plane grids hold, on the
+     * Moore neighborhood the bit-plane kernels count.
+     */
+    static boolean isLifeLike(SimulationOptions options) {
+        return isTwoState(options) && options.rule().neighborhood() == Neighborhood.MOORE;
+    }
+
+    /**
+     * Like {@link #isLifeLike}, but on any {@link Neighborhood}: the rules {@link Grid#stepRegion} steps, through
+     * the kernel {@link RuleKernels} has for their neighborhood.
+     */
+    static boolean isTwoState(SimulationOptions options) {
+        Rule rule = options.rule();
+        return rule.states() == 2 && rule.range() == 1 && !rule.isContinuous() && !rule.isElementary();
+    }
+
+    /**
+     * Explicit seed cells, or an init mask without density, placed once: a compact pattern rather than a
+     * random soup. Not for runs resumed from a checkpoint, whose cells are whatever the pattern grew into.
+     */
+    static boolean isPatternSeed(SimulationOptions options) {
+        if (options.resumeFrom() != null) {
+            return false;
+        }
+        return !options.seedCells().isEmpty() || (options.initMask() != null && options.density() == null);
+    }
+
+    static Grid denseSeed(SimulationOptions options) {
+        SimulationDimensions dimensions = options.dimensions();
+        return seed(new Grid(dimensions.width(), dimensions.height()), options);
+    }
+
+    /**
+     * Writes the first generation described by {@code options} into an empty grid of any layout: the
+     * checkpoint the run resumes from, if any, otherwise the seed.
+     */
+    static <T extends SeedTarget> T seed(T grid, SimulationOptions options) {
+        if (options.resumeFrom() != null) {
+            return options.resumeFrom().restore(grid);
+        }
+        boolean[] initMask = options.initMask();
+        Double density = options.density();
+
+        if (isPatternSeed(options)) {
+            return placePattern(grid, options);
+        }
+        if (initMask != null) {
+            return SeedService.withRandomMasks(grid, initMask, density, options.randomSeed());
+        }
+
+        double effectiveDensity = density != null ? density : SeedService.DEFAULT_RANDOM_DENSITY;
+        return SeedService.withRandomCells(grid, effectiveDensity, options.randomSeed());
+    }
+
+    /**
+     * Writes the explicit seed cells, or the centered init mask, into an empty grid.
+     */
+    static <T extends SeedTarget> T placePattern(T grid, SimulationOptions options) {
+        List<CellCoordinate> seedCells = options.seedCells();
+        if (seedCells.isEmpty()) {
+            return SeedService.withCenteredMask(grid, options.initMask());
+        }
+        int width = grid.width();
+        int height = grid.height();
+        for (CellCoordinate coordinate : seedCells) {
+            int x = coordinate.x();
+            int y = coordinate.y();
+            if (x < 0 || x >= width) {
+                throw new IllegalArgumentException("Seed cell x=" + x + " exceeds width " + width);
+            }
+            if (y < 0 || y >= height) {
+                throw new IllegalArgumentException("Seed cell y=" + y + " exceeds height " + height);
+            }
+            grid.set(x, y, true);
+        }
+        return grid;
+    }
+
+    /**
+     * Full-grid stepping with {@link Grid#advanceInto}, one generation after another on one thread. The
+     * other engines are checked against it.
+     */
+    static final class ReferenceEngine implements SimulationEngine {
+
+        @Override
+        public String name() {
+            return REFERENCE;
+        }
+
+        @Override
+        public boolean supports(SimulationOptions options) {
+            return isTwoState(options);
+        }
+
+        @Override
+        public Run<Grid> start(SimulationOptions options) {
+            Grid initial = denseSeed(options);
+            return new BufferedRun<>(initial, new Grid(initial.width(), initial.height())) {
+                private boolean changed;
+
+                @Override
+                void step(Grid current, Grid next) {
+                    Grid.advanceInto(current, next, options.rule(), options.wrap());
+                    changed = next.flipped() != 0L;
+                }
+
+                @Override
+                boolean stepChanged() {
+                    return changed;
+                }
+
+                @Override
+                CellRegion stepChangedRegion() {
+                    return changed ? CellRegion.of(current()) : null;
+                }
+
+                @Override
+                long stepFlipped() {
+                    return current().flipped();
+                }
+            };
+        }
+    }
+
+    /**
+     * {@link BlockTableEngine} on dense grids, parallel across bands for large boards.
+     */
+    static final class BlockTableSimulationEngine implements SimulationEngine {
+        private final ParallelStepper stepper;
+
+        BlockTableSimulationEngine(ParallelStepper stepper) {
+            this.stepper = Objects.requireNonNull(stepper, "stepper");
+        }
+
+        @Override
+        public String name() {
+            return BLOCK_TABLE;
+        }
+
+        @Override
+        public boolean supports(SimulationOptions options) {
+            return isLifeLike(options);
+        }
+
+        @Override
+        public Run<Grid> start(SimulationOptions options) {
+            Grid initial = denseSeed(options);
+            BlockTableEngine engine = new BlockTableEngine(stepper);
+            return new BufferedRun<>(initial, new Grid(initial.width(), initial.height())) {
+                @Override
+                void step(Grid current, Grid next) {
+                    engine.advanceInto(current, next, options.rule(), options.wrap());
+                }
+
+                @Override
+                boolean stepChanged() {
+                    return current().flipped() != 0L;
+                }
+
+                @Override
+                CellRegion stepChangedRegion() {
+                    return stepChanged() ? CellRegion.of(current()) : null;
+                }
+
+                @Override
+                long stepFlipped() {
+                    return current().flipped();
+                }
+            };
+        }
+    }
+
+    /**
+     * {@link TemporalBlockEngine} on dense grids, stepping up to {@link TemporalBlockEngine#MAX_DEPTH}
+     * generations per pass over the board. Only pays off on boards larger than the cache when frames are
+     * several generations apart, so the fixed rules of {@link EngineSelector} never pick it.
+     */
+    static final class TemporalSimulationEngine implements SimulationEngine {
+        private final ParallelStepper stepper;
+
+        TemporalSimulationEngine(ParallelStepper stepper) {
+            this.stepper = Objects.requireNonNull(stepper, "stepper");
+        }
+
+        @Override
+        public String name() {
+            return TEMPORAL;
+        }
+
+        @Override
+        public boolean supports(SimulationOptions options) {
+            return isLifeLike(options);
+        }
+
+        @Override
+        public Run<Grid> start(SimulationOptions options) {
+            Grid initial = denseSeed(options);
+            return new TemporalRun(initial, new TemporalBlockEngine(stepper), options.rule(), options.wrap());
+        }
+    }
+
+    /**
+     * {@link ActiveTileEngine} on dense grids, parallel across bands for large boards.
+     */
+    static final class TiledEngine implements SimulationEngine {
+        private final ParallelStepper stepper;
+
+        TiledEngine(ParallelStepper stepper) {
+            this.stepper = Objects.requireNonNull(stepper, "stepper");
+        }
+
+        @Override
+        public String name() {
+            return TILED;
+        }
+
+        @Override
+        public boolean supports(SimulationOptions options) {
+            return isTwoState(options);
+        }
+
+        @Override
+        public Run<Grid> start(SimulationOptions options) {
+            Grid initial = denseSeed(options);
+            ActiveTileEngine engine = new ActiveTileEngine(initial.width(), initial.height(), stepper);
+            return new BufferedRun<>(initial, new Grid(initial.width(), initial.height())) {
+                @Override
+                void step(Grid current, Grid next) {
+                    engine.advanceInto(current, next, options.rule(), options.wrap());
+                }
+
+                @Override
+                boolean stepChanged() {
+                    return engine.changed();
+                }
+
+                @Override
+                CellRegion stepChangedRegion() {
+                    return engine.changedRegion();
+                }
+
+                @Override
+                long stepFlipped() {
+                    return current().flipped();
+                }
+            };
+        }
+    }
+
+    /**
+     * {@link HashLifeEngine}, which jumps over the generations between frames of a time-lapse.
+     */
+    static final class HashLifeSimulationEngine implements SimulationEngine {
+        private final ParallelStepper stepper;
+        private final int maxNodes;
+
+        HashLifeSimulationEngine(ParallelStepper stepper, int maxNodes) {
+            if (maxNodes <= 0) {
+                throw new IllegalArgumentException("HashLife node cache size must be positive");
+            }
+            this.stepper = Objects.requireNonNull(stepper, "stepper");
+            this.maxNodes = maxNodes;
+        }
+
+        @Override
+        public String name() {
+            return HASHLIFE;
+        }
+
+        @Override
+        public boolean supports(SimulationOptions options) {
+            return isLifeLike(options) && HashLifeEngine.supports(options.rule());
+        }
+
+        @Override
+        public Run<Grid> start(SimulationOptions options) {
+            HashLifeEngine engine = new HashLifeEngine(denseSeed(options), options.rule(), options.wrap(), stepper,
+                    maxNodes);
+            return new Run<>() {
+                @Override
+                public boolean advance(int generations) {
+                    engine.advance(generations);
+                    return engine.changed();
+                }
+
+                @Override
+                public Grid current() {
+                    return engine.frame();
+                }
+
+                @Override
+                public CellRegion changedRegion() {
+                    return engine.changed() ? CellRegion.of(engine.frame()) : null;
+                }
+            };
+        }
+    }
+
+    /**
+     * {@link SparseChunkEngine} on a {@link SparseGrid}, for small populations on large boards.
+     */
+    static final class SparseEngine implements SimulationEngine {
+
+        @Override
+        public String name() {
+            return SPARSE;
+        }
+
+        @Override
+        public boolean supports(SimulationOptions options) {
+            return isLifeLike(options) && SparseChunkEngine.supports(options.rule());
+        }
+
+        @Override
+        public Run<SparseGrid> start(SimulationOptions options) {
+            SimulationDimensions dimensions = options.dimensions();
+            SparseGrid initial = isPatternSeed(options)
+                    ? placePattern(new SparseGrid(dimensions.width(), dimensions.height()), options)
+                    : SparseGrid.copyOf(denseSeed(options));
+            SparseChunkEngine engine = new SparseChunkEngine();
+            return new BufferedRun<>(initial, new SparseGrid(initial.width(), initial.height())) {
+                @Override
+                void step(SparseGrid current, SparseGrid next) {
+                    engine.advanceInto(current, next, options.rule(), options.wrap());
+                }
+
+                @Override
+                boolean stepChanged() {
+                    return engine.changed();
+                }
+
+                @Override
+                CellRegion stepChangedRegion() {
+                    return engine.changedRegion();
+                }
+
+                @Override
+                long stepFlipped() {
+                    return engine.flipped();
+                }
+            };
+        }
+    }
+
+    /**
+     * {@link OffHeapEngine} on {@link OffHeapGrid}s, for boards whose dense grids would crowd the heap. The
+     * run's grids and snapshots share one arena, freed when the run is closed.
+     */
+    static final class OffHeapSimulationEngine implements SimulationEngine {
+        private final ParallelStepper stepper;
+
+        OffHeapSimulationEngine(ParallelStepper stepper) {
+            this.stepper = Objects.requireNonNull(stepper, "stepper");
+        }
+
+        @Override
+        public String name() {
+            return OFF_HEAP;
+        }
+
+        @Override
+        public boolean supports(SimulationOptions options) {
+            return OffHeapEngine.AVAILABLE && isLifeLike(options);
+        }
+
+        @Override
+        public Run<OffHeapGrid> start(SimulationOptions options) {
+            SimulationDimensions dimensions = options.dimensions();
+            OffHeapGrid initial = OffHeapGrid.open(dimensions.width(), dimensions.height());
+            try {
+                seed(initial, options);
+                OffHeapEngine engine = new OffHeapEngine(stepper);
+                return new BufferedRun<>(initial, initial.blank()) {
+                    @Override
+                    void step(OffHeapGrid current, OffHeapGrid next) {
+                        engine.advanceInto(current, next, options.rule(), options.wrap());
+                    }
+
+                    @Override
+                    boolean stepChanged() {
+                        return engine.changed();
+                    }
+
+                    @Override
+                    CellRegion stepChangedRegion() {
+                        return engine.changedRegion();
+                    }
+
+                    @Override
+                    long stepFlipped() {
+                        return engine.flipped();
+                    }
+
+                    @Override
+                    public void close() {
+                        initial.close();
+                    }
+                };
+            } catch (RuntimeException ex) {
+                initial.close();
+                throw ex;
+            }
+        }
+    }
+
+    /**
+     * {@link GenerationsEngine} on {@link GenerationsGrid}s, the engine for rules with decay states.
+     */
+    static final class GenerationsSimulationEngine implements SimulationEngine {
+        private final ParallelStepper stepper;
+
+        GenerationsSimulationEngine(ParallelStepper stepper) {
+            this.stepper = Objects.requireNonNull(stepper, "stepper");
+        }
+
+        @Override
+        public String name() {
+            return GENERATIONS;
+        }
+
+        @Override
+        public boolean supports(SimulationOptions options) {
+            return options.rule().states() > 2;
+        }
+
+        @Override
+        public Run<GenerationsGrid> start(SimulationOptions options) {
+            SimulationDimensions dimensions = options.dimensions();
+            int states = options.rule().states();
+            GenerationsGrid initial = seed(new GenerationsGrid(dimensions.width(), dimensions.height(), states), options);
+            GenerationsEngine engine = new GenerationsEngine(stepper);
+            return new BufferedRun<>(initial, new GenerationsGrid(dimensions.width(), dimensions.height(), states)) {
+                private boolean changed;
+
+                @Override
+                void step(GenerationsGrid current, GenerationsGrid next) {
+                    engine.advanceInto(current, next, options.rule(), options.wrap());
+                    // Decaying cells always move on, so only a grid without them can stand still.
+                    changed = next.flipped() != 0L || current.decayingCount() != 0L;
+                }
+
+                @Override
+                boolean stepChanged() {
+                    return changed;
+                }
+
+                @Override
+                CellRegion stepChangedRegion() {
+                    return changed ? CellRegion.of(current()) : null;
+                }
+
+                @Override
+                long stepFlipped() {
+                    return current().flipped();
+                }
+            };
+        }
+    }
+
+    /**
+     * {@link LargerThanLifeEngine} on dense grids, the engine for rules of range 2 and more.
+     */
+    static final class LargerThanLifeSimulationEngine implements SimulationEngine {
+        private final ParallelStepper stepper;
+
+        LargerThanLifeSimulationEngine(ParallelStepper stepper) {
+            this.stepper = Objects.requireNonNull(stepper, "stepper");
+        }
+
+        @Override
+        public String name() {
+            return LARGER_THAN_LIFE;
+        }
+
+        @Override
+        public boolean supports(SimulationOptions options) {
+            return options.rule().isLargerThanLife() && options.rule().range() > 1;
+        }
+
+        @Override
+        public Run<Grid> start(SimulationOptions options) {
+            Grid initial = denseSeed(options);
+            LargerThanLifeEngine engine = new LargerThanLifeEngine(stepper);
+            return new BufferedRun<>(initial, new Grid(initial.width(), initial.height())) {
+                private boolean changed;
+
+                @Override
+                void step(Grid current, Grid next) {
+                    engine.advanceInto(current, next, options.rule(), options.wrap());
+                    changed = next.flipped() != 0L;
+                }
+
+                @Override
+                boolean stepChanged() {
+                    return changed;
+                }
+
+                @Override
+                CellRegion stepChangedRegion() {
+                    return changed ? CellRegion.of(current()) : null;
+                }
+
+                @Override
+                long stepFlipped() {
+                    return current().flipped();
+                }
+            };
+        }
+    }
+
+    /**
+     * {@link LeniaEngine} on {@link LeniaGrid}s, the engine for continuous rules.
+     */
+    static final class LeniaSimulationEngine implements SimulationEngine {
+        private final ParallelStepper stepper;
+
+        LeniaSimulationEngine(ParallelStepper stepper) {
+            this.stepper = Objects.requireNonNull(stepper, "stepper");
+        }
+
+        @Override
+        public String name() {
+            return LENIA;
+        }
+
+        @Override
+        public boolean supports(SimulationOptions options) {
+            return options.rule().isContinuous();
+        }
+
+        @Override
+        public Run<LeniaGrid> start(SimulationOptions options) {
+            SimulationDimensions dimensions = options.dimensions();
+            LeniaGrid initial = seed(new LeniaGrid(dimensions.width(), dimensions.height()), options);
+            LeniaEngine engine = new LeniaEngine(stepper);
+            return new BufferedRun<>(initial, new LeniaGrid(dimensions.width(), dimensions.height())) {
+                private boolean changed;
+
+                @Override
+                void step(LeniaGrid current, LeniaGrid next) {
+                    engine.advanceInto(current, next, options.rule(), options.wrap());
+                    changed = next.changedCells() != 0L;
+                }
+
+                @Override
+                boolean stepChanged() {
+                    return changed;
+                }
+
+                @Override
+                CellRegion stepChangedRegion() {
+                    return changed ? CellRegion.of(current()) : null;
+                }
+
+                @Override
+                long stepFlipped() {
+                    return current().flipped();
+                }
+            };
+        }
+    }
+
+    /**
+     * {@link ElementaryEngine} drawing a {@link SpaceTimeDiagram}, the engine for one-dimensional rules. The
+     * first generation is the top row of the seed the options describe.
+     */
+    static final class ElementarySimulationEngine implements SimulationEngine {
+
+        @Override
+        public String name() {
+            return ELEMENTARY;
+        }
+
+        @Override
+        public boolean supports(SimulationOptions options) {
+            return options.rule().isElementary();
+        }
+
+        @Override
+        public Run<SpaceTimeDiagram> start(SimulationOptions options) {
+            SimulationDimensions dimensions = options.dimensions();
+            Grid firstRow = seed(new Grid(dimensions.width(), 1), options);
+            return new ElementaryRun(SpaceTimeDiagram.startingWith(firstRow, dimensions.height()),
+                    new ElementaryEngine(options.rule()), options.wrap());
+        }
+    }
+
+    /**
+     * {@link DistributedEngine}, one board stepped in several worker processes. Starting the workers costs
+     * far more than stepping any board that fits one heap, so only requests naming it get it. Its frames are
+     * {@link DownsampledFrame}s; the writers shade their blocks once a board is too large to draw cell by
+     * cell.
+     */
+    static final class DistributedSimulationEngine implements SimulationEngine {
+        private final ParallelStepper stepper;
+        private final int workers;
+        private final int maxFrameSide;
+
+        DistributedSimulationEngine(ParallelStepper stepper, int workers) {
+            this(stepper, workers, DistributedEngine.MAX_FRAME_SIDE);
+        }
+
+        DistributedSimulationEngine(ParallelStepper stepper, int workers, int maxFrameSide) {
+            if (workers <= 0 || maxFrameSide <= 0) {
+                throw new IllegalArgumentException("Distributed workers and frame side must be positive");
+            }
+            this.stepper = Objects.requireNonNull(stepper, "stepper");
+            this.workers = workers;
+            this.maxFrameSide = maxFrameSide;
+        }
+
+        @Override
+        public String name() {
+            return DISTRIBUTED;
+        }
+
+        @Override
+        public boolean supports(SimulationOptions options) {
+            return isLifeLike(options);
+        }
+
+        @Override
+        public Run<DownsampledFrame> start(SimulationOptions options) {
+            DistributedEngine engine = new DistributedEngine(options, workers,
+                    Math.max(1, stepper.threads() / workers), maxFrameSide);
+            return new Run<>() {
+                @Override
+                public boolean advance(int generations) {
+                    engine.advance(generations);
+                    return engine.changed();
+                }
+
+                @Override
+                public DownsampledFrame current() {
+                    return engine.frame();
+                }
+
+                @Override
+                public CellRegion changedRegion() {
+                    return engine.changedRegion();
+                }
+
+                @Override
+                public long births() {
+                    return engine.births();
+                }
+
+                @Override
+                public long deaths() {
+                    return engine.deaths();
+                }
+
+                @Override
+                public void close() {
+                    engine.close();
+                }
+            };
+        }
+    }
+
+    /**
+     * Alternates two buffers one pass of {@link TemporalBlockEngine} at a time, splitting each frame's
+     * generations evenly over as few passes as the depth limit allows.
+     */
+    private static final class TemporalRun implements SimulationEngine.Run<Grid> {
+        private final TemporalBlockEngine engine;
+        private final Rule rule;
+        private final boolean wrap;
+        private Grid current;
+        private Grid next;
+        private Grid previousFrame;
+        private CellRegion changedRegion;
+        private long births;
+        private long deaths;
+
+        TemporalRun(Grid initial, TemporalBlockEngine engine, Rule rule, boolean wrap) {
+            this.current = initial;
+            this.next = new Grid(initial.width(), initial.height());
+            this.engine = engine;
+            this.rule = rule;
+            this.wrap = wrap;
+        }
+
+        @Override
+        public boolean advance(int generations) {
+            int passes = (generations + TemporalBlockEngine.MAX_DEPTH - 1) / TemporalBlockEngine.MAX_DEPTH;
+            if (passes > 1) {
+                if (previousFrame == null) {
+                    previousFrame = current.copy();
+                } else {
+                    previousFrame.copyFrom(current);
+                }
+            }
+            births = 0L;
+            deaths = 0L;
+            boolean moved = false;
+            int remaining = generations;
+            for (int pass = 0; pass < passes; pass++) {
+                int depth = remaining / (passes - pass);
+                remaining -= depth;
+                long before = current.aliveCount();
+                engine.advanceInto(current, next, rule, wrap, depth);
+                Grid previous = current;
+                current = next;
+                next = previous;
+                long flipped = engine.flipped();
+                long growth = current.aliveCount() - before;
+                births += (flipped + growth) / 2;
+                deaths += (flipped - growth) / 2;
+                if (flipped == 0L) {
+                    break;
+                }
+                moved = true;
+            }
+            changedRegion = moved ? CellRegion.of(current) : null;
+            return passes > 1 ? !current.equals(previousFrame) : current.flipped() != 0L;
+        }
+
+        @Override
+        public Grid current() {
+            return current;
+        }
+
+        @Override
+        public CellRegion changedRegion() {
+            return changedRegion;
+        }
+
+        @Override
+        public long births() {
+            return births;
+        }
+
+        @Override
+        public long deaths() {
+            return deaths;
+        }
+    }
+
+    /**
+     * Adds a row to the diagram per generation. While the diagram grows, only the new rows change; once it
+     * scrolls the whole frame moves, and it repeats the previous frame exactly when the new top row is the
+     * old one, as every row follows from the one above it. Births and deaths are those of the rows, each
+     * against the row before it.
+     */
+    private static final class ElementaryRun implements SimulationEngine.Run<SpaceTimeDiagram> {
+        private final SpaceTimeDiagram diagram;
+        private final ElementaryEngine engine;
+        private final boolean wrap;
+        private final long[] previousTop;
+        private CellRegion changedRegion;
+        private long births;
+        private long deaths;
+
+        ElementaryRun(SpaceTimeDiagram diagram, ElementaryEngine engine, boolean wrap) {
+            this.diagram = diagram;
+            this.engine = engine;
+            this.wrap = wrap;
+            this.previousTop = new long[diagram.wordsPerRow()];
+        }
+
+        @Override
+        public boolean advance(int generations) {
+            int filledBefore = diagram.filledRows();
+            if (filledBefore + generations > diagram.height()) {
+                diagram.copyRow(0, previousTop, 0);
+            }
+            births = 0L;
+            deaths = 0L;
+            boolean scrolled = false;
+            for (int generation = 0; generation < generations; generation++) {
+                scrolled |= diagram.advance(engine, wrap);
+                births += engine.births();
+                deaths += engine.deaths();
+            }
+            int filled = diagram.filledRows();
+            boolean changed = filled != filledBefore || !diagram.rowEquals(0, previousTop, 0);
+            if (!changed) {
+                changedRegion = null;
+            } else if (scrolled) {
+                changedRegion = CellRegion.of(diagram);
+            } else {
+                changedRegion = new CellRegion(0, filledBefore, diagram.width(), filled - filledBefore);
+            }
+            return changed;
+        }
+
+        @Override
+        public SpaceTimeDiagram current() {
+            return diagram;
+        }
+
+        @Override
+        public CellRegion changedRegion() {
+            return changedRegion;
+        }
+
+        @Override
+        public long births() {
+            return births;
+        }
+
+        @Override
+        public long deaths() {
+            return deaths;
+        }
+    }
+
+    /**
+     * Alternates two buffers one generation at a time. Frames spanning several generations are compared
+     * against a snapshot of the previous frame, since a pattern may change and change back in between.
+     * Births and deaths follow from the cells each step flipped and the change in population.
+     */
+    private abstract static class BufferedRun<S extends GridState<S>> implements SimulationEngine.Run<S> {
+        private S current;
+        private S next;
+        private S previousFrame;
+        private CellRegion changedRegion;
+        private long births;
+        private long deaths;
+
+        BufferedRun(S initial, S next) {
+            this.current = initial;
+            this.next = next;
+        }
+
+        /**
+         * Writes the generation after {@code current} into {@code next}.
+         */
+        abstract void step(S current, S next);
+
+        abstract boolean stepChanged();
+
+        abstract CellRegion stepChangedRegion();
+
+        /**
+         * Cells that differ between the two grids of the last {@link #step}, asked once {@link #current}
+         * returns the stepped grid.
+         */
+        abstract long stepFlipped();
+
+        @Override
+        public boolean advance(int generations) {
+            if (generations > 1) {
+                if (previousFrame == null) {
+                    previousFrame = current.copy();
+                } else {
+                    previousFrame.copyFrom(current);
+                }
+            }
+            changedRegion = null;
+            births = 0L;
+            deaths = 0L;
+            for (int generation = 0; generation < generations; generation++) {
+                long before = current.aliveCount();
+                step(current, next);
+                S previous = current;
+                current = next;
+                next = previous;
+                long flipped = stepFlipped();
+                long growth = current.aliveCount() - before;
+                births += (flipped + growth) / 2;
+                deaths += (flipped - growth) / 2;
+                if (!stepChanged()) {
+                    break;
+                }
+                changedRegion = CellRegion.union(changedRegion, stepChangedRegion());
+            }
+            return generations > 1 ? !current.equals(previousFrame) : stepChanged();
+        }
+
+        @Override
+        public S current() {
+            return current;
+        }
+
+        @Override
+        public CellRegion changedRegion() {
+            return changedRegion;
+        }
+
+        @Override
+        public long births() {
+            return births;
+        }
+
+        @Override
+        public long deaths() {
+            return deaths;
+        }
+    }
+}
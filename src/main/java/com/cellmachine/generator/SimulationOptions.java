@@ -8,6 +8,7 @@ public final class SimulationOptions {
 
     public static final int DEFAULT_STEPS = 100;
     public static final int DEFAULT_DELAY_CS = 6;
+    public static final int DEFAULT_STEPS_PER_FRAME = 1;
 
     private final int steps;
     private final Rule rule;
@@ -20,7 +21,18 @@ public final class SimulationOptions {
     private final SimulationDimensions dimensions;
     private final long randomSeed;
     private final SimulationOutputFormat outputFormat;
+    private final int stepsPerFrame;
+    private final String engine;
+    private final GridCheckpoint resumeFrom;
     private static final String NULL_TOKEN = "-";
+    private static final int POSITIONAL_PARTS = 14;
+    private static final String STEPS_PER_FRAME_KEY = "every";
+    private static final String ENGINE_KEY = "engine";
+    private static final String STATES_KEY = "states";
+    private static final String RANGE_KEY = "range";
+    private static final String MIDDLE_KEY = "middle";
+    // Stands in for the survive part of one-dimensional rules, which only have a Wolfram code.
+    private static final String ELEMENTARY_PART = "1D";
 
     private final Palette2D palette;
     private final Integer progressLogPercentStep = 10;
@@ -37,7 +49,10 @@ public final class SimulationOptions {
         this.dimensions = builder.dimensions;
         this.randomSeed = builder.randomSeed;
         this.outputFormat = builder.outputFormat;
+        this.stepsPerFrame = builder.stepsPerFrame;
+        this.engine = builder.engine;
         this.palette = builder.palette;
+        this.resumeFrom = builder.resumeFrom;
 //        this.progressLogPercentStep = builder.progressLogPercentStep;
     }
 
@@ -53,6 +68,13 @@ public final class SimulationOptions {
         return ruleLabel;
     }
 
+    /**
+     * The neighbors the rule counts, written as the suffix of its label.
+     */
+    public Neighborhood neighborhood() {
+        return rule.neighborhood();
+    }
+
     public Double density() {
         return density;
     }
@@ -85,6 +107,20 @@ public final class SimulationOptions {
         return outputFormat;
     }
 
+    /**
+     * Generations simulated between two rendered frames; above one the output is a time-lapse.
+     */
+    public int stepsPerFrame() {
+        return stepsPerFrame;
+    }
+
+    /**
+     * Name of the simulation engine to use, or null to pick one automatically.
+     */
+    public String engine() {
+        return engine;
+    }
+
     public Palette2D palette() {
         return palette;
     }
@@ -93,16 +129,67 @@ public final class SimulationOptions {
         return progressLogPercentStep;
     }
 
+    /**
+     * The checkpoint the run continues from instead of seeding generation 0, or null. It is not part of
+     * {@link #serialize()}: the options still describe the whole run, the checkpoint only skips its start.
+     */
+    GridCheckpoint resumeFrom() {
+        return resumeFrom;
+    }
+
+    /**
+     * The same run with a different number of steps, e.g. to extend a finished one.
+     */
+    public SimulationOptions withSteps(int steps) {
+        return toBuilder().steps(steps).build();
+    }
+
+    /**
+     * The same run, continued from {@code checkpoint} instead of its seed.
+     */
+    SimulationOptions resumedFrom(GridCheckpoint checkpoint) {
+        return toBuilder().resumeFrom(checkpoint).build();
+    }
+
+    private Builder toBuilder() {
+        return builder()
+                .steps(steps)
+                .rule(rule)
+                .ruleLabel(ruleLabel)
+                .density(density)
+                .initMask(initMask)
+                .seedCells(seedCells)
+                .wrap(wrap)
+                .delayCs(delayCs)
+                .dimensions(dimensions)
+                .randomSeed(randomSeed)
+                .outputFormat(outputFormat)
+                .palette(palette)
+                .stepsPerFrame(stepsPerFrame)
+                .engine(engine)
+                .resumeFrom(resumeFrom);
+    }
+
     public String serialize() {
         List<String> parts = new ArrayList<>();
         parts.add(Integer.toString(steps));
-        String[] ruleParts = rule.label().split("/", -1);
-        if (ruleParts.length != 2) {
+        // Larger than Life rules keep their count intervals in the born/survive parts and the rest as keys;
+        // elementary rules keep their Wolfram code.
+        String[] ruleParts;
+        if (rule.isLargerThanLife()) {
+            ruleParts = new String[]{"B" + rule.bornMin() + ".." + rule.bornMax(),
+                "S" + rule.surviveMin() + ".." + rule.surviveMax()};
+        } else if (rule.isElementary()) {
+            ruleParts = new String[]{"W" + rule.wolframCode(), ELEMENTARY_PART};
+        } else {
+            ruleParts = rule.label().split("/", -1);
+        }
+        if (ruleParts.length != 2 && ruleParts.length != 3) {
             throw new IllegalStateException("Rule label must contain born/survive segments");
         }
         parts.add(ruleParts[0]);
         parts.add(ruleParts[1]);
-        String ruleLabelPart = ruleLabel == null || ruleLabel.equals(ruleParts[0] + "/" + ruleParts[1])
+        String ruleLabelPart = ruleLabel == null || ruleLabel.equals(rule.label())
                 ? NULL_TOKEN
                 : ruleLabel;
         parts.add(ruleLabelPart);
@@ -116,24 +203,35 @@ public final class SimulationOptions {
         parts.add(Integer.toString(dimensions.scale()));
         parts.add(Long.toString(randomSeed));
         parts.add(palette.name());
+        // Optional settings follow as key=value parts, only when they differ from the default.
+        if (stepsPerFrame != DEFAULT_STEPS_PER_FRAME) {
+            parts.add(STEPS_PER_FRAME_KEY + "=" + stepsPerFrame);
+        }
+        if (ruleParts.length == 3) {
+            parts.add(STATES_KEY + "=" + ruleParts[2].trim().substring(1));
+        }
+        if (rule.isLargerThanLife()) {
+            parts.add(RANGE_KEY + "=" + rule.range());
+            parts.add(MIDDLE_KEY + "=" + (rule.countsCenter() ? 1 : 0));
+        }
+        if (engine != null) {
+            parts.add(ENGINE_KEY + "=" + engine);
+        }
         return String.join("_", parts);
     }
 
     public static SimulationOptions deserialize(String serialized) {
         Objects.requireNonNull(serialized, "serialized");
         String[] parts = serialized.split("_", -1);
-        if (parts.length != 14) {
-            throw new IllegalArgumentException("Serialized options must contain 14 parts but found " + parts.length);
+        if (parts.length < POSITIONAL_PARTS) {
+            throw new IllegalArgumentException(
+                    "Serialized options must contain " + POSITIONAL_PARTS + " parts but found " + parts.length);
         }
         int idx = 0;
         int steps = parseInt(parts[idx++], "steps");
         String bornSegment = requireToken(parts[idx++], "rule born segment");
         String surviveSegment = requireToken(parts[idx++], "rule survive segment");
-        String serializedRule = bornSegment + "/" + surviveSegment;
         String ruleLabelToken = parts[idx++];
-        String ruleLabel = (ruleLabelToken == null || ruleLabelToken.isEmpty() || NULL_TOKEN.equals(ruleLabelToken))
-                ? serializedRule
-                : ruleLabelToken;
         Double density = parseDouble(parts[idx++]);
         boolean[] initMask = parseInitMask(parts[idx++]);
         List<CellCoordinate> seedCells = parseSeedCells(parts[idx++]);
@@ -143,12 +241,10 @@ public final class SimulationOptions {
         int height = parseInt(parts[idx++], "height");
         int scale = parseInt(parts[idx++], "scale");
         long randomSeed = parseLong(parts[idx++], "random seed");
-        Palette2D palette = Palette2D.valueOf(requireToken(parts[idx], "palette"));
+        Palette2D palette = Palette2D.valueOf(requireToken(parts[idx++], "palette"));
 
         SimulationOptions.Builder builder = SimulationOptions.builder()
                 .steps(steps)
-                .rule(Rule.parse(bornSegment + "/" + surviveSegment))
-                .ruleLabel(ruleLabel)
                 .wrap(wrap)
                 .delayCs(delayCs)
                 .dimensions(new SimulationDimensions(width, height, scale))
@@ -164,7 +260,37 @@ public final class SimulationOptions {
         if (!seedCells.isEmpty()) {
             builder.seedCells(seedCells);
         }
-        return builder.build();
+        String serializedRule = bornSegment + "/" + surviveSegment;
+        Integer range = null;
+        int middle = 0;
+        while (idx < parts.length) {
+            String part = parts[idx++];
+            int separator = part.indexOf('=');
+            String key = separator < 0 ? part : part.substring(0, separator);
+            String value = separator < 0 ? null : part.substring(separator + 1);
+            if (STEPS_PER_FRAME_KEY.equals(key)) {
+                builder.stepsPerFrame(parseInt(value, "steps per frame"));
+            } else if (ENGINE_KEY.equals(key)) {
+                builder.engine(requireToken(value, "engine"));
+            } else if (STATES_KEY.equals(key)) {
+                serializedRule += "/C" + parseInt(value, "states");
+            } else if (RANGE_KEY.equals(key)) {
+                range = parseInt(value, "range");
+            } else if (MIDDLE_KEY.equals(key)) {
+                middle = parseInt(value, "middle");
+            } else {
+                throw new IllegalArgumentException("Unknown serialized option '" + part + "'");
+            }
+        }
+        if (ELEMENTARY_PART.equals(surviveSegment)) {
+            serializedRule = bornSegment;
+        } else if (range != null) {
+            serializedRule = "R" + range + ",C0,M" + middle + "," + surviveSegment + "," + bornSegment + ",NM";
+        }
+        String ruleLabel = (ruleLabelToken == null || ruleLabelToken.isEmpty() || NULL_TOKEN.equals(ruleLabelToken))
+                ? serializedRule
+                : ruleLabelToken;
+        return builder.rule(Rule.parse(serializedRule)).ruleLabel(ruleLabel).build();
     }
 
     public static Builder builder() {
@@ -276,7 +402,11 @@ public final class SimulationOptions {
         private long randomSeed = SeedService.DEFAULT_RANDOM_SEED;
         private SimulationOutputFormat outputFormat = SimulationOutputFormat.MP4;
         private Palette2D palette = Palette2D.ysConcreteJungle;
+        private int stepsPerFrame = DEFAULT_STEPS_PER_FRAME;
+        private String engine;
+        private Neighborhood neighborhood;
         private Integer progressLogPercentStep;
+        private GridCheckpoint resumeFrom;
 
         public Builder steps(int steps) {
             if (steps <= 0) {
@@ -352,6 +482,31 @@ public final class SimulationOptions {
             return this;
         }
 
+        public Builder stepsPerFrame(int stepsPerFrame) {
+            if (stepsPerFrame <= 0) {
+                throw new IllegalArgumentException("Steps per frame must be positive");
+            }
+            this.stepsPerFrame = stepsPerFrame;
+            return this;
+        }
+
+        public Builder engine(String engine) {
+            if (engine != null && !engine.matches("[a-z0-9-]+")) {
+                throw new IllegalArgumentException("Engine name must contain only lowercase letters, digits or '-'");
+            }
+            this.engine = engine;
+            return this;
+        }
+
+        /**
+         * Counts {@code neighborhood} instead of the neighborhood the rule names, e.g. {@code B2/S34} with
+         * {@link Neighborhood#HEXAGONAL} runs as {@code B2/S34H}. Only totalistic two-state rules can change it.
+         */
+        public Builder neighborhood(Neighborhood neighborhood) {
+            this.neighborhood = neighborhood;
+            return this;
+        }
+
         public Builder progressLogPercentStep(Integer percentStep) {
             if (percentStep != null) {
                 if (percentStep <= 0 || percentStep > 100) {
@@ -362,6 +517,11 @@ public final class SimulationOptions {
             return this;
         }
 
+        Builder resumeFrom(GridCheckpoint checkpoint) {
+            this.resumeFrom = checkpoint;
+            return this;
+        }
+
         public SimulationOptions build() {
             if (rule == null) {
                 throw new IllegalStateException("Rule must be provided");
@@ -375,6 +535,23 @@ public final class SimulationOptions {
             if (palette == null) {
                 throw new IllegalStateException("Palette must be provided");
             }
+            if (neighborhood != null && neighborhood != rule.neighborhood()) {
+                Rule counted = rule.withNeighborhood(neighborhood);
+                if (ruleLabel.equals(rule.label())) {
+                    ruleLabel = counted.label();
+                }
+                rule = counted;
+            }
+            if (resumeFrom != null) {
+                if (!resumeFrom.rule().equals(rule) || resumeFrom.wrap() != wrap
+                        || resumeFrom.width() != dimensions.width() || resumeFrom.height() != dimensions.height()) {
+                    throw new IllegalArgumentException("Checkpoint does not match the rule, wrap and size of the run");
+                }
+                if (resumeFrom.step() >= steps) {
+                    throw new IllegalArgumentException("Checkpoint at generation " + resumeFrom.step()
+                            + " leaves nothing of " + steps + " steps to run");
+                }
+            }
             return new SimulationOptions(this);
         }
     }
@@ -1,5 +1,14 @@
 package com.cellmachine.generator;
 
+/**
+ * @param cyclePeriod period in generations of the cycle the run fell into, which ended it early once the
+ *                    rendered frames started repeating; null when no cycle was found. Still lifes report 1.
+ * @param engine      name of the simulation engine that computed the generations
+ * @param statistics  population, births, deaths and live bounds of every rendered frame
+ * @param extendable  whether the run's final state was kept, so {@link SimulationService#extendSimulation} can
+ *                    go on from it; false for rules and boards no checkpoint holds, and for runs that
+ *                    ended on a cycle
+ */
 public record SimulationResult(
         byte[] bytes,
         String fileName,
@@ -7,7 +16,10 @@ public record SimulationResult(
         Palette2D palette,
         int stepsRequested,
         int stepsSimulated,
-        int finalAlive,
+        Integer cyclePeriod,
+        String engine,
+        long finalAlive,
+        PopulationSeries statistics,
         String ruleLabel,
         SimulationDimensions dimensions,
         int delayCs,
@@ -17,7 +29,8 @@ public record SimulationResult(
         String initMaskLabel,
         Integer seedCellCount,
         long randomSeed,
-        String summary
+        String summary,
+        boolean extendable
 ) {
     public SimulationResult {
         bytes = bytes.clone();
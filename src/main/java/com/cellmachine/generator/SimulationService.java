@@ -9,14 +9,21 @@ import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
 
+import com.cellmachine.config.AppProperties;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 @Service
-public class SimulationService {
+public class SimulationService implements AutoCloseable {
+
+    public static final int DEFAULT_HASHLIFE_MAX_NODES = HashLifeEngine.DEFAULT_MAX_NODES;
+    public static final int DEFAULT_DISTRIBUTED_WORKERS = DistributedEngine.DEFAULT_WORKERS;
+    public static final long DEFAULT_CHECKPOINT_CACHE_BYTES = CheckpointStore.DEFAULT_MAX_BYTES;
 
     private static final String GIF_DIRECTORY = "gif";
     private static final String LAST_GIF_NAME = "last.gif";
@@ -24,15 +31,65 @@ public class SimulationService {
     private static final String LAST_MP4_NAME = "last.mp4";
     private static final Logger log = LoggerFactory.getLogger(SimulationService.class);
 
+    private final EngineSelector engines;
+    private final CheckpointStore checkpoints;
+    // Null when the engines were handed over ready-made; the stepper is then the caller's to close.
+    private final ParallelStepper stepper;
+
+    public SimulationService() {
+        this(ParallelStepper.defaults(), DEFAULT_HASHLIFE_MAX_NODES);
+    }
+
+    @Autowired
+    public SimulationService(AppProperties properties) {
+        this(new ParallelStepper(properties.getSimulationThreads(), properties.getSimulationParallelThresholdCells()),
+                properties.getHashLifeMaxNodes(), properties.getDistributedWorkers(), properties.getCheckpointCacheBytes());
+        if (properties.isEngineCalibration()) {
+            long start = System.nanoTime();
+            Map<EngineSelector.Workload, String> choices =
+                    engines.calibrate(EngineSelector.DEFAULT_CALIBRATION_GENERATIONS);
+            log.info("Calibrated simulation engines in {} ms: {}",
+                    Duration.ofNanos(System.nanoTime() - start).toMillis(), choices);
+        }
+    }
+
+    SimulationService(ParallelStepper stepper, int hashLifeMaxNodes) {
+        this(stepper, hashLifeMaxNodes, DEFAULT_DISTRIBUTED_WORKERS);
+    }
+
+    SimulationService(ParallelStepper stepper, int hashLifeMaxNodes, int distributedWorkers) {
+        this(stepper, hashLifeMaxNodes, distributedWorkers, DEFAULT_CHECKPOINT_CACHE_BYTES);
+    }
+
+    SimulationService(ParallelStepper stepper, int hashLifeMaxNodes, int distributedWorkers, long checkpointCacheBytes) {
+        this(new EngineSelector(SimulationEngines.defaults(stepper, hashLifeMaxNodes, distributedWorkers),
+                stepper.threads()), new CheckpointStore(checkpointCacheBytes), stepper);
+    }
+
+    SimulationService(EngineSelector engines) {
+        this(engines, new CheckpointStore(DEFAULT_CHECKPOINT_CACHE_BYTES));
+    }
+
+    SimulationService(EngineSelector engines, CheckpointStore checkpoints) {
+        this(engines, checkpoints, null);
+    }
+
+    private SimulationService(EngineSelector engines, CheckpointStore checkpoints, ParallelStepper stepper) {
+        this.engines = Objects.requireNonNull(engines, "engines");
+        this.checkpoints = Objects.requireNonNull(checkpoints, "checkpoints");
+        this.stepper = stepper;
+    }
+
     public static void main(String[] args) {
         SimulationOptions options = SimulationOptions.builder()
             .rule(Rule.parse("B3/S345"))
             .ruleLabel("B3/S12345")
             .outputFormat(SimulationOutputFormat.MP4)
             .build();
-        SimulationService simulationService = new SimulationService();
-        SimulationResult result = simulationService.runSimulation(options);
-        simulationService.persistLastMedia(result.bytes(), result.format());
+        try (SimulationService simulationService = new SimulationService()) {
+            SimulationResult result = simulationService.runSimulation(options);
+            simulationService.persistLastMedia(result.bytes(), result.format());
+        }
     }
 
     public SimulationResult runSimulation(SimulationOptions options) {
@@ -48,12 +105,14 @@ public class SimulationService {
         String initMaskLabel = mask == null ? null : SeedService.maskToLabel(mask);
         Integer seedCellCount = seedCells.isEmpty() ? null : seedCells.size();
 
-        Grid initialGrid = buildInitialGrid(dimensions, mask, density, seedCells, options.randomSeed());
-        SimulationRun run = renderSimulation(options, initialGrid, palette);
+        SimulationEngine engine = engines.select(options);
+        SimulationRun run = renderSimulation(engine, options, palette);
+        // A run that settled into a cycle keeps its checkpoint too, so extending it can say why it won't.
+        boolean kept = run.checkpoint() != null && checkpoints.put(options.serialize(), run.checkpoint());
+        boolean extendable = kept && run.cyclePeriod() == null;
 
         Double effectiveDensity = determineEffectiveDensity(mask, density, seedCells);
-        Grid finalGrid = run.finalGrid();
-        int finalAlive = finalGrid.aliveCount();
+        long finalAlive = run.finalAlive();
 
         String baseName = defaultOutputName(options.ruleLabel(), mask, density, format);
         String fileName = appendStepSuffix(baseName, run.stepsSimulated());
@@ -67,7 +126,10 @@ public class SimulationService {
                 palette,
                 options.steps(),
                 run.stepsSimulated(),
+                run.cyclePeriod(),
+                engine.name(),
                 finalAlive,
+                run.statistics(),
                 options.ruleLabel(),
                 dimensions,
                 options.delayCs(),
@@ -77,7 +139,8 @@ public class SimulationService {
                 initMaskLabel,
                 seedCellCount,
                 options.randomSeed(),
-                summary);
+                summary,
+                extendable);
         Duration spent = Duration.ofNanos(System.nanoTime() - start);
         long sizeBytes = simulationResult.bytes().length;
         double sizeKb = sizeBytes / 1024.0;
@@ -85,15 +148,49 @@ public class SimulationService {
         String sizeLabel = String.format(Locale.US, "%.1f KB", sizeKb);
         String timeLabel = String.format(Locale.US, "%.1f s", seconds);
         log.info(
-                "Simulation {} {}: {} (size={}, spent={})",
+                "Simulation {} {}: {} (engine={}, size={}, spent={})",
                 simulationResult.fileName(),
                 simulationResult.format(),
                 summary,
+                simulationResult.engine(),
                 sizeLabel,
                 timeLabel);
         return simulationResult;
     }
 
+    /**
+     * Runs {@code moreSteps} generations past the end of a finished run, starting from the checkpoint it
+     * left rather than from its seed, and renders just those. The result describes the whole longer run,
+     * whose options can be extended in turn. A run that stopped early on a cycle is refused, since its
+     * checkpoint lies before the generations it already showed and the cycle would only be found again.
+     */
+    public SimulationResult extendSimulation(SimulationOptions options, int moreSteps) {
+        Objects.requireNonNull(options, "options");
+        if (moreSteps <= 0) {
+            throw new IllegalArgumentException("Steps to add must be positive");
+        }
+        GridCheckpoint checkpoint = checkpoints.get(options.serialize());
+        if (checkpoint == null) {
+            throw new IllegalArgumentException("No finished run to extend for " + options.serialize());
+        }
+        if (checkpoint.period() > 0) {
+            throw new IllegalArgumentException("The run settled into a cycle of period " + checkpoint.period()
+                    + " by generation " + checkpoint.step() + ", so more steps would only repeat it");
+        }
+        return runSimulation(options.withSteps(Math.addExact(checkpoint.step(), moreSteps)).resumedFrom(checkpoint));
+    }
+
+    /**
+     * Whether {@link #extendSimulation} can go on from the run these options describe: it must have been
+     * {@link SimulationResult#extendable() extendable}, so not stopped early on a cycle, and its checkpoint
+     * not since dropped to make room for others.
+     */
+    public boolean canExtend(SimulationOptions options) {
+        Objects.requireNonNull(options, "options");
+        GridCheckpoint checkpoint = checkpoints.get(options.serialize());
+        return checkpoint != null && checkpoint.period() == 0;
+    }
+
     public Path persistLastMedia(byte[] bytes, SimulationOutputFormat format) {
         Objects.requireNonNull(bytes, "bytes");
         Objects.requireNonNull(format, "format");
@@ -115,107 +212,145 @@ public class SimulationService {
         return path;
     }
 
-    private Grid buildInitialGrid(
-            SimulationDimensions dimensions,
-            boolean[] initMask,
-            Double density,
-            List<CellCoordinate> seedCells,
-            long randomSeed) {
-        int width = dimensions.width();
-        int height = dimensions.height();
-
-        if (!seedCells.isEmpty()) {
-            Grid grid = new Grid(width, height);
-            for (CellCoordinate coordinate : seedCells) {
-                int x = coordinate.x();
-                int y = coordinate.y();
-                if (x < 0 || x >= width) {
-                    throw new IllegalArgumentException("Seed cell x=" + x + " exceeds width " + width);
-                }
-                if (y < 0 || y >= height) {
-                    throw new IllegalArgumentException("Seed cell y=" + y + " exceeds height " + height);
-                }
-                grid.set(x, y, true);
-            }
-            return grid;
-        }
-
-        if (initMask != null) {
-            if (density != null) {
-                return SeedService.randomMaskGrid(width, height, initMask, density, randomSeed);
-            }
-            return SeedService.gridWithCenteredMask(width, height, initMask);
+    /**
+     * Shuts down the stepping threads; Spring calls this when the context closes.
+     */
+    @Override
+    public void close() {
+        if (stepper != null) {
+            stepper.close();
         }
-
-        double effectiveDensity = density != null ? density : SeedService.DEFAULT_RANDOM_DENSITY;
-        return SeedService.randomGrid(width, height, effectiveDensity, randomSeed);
     }
 
-    private SimulationRun renderSimulation(SimulationOptions options, Grid initialGrid, Palette2D palette) {
+    private SimulationRun renderSimulation(SimulationEngine engine, SimulationOptions options, Palette2D palette) {
         try {
             return switch (options.outputFormat()) {
-                case GIF -> renderGif(options, initialGrid, palette);
-                case MP4 -> renderMp4(options, initialGrid, palette);
+                case GIF -> renderGif(engine, options, palette);
+                case MP4 -> renderMp4(engine, options, palette);
             };
         } catch (IOException ex) {
             throw new IllegalStateException("Failed to render simulation", ex);
         }
     }
 
-    private SimulationRun renderGif(SimulationOptions options, Grid initialGrid, Palette2D palette) throws IOException {
-        try (ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    private SimulationRun renderGif(SimulationEngine engine, SimulationOptions options, Palette2D palette) throws IOException {
+        try (SimulationEngine.Run<?> run = engine.start(options);
+             ByteArrayOutputStream buffer = new ByteArrayOutputStream();
              GifWriter writer = new GifWriter(buffer,
-                     options.dimensions().width(),
-                     options.dimensions().height(),
+                     run.current().width(),
+                     run.current().height(),
                      options.dimensions().scale(),
                      options.delayCs(),
-                     palette)) {
-            SimulationLoopResult loop = writeFrames(initialGrid, options, writer::writeFrame);
+                     frameColors(options, palette, run.current()),
+                     options.neighborhood() == Neighborhood.HEXAGONAL)) {
+            SimulationLoopResult loop = writeFrames(run, options, writer::writeFrame);
             writer.close();
-            return new SimulationRun(buffer.toByteArray(), loop.finalGrid(), loop.stepsSimulated());
+            return new SimulationRun(buffer.toByteArray(), loop.finalAlive(), loop.stepsSimulated(), loop.cyclePeriod(),
+                    loop.statistics(), loop.checkpoint());
         }
     }
 
-    private SimulationRun renderMp4(SimulationOptions options, Grid initialGrid, Palette2D palette) throws IOException {
-        try (Mp4Writer writer = new Mp4Writer(
-                options.dimensions().width(),
-                options.dimensions().height(),
-                options.dimensions().scale(),
-                options.delayCs(),
-                palette)) {
-            SimulationLoopResult loop = writeFrames(initialGrid, options, writer::writeFrame);
+    private SimulationRun renderMp4(SimulationEngine engine, SimulationOptions options, Palette2D palette) throws IOException {
+        try (SimulationEngine.Run<?> run = engine.start(options);
+             Mp4Writer writer = new Mp4Writer(
+                     run.current().width(),
+                     run.current().height(),
+                     options.dimensions().scale(),
+                     options.delayCs(),
+                     frameColors(options, palette, run.current()),
+                     options.neighborhood() == Neighborhood.HEXAGONAL)) {
+            SimulationLoopResult loop = writeFrames(run, options, (grid, changed) -> writer.writeFrame(grid));
             writer.close();
-            return new SimulationRun(writer.toByteArray(), loop.finalGrid(), loop.stepsSimulated());
+            return new SimulationRun(writer.toByteArray(), loop.finalAlive(), loop.stepsSimulated(), loop.cyclePeriod(),
+                    loop.statistics(), loop.checkpoint());
+        }
+    }
+
+    /**
+     * One color per cell state the frames can show: the palette's gradient for continuous rules, and for
+     * frames that shade blocks of a board too large to draw cell by cell.
+     */
+    private static int[] frameColors(SimulationOptions options, Palette2D palette, GridView first) {
+        Rule rule = options.rule();
+        if (rule.isContinuous() || first instanceof DownsampledFrame frame && frame.factor() > 1) {
+            return palette.gradient(LeniaGrid.LEVELS);
         }
+        return palette.colors(rule.states());
     }
 
-    private SimulationLoopResult writeFrames(Grid initialGrid, SimulationOptions options, FrameConsumer frameConsumer) throws IOException {
-        Grid current = initialGrid.copy();
-        frameConsumer.writeFrame(current);
+    private <S extends GridState<S>> SimulationLoopResult writeFrames(
+            SimulationEngine.Run<S> frames, SimulationOptions options, FrameConsumer frameConsumer) throws IOException {
+        int stepsPerFrame = options.stepsPerFrame();
+        int firstStep = options.resumeFrom() == null ? 0 : options.resumeFrom().step();
+        S initial = frames.current();
+        frameConsumer.writeFrame(initial, CellRegion.of(initial));
+        PopulationSeries statistics = new PopulationSeries();
+        statistics.add(firstStep, initial.aliveCount(), 0L, 0L, initial.liveBounds());
+        CycleDetector<S> cycles = new CycleDetector<>(initial, CycleDetector.DEFAULT_MAX_PERIOD);
+        int repeatsAfter = 0;
         int framesRendered = 1;
-        ProgressLogger progressLogger = ProgressLogger.create(options.progressLogPercentStep(), options.steps() + 1);
+        int totalFrames = (options.steps() - firstStep + stepsPerFrame - 1) / stepsPerFrame + 1;
+        ProgressLogger progressLogger = ProgressLogger.create(options.progressLogPercentStep(), totalFrames);
         if (progressLogger != null) {
             progressLogger.record(framesRendered);
         }
-        int stepsSimulated = 0;
-        for (int step = 0; step < options.steps(); step++) {
-            Grid next = Grid.advance(current, options.rule(), options.wrap());
-            frameConsumer.writeFrame(next);
+        int stepsSimulated = firstStep;
+        while (stepsSimulated < options.steps()) {
+            int generations = Math.min(stepsPerFrame, options.steps() - stepsSimulated);
+            boolean changed = frames.advance(generations);
+            stepsSimulated += generations;
+            S current = frames.current();
+            frameConsumer.writeFrame(current, frames.changedRegion());
+            statistics.add(stepsSimulated, current.aliveCount(), frames.births(), frames.deaths(), current.liveBounds());
             framesRendered++;
             if (progressLogger != null) {
                 progressLogger.record(framesRendered);
             }
-            stepsSimulated = step + 1;
-            if (next.equals(current)) {
-                current = next;
+            repeatsAfter = changed ? cycles.record(frames.current()) : 1;
+            if (repeatsAfter > 0) {
                 break;
             }
-            current = next;
         }
-        if (stepsSimulated == 0) {
-            stepsSimulated = options.steps();
+        S last = frames.current();
+        long finalAlive = last.aliveCount();
+        GridCheckpoint checkpoint = checkpointable(options, last)
+                ? GridCheckpoint.of(last, options.rule(), options.wrap(), stepsSimulated, checkpoints.maxBytes()) : null;
+        Integer cyclePeriod = null;
+        if (repeatsAfter > 0) {
+            cyclePeriod = generationPeriod(frames, repeatsAfter * stepsPerFrame);
+            checkpoint = checkpoint == null ? null : checkpoint.repeating(cyclePeriod);
+            log.debug("Run repeats every {} generations after {}; stopping early", cyclePeriod, stepsSimulated);
+        }
+        return new SimulationLoopResult(finalAlive, stepsSimulated, cyclePeriod, statistics, checkpoint);
+    }
+
+    /**
+     * The generations after which the run's current state comes back. Its frames repeat every
+     * {@code frameSpan} generations, so the period divides that span; the run is stepped on one generation
+     * at a time until it is back where it started, at a cost of one period. Frames that only show part of the
+     * state, such as shaded blocks, may not come back within the span, which is then reported as it is.
+     */
+    private static <S extends GridState<S>> int generationPeriod(SimulationEngine.Run<S> run, int frameSpan) {
+        if (frameSpan == 1) {
+            return 1;
+        }
+        S start = run.current().copy();
+        long hash = start.contentHash();
+        for (int period = 1; period < frameSpan; period++) {
+            run.advance(1);
+            S current = run.current();
+            if (current.contentHash() == hash && current.equals(start)) {
+                return period;
+            }
         }
-        return new SimulationLoopResult(current, stepsSimulated);
+        return frameSpan;
+    }
+
+    /**
+     * Whether the frame holds the whole board's cells, which shaded blocks of a distributed board do not.
+     */
+    private static boolean checkpointable(SimulationOptions options, GridView last) {
+        return GridCheckpoint.supports(options.rule()) && !(last instanceof DownsampledFrame frame && frame.factor() > 1);
     }
 
     private Double determineEffectiveDensity(boolean[] mask, Double density, List<CellCoordinate> seedCells) {
@@ -318,13 +453,15 @@ public class SimulationService {
 
     @FunctionalInterface
     private interface FrameConsumer {
-        void writeFrame(Grid grid) throws IOException;
+        void writeFrame(GridView grid, CellRegion changed) throws IOException;
     }
 
-    private record SimulationLoopResult(Grid finalGrid, int stepsSimulated) {
+    private record SimulationLoopResult(long finalAlive, int stepsSimulated, Integer cyclePeriod, PopulationSeries statistics,
+            GridCheckpoint checkpoint) {
     }
 
-    private record SimulationRun(byte[] bytes, Grid finalGrid, int stepsSimulated) {
+    private record SimulationRun(byte[] bytes, long finalAlive, int stepsSimulated, Integer cyclePeriod,
+            PopulationSeries statistics, GridCheckpoint checkpoint) {
         SimulationRun {
             bytes = bytes.clone();
         }
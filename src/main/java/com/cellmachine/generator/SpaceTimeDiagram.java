@@ -0,0 +1,242 @@
+package com.cellmachine.generator;
+
+import java.util.Arrays;
+
+/**
+ * The generations of a one-dimensional rule drawn top to bottom, one bit-packed row each. The rows live in a
+ * ring: the diagram grows downwards from the first generation until every row of the frame is used, then
+ * scrolls, each new generation replacing the oldest at the top. Stepping only ever writes the new row, so
+ * frames cost nothing beyond the row itself however tall they are.
+ *
+ * <p>Two diagrams are equal when they show the same cells and have grown to the same number of rows.
+ */
+final class SpaceTimeDiagram implements GridState<SpaceTimeDiagram>, SeedTarget {
+
+    private final int width;
+    private final int height;
+    private final int wordsPerRow;
+    private final long[] rows;
+    // Hash key of each word of a row; the diagram's hash weighs the row hashes by their position on screen.
+    private final long[] keys;
+    private final int[] rowPopulation;
+    private final long[] rowHash;
+    // Ring slot of the top row, and the rows in use.
+    private int top;
+    private int filled = 1;
+    private long population;
+
+    SpaceTimeDiagram(int width, int height) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Grid dimensions must be positive");
+        }
+        this.width = width;
+        this.height = height;
+        this.wordsPerRow = Grid.wordsPerRow(width);
+        this.rows = new long[Math.multiplyExact(wordsPerRow, height)];
+        this.keys = new long[wordsPerRow];
+        for (int i = 0; i < wordsPerRow; i++) {
+            keys[i] = Grid.hashKey(i);
+        }
+        this.rowPopulation = new int[height];
+        this.rowHash = new long[height];
+    }
+
+    /**
+     * A diagram whose first generation is the top row of {@code seed}, which must be as wide.
+     */
+    static SpaceTimeDiagram startingWith(Grid seed, int height) {
+        SpaceTimeDiagram diagram = new SpaceTimeDiagram(seed.width(), height);
+        long[] words = seed.words();
+        long hash = 0L;
+        int seedPopulation = 0;
+        for (int i = 0; i < diagram.wordsPerRow; i++) {
+            diagram.rows[i] = words[i];
+            hash += words[i] * diagram.keys[i];
+            seedPopulation += Long.bitCount(words[i]);
+        }
+        diagram.rowHash[0] = hash;
+        diagram.rowPopulation[0] = seedPopulation;
+        diagram.population = seedPopulation;
+        return diagram;
+    }
+
+    @Override
+    public int width() {
+        return width;
+    }
+
+    @Override
+    public int height() {
+        return height;
+    }
+
+    /**
+     * Rows the diagram has grown to, from 1 for the first generation up to {@link #height()}.
+     */
+    int filledRows() {
+        return filled;
+    }
+
+    @Override
+    public boolean get(int x, int y) {
+        if (y >= filled) {
+            return false;
+        }
+        return (rows[slot(y) * wordsPerRow + (x >>> 6)] >>> x & 1L) != 0L;
+    }
+
+    /**
+     * Sets a cell of a row the diagram has grown to; rows below it stay dead.
+     */
+    @Override
+    public void set(int x, int y, boolean alive) {
+        if (y >= filled) {
+            throw new IllegalArgumentException("Row " + y + " is below the " + filled + " rows grown so far");
+        }
+        int slot = slot(y);
+        int index = slot * wordsPerRow + (x >>> 6);
+        long previous = rows[index];
+        long updated = alive ? previous | 1L << x : previous & ~(1L << x);
+        rows[index] = updated;
+        int delta = Long.bitCount(updated) - Long.bitCount(previous);
+        rowPopulation[slot] += delta;
+        population += delta;
+        rowHash[slot] += (updated - previous) * keys[x >>> 6];
+    }
+
+    /**
+     * Steps the bottom row into the row below it with {@code engine}, scrolling the top row out once every
+     * row is in use. Returns whether it scrolled.
+     */
+    boolean advance(ElementaryEngine engine, boolean wrap) {
+        int source = slot(filled - 1);
+        boolean scroll = filled == height;
+        int target;
+        if (scroll) {
+            target = top;
+            population -= rowPopulation[top];
+            top = top + 1 == height ? 0 : top + 1;
+        } else {
+            target = slot(filled);
+            filled++;
+        }
+        engine.step(rows, source * wordsPerRow, rows, target * wordsPerRow, width, wrap, keys);
+        rowPopulation[target] = (int) engine.population();
+        rowHash[target] = engine.hash();
+        population += rowPopulation[target];
+        return scroll;
+    }
+
+    /**
+     * Whether row {@code y} holds the same cells as {@code row}, one row's words from {@code offset}.
+     */
+    boolean rowEquals(int y, long[] row, int offset) {
+        int start = slot(y) * wordsPerRow;
+        return Arrays.equals(rows, start, start + wordsPerRow, row, offset, offset + wordsPerRow);
+    }
+
+    /**
+     * Copies row {@code y} into {@code row} from {@code offset}.
+     */
+    void copyRow(int y, long[] row, int offset) {
+        System.arraycopy(rows, slot(y) * wordsPerRow, row, offset, wordsPerRow);
+    }
+
+    int wordsPerRow() {
+        return wordsPerRow;
+    }
+
+    @Override
+    public long aliveCount() {
+        return population;
+    }
+
+    @Override
+    public CellRegion liveBounds() {
+        int first = -1;
+        int last = -1;
+        int left = width;
+        int right = -1;
+        for (int y = 0; y < filled; y++) {
+            int slot = slot(y);
+            if (rowPopulation[slot] == 0) {
+                continue;
+            }
+            first = first < 0 ? y : first;
+            last = y;
+            int start = slot * wordsPerRow;
+            int word = 0;
+            while (rows[start + word] == 0L) {
+                word++;
+            }
+            left = Math.min(left, (word << 6) + Long.numberOfTrailingZeros(rows[start + word]));
+            word = wordsPerRow - 1;
+            while (rows[start + word] == 0L) {
+                word--;
+            }
+            right = Math.max(right, (word << 6) + 63 - Long.numberOfLeadingZeros(rows[start + word]));
+        }
+        return first < 0 ? null : new CellRegion(left, first, right - left + 1, last - first + 1);
+    }
+
+    @Override
+    public long contentHash() {
+        long hash = 0L;
+        for (int y = 0; y < filled; y++) {
+            hash += rowHash[slot(y)] * Grid.rowKey(y);
+        }
+        return hash;
+    }
+
+    @Override
+    public SpaceTimeDiagram copy() {
+        SpaceTimeDiagram copy = new SpaceTimeDiagram(width, height);
+        copy.copyFrom(this);
+        return copy;
+    }
+
+    @Override
+    public void copyFrom(SpaceTimeDiagram source) {
+        if (source.width != width || source.height != height) {
+            throw new IllegalArgumentException("Grid dimensions do not match");
+        }
+        System.arraycopy(source.rows, 0, rows, 0, rows.length);
+        System.arraycopy(source.rowPopulation, 0, rowPopulation, 0, height);
+        System.arraycopy(source.rowHash, 0, rowHash, 0, height);
+        top = source.top;
+        filled = source.filled;
+        population = source.population;
+    }
+
+    @Override
+    public long footprintBytes() {
+        return (long) rows.length * Long.BYTES;
+    }
+
+    private int slot(int y) {
+        int slot = top + y;
+        return slot >= height ? slot - height : slot;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof SpaceTimeDiagram other) || width != other.width || height != other.height
+                || filled != other.filled || population != other.population) {
+            return false;
+        }
+        for (int y = 0; y < filled; y++) {
+            if (!other.rowEquals(y, rows, slot(y) * wordsPerRow)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(contentHash());
+    }
+}
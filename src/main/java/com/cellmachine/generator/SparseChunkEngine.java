@@ -0,0 +1,205 @@
+package com.cellmachine.generator;
+
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Steps a {@link SparseGrid} by visiting only its live chunks and their eight neighbours; every other chunk
+ * is empty and stays empty, so the work follows the population rather than the board. Each visited chunk
+ * is copied with a one-cell border into a three-word scratch grid and its middle word is stepped by the
+ * regular kernels, so every rule {@link Grid} supports works here too, as long as it never births cells
+ * from empty neighbourhoods.
+ */
+final class SparseChunkEngine {
+
+    private static final int CHUNK_SIZE = SparseGrid.CHUNK_SIZE;
+    private static final int SCRATCH_WORDS = 3;
+    private static final int SCRATCH_ROWS = CHUNK_SIZE + 2;
+
+    // Scratch hashes are never read, so loading words directly without maintaining them is fine.
+    private final Grid scratch = new Grid(SCRATCH_WORDS * CHUNK_SIZE, SCRATCH_ROWS);
+    private final Grid scratchNext = new Grid(SCRATCH_WORDS * CHUNK_SIZE, SCRATCH_ROWS);
+    private final Set<Long> candidates = new HashSet<>();
+    private boolean changed;
+    private CellRegion changedRegion;
+    private long flipped;
+
+    static boolean supports(Rule rule) {
+        return !rule.nextState(0);
+    }
+
+    void advanceInto(SparseGrid current, SparseGrid target, Rule rule, boolean wrap) {
+        Objects.requireNonNull(current, "current");
+        Objects.requireNonNull(target, "target");
+        Objects.requireNonNull(rule, "rule");
+        if (current == target) {
+            throw new IllegalArgumentException("Target grid must not be the current grid");
+        }
+        if (current.width() != target.width() || current.height() != target.height()) {
+            throw new IllegalArgumentException("Target grid dimensions do not match current grid");
+        }
+        if (!supports(rule)) {
+            throw new IllegalArgumentException("Sparse grids cannot step rules that birth cells in empty space");
+        }
+        target.clear();
+        collectCandidates(current, wrap);
+        int minX = Integer.MAX_VALUE;
+        int minY = Integer.MAX_VALUE;
+        int maxX = -1;
+        int maxY = -1;
+        long hashDelta = 0L;
+        long population = 0L;
+        long flippedCells = 0L;
+        for (long key : candidates) {
+            int chunkX = SparseGrid.chunkX(key);
+            int chunkY = SparseGrid.chunkY(key);
+            load(current, chunkX, chunkY, wrap);
+            Grid.ensureStepTarget(scratch, scratchNext, rule);
+            Grid.stepRegion(scratch, scratchNext, rule, false, 1, SCRATCH_ROWS - 1, 1, 2);
+
+            long[] stepped = scratchNext.words();
+            long[] before = current.chunk(chunkX, chunkY);
+            long columnMask = chunkX == current.chunksX() - 1 ? Grid.lastWordMask(current.width()) : -1L;
+            int rows = Math.min(CHUNK_SIZE, current.height() - chunkY * CHUNK_SIZE);
+            long[] after = null;
+            boolean differs = false;
+            for (int row = 0; row < rows; row++) {
+                long next = stepped[(row + 1) * SCRATCH_WORDS + 1] & columnMask;
+                long previous = before == null ? 0L : before[row];
+                if (next != previous) {
+                    differs = true;
+                    hashDelta += (next - previous) * SparseGrid.rowKey(chunkX, chunkY, row);
+                    flippedCells += Long.bitCount(next ^ previous);
+                }
+                if (next != 0L) {
+                    population += Long.bitCount(next);
+                    if (after == null) {
+                        after = target.allocateChunk();
+                    }
+                    after[row] = next;
+                }
+            }
+            if (after != null) {
+                target.putChunk(chunkX, chunkY, after);
+            }
+            if (differs) {
+                minX = Math.min(minX, chunkX);
+                minY = Math.min(minY, chunkY);
+                maxX = Math.max(maxX, chunkX);
+                maxY = Math.max(maxY, chunkY);
+            }
+        }
+        target.setTotals(current.contentHash() + hashDelta, population);
+        flipped = flippedCells;
+        changed = maxX >= 0;
+        if (changed) {
+            int x = minX * CHUNK_SIZE;
+            int y = minY * CHUNK_SIZE;
+            int right = Math.min(current.width(), (maxX + 1) * CHUNK_SIZE);
+            int bottom = Math.min(current.height(), (maxY + 1) * CHUNK_SIZE);
+            changedRegion = new CellRegion(x, y, right - x, bottom - y);
+        } else {
+            changedRegion = null;
+        }
+    }
+
+    boolean changed() {
+        return changed;
+    }
+
+    /**
+     * Cells that differ between the grids of the last step.
+     */
+    long flipped() {
+        return flipped;
+    }
+
+    /**
+     * Bounding box of the chunks that changed in the last step, or null if none did.
+     */
+    CellRegion changedRegion() {
+        return changedRegion;
+    }
+
+    private void collectCandidates(SparseGrid grid, boolean wrap) {
+        candidates.clear();
+        int chunksX = grid.chunksX();
+        int chunksY = grid.chunksY();
+        for (long key : grid.chunks().keySet()) {
+            int chunkX = SparseGrid.chunkX(key);
+            int chunkY = SparseGrid.chunkY(key);
+            for (int dy = -1; dy <= 1; dy++) {
+                int y = chunkY + dy;
+                if (y < 0 || y >= chunksY) {
+                    if (!wrap) {
+                        continue;
+                    }
+                    y = Math.floorMod(y, chunksY);
+                }
+                for (int dx = -1; dx <= 1; dx++) {
+                    int x = chunkX + dx;
+                    if (x < 0 || x >= chunksX) {
+                        if (!wrap) {
+                            continue;
+                        }
+                        x = Math.floorMod(x, chunksX);
+                    }
+                    candidates.add(SparseGrid.key(x, y));
+                }
+            }
+        }
+    }
+
+    /**
+     * Fills the scratch grid with the chunk in word 1, its west and east border cells in the outermost
+     * bits of words 0 and 2, and the rows above and below in rows 0 and 65. On a wrapped board whose width
+     * is not a multiple of 64, the cell past the right edge is the bit just beyond the last real column.
+     */
+    private void load(SparseGrid grid, int chunkX, int chunkY, boolean wrap) {
+        long[] words = scratch.words();
+        int width = grid.width();
+        int height = grid.height();
+        int westX = chunkX > 0 ? chunkX * CHUNK_SIZE - 1 : (wrap ? width - 1 : -1);
+        int westChunk = westX >>> SparseGrid.CHUNK_SHIFT;
+        boolean lastColumn = chunkX == grid.chunksX() - 1;
+        int eastChunk = lastColumn ? 0 : chunkX + 1;
+        boolean readEast = !lastColumn || wrap;
+        int tail = width - chunkX * CHUNK_SIZE;
+        int loadedChunkY = -1;
+        long[] west = null;
+        long[] middle = null;
+        long[] east = null;
+        for (int row = 0; row < SCRATCH_ROWS; row++) {
+            int base = row * SCRATCH_WORDS;
+            int y = chunkY * CHUNK_SIZE - 1 + row;
+            if (y < 0 || y >= height) {
+                if (!wrap) {
+                    words[base] = 0L;
+                    words[base + 1] = 0L;
+                    words[base + 2] = 0L;
+                    continue;
+                }
+                y = Math.floorMod(y, height);
+            }
+            int rowChunkY = y >>> SparseGrid.CHUNK_SHIFT;
+            if (rowChunkY != loadedChunkY) {
+                loadedChunkY = rowChunkY;
+                west = westX >= 0 ? grid.chunk(westChunk, rowChunkY) : null;
+                middle = grid.chunk(chunkX, rowChunkY);
+                east = readEast ? grid.chunk(eastChunk, rowChunkY) : null;
+            }
+            int chunkRow = y & (CHUNK_SIZE - 1);
+            long westWord = west == null ? 0L : (west[chunkRow] >>> westX) << 63;
+            long middleWord = middle == null ? 0L : middle[chunkRow];
+            long eastWord = east == null ? 0L : east[chunkRow] & 1L;
+            if (lastColumn && tail < CHUNK_SIZE) {
+                middleWord |= eastWord << tail;
+                eastWord = 0L;
+            }
+            words[base] = westWord;
+            words[base + 1] = middleWord;
+            words[base + 2] = eastWord;
+        }
+    }
+}
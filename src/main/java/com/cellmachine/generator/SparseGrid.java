@@ -0,0 +1,329 @@
+package com.cellmachine.generator;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A grid that stores only the 64x64 chunks holding live cells, so memory follows the population rather
+ * than the board. Each chunk is 64 bit-packed rows, created on the first write and dropped once it is empty
+ * again. Cells outside any chunk are dead.
+ */
+final class SparseGrid implements GridState<SparseGrid>, SeedTarget, PackedRows {
+
+    static final int CHUNK_SHIFT = 6;
+    static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    // Row words plus a rough allowance for the map entry and array header.
+    private static final long CHUNK_BYTES = CHUNK_SIZE * Long.BYTES + 64L;
+
+    private final int width;
+    private final int height;
+    private final int chunksX;
+    private final int chunksY;
+    private final Map<Long, long[]> chunks = new HashMap<>();
+    private final ArrayDeque<long[]> spare = new ArrayDeque<>();
+    private long hash;
+    private long population;
+    // One-entry lookup cache for get(); frames are read cell by cell, mostly within one chunk.
+    private long cachedKey = -1L;
+    private long[] cachedChunk;
+
+    SparseGrid(int width, int height) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Grid dimensions must be positive");
+        }
+        this.width = width;
+        this.height = height;
+        this.chunksX = (width + CHUNK_SIZE - 1) >>> CHUNK_SHIFT;
+        this.chunksY = (height + CHUNK_SIZE - 1) >>> CHUNK_SHIFT;
+    }
+
+    /**
+     * A sparse copy of a dense grid. Chunks are one word wide, so the words carry over unchanged.
+     */
+    static SparseGrid copyOf(Grid grid) {
+        SparseGrid sparse = new SparseGrid(grid.width(), grid.height());
+        long[] words = grid.words();
+        int wordsPerRow = grid.wordsPerRow();
+        long hash = 0L;
+        long population = 0L;
+        for (int y = 0; y < grid.height(); y++) {
+            int chunkY = y >>> CHUNK_SHIFT;
+            int row = y & (CHUNK_SIZE - 1);
+            for (int chunkX = 0; chunkX < wordsPerRow; chunkX++) {
+                long word = words[y * wordsPerRow + chunkX];
+                if (word == 0L) {
+                    continue;
+                }
+                sparse.chunks.computeIfAbsent(key(chunkX, chunkY), ignored -> new long[CHUNK_SIZE])[row] = word;
+                hash += word * rowKey(chunkX, chunkY, row);
+                population += Long.bitCount(word);
+            }
+        }
+        sparse.hash = hash;
+        sparse.population = population;
+        return sparse;
+    }
+
+    @Override
+    public int width() {
+        return width;
+    }
+
+    @Override
+    public int height() {
+        return height;
+    }
+
+    int chunksX() {
+        return chunksX;
+    }
+
+    int chunksY() {
+        return chunksY;
+    }
+
+    @Override
+    public boolean get(int x, int y) {
+        checkBounds(x, y);
+        long key = key(x >>> CHUNK_SHIFT, y >>> CHUNK_SHIFT);
+        if (key != cachedKey) {
+            cachedChunk = chunks.get(key);
+            cachedKey = key;
+        }
+        return cachedChunk != null && (cachedChunk[y & (CHUNK_SIZE - 1)] & (1L << x)) != 0;
+    }
+
+    @Override
+    public void set(int x, int y, boolean alive) {
+        checkBounds(x, y);
+        int chunkX = x >>> CHUNK_SHIFT;
+        int chunkY = y >>> CHUNK_SHIFT;
+        long key = key(chunkX, chunkY);
+        long[] chunk = chunks.get(key);
+        if (chunk == null) {
+            if (!alive) {
+                return;
+            }
+            chunk = allocateChunk();
+            chunks.put(key, chunk);
+            cachedKey = -1L;
+        }
+        int row = y & (CHUNK_SIZE - 1);
+        long previous = chunk[row];
+        long updated = alive ? previous | (1L << x) : previous & ~(1L << x);
+        chunk[row] = updated;
+        hash += (updated - previous) * rowKey(chunkX, chunkY, row);
+        population += Long.bitCount(updated) - Long.bitCount(previous);
+        if (updated == 0L && isEmpty(chunk)) {
+            chunks.remove(key);
+            spare.push(chunk);
+            cachedKey = -1L;
+        }
+    }
+
+    @Override
+    public long aliveCount() {
+        return population;
+    }
+
+    /**
+     * Found from the live chunks alone, so the cost follows the population like everything else here.
+     */
+    @Override
+    public CellRegion liveBounds() {
+        if (chunks.isEmpty()) {
+            return null;
+        }
+        int minX = Integer.MAX_VALUE;
+        int minY = Integer.MAX_VALUE;
+        int maxX = -1;
+        int maxY = -1;
+        for (Map.Entry<Long, long[]> entry : chunks.entrySet()) {
+            int left = chunkX(entry.getKey()) << CHUNK_SHIFT;
+            int top = chunkY(entry.getKey()) << CHUNK_SHIFT;
+            long[] chunk = entry.getValue();
+            long columns = 0L;
+            for (int row = 0; row < CHUNK_SIZE; row++) {
+                if (chunk[row] != 0L) {
+                    columns |= chunk[row];
+                    minY = Math.min(minY, top + row);
+                    maxY = Math.max(maxY, top + row);
+                }
+            }
+            minX = Math.min(minX, left + Long.numberOfTrailingZeros(columns));
+            maxX = Math.max(maxX, left + 63 - Long.numberOfLeadingZeros(columns));
+        }
+        return new CellRegion(minX, minY, maxX - minX + 1, maxY - minY + 1);
+    }
+
+    int chunkCount() {
+        return chunks.size();
+    }
+
+    /**
+     * The live chunks keyed by {@link #key}. Read-only; writers go through {@link #set} or {@link #putChunk}.
+     */
+    Map<Long, long[]> chunks() {
+        return chunks;
+    }
+
+    long[] chunk(int chunkX, int chunkY) {
+        return chunks.get(key(chunkX, chunkY));
+    }
+
+    /**
+     * Row {@code y} of chunk column {@code chunkX}, or 0 when that chunk is absent.
+     */
+    long chunkRow(int chunkX, int y) {
+        long[] chunk = chunks.get(key(chunkX, y >>> CHUNK_SHIFT));
+        return chunk == null ? 0L : chunk[y & (CHUNK_SIZE - 1)];
+    }
+
+    /**
+     * Chunks are one word wide, so a row's words are its chunk rows.
+     */
+    @Override
+    public long rowWord(int y, int w) {
+        return chunkRow(w, y);
+    }
+
+    /**
+     * A zeroed chunk array for {@link #putChunk}, recycled from chunks this grid dropped.
+     */
+    long[] allocateChunk() {
+        long[] chunk = spare.poll();
+        return chunk != null ? chunk : new long[CHUNK_SIZE];
+    }
+
+    /**
+     * Installs a non-empty chunk at a position that is currently absent, leaving the hash and live cell
+     * count to the writer; see {@link #setTotals}.
+     */
+    void putChunk(int chunkX, int chunkY, long[] chunk) {
+        chunks.put(key(chunkX, chunkY), chunk);
+        cachedKey = -1L;
+    }
+
+    void clear() {
+        for (long[] chunk : chunks.values()) {
+            Arrays.fill(chunk, 0L);
+            spare.push(chunk);
+        }
+        chunks.clear();
+        hash = 0L;
+        population = 0L;
+        cachedKey = -1L;
+    }
+
+    @Override
+    public long contentHash() {
+        return hash;
+    }
+
+    /**
+     * Sets this grid's hash and live cell count without recomputing them, for writers that tracked them
+     * while installing chunks with {@link #putChunk}; the hash with {@link #rowKey}.
+     */
+    void setTotals(long hash, long population) {
+        this.hash = hash;
+        this.population = population;
+    }
+
+    @Override
+    public long footprintBytes() {
+        return chunks.size() * CHUNK_BYTES;
+    }
+
+    @Override
+    public SparseGrid copy() {
+        SparseGrid copy = new SparseGrid(width, height);
+        copy.copyFrom(this);
+        return copy;
+    }
+
+    @Override
+    public void copyFrom(SparseGrid source) {
+        if (source.width != width || source.height != height) {
+            throw new IllegalArgumentException("Grid dimensions differ");
+        }
+        if (source == this) {
+            return;
+        }
+        clear();
+        for (Map.Entry<Long, long[]> entry : source.chunks.entrySet()) {
+            long[] chunk = allocateChunk();
+            System.arraycopy(entry.getValue(), 0, chunk, 0, CHUNK_SIZE);
+            chunks.put(entry.getKey(), chunk);
+        }
+        hash = source.hash;
+        population = source.population;
+    }
+
+    static long key(int chunkX, int chunkY) {
+        return ((long) chunkY << 32) | chunkX;
+    }
+
+    static int chunkX(long key) {
+        return (int) key;
+    }
+
+    static int chunkY(long key) {
+        return (int) (key >>> 32);
+    }
+
+    /**
+     * Hash key of one chunk row. Like {@link Grid}'s keys it is odd and depends only on the position, so
+     * the hash is the same however the grid was built.
+     */
+    static long rowKey(int chunkX, int chunkY, int row) {
+        long z = (key(chunkX, chunkY) * CHUNK_SIZE + row + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return (z ^ (z >>> 31)) | 1L;
+    }
+
+    private static boolean isEmpty(long[] chunk) {
+        for (long row : chunk) {
+            if (row != 0L) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void checkBounds(int x, int y) {
+        if (x < 0 || x >= width || y < 0 || y >= height) {
+            throw new IndexOutOfBoundsException("Coordinates out of range: (" + x + ", " + y + ")");
+        }
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof SparseGrid other)) {
+            return false;
+        }
+        if (width != other.width || height != other.height || hash != other.hash
+                || chunks.size() != other.chunks.size()) {
+            return false;
+        }
+        for (Map.Entry<Long, long[]> entry : chunks.entrySet()) {
+            if (!Arrays.equals(entry.getValue(), other.chunks.get(entry.getKey()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = Integer.hashCode(width);
+        result = 31 * result + Integer.hashCode(height);
+        result = 31 * result + Long.hashCode(hash);
+        return result;
+    }
+}
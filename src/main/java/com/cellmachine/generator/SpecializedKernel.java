@@ -0,0 +1,163 @@
+package com.cellmachine.generator;
+
+import java.lang.constant.ConstantDescs;
+import java.lang.invoke.MethodHandles;
+
+/**
+ * Template for the per-rule kernels {@link RuleKernels} defines. Each copy is a hidden class whose class
+ * data holds one rule's born and survive masks; they become {@code static final} constants, which the JIT
+ * trusts in hidden classes, so it folds {@link #nextWord}'s count tests down to the counts the rule uses.
+ * Otherwise the stepping matches {@link BitPackedEngine#stepWithSelectors} line for line. Never loaded
+ * under its own name.
+ */
+final class SpecializedKernel implements RuleKernels.Kernel {
+
+    private static final int BORN = mask(0);
+    private static final int SURVIVE = mask(1);
+
+    SpecializedKernel() {
+    }
+
+    @Override
+    public void step(Grid current, Grid next, boolean wrap, int fromRow, int toRow, int fromWord, int toWord,
+            BitPackedEngine.Deltas deltas, int column) {
+        int wordsPerRow = current.wordsPerRow();
+        int span = toWord - fromWord;
+        long[] target = next.words();
+        long[][] window = BitPackedEngine.window(span);
+        long[] above = window[0];
+        long[] middle = window[1];
+        long[] below = window[2];
+        long[] columnDeltas = deltas.columns;
+        BitPackedEngine.loadRow(current, fromRow - 1, wrap, fromWord, toWord, above);
+        BitPackedEngine.loadRow(current, fromRow, wrap, fromWord, toWord, middle);
+        long spanMask = toWord == wordsPerRow ? Grid.lastWordMask(current.width()) : -1L;
+        long hashDelta = 0L;
+        long populationDelta = 0L;
+        long flipped = 0L;
+
+        for (int y = fromRow; y < toRow; y++) {
+            BitPackedEngine.loadRow(current, y + 1, wrap, fromWord, toWord, below);
+            int index = y * wordsPerRow + fromWord;
+            int rowDelta = 0;
+            for (int i = 1; i <= span; i++, index++) {
+                long mask = i == span ? spanMask : -1L;
+                long alive = middle[i] & mask;
+                long result = nextWord(above, middle, below, i) & mask;
+                int births = Long.bitCount(result & ~alive);
+                int deaths = Long.bitCount(alive & ~result);
+                rowDelta += births - deaths;
+                columnDeltas[column + i - 1] += births - deaths;
+                flipped += births + deaths;
+                hashDelta += (result - alive) * Grid.hashKey(index);
+                target[index] = result;
+            }
+            next.addRowPopulation(y, rowDelta);
+            populationDelta += rowDelta;
+            long[] recycled = above;
+            above = middle;
+            middle = below;
+            below = recycled;
+        }
+        deltas.hash += hashDelta;
+        deltas.population += populationDelta;
+        deltas.flipped += flipped;
+    }
+
+    private static long nextWord(long[] above, long[] middle, long[] below, int i) {
+        long ac = above[i];
+        long aw = (ac << 1) | (above[i - 1] >>> 63);
+        long ae = (ac >>> 1) | (above[i + 1] << 63);
+        long bc = below[i];
+        long bw = (bc << 1) | (below[i - 1] >>> 63);
+        long be = (bc >>> 1) | (below[i + 1] << 63);
+        long alive = middle[i];
+        long cw = (alive << 1) | (middle[i - 1] >>> 63);
+        long ce = (alive >>> 1) | (middle[i + 1] << 63);
+
+        long aboveSum = aw ^ ac ^ ae;
+        long aboveCarry = (aw & ac) | (ae & (aw ^ ac));
+        long belowSum = bw ^ bc ^ be;
+        long belowCarry = (bw & bc) | (be & (bw ^ bc));
+        long sideSum = cw ^ ce;
+        long sideCarry = cw & ce;
+
+        long ones = aboveSum ^ belowSum ^ sideSum;
+        long onesCarry = (aboveSum & belowSum) | (sideSum & (aboveSum ^ belowSum));
+
+        long pairSum = aboveCarry ^ belowCarry ^ sideCarry;
+        long pairCarry = (aboveCarry & belowCarry) | (sideCarry & (aboveCarry ^ belowCarry));
+        long twos = pairSum ^ onesCarry;
+        long twosCarry = pairSum & onesCarry;
+
+        long fours = pairCarry ^ twosCarry;
+        long eights = pairCarry & twosCarry;
+
+        // A count of 8 leaves the lower digits clear, so only 0 and 8 need the eights plane.
+        long born = 0L;
+        long survive = 0L;
+        long matches;
+        if (uses(0)) {
+            matches = ~(ones | twos | fours | eights);
+            born |= select(BORN, 0, matches);
+            survive |= select(SURVIVE, 0, matches);
+        }
+        if (uses(1)) {
+            matches = ones & ~twos & ~fours;
+            born |= select(BORN, 1, matches);
+            survive |= select(SURVIVE, 1, matches);
+        }
+        if (uses(2)) {
+            matches = ~ones & twos & ~fours;
+            born |= select(BORN, 2, matches);
+            survive |= select(SURVIVE, 2, matches);
+        }
+        if (uses(3)) {
+            matches = ones & twos & ~fours;
+            born |= select(BORN, 3, matches);
+            survive |= select(SURVIVE, 3, matches);
+        }
+        if (uses(4)) {
+            matches = ~ones & ~twos & fours;
+            born |= select(BORN, 4, matches);
+            survive |= select(SURVIVE, 4, matches);
+        }
+        if (uses(5)) {
+            matches = ones & ~twos & fours;
+            born |= select(BORN, 5, matches);
+            survive |= select(SURVIVE, 5, matches);
+        }
+        if (uses(6)) {
+            matches = ~ones & twos & fours;
+            born |= select(BORN, 6, matches);
+            survive |= select(SURVIVE, 6, matches);
+        }
+        if (uses(7)) {
+            matches = ones & twos & fours;
+            born |= select(BORN, 7, matches);
+            survive |= select(SURVIVE, 7, matches);
+        }
+        if (uses(8)) {
+            born |= select(BORN, 8, eights);
+            survive |= select(SURVIVE, 8, eights);
+        }
+        return (alive & survive) | (~alive & born);
+    }
+
+    private static boolean uses(int count) {
+        return ((BORN | SURVIVE) >>> count & 1) != 0;
+    }
+
+    private static long select(int mask, int count, long matches) {
+        return (mask >>> count & 1) != 0 ? matches : 0L;
+    }
+
+    private static int mask(int index) {
+        try {
+            Integer mask = MethodHandles.classDataAt(MethodHandles.lookup(), ConstantDescs.DEFAULT_NAME, Integer.class, index);
+            return mask == null ? 0 : mask;
+        } catch (IllegalAccessException ex) {
+            throw new ExceptionInInitializerError(ex);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.cellmachine.generator;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Advances a {@link Grid} several generations per pass. The board is cut into bands of rows small enough to
+ * stay in cache; each band is copied with {@code k} extra rows of halo on either side into scratch grids and
+ * stepped {@code k} times there, the valid rows shrinking by one per side each generation, before its own
+ * rows are written to the target. A pass thus streams the board through memory once for {@code k}
+ * generations instead of {@code k} times, at the cost of recomputing the halos. Bands run in parallel on
+ * the {@link ParallelStepper}.
+ */
+final class TemporalBlockEngine {
+
+    static final int MAX_DEPTH = 16;
+    // Room for a band's two scratch grids, halos included: half of a 2 MiB per-core L2 cache.
+    static final int BAND_BYTES = 1024 * 1024;
+
+    private final ParallelStepper stepper;
+    // Per-thread scratch grids, kept while the board size stays the same.
+    private final ThreadLocal<Grid[]> scratch = new ThreadLocal<>();
+    private final AtomicLong flippedCells = new AtomicLong();
+    private long flipped;
+
+    TemporalBlockEngine(ParallelStepper stepper) {
+        this.stepper = Objects.requireNonNull(stepper, "stepper");
+    }
+
+    /**
+     * Writes the generation {@code generations} after {@code current} into {@code target}. The target's
+     * {@link Grid#flipped} then counts the cells that differ between the two grids, while {@link #flipped()}
+     * sums the cells flipped by each generation in between.
+     */
+    void advanceInto(Grid current, Grid target, Rule rule, boolean wrap, int generations) {
+        if (generations < 1 || generations > MAX_DEPTH) {
+            throw new IllegalArgumentException("Generations per pass must be between 1 and " + MAX_DEPTH);
+        }
+        Grid.ensureStepTarget(current, target, rule);
+        int height = current.height();
+        int bandRows = bandRows(current.wordsPerRow(), height, generations);
+        int bands = (height + bandRows - 1) / bandRows;
+        flippedCells.set(0L);
+        stepper.forEachBand(bands, 1, (long) current.width() * height * generations, (fromBand, toBand) -> {
+            Grid[] grids = scratchGrids(current.width(), bandRows + 2 * generations);
+            BitPackedEngine.Deltas deltas = new BitPackedEngine.Deltas().reset(current.wordsPerRow());
+            long bandFlipped = 0L;
+            for (int band = fromBand; band < toBand; band++) {
+                int fromRow = band * bandRows;
+                bandFlipped += stepBand(current, target, rule, wrap, generations, fromRow,
+                        Math.min(fromRow + bandRows, height), grids, deltas);
+            }
+            deltas.applyTo(target, 0, current.wordsPerRow());
+            flippedCells.addAndGet(bandFlipped);
+        });
+        flipped = flippedCells.get();
+    }
+
+    /**
+     * Cells flipped by each generation of the last {@link #advanceInto}, summed.
+     */
+    long flipped() {
+        return flipped;
+    }
+
+    /**
+     * Rows per band: as many as fit {@link #BAND_BYTES} with their halos, but no fewer than four times the
+     * halo, so recomputing it stays cheap, and few enough to give every thread a band.
+     */
+    int bandRows(int wordsPerRow, int height, int generations) {
+        int fitting = BAND_BYTES / (2 * wordsPerRow * Long.BYTES) - 2 * generations;
+        int perThread = (height + stepper.threads() - 1) / stepper.threads();
+        return Math.min(height, Math.max(4 * generations, Math.min(fitting, perThread)));
+    }
+
+    // Returns the cells flipped in rows [fromRow, toRow) over all the generations.
+    private static long stepBand(Grid current, Grid target, Rule rule, boolean wrap, int generations,
+            int fromRow, int toRow, Grid[] grids, BitPackedEngine.Deltas deltas) {
+        int height = current.height();
+        int wordsPerRow = current.wordsPerRow();
+        // Without wrapping the halo stops at the board's edges, which then stay edges in the scratch grids.
+        boolean topEdge = !wrap && fromRow < generations;
+        boolean bottomEdge = !wrap && toRow + generations > height;
+        int top = topEdge ? 0 : fromRow - generations;
+        int rows = (bottomEdge ? height : toRow + generations) - top;
+        // The scratch grids' counts are never read, only their flipped cells, so loading skips them.
+        Grid source = grids[0];
+        Grid next = grids[1];
+        long[] cells = current.words();
+        long[] scratchCells = source.words();
+        for (int r = 0; r < rows; r++) {
+            System.arraycopy(cells, Math.floorMod(top + r, height) * wordsPerRow, scratchCells, r * wordsPerRow,
+                    wordsPerRow);
+        }
+        if (bottomEdge && rows < source.height()) {
+            // The row past the board's last one is a neighbour of it in both grids.
+            Arrays.fill(scratchCells, rows * wordsPerRow, (rows + 1) * wordsPerRow, 0L);
+            Arrays.fill(next.words(), rows * wordsPerRow, (rows + 1) * wordsPerRow, 0L);
+        }
+
+        int ownFrom = fromRow - top;
+        int ownTo = toRow - top;
+        long flipped = 0L;
+        for (int generation = 1; generation <= generations; generation++) {
+            stepRows(source, next, rule, wrap, topEdge ? 0 : generation, ownFrom);
+            long before = next.flipped();
+            stepRows(source, next, rule, wrap, ownFrom, ownTo);
+            flipped += next.flipped() - before;
+            stepRows(source, next, rule, wrap, ownTo, bottomEdge ? rows : rows - generation);
+            Grid stepped = next;
+            next = source;
+            source = stepped;
+        }
+        writeRows(current, target, source, fromRow, toRow, ownFrom, deltas);
+        return flipped;
+    }
+
+    private static void stepRows(Grid current, Grid next, Rule rule, boolean wrap, int fromRow, int toRow) {
+        if (fromRow < toRow) {
+            Grid.stepRows(current, next, rule, wrap, fromRow, toRow);
+        }
+    }
+
+    // Copies rows [fromRow, toRow) from the scratch grid, where they start at row ownFrom, into the target,
+    // counting what changed since current.
+    private static void writeRows(Grid current, Grid target, Grid stepped, int fromRow, int toRow, int ownFrom,
+            BitPackedEngine.Deltas deltas) {
+        int wordsPerRow = current.wordsPerRow();
+        long[] cells = current.words();
+        long[] results = stepped.words();
+        long[] targetCells = target.words();
+        long[] columnDeltas = deltas.columns;
+        long hashDelta = 0L;
+        long populationDelta = 0L;
+        long flipped = 0L;
+        for (int y = fromRow; y < toRow; y++) {
+            int index = y * wordsPerRow;
+            int from = (ownFrom + y - fromRow) * wordsPerRow;
+            int rowDelta = 0;
+            for (int i = 0; i < wordsPerRow; i++, index++) {
+                long alive = cells[index];
+                long result = results[from + i];
+                int births = Long.bitCount(result & ~alive);
+                int deaths = Long.bitCount(alive & ~result);
+                rowDelta += births - deaths;
+                columnDeltas[i] += births - deaths;
+                flipped += births + deaths;
+                hashDelta += (result - alive) * Grid.hashKey(index);
+                targetCells[index] = result;
+            }
+            target.addRowPopulation(y, rowDelta);
+            populationDelta += rowDelta;
+        }
+        deltas.hash += hashDelta;
+        deltas.population += populationDelta;
+        deltas.flipped += flipped;
+    }
+
+    private Grid[] scratchGrids(int width, int height) {
+        Grid[] grids = scratch.get();
+        if (grids == null || grids[0].width() != width || grids[0].height() != height) {
+            grids = new Grid[]{new Grid(width, height), new Grid(width, height)};
+            scratch.set(grids);
+        }
+        return grids;
+    }
+}
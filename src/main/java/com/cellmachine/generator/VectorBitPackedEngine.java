@@ -0,0 +1,170 @@
+package com.cellmachine.generator;
+
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link BitPackedEngine} on vector lanes: each lane holds one 64-cell word, and the west/east neighbor
+ * planes come from the same row loaded one word to either side. Words at the row edges, where the carry
+ * wraps or stops, and the tail that does not fill a vector are left to the scalar loop.
+ *
+ * <p>Only reachable through {@link BitPackedEngine#VECTORIZED}; loading this class requires the
+ * {@code jdk.incubator.vector} module.
+ */
+final class VectorBitPackedEngine {
+
+    // Below this many words per row the vector part would be a single chunk at best.
+    static final int MIN_WORDS = 4;
+    // With 256-bit vectors the extra loads cost more than the scalar loop saves; see StepBenchmark.
+    static final int MIN_LANES = 8;
+
+    private static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+    private static final LongVector LANE_INDEX = LongVector.zero(SPECIES).addIndex(1);
+    // Per-thread row of zeros standing in for the rows beyond unwrapped edges; only ever read.
+    private static final ThreadLocal<long[]> ZERO_ROW = ThreadLocal.withInitial(() -> new long[0]);
+
+    private VectorBitPackedEngine() {
+    }
+
+    static int lanes() {
+        return SPECIES.length();
+    }
+
+    static void step(Grid current, Grid next, Rule rule, boolean wrap, int fromRow, int toRow, int fromWord, int toWord) {
+        int wordsPerRow = current.wordsPerRow();
+        int lanes = SPECIES.length();
+        int vectorFrom = Math.max(fromWord, 1);
+        int vectorTo = vectorFrom + Math.max(0, Math.min(toWord, wordsPerRow - 1) - vectorFrom) / lanes * lanes;
+        if (vectorTo == vectorFrom) {
+            BitPackedEngine.stepScalar(current, next, rule, wrap, fromRow, toRow, fromWord, toWord);
+            return;
+        }
+        long[] cells = current.words();
+        long[] target = next.words();
+        boolean edgeRows = !wrap && (fromRow == 0 || toRow == current.height());
+        long[] zeroRow = edgeRows ? zeroRow(wordsPerRow) : null;
+        int bornMask = rule.bornMask();
+        int surviveMask = rule.surviveMask();
+        int counts = bornMask | surviveMask;
+        BitPackedEngine.Deltas deltas = BitPackedEngine.deltas(toWord - fromWord);
+        long[] columnDeltas = deltas.columns;
+        LongVector zero = LongVector.zero(SPECIES);
+        LongVector hashDelta = zero;
+        long flipped = 0L;
+        long populationDelta = 0L;
+
+        for (int y = fromRow; y < toRow; y++) {
+            if (fromWord < vectorFrom) {
+                BitPackedEngine.stepScalar(current, next, rule, wrap, y, y + 1, fromWord, vectorFrom, deltas, 0);
+            }
+            if (vectorTo < toWord) {
+                BitPackedEngine.stepScalar(current, next, rule, wrap, y, y + 1, vectorTo, toWord,
+                        deltas, vectorTo - fromWord);
+            }
+            int row = y * wordsPerRow;
+            int above = current.rowStart(y - 1, wrap);
+            int below = current.rowStart(y + 1, wrap);
+            // Missing rows read from a zero row so the loop body stays free of branches on vector values.
+            long[] aboveCells = above < 0 ? zeroRow : cells;
+            long[] belowCells = below < 0 ? zeroRow : cells;
+            above = Math.max(above, 0);
+            below = Math.max(below, 0);
+            for (int w = vectorFrom; w < vectorTo; w += lanes) {
+                LongVector alive = LongVector.fromArray(SPECIES, cells, row + w);
+                LongVector cw = west(cells, row + w, alive);
+                LongVector ce = east(cells, row + w, alive);
+                LongVector ac = LongVector.fromArray(SPECIES, aboveCells, above + w);
+                LongVector aw = west(aboveCells, above + w, ac);
+                LongVector ae = east(aboveCells, above + w, ac);
+                LongVector bc = LongVector.fromArray(SPECIES, belowCells, below + w);
+                LongVector bw = west(belowCells, below + w, bc);
+                LongVector be = east(belowCells, below + w, bc);
+
+                LongVector aboveSum = xor(xor(aw, ac), ae);
+                LongVector aboveCarry = aw.and(ac).or(ae.and(xor(aw, ac)));
+                LongVector belowSum = xor(xor(bw, bc), be);
+                LongVector belowCarry = bw.and(bc).or(be.and(xor(bw, bc)));
+                LongVector sideSum = xor(cw, ce);
+                LongVector sideCarry = cw.and(ce);
+
+                LongVector ones = xor(xor(aboveSum, belowSum), sideSum);
+                LongVector onesCarry = aboveSum.and(belowSum).or(sideSum.and(xor(aboveSum, belowSum)));
+
+                LongVector pairSum = xor(xor(aboveCarry, belowCarry), sideCarry);
+                LongVector pairCarry = aboveCarry.and(belowCarry).or(sideCarry.and(xor(aboveCarry, belowCarry)));
+                LongVector twos = xor(pairSum, onesCarry);
+                LongVector twosCarry = pairSum.and(onesCarry);
+
+                LongVector fours = xor(pairCarry, twosCarry);
+                LongVector eights = pairCarry.and(twosCarry);
+
+                // A count matches where every bit plane equals the count's bit; planes whose bit is clear are
+                // inverted by XOR with all ones. Selecting with scalar masks keeps vector values out of branches.
+                LongVector born = zero;
+                LongVector survive = zero;
+                for (int remaining = counts; remaining != 0; remaining &= remaining - 1) {
+                    int n = Integer.numberOfTrailingZeros(remaining);
+                    LongVector matches = ones.lanewise(VectorOperators.XOR, (n & 1) != 0 ? 0L : -1L)
+                            .and(twos.lanewise(VectorOperators.XOR, (n & 2) != 0 ? 0L : -1L))
+                            .and(fours.lanewise(VectorOperators.XOR, (n & 4) != 0 ? 0L : -1L))
+                            .and(eights.lanewise(VectorOperators.XOR, (n & 8) != 0 ? 0L : -1L));
+                    born = born.or(matches.and((bornMask & (1 << n)) != 0 ? -1L : 0L));
+                    survive = survive.or(matches.and((surviveMask & (1 << n)) != 0 ? -1L : 0L));
+                }
+
+                LongVector result = alive.and(survive).or(born.lanewise(VectorOperators.AND_NOT, alive));
+                hashDelta = hashDelta.add(result.sub(alive).mul(hashKeys(row + w)));
+                result.intoArray(target, row + w);
+            }
+            // Counted with scalar popcounts while the row is still in cache: few CPUs count bits per lane.
+            int rowDelta = 0;
+            for (int w = vectorFrom; w < vectorTo; w++) {
+                long alive = cells[row + w];
+                long result = target[row + w];
+                int births = Long.bitCount(result & ~alive);
+                int deaths = Long.bitCount(alive & ~result);
+                rowDelta += births - deaths;
+                columnDeltas[w - fromWord] += births - deaths;
+                flipped += births + deaths;
+            }
+            next.addRowPopulation(y, rowDelta);
+            populationDelta += rowDelta;
+        }
+        deltas.hash += hashDelta.reduceLanes(VectorOperators.ADD);
+        deltas.population += populationDelta;
+        deltas.flipped += flipped;
+        deltas.applyTo(next, fromWord, toWord - fromWord);
+    }
+
+    private static long[] zeroRow(int words) {
+        long[] row = ZERO_ROW.get();
+        if (row.length < words) {
+            row = new long[words];
+            ZERO_ROW.set(row);
+        }
+        return row;
+    }
+
+    // Grid.hashKey() of the words from firstIndex on, one per lane.
+    private static LongVector hashKeys(long firstIndex) {
+        LongVector z = LANE_INDEX.add(firstIndex + 1).mul(0x9E3779B97F4A7C15L);
+        z = xor(z, z.lanewise(VectorOperators.LSHR, 30)).mul(0xBF58476D1CE4E5B9L);
+        z = xor(z, z.lanewise(VectorOperators.LSHR, 27)).mul(0x94D049BB133111EBL);
+        return xor(z, z.lanewise(VectorOperators.LSHR, 31)).or(1L);
+    }
+
+    private static LongVector west(long[] cells, int offset, LongVector center) {
+        LongVector previous = LongVector.fromArray(SPECIES, cells, offset - 1);
+        return center.lanewise(VectorOperators.LSHL, 1).or(previous.lanewise(VectorOperators.LSHR, 63));
+    }
+
+    private static LongVector east(long[] cells, int offset, LongVector center) {
+        LongVector following = LongVector.fromArray(SPECIES, cells, offset + 1);
+        return center.lanewise(VectorOperators.LSHR, 1).or(following.lanewise(VectorOperators.LSHL, 63));
+    }
+
+    private static LongVector xor(LongVector first, LongVector second) {
+        return first.lanewise(VectorOperators.XOR, second);
+    }
+}
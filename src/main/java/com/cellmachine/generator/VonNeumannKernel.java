@@ -0,0 +1,145 @@
+package com.cellmachine.generator;
+
+import java.lang.constant.ConstantDescs;
+import java.lang.invoke.MethodHandles;
+
+/**
+ * Steps rules on the {@link Neighborhood#VON_NEUMANN von Neumann} neighborhood. The four neighbor planes, the
+ * rows above and below as they are and the row itself shifted each way, add up in two half adders and a
+ * third for their sums, a three-digit count from 0 to 4.
+ *
+ * <p>Like {@link SpecializedKernel}, {@link RuleKernels} defines a hidden copy per rule with the born and
+ * survive masks as class data, so the JIT folds the count tests down to those the rule uses. Loaded under its
+ * own name, with the masks passed to the constructor, it is the fallback when hidden classes are unavailable.
+ */
+final class VonNeumannKernel implements RuleKernels.Kernel {
+
+    // -1 without class data, when the masks come from the constructor instead.
+    private static final int BORN = mask(0);
+    private static final int SURVIVE = mask(1);
+    private static final boolean SPECIALIZED = BORN >= 0;
+
+    private final int born;
+    private final int survive;
+
+    VonNeumannKernel() {
+        this(0, 0);
+    }
+
+    VonNeumannKernel(int bornMask, int surviveMask) {
+        this.born = bornMask;
+        this.survive = surviveMask;
+    }
+
+    @Override
+    public void step(Grid current, Grid next, boolean wrap, int fromRow, int toRow, int fromWord, int toWord,
+            BitPackedEngine.Deltas deltas, int column) {
+        int wordsPerRow = current.wordsPerRow();
+        int span = toWord - fromWord;
+        long[] target = next.words();
+        long[][] window = BitPackedEngine.window(span);
+        long[] above = window[0];
+        long[] middle = window[1];
+        long[] below = window[2];
+        long[] columnDeltas = deltas.columns;
+        BitPackedEngine.loadRow(current, fromRow - 1, wrap, fromWord, toWord, above);
+        BitPackedEngine.loadRow(current, fromRow, wrap, fromWord, toWord, middle);
+        long spanMask = toWord == wordsPerRow ? Grid.lastWordMask(current.width()) : -1L;
+        long hashDelta = 0L;
+        long populationDelta = 0L;
+        long flipped = 0L;
+
+        for (int y = fromRow; y < toRow; y++) {
+            BitPackedEngine.loadRow(current, y + 1, wrap, fromWord, toWord, below);
+            int index = y * wordsPerRow + fromWord;
+            int rowDelta = 0;
+            for (int i = 1; i <= span; i++, index++) {
+                long mask = i == span ? spanMask : -1L;
+                long alive = middle[i] & mask;
+                long result = nextWord(above, middle, below, i) & mask;
+                int births = Long.bitCount(result & ~alive);
+                int deaths = Long.bitCount(alive & ~result);
+                rowDelta += births - deaths;
+                columnDeltas[column + i - 1] += births - deaths;
+                flipped += births + deaths;
+                hashDelta += (result - alive) * Grid.hashKey(index);
+                target[index] = result;
+            }
+            next.addRowPopulation(y, rowDelta);
+            populationDelta += rowDelta;
+            long[] recycled = above;
+            above = middle;
+            middle = below;
+            below = recycled;
+        }
+        deltas.hash += hashDelta;
+        deltas.population += populationDelta;
+        deltas.flipped += flipped;
+    }
+
+    private long nextWord(long[] above, long[] middle, long[] below, int i) {
+        long north = above[i];
+        long south = below[i];
+        long alive = middle[i];
+        long west = (alive << 1) | (middle[i - 1] >>> 63);
+        long east = (alive >>> 1) | (middle[i + 1] << 63);
+
+        long verticalSum = north ^ south;
+        long verticalCarry = north & south;
+        long sideSum = west ^ east;
+        long sideCarry = west & east;
+        long ones = verticalSum ^ sideSum;
+        long onesCarry = verticalSum & sideSum;
+        // Both pairs carrying means all four are alive, which leaves the sums and their carry clear.
+        long twos = verticalCarry ^ sideCarry ^ onesCarry;
+        long fours = verticalCarry & sideCarry;
+
+        int bornMask = SPECIALIZED ? BORN : born;
+        int surviveMask = SPECIALIZED ? SURVIVE : survive;
+        long bornCells = 0L;
+        long surviving = 0L;
+        long matches;
+        if (uses(bornMask, surviveMask, 0)) {
+            matches = ~(ones | twos | fours);
+            bornCells |= select(bornMask, 0, matches);
+            surviving |= select(surviveMask, 0, matches);
+        }
+        if (uses(bornMask, surviveMask, 1)) {
+            matches = ones & ~twos;
+            bornCells |= select(bornMask, 1, matches);
+            surviving |= select(surviveMask, 1, matches);
+        }
+        if (uses(bornMask, surviveMask, 2)) {
+            matches = ~ones & twos;
+            bornCells |= select(bornMask, 2, matches);
+            surviving |= select(surviveMask, 2, matches);
+        }
+        if (uses(bornMask, surviveMask, 3)) {
+            matches = ones & twos;
+            bornCells |= select(bornMask, 3, matches);
+            surviving |= select(surviveMask, 3, matches);
+        }
+        if (uses(bornMask, surviveMask, 4)) {
+            bornCells |= select(bornMask, 4, fours);
+            surviving |= select(surviveMask, 4, fours);
+        }
+        return (alive & surviving) | (~alive & bornCells);
+    }
+
+    private static boolean uses(int bornMask, int surviveMask, int count) {
+        return ((bornMask | surviveMask) >>> count & 1) != 0;
+    }
+
+    private static long select(int mask, int count, long matches) {
+        return (mask >>> count & 1) != 0 ? matches : 0L;
+    }
+
+    private static int mask(int index) {
+        try {
+            Integer mask = MethodHandles.classDataAt(MethodHandles.lookup(), ConstantDescs.DEFAULT_NAME, Integer.class, index);
+            return mask == null ? -1 : mask;
+        } catch (IllegalAccessException ex) {
+            throw new ExceptionInInitializerError(ex);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.cellmachine.scheduler;
 
+import com.cellmachine.config.AppProperties;
 import com.cellmachine.generator.RandomSimulationFactory;
 import com.cellmachine.generator.RandomSimulationFactory.RandomSelection;
 import com.cellmachine.generator.SimulationOptions;
@@ -22,10 +23,13 @@ public class DailyScheduler {
 
     private final SimulationService simulationService;
     private final TelegramService telegramService;
+    private final boolean screenRules;
 
-    public DailyScheduler(SimulationService simulationService, TelegramService telegramService) {
+    public DailyScheduler(SimulationService simulationService, TelegramService telegramService,
+            AppProperties properties) {
         this.simulationService = simulationService;
         this.telegramService = telegramService;
+        this.screenRules = properties.isRandomRuleScreening();
     }
 
     @Scheduled(cron = "0 0 10,18 * * *", zone = "Asia/Tbilisi")
@@ -41,7 +45,7 @@ public class DailyScheduler {
     }
 
     private void dispatchRandomMaskAnimation(String label) {
-        RandomSelection selection = RandomSimulationFactory.create(true);
+        RandomSelection selection = drawSelection(true);
         SimulationOptions options = RandomSimulationFactory.buildOptions(selection);
         try {
             SimulationResult result = simulationService.runSimulation(options);
@@ -60,7 +64,7 @@ public class DailyScheduler {
     }
 
     private void dispatchRandomAnimation(String label) {
-        RandomSelection selection = RandomSimulationFactory.create(false);
+        RandomSelection selection = drawSelection(false);
         SimulationOptions options = RandomSimulationFactory.buildOptions(selection);
         try {
             SimulationResult result = simulationService.runSimulation(options);
@@ -77,4 +81,10 @@ public class DailyScheduler {
             log.error("Failed to dispatch {} animation", label, ex);
         }
     }
+
+    private RandomSelection drawSelection(boolean withMask) {
+        return screenRules
+                ? RandomSimulationFactory.createScreened(withMask)
+                : RandomSimulationFactory.create(withMask);
+    }
 }
@@ -24,6 +24,9 @@ public class ChatSession {
     private Integer loadingMessageId;
     private boolean simpleRuleMode;
     private SimulationOptions presetOptions;
+    // The run delivered last, which the chat can extend, and the one being extended now.
+    private SimulationOptions finishedOptions;
+    private SimulationOptions extendOptions;
 
     public ChatSession(long chatId) {
         this.chatId = chatId;
@@ -151,7 +154,7 @@ public class ChatSession {
     }
 
     public boolean isReadyForGeneration() {
-        if (presetOptions != null) {
+        if (presetOptions != null || extendOptions != null) {
             return true;
         }
         return birthDigits != null
@@ -179,6 +182,8 @@ public class ChatSession {
         copy.lastPromptMessageId = this.lastPromptMessageId;
         copy.loadingMessageId = this.loadingMessageId;
         copy.presetOptions = this.presetOptions;
+        copy.finishedOptions = this.finishedOptions;
+        copy.extendOptions = this.extendOptions;
         copy.simpleRuleMode = this.simpleRuleMode;
         return copy;
     }
@@ -197,6 +202,23 @@ public class ChatSession {
         markInteraction();
     }
 
+    public SimulationOptions finishedOptions() {
+        return finishedOptions;
+    }
+
+    public void finishedOptions(SimulationOptions finishedOptions) {
+        this.finishedOptions = finishedOptions;
+    }
+
+    public SimulationOptions extendOptions() {
+        return extendOptions;
+    }
+
+    public void extendOptions(SimulationOptions extendOptions) {
+        this.extendOptions = extendOptions;
+        markInteraction();
+    }
+
     public boolean simpleRuleMode() {
         return simpleRuleMode;
     }
@@ -217,6 +239,7 @@ public class ChatSession {
         this.wrap = null;
         this.palette = null;
         this.presetOptions = null;
+        this.extendOptions = null;
         this.lastPromptMessageId = null;
         this.loadingMessageId = null;
         this.simpleRuleMode = false;
@@ -38,6 +38,9 @@ public class TelegramBotService {
     private static final Logger log = LoggerFactory.getLogger(TelegramBotService.class);
     private static final Pattern RULE_PART_PATTERN = Pattern.compile("^[0-8]{1,8}$");
     private static final Duration SESSION_TIMEOUT = Duration.ofHours(1);
+    private static final int EXTEND_STEPS = 100;
+    private static final String EXPIRED_RUN_MESSAGE =
+            "The last run is no longer kept, so it can't be continued. Please start a new simulation.";
 
     private final SimulationService simulationService;
     private final TelegramService telegramService;
@@ -142,13 +145,16 @@ public class TelegramBotService {
         }
         ChatSession session = new ChatSession(chatId);
         session.resetConfiguration();
+        if (existing != null) {
+            session.finishedOptions(existing.finishedOptions());
+        }
         sessions.put(chatId, session);
         telegramService.sendMessage(chatId, "Hi! Let's set up a Cell Machine simulation.");
         promptModeSelection(session);
     }
 
     private void promptModeSelection(ChatSession session) {
-        InlineKeyboardMarkupDto keyboard = new InlineKeyboardMarkupDto(List.of(
+        List<List<InlineKeyboardButtonDto>> rows = new ArrayList<>(List.of(
                 List.of(
                         button("Manual", "MODE_MANUAL"),
                         button("Manual advanced", "MODE_ADVANCED")
@@ -159,6 +165,10 @@ public class TelegramBotService {
                 ),
                 List.of(button("Paste options", "MODE_PASTE"))
         ));
+        if (session.finishedOptions() != null) {
+            rows.add(List.of(button(EXTEND_STEPS + " more steps of the last run", "MODE_EXTEND")));
+        }
+        InlineKeyboardMarkupDto keyboard = new InlineKeyboardMarkupDto(rows);
         TelegramMessageDto message = telegramService.sendMessage(
                 session.chatId(),
                 "Choose how you'd like to configure the simulation:",
@@ -185,6 +195,7 @@ public class TelegramBotService {
             }
             case "MODE_RANDOM" -> startRandomSelection(session);
             case "MODE_RANDOM_MASK" -> startRandomMaskSelection(session);
+            case "MODE_EXTEND" -> startExtension(session);
             case "MODE_PASTE" -> {
                 session.simpleRuleMode(false);
                 session.step(ConversationStep.WAITING_FOR_SERIALIZED_OPTIONS);
@@ -270,6 +281,23 @@ public class TelegramBotService {
         startGeneration(session);
     }
 
+    private void startExtension(ChatSession session) {
+        SimulationOptions finished = session.finishedOptions();
+        if (finished == null) {
+            telegramService.sendMessage(session.chatId(), "There is no finished simulation to continue yet.");
+            promptModeSelection(session);
+            return;
+        }
+        if (!simulationService.canExtend(finished)) {
+            session.finishedOptions(null);
+            telegramService.sendMessage(session.chatId(), EXPIRED_RUN_MESSAGE);
+            promptModeSelection(session);
+            return;
+        }
+        session.extendOptions(finished);
+        startGeneration(session);
+    }
+
     private void processSerializedOptions(ChatSession session, String value) {
         String trimmed = value == null ? "" : value.trim();
         if (trimmed.isEmpty()) {
@@ -542,32 +570,20 @@ public class TelegramBotService {
     private void generateAndDeliver(ChatSession snapshot, ChatSession sessionReference) {
         long chatId = snapshot.chatId();
         Integer loadingMessageId = snapshot.loadingMessageId();
+        SimulationOptions finished = snapshot.finishedOptions();
         try {
-            SimulationOptions options;
-            if (snapshot.presetOptions() != null) {
-                options = snapshot.presetOptions();
-            } else {
-                String ruleLabel = "B" + snapshot.birthDigits() + "/S" + snapshot.survivalDigits();
-                Rule rule = Rule.parse(ruleLabel);
-                SimulationOptions.Builder builder = SimulationOptions.builder()
-                        .rule(rule)
-                        .ruleLabel(ruleLabel)
-                        .dimensions(new SimulationDimensions(snapshot.width(), snapshot.height(), SimulationDimensions.DEFAULT_SCALE))
-                        .steps(snapshot.steps())
-                        .delayCs(SimulationOptions.DEFAULT_DELAY_CS)
-                        .wrap(Boolean.TRUE.equals(snapshot.wrap()))
-                        .density(snapshot.density())
-                        .outputFormat(SimulationOutputFormat.MP4)
-                        .palette(snapshot.palette())
-                        .randomSeed(SeedService.DEFAULT_RANDOM_SEED);
-                boolean[] mask = snapshot.mask();
-                if (mask != null) {
-                    builder.initMask(mask);
-                }
-                options = builder.build();
+            SimulationOptions extend = snapshot.extendOptions();
+            // Other chats' runs can push the checkpoint out of the store while this one waits for a thread.
+            if (extend != null && !simulationService.canExtend(extend)) {
+                finished = null;
+                telegramService.sendMessage(chatId, EXPIRED_RUN_MESSAGE);
+                return;
             }
-            SimulationResult result = simulationService.runSimulation(options);
+            SimulationResult result = extend != null
+                    ? simulationService.extendSimulation(extend, EXTEND_STEPS)
+                    : simulationService.runSimulation(buildOptions(snapshot));
             telegramService.sendAnimation(chatId, result.fileName(), result.bytes(), result.summary());
+            finished = result.extendable() ? SimulationOptions.deserialize(result.summary()) : null;
         } catch (Exception ex) {
             log.error("Failed to generate simulation for chat {}", chatId, ex);
             telegramService.sendMessage(chatId, "Failed to generate video: " + ex.getMessage());
@@ -579,8 +595,32 @@ public class TelegramBotService {
                     log.warn("Failed to delete loading message {} for chat {}", loadingMessageId, chatId, ex);
                 }
             }
-            resetSessionAndPrompt(chatId, sessionReference);
+            resetSessionAndPrompt(chatId, sessionReference, finished);
+        }
+    }
+
+    private SimulationOptions buildOptions(ChatSession snapshot) {
+        if (snapshot.presetOptions() != null) {
+            return snapshot.presetOptions();
+        }
+        String ruleLabel = "B" + snapshot.birthDigits() + "/S" + snapshot.survivalDigits();
+        Rule rule = Rule.parse(ruleLabel);
+        SimulationOptions.Builder builder = SimulationOptions.builder()
+                .rule(rule)
+                .ruleLabel(ruleLabel)
+                .dimensions(new SimulationDimensions(snapshot.width(), snapshot.height(), SimulationDimensions.DEFAULT_SCALE))
+                .steps(snapshot.steps())
+                .delayCs(SimulationOptions.DEFAULT_DELAY_CS)
+                .wrap(Boolean.TRUE.equals(snapshot.wrap()))
+                .density(snapshot.density())
+                .outputFormat(SimulationOutputFormat.MP4)
+                .palette(snapshot.palette())
+                .randomSeed(SeedService.DEFAULT_RANDOM_SEED);
+        boolean[] mask = snapshot.mask();
+        if (mask != null) {
+            builder.initMask(mask);
         }
+        return builder.build();
     }
 
     private void removeKeyboard(TelegramMessageDto message) {
@@ -594,12 +634,13 @@ public class TelegramBotService {
         }
     }
 
-    private void resetSessionAndPrompt(long chatId, ChatSession sessionReference) {
+    private void resetSessionAndPrompt(long chatId, ChatSession sessionReference, SimulationOptions finished) {
         ChatSession[] newSessionHolder = new ChatSession[1];
         sessions.compute(chatId, (id, existing) -> {
             if (existing == sessionReference) {
                 ChatSession fresh = new ChatSession(chatId);
                 fresh.resetConfiguration();
+                fresh.finishedOptions(finished);
                 newSessionHolder[0] = fresh;
                 return fresh;
             }
@@ -7,7 +7,7 @@ public record GenerateResponse(
         String palette,
         int stepsRequested,
         int stepsSimulated,
-        int finalAlive,
+        long finalAlive,
         String rule,
         int gridWidth,
         int gridHeight,
@@ -0,0 +1,74 @@
+package com.cellmachine.generator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class ActiveTileEngineTest {
+
+    private final ParallelStepper sequential = new ParallelStepper(1, 0);
+
+    @Test
+    void matchesFullStepForSparsePatterns() {
+        boolean[] rPentomino = SeedService.parseInitMask("011110010");
+        for (String raw : new String[]{"B3/S23", "B2-a/S12"}) {
+            Rule rule = Rule.parse(raw);
+            for (boolean wrap : new boolean[]{true, false}) {
+                Grid expected = SeedService.gridWithCenteredMask(150, 70, rPentomino);
+                Grid current = expected.copy();
+                Grid next = new Grid(150, 70);
+                ActiveTileEngine engine = new ActiveTileEngine(150, 70, sequential);
+                for (int step = 0; step < 150; step++) {
+                    expected = Grid.advance(expected, rule, wrap);
+                    engine.advanceInto(current, next, rule, wrap);
+                    assertEquals(expected, next, raw + " wrap=" + wrap + " step " + step);
+                    Grid previous = current;
+                    current = next;
+                    next = previous;
+                }
+            }
+        }
+    }
+
+    @Test
+    void copiesInactiveTilesIntoFreshTargets() {
+        Rule rule = Rule.defaultLife();
+        Grid current = SeedService.randomGrid(200, 50, 0.05, 3);
+        ActiveTileEngine engine = new ActiveTileEngine(200, 50, sequential);
+        for (int step = 0; step < 60; step++) {
+            Grid expected = Grid.advance(current, rule, true);
+            Grid next = new Grid(200, 50);
+            engine.advanceInto(current, next, rule, true);
+            assertEquals(expected, next, "step " + step);
+            current = next;
+        }
+    }
+
+    @Test
+    void reportsChangedRegionAndStillLifes() {
+        Grid grid = new Grid(200, 64);
+        grid.set(130, 40, true);
+        grid.set(130, 41, true);
+        grid.set(130, 42, true);
+        grid.set(10, 10, true);
+        grid.set(11, 10, true);
+        grid.set(10, 11, true);
+        grid.set(11, 11, true);
+        ActiveTileEngine engine = new ActiveTileEngine(200, 64, sequential);
+        Grid next = new Grid(200, 64);
+        engine.advanceInto(grid, next, Rule.defaultLife(), false);
+        engine.advanceInto(next, grid, Rule.defaultLife(), false);
+        assertTrue(engine.changed());
+        CellRegion region = engine.changedRegion();
+        assertEquals(new CellRegion(128, 32, 64, 16), region);
+
+        Grid block = new Grid(200, 64);
+        block.set(10, 10, true);
+        block.set(11, 10, true);
+        block.set(10, 11, true);
+        block.set(11, 11, true);
+        engine.advanceInto(block, next, Rule.defaultLife(), false);
+        assertFalse(engine.changed());
+        assertNull(engine.changedRegion());
+    }
+}
@@ -0,0 +1,50 @@
+package com.cellmachine.generator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class BlockTableEngineTest {
+
+    @Test
+    void matchesReferenceAcrossWidthsAndRules() {
+        // Single columns and odd heights leave the 2x2 blocks hanging over the edges.
+        int[][] sizes = GridAssertions.sizesAnd(new int[]{1, 5}, new int[]{3, 2}, new int[]{62, 3}, new int[]{200, 3});
+        String[] rules = GridAssertions.rulesAnd("B1/S23456", "B012345678/S012345678", "B/S", "B3-cnqy/S23-k",
+                "B2ce4wz/S1e5-ar");
+        BlockTableEngine engine = new BlockTableEngine(new ParallelStepper(1, 0));
+        Random random = new Random(11);
+        GridAssertions.forEachBoard(sizes, rules, (rule, width, height, wrap, board) -> {
+            Grid current = SeedService.randomGrid(width, height, 0.35, random.nextLong());
+            Grid next = new Grid(width, height);
+            for (int step = 0; step < 4; step++) {
+                String label = board + " step " + step;
+                Grid following = Grid.advanceReference(current, rule, wrap);
+                engine.advanceInto(current, next, rule, wrap);
+                GridAssertions.assertSameStep(current, following, next, label);
+                Grid previous = current;
+                current = next;
+                next = previous;
+            }
+        });
+    }
+
+    @Test
+    void bandsOfRowPairsComposeOnOddHeights() {
+        BlockTableEngine engine = new BlockTableEngine(new ParallelStepper(3, 0));
+        Rule rule = Rule.parse("B36/S23");
+        Grid current = SeedService.randomGrid(300, 101, 0.3, 3);
+        Grid next = new Grid(300, 101);
+        for (int step = 0; step < 10; step++) {
+            Grid expected = Grid.advance(current, rule, true);
+            engine.advanceInto(current, next, rule, true);
+            assertEquals(expected, next, "step " + step);
+            assertEquals(expected.aliveCount(), next.aliveCount(), "step " + step);
+            Grid previous = current;
+            current = next;
+            next = previous;
+        }
+    }
+}
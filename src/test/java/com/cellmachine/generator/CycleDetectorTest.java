@@ -0,0 +1,69 @@
+package com.cellmachine.generator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class CycleDetectorTest {
+
+    @Test
+    void detectsOscillatorPeriods() {
+        assertEquals(2, periodOf(SeedService.gridWithCenteredMask(20, 20, SeedService.parseInitMask("010010010")), false, 10));
+        Grid pulsar = new Grid(20, 20);
+        int[] offsets = {2, 3, 4, 8, 9, 10};
+        for (int a : offsets) {
+            for (int b : new int[]{0, 5, 7, 12}) {
+                pulsar.set(a + 1, b + 1, true);
+                pulsar.set(b + 1, a + 1, true);
+            }
+        }
+        assertEquals(3, periodOf(pulsar, false, 10));
+    }
+
+    @Test
+    void detectsGliderReturningAroundTorus() {
+        Grid glider = new Grid(12, 12);
+        glider.set(1, 0, true);
+        glider.set(2, 1, true);
+        glider.set(0, 2, true);
+        glider.set(1, 2, true);
+        glider.set(2, 2, true);
+        assertEquals(48, periodOf(glider, true, 100));
+    }
+
+    @Test
+    void ignoresCyclesLongerThanTheWindow() {
+        Grid glider = new Grid(12, 12);
+        glider.set(1, 0, true);
+        glider.set(2, 1, true);
+        glider.set(0, 2, true);
+        glider.set(1, 2, true);
+        glider.set(2, 2, true);
+        CycleDetector<Grid> detector = new CycleDetector<>(glider, 16);
+        Grid current = glider;
+        for (int generation = 0; generation < 100; generation++) {
+            current = Grid.advance(current, Rule.defaultLife(), true);
+            assertEquals(0, detector.record(current), "generation " + generation);
+        }
+    }
+
+    @Test
+    void shrinksWindowForLargeGrids() {
+        Grid large = new Grid(8192, 8192);
+        CycleDetector<Grid> detector = new CycleDetector<>(large, CycleDetector.DEFAULT_MAX_PERIOD);
+        assertEquals(CycleDetector.SNAPSHOT_BUDGET_BYTES / (8192L * 8192 / 8), detector.window());
+    }
+
+    private static int periodOf(Grid grid, boolean wrap, int maxSteps) {
+        CycleDetector<Grid> detector = new CycleDetector<>(grid, CycleDetector.DEFAULT_MAX_PERIOD);
+        Grid current = grid;
+        for (int generation = 0; generation < maxSteps; generation++) {
+            current = Grid.advance(current, Rule.defaultLife(), wrap);
+            int period = detector.record(current);
+            if (period > 0) {
+                return period;
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,176 @@
+package com.cellmachine.generator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class DistributedEngineTest {
+
+    private final ParallelStepper sequential = new ParallelStepper(1, 0);
+
+    @Test
+    void bandsStepLikeOneGrid() {
+        SimulationOptions.Builder soup = SimulationOptions.builder()
+                .dimensions(new SimulationDimensions(100, 37, 1))
+                .density(0.3);
+        for (int workers : new int[]{1, 3}) {
+            for (boolean wrap : new boolean[]{true, false}) {
+                for (int stepsPerFrame : new int[]{1, 12}) {
+                    SimulationOptions options = soup.wrap(wrap).stepsPerFrame(stepsPerFrame).build();
+                    String label = workers + " workers, wrap=" + wrap + ", " + stepsPerFrame + " per frame";
+                    SimulationEngine engine = new SimulationEngines.DistributedSimulationEngine(sequential, workers);
+                    try (SimulationEngine.Run<Grid> expected = new SimulationEngines.ReferenceEngine().start(options);
+                         SimulationEngine.Run<?> actual = engine.start(options)) {
+                        for (int frame = 0; frame < 8; frame++) {
+                            assertEquals(expected.advance(stepsPerFrame), actual.advance(stepsPerFrame), label);
+                            assertEquals(expected.births(), actual.births(), label + " births at frame " + frame);
+                            assertEquals(expected.deaths(), actual.deaths(), label + " deaths at frame " + frame);
+                            assertSameCells(expected.current(), actual.current(), label + " frame " + frame);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void gliderCrossesBandsAndWrapsAround() {
+        SimulationOptions options = SimulationOptions.builder()
+                .dimensions(new SimulationDimensions(20, 24, 1))
+                .seedCells(List.of(new CellCoordinate(1, 0), new CellCoordinate(2, 1), new CellCoordinate(0, 2),
+                        new CellCoordinate(1, 2), new CellCoordinate(2, 2)))
+                .stepsPerFrame(4)
+                .build();
+        SimulationEngine engine = new SimulationEngines.DistributedSimulationEngine(sequential, 4);
+        try (SimulationEngine.Run<Grid> expected = new SimulationEngines.ReferenceEngine().start(options);
+             SimulationEngine.Run<?> actual = engine.start(options)) {
+            // A cell down and right every four generations: through every band border and over the seam.
+            for (int frame = 0; frame < 24; frame++) {
+                assertTrue(actual.advance(4));
+                expected.advance(4);
+                assertEquals(5, actual.current().aliveCount());
+                assertSameCells(expected.current(), actual.current(), "frame " + frame);
+            }
+        }
+    }
+
+    @Test
+    void shadesBlocksOfLargeBoards() {
+        SimulationOptions options = SimulationOptions.builder()
+                .dimensions(new SimulationDimensions(202, 90, 1))
+                .density(0.35)
+                .stepsPerFrame(3)
+                .build();
+        assertEquals(4, DistributedEngine.frameFactor(options.dimensions(), 64));
+        try (SimulationEngine.Run<Grid> expected = new SimulationEngines.ReferenceEngine().start(options);
+             DistributedEngine split = new DistributedEngine(options, 3, 1, 64);
+             DistributedEngine whole = new DistributedEngine(options, 1, 1, 64)) {
+            assertEquals(3, split.bands());
+            assertEquals(3, split.halo());
+            for (int frame = 0; frame < 6; frame++) {
+                DownsampledFrame got = split.frame();
+                assertEquals(51, got.width());
+                assertEquals(23, got.height());
+                assertEquals(4, got.factor());
+                Grid want = expected.current();
+                assertEquals(want.aliveCount(), got.aliveCount());
+                assertEquals(want.liveBounds(), got.liveBounds());
+                for (int y = 0; y < got.height(); y++) {
+                    for (int x = 0; x < got.width(); x++) {
+                        assertEquals(level(want, x, y, 4), got.state(x, y), "frame " + frame + " block " + x + "," + y);
+                    }
+                }
+                assertEquals(whole.frame(), got, "frame " + frame);
+                assertEquals(whole.frame().contentHash(), got.contentHash());
+
+                expected.advance(3);
+                split.advance(3);
+                whole.advance(3);
+                assertEquals(expected.births(), split.births());
+                assertEquals(expected.deaths(), split.deaths());
+            }
+        }
+    }
+
+    @Test
+    void runsOnlyWhenNamed() {
+        SimulationOptions.Builder builder = SimulationOptions.builder()
+                .dimensions(new SimulationDimensions(64, 48, 2))
+                .density(0.25)
+                .steps(30)
+                .stepsPerFrame(2)
+                .outputFormat(SimulationOutputFormat.GIF);
+        SimulationService service = new SimulationService(sequential, SimulationService.DEFAULT_HASHLIFE_MAX_NODES, 2);
+        SimulationResult distributed = service.runSimulation(builder.engine(SimulationEngines.DISTRIBUTED).build());
+        SimulationResult reference = service.runSimulation(builder.engine(SimulationEngines.REFERENCE).build());
+        assertEquals(SimulationEngines.DISTRIBUTED, distributed.engine());
+        assertEquals(reference.finalAlive(), distributed.finalAlive());
+        assertEquals(reference.stepsSimulated(), distributed.stepsSimulated());
+        assertArrayEquals(reference.bytes(), distributed.bytes());
+        assertNotEquals(SimulationEngines.DISTRIBUTED, service.runSimulation(builder.engine(null).build()).engine());
+
+        assertFalse(new SimulationEngines.DistributedSimulationEngine(sequential, 2)
+                .supports(builder.rule(Rule.parse("B2/S34H")).build()));
+        assertThrows(IllegalArgumentException.class, () -> new SimulationEngines.DistributedSimulationEngine(sequential, 0));
+    }
+
+    @Test
+    void takesOnlyConnectionsWithTheRunsToken() throws IOException {
+        byte[] token = new byte[DistributedEngine.TOKEN_BYTES];
+        Arrays.fill(token, (byte) 7);
+        byte[] wrong = token.clone();
+        wrong[DistributedEngine.TOKEN_BYTES - 1] = 8;
+        try (ServerSocket server = new ServerSocket(0, 4, InetAddress.getLoopbackAddress());
+             Socket impostor = new Socket(server.getInetAddress(), server.getLocalPort());
+             Socket silent = new Socket(server.getInetAddress(), server.getLocalPort());
+             Socket worker = new Socket(server.getInetAddress(), server.getLocalPort())) {
+            impostor.getOutputStream().write(wrong);
+            silent.shutdownOutput();
+            worker.getOutputStream().write(token);
+            worker.getOutputStream().write(42);
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            try (Socket accepted = DistributedEngine.acceptWorker(server, token, deadline)) {
+                assertEquals(42, accepted.getInputStream().read());
+            }
+            InputStream refused = impostor.getInputStream();
+            impostor.setSoTimeout(10_000);
+            assertEquals(-1, refused.read());
+            assertThrows(SocketTimeoutException.class,
+                    () -> DistributedEngine.acceptWorker(server, token, System.nanoTime()));
+        }
+    }
+
+    private static int level(Grid grid, int blockX, int blockY, int factor) {
+        int count = 0;
+        int cells = 0;
+        for (int y = blockY * factor; y < Math.min(grid.height(), (blockY + 1) * factor); y++) {
+            for (int x = blockX * factor; x < Math.min(grid.width(), (blockX + 1) * factor); x++) {
+                cells++;
+                count += grid.get(x, y) ? 1 : 0;
+            }
+        }
+        return (count * 255 + cells - 1) / cells;
+    }
+
+    private static void assertSameCells(Grid want, GridState<?> got, String label) {
+        assertEquals(want.aliveCount(), got.aliveCount(), label + " population");
+        assertEquals(want.liveBounds(), got.liveBounds(), label + " live bounds");
+        for (int y = 0; y < want.height(); y++) {
+            for (int x = 0; x < want.width(); x++) {
+                if (want.get(x, y) != got.get(x, y)) {
+                    fail(label + ": cell (" + x + ", " + y + ")");
+                }
+            }
+        }
+    }
+}
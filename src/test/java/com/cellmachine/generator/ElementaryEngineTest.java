@@ -0,0 +1,226 @@
+package com.cellmachine.generator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+import org.junit.jupiter.api.Test;
+
+class ElementaryEngineTest {
+
+    @Test
+    void parsesElementaryRules() {
+        Rule rule30 = Rule.parse("W30");
+        assertTrue(rule30.isElementary());
+        assertEquals(30, rule30.wolframCode());
+        assertEquals(2, rule30.states());
+        assertEquals(1, rule30.range());
+        assertEquals(110, Rule.parse(" w110 ").wolframCode());
+        assertFalse(Rule.parse("B3/S23").isElementary());
+        assertTrue(rule30.nextState(true, false, false));
+        assertFalse(rule30.nextState(true, true, true));
+
+        for (String invalid : new String[]{"W", "W256", "W-1", "Wx", "W30/S2"}) {
+            assertThrows(IllegalArgumentException.class, () -> Rule.parse(invalid));
+        }
+    }
+
+    @Test
+    void stepsMatchTheWolframCode() {
+        Random random = new Random(7);
+        for (int code = 0; code < 256; code++) {
+            Rule rule = Rule.parse("W" + code);
+            ElementaryEngine engine = new ElementaryEngine(rule);
+            for (int width : new int[]{1, 2, 63, 64, 65, 129, 200}) {
+                for (boolean wrap : new boolean[]{true, false}) {
+                    for (int height : new int[]{1, 3}) {
+                        String label = "W" + code + " width " + width + " wrap=" + wrap + " height " + height;
+                        boolean[] row = new boolean[width];
+                        Grid seed = new Grid(width, 1);
+                        for (int x = 0; x < width; x++) {
+                            row[x] = random.nextBoolean();
+                            seed.set(x, 0, row[x]);
+                        }
+                        SpaceTimeDiagram diagram = SpaceTimeDiagram.startingWith(seed, height);
+                        for (int generation = 1; generation <= 4; generation++) {
+                            boolean[] expected = referenceStep(rule, row, wrap);
+                            diagram.advance(engine, wrap);
+                            int bottom = diagram.filledRows() - 1;
+                            long born = 0L;
+                            long died = 0L;
+                            int population = 0;
+                            for (int x = 0; x < width; x++) {
+                                assertEquals(expected[x], diagram.get(x, bottom), label + " x=" + x);
+                                born += expected[x] && !row[x] ? 1 : 0;
+                                died += row[x] && !expected[x] ? 1 : 0;
+                                population += expected[x] ? 1 : 0;
+                            }
+                            assertEquals(population, engine.population(), label);
+                            assertEquals(born, engine.births(), label);
+                            assertEquals(died, engine.deaths(), label);
+                            row = expected;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void diagramsGrowThenScroll() {
+        SimulationOptions options = SimulationOptions.builder()
+                .rule(Rule.parse("W90"))
+                .dimensions(new SimulationDimensions(31, 6, 1))
+                .seedCells(List.of(new CellCoordinate(15, 0)))
+                .wrap(false)
+                .build();
+        SimulationEngine.Run<SpaceTimeDiagram> run = new SimulationEngines.ElementarySimulationEngine().start(options);
+        SpaceTimeDiagram diagram = run.current();
+        boolean[][] rows = new boolean[12][31];
+        rows[0][15] = true;
+        for (int generation = 1; generation < rows.length; generation++) {
+            rows[generation] = referenceStep(options.rule(), rows[generation - 1], false);
+            assertTrue(run.advance(1));
+            int top = Math.max(0, generation - 5);
+            CellRegion expectedRegion = generation < 6 ? new CellRegion(0, generation, 31, 1) : CellRegion.of(diagram);
+            assertEquals(expectedRegion, run.changedRegion(), "generation " + generation);
+            assertEquals(Math.min(generation + 1, 6), diagram.filledRows());
+            int population = 0;
+            for (int y = 0; y < 6; y++) {
+                for (int x = 0; x < 31; x++) {
+                    boolean expected = top + y <= generation && rows[top + y][x];
+                    assertEquals(expected, diagram.get(x, y), "generation " + generation + " at " + x + "," + y);
+                    population += expected ? 1 : 0;
+                }
+            }
+            assertEquals(population, diagram.aliveCount());
+        }
+        assertEquals(new CellRegion(4, 0, 23, 6), diagram.liveBounds());
+
+        SpaceTimeDiagram copy = diagram.copy();
+        assertEquals(copy, diagram);
+        assertEquals(copy.contentHash(), diagram.contentHash());
+        run.advance(2);
+        assertNotEquals(copy, diagram);
+    }
+
+    @Test
+    void repeatsOnceTheScrollingFrameStopsMoving() {
+        SimulationOptions options = SimulationOptions.builder()
+                .rule(Rule.parse("W204"))
+                .dimensions(new SimulationDimensions(100, 4, 1))
+                .density(0.5)
+                .build();
+        SimulationEngine.Run<SpaceTimeDiagram> run = new SimulationEngines.ElementarySimulationEngine().start(options);
+        for (int generation = 1; generation < 4; generation++) {
+            assertTrue(run.advance(1), "generation " + generation);
+        }
+        SpaceTimeDiagram full = run.current().copy();
+        assertFalse(run.advance(1));
+        assertNull(run.changedRegion());
+        assertEquals(full, run.current());
+        assertEquals(full.contentHash(), run.current().contentHash());
+
+        SimulationResult result = new SimulationService().runSimulation(SimulationOptions.builder()
+                .rule(Rule.parse("W204"))
+                .dimensions(new SimulationDimensions(100, 4, 1))
+                .steps(50)
+                .outputFormat(SimulationOutputFormat.GIF)
+                .build());
+        assertEquals(4, result.stepsSimulated());
+        assertEquals(1, result.cyclePeriod());
+
+        // Rule 1 turns an empty row full and back again: the frames repeat once the stripes fill the frame.
+        SimulationResult blinking = new SimulationService().runSimulation(SimulationOptions.builder()
+                .rule(Rule.parse("W1"))
+                .dimensions(new SimulationDimensions(64, 5, 1))
+                .density(0.0)
+                .steps(50)
+                .outputFormat(SimulationOutputFormat.GIF)
+                .build());
+        assertEquals(6, blinking.stepsSimulated());
+        assertEquals(2, blinking.cyclePeriod());
+    }
+
+    @Test
+    void stepsWideRowsWithoutFrames() {
+        int width = 100_000;
+        Rule rule = Rule.parse("W30");
+        Grid seed = new Grid(width, 1);
+        seed.set(width / 2, 0, true);
+        SpaceTimeDiagram diagram = SpaceTimeDiagram.startingWith(seed, 2);
+        ElementaryEngine engine = new ElementaryEngine(rule);
+        boolean[] row = new boolean[width];
+        row[width / 2] = true;
+        for (int generation = 1; generation <= 300; generation++) {
+            diagram.advance(engine, true);
+            row = referenceStep(rule, row, true);
+        }
+        for (int x = 0; x < width; x++) {
+            assertEquals(row[x], diagram.get(x, 1), "x=" + x);
+        }
+    }
+
+    @Test
+    void runsElementaryRulesThroughTheService() throws IOException {
+        SimulationOptions options = SimulationOptions.builder()
+                .rule(Rule.parse("W30"))
+                .dimensions(new SimulationDimensions(120, 40, 2))
+                .seedCells(List.of(new CellCoordinate(60, 0)))
+                .steps(30)
+                .outputFormat(SimulationOutputFormat.GIF)
+                .build();
+        SimulationResult result = new SimulationService().runSimulation(options);
+
+        assertEquals("elementary", result.engine());
+        assertEquals(30, result.stepsSimulated());
+        assertEquals(options.serialize(), result.summary());
+        SimulationOptions restored = SimulationOptions.deserialize(options.serialize());
+        assertEquals(Rule.parse("W30"), restored.rule());
+        assertEquals(options.serialize(), restored.serialize());
+
+        // Frames after the first only carry the row each generation added.
+        try (ImageInputStream input = ImageIO.createImageInputStream(new ByteArrayInputStream(result.bytes()))) {
+            ImageReader reader = ImageIO.getImageReadersByFormatName("gif").next();
+            reader.setInput(input);
+            assertEquals(31, reader.getNumImages(true));
+            assertEquals(40 * 2, reader.getHeight(0));
+            assertEquals(2, reader.getHeight(1));
+            assertEquals(120 * 2, reader.getWidth(1));
+            reader.dispose();
+        }
+
+        SimulationOptions mp4 = SimulationOptions.builder()
+                .rule(Rule.parse("W110"))
+                .dimensions(new SimulationDimensions(64, 16, 1))
+                .steps(40)
+                .stepsPerFrame(3)
+                .outputFormat(SimulationOutputFormat.MP4)
+                .build();
+        assertTrue(new SimulationService().runSimulation(mp4).bytes().length > 0);
+
+        List<SimulationEngine> engines =
+                SimulationEngines.defaults(new ParallelStepper(1, 0), SimulationService.DEFAULT_HASHLIFE_MAX_NODES);
+        for (SimulationEngine engine : engines) {
+            assertEquals(engine.name().equals("elementary"), engine.supports(options), engine.name());
+        }
+    }
+
+    private static boolean[] referenceStep(Rule rule, boolean[] row, boolean wrap) {
+        int width = row.length;
+        boolean[] next = new boolean[width];
+        for (int x = 0; x < width; x++) {
+            boolean left = x > 0 ? row[x - 1] : wrap && row[width - 1];
+            boolean right = x < width - 1 ? row[x + 1] : wrap && row[0];
+            next[x] = rule.nextState(left, row[x], right);
+        }
+        return next;
+    }
+}
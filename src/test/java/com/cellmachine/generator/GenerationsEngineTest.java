@@ -0,0 +1,143 @@
+package com.cellmachine.generator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.Test;
+
+class GenerationsEngineTest {
+
+    @Test
+    void parsesStateCounts() {
+        assertEquals(2, Rule.parse("B3/S23").states());
+        assertEquals(3, Rule.parse("B2/S/C3").states());
+        assertEquals(4, Rule.parse("B2/S345/C4").states());
+        assertTrue(Rule.parse("B2/S345/C4").isTotalistic());
+        assertThrows(IllegalArgumentException.class, () -> Rule.parse("B2/S/C1"));
+        assertThrows(IllegalArgumentException.class, () -> Rule.parse("B2/S/C257"));
+        assertThrows(IllegalArgumentException.class, () -> Rule.parse("B2/S/X3"));
+        assertThrows(IllegalArgumentException.class, () -> Rule.parse("B2/S/C3/C4"));
+    }
+
+    @Test
+    void matchesCellByCellDecay() {
+        String[] rules = {"B2/S/C3", "B2/S345/C4", "B3/S23/C2", "B1/S1/C7", "B2-a/S12/C5"};
+        Random random = new Random(31);
+        // A board taller than a band per thread checks decaying cells across band edges.
+        GridAssertions.forEachBoard(GridAssertions.sizesAnd(new int[]{70, 33}), rules, (rule, width, height, wrap, board) -> {
+            for (ParallelStepper stepper : new ParallelStepper[]{new ParallelStepper(1, 0), new ParallelStepper(3, 0)}) {
+                GenerationsEngine engine = new GenerationsEngine(stepper);
+                GenerationsGrid current = randomGrid(width, height, rule.states(), random);
+                GenerationsGrid next = new GenerationsGrid(width, height, rule.states());
+                GenerationsGrid expected = current.copy();
+                for (int step = 0; step < 6; step++) {
+                    String label = board + " threads " + stepper.threads() + " step " + step;
+                    expected = advanceReference(expected, rule, wrap);
+                    engine.advanceInto(current, next, rule, wrap);
+                    GridAssertions.assertSameState(expected, next, label);
+                    assertEquals(expected.decayingCount(), next.decayingCount(), label);
+                    assertStates(expected, next, label);
+                    GenerationsGrid previous = current;
+                    current = next;
+                    next = previous;
+                }
+            }
+        });
+    }
+
+    @Test
+    void runsGenerationsRulesThroughTheService() throws IOException {
+        SimulationOptions options = SimulationOptions.builder()
+                .rule(Rule.parse("B2/S/C3"))
+                .ruleLabel("Brian's Brain")
+                .dimensions(new SimulationDimensions(40, 30, 2))
+                .density(0.2)
+                .steps(12)
+                .outputFormat(SimulationOutputFormat.GIF)
+                .build();
+        SimulationResult result = new SimulationService().runSimulation(options);
+
+        assertEquals("generations", result.engine());
+        assertEquals(12, result.stepsSimulated());
+        assertTrue(result.bytes().length > 0);
+        assertEquals(options.serialize(), result.summary());
+        assertEquals(3, SimulationOptions.deserialize(options.serialize()).rule().states());
+        assertEquals("B2/S/C3", SimulationOptions.deserialize(options.serialize()).rule().label());
+
+        List<SimulationEngine> engines =
+                SimulationEngines.defaults(new ParallelStepper(1, 0), SimulationService.DEFAULT_HASHLIFE_MAX_NODES);
+        for (SimulationEngine engine : engines) {
+            assertEquals(engine.name().equals("generations"), engine.supports(options), engine.name());
+        }
+        EngineSelector selector = new EngineSelector(engines, 1);
+        assertEquals("generations", selector.select(options).name());
+        assertThrows(IllegalArgumentException.class,
+                () -> selector.select(SimulationOptions.builder().rule(Rule.parse("B2/S/C3")).engine("tiled").build()));
+    }
+
+    @Test
+    void gifFramesUseOneColorPerState() throws IOException {
+        GenerationsGrid grid = new GenerationsGrid(3, 1, 4);
+        grid.setState(0, 0, 1);
+        grid.setState(1, 0, 2);
+        grid.setState(2, 0, 3);
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (GifWriter writer = new GifWriter(buffer, 3, 1, 1, 5, Palette2D.bitbee, 4)) {
+            writer.writeFrame(grid);
+        }
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(buffer.toByteArray()));
+        int[] colors = Palette2D.bitbee.colors(4);
+        for (int x = 0; x < 3; x++) {
+            assertEquals(colors[x + 1], image.getRGB(x, 0) & 0xFFFFFF, "state " + (x + 1));
+        }
+        assertEquals(Palette2D.rgb(Palette2D.bitbee.aliveColor), colors[1]);
+        assertNotEquals(colors[2], colors[3]);
+    }
+
+    private static GenerationsGrid randomGrid(int width, int height, int states, Random random) {
+        GenerationsGrid grid = new GenerationsGrid(width, height, states);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                grid.setState(x, y, random.nextInt(3) == 0 ? random.nextInt(states) : 0);
+            }
+        }
+        return grid;
+    }
+
+    private static GenerationsGrid advanceReference(GenerationsGrid current, Rule rule, boolean wrap) {
+        Grid alive = current.alive();
+        GenerationsGrid next = new GenerationsGrid(current.width(), current.height(), current.states());
+        for (int y = 0; y < current.height(); y++) {
+            for (int x = 0; x < current.width(); x++) {
+                int state = current.state(x, y);
+                boolean lives = rule.nextState(Grid.neighborhood(alive, x, y, wrap));
+                int following;
+                if (state == 0) {
+                    following = lives ? 1 : 0;
+                } else if (state == 1) {
+                    following = lives ? 1 : 2 % current.states();
+                } else {
+                    following = (state + 1) % current.states();
+                }
+                next.setState(x, y, following);
+            }
+        }
+        return next;
+    }
+
+    private static void assertStates(GenerationsGrid expected, GenerationsGrid actual, String label) {
+        for (int y = 0; y < expected.height(); y++) {
+            for (int x = 0; x < expected.width(); x++) {
+                assertEquals(expected.state(x, y), actual.state(x, y), label + " at (" + x + ", " + y + ")");
+            }
+        }
+    }
+}
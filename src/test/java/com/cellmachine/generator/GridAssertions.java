@@ -0,0 +1,100 @@
+package com.cellmachine.generator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+
+/**
+ * The boards the engine tests sweep, and what a stepped grid must agree on with the one it is checked
+ * against, so each test keeps only its engine's calls and the edge cases it alone covers.
+ */
+final class GridAssertions {
+
+    // Widths on both sides of a word boundary, from a lone cell to three words.
+    static final int[][] SIZES = {{1, 1}, {5, 3}, {63, 4}, {64, 5}, {65, 6}, {130, 7}};
+    // Life, extra births, births from nothing and an isotropic non-totalistic rule.
+    static final String[] RULES = {"B3/S23", "B36/S23", "B0/S8", "B2-a/S12"};
+
+    private GridAssertions() {
+    }
+
+    @FunctionalInterface
+    interface BoardCheck {
+        void check(Rule rule, int width, int height, boolean wrap, String label);
+    }
+
+    /**
+     * Runs the check for every size and rule, with and without wrapping.
+     */
+    static void forEachBoard(int[][] sizes, String[] rules, BoardCheck check) {
+        for (int[] size : sizes) {
+            for (String raw : rules) {
+                Rule rule = Rule.parse(raw);
+                for (boolean wrap : new boolean[]{true, false}) {
+                    check.check(rule, size[0], size[1], wrap, raw + " " + size[0] + "x" + size[1] + " wrap=" + wrap);
+                }
+            }
+        }
+    }
+
+    static void forEachBoard(BoardCheck check) {
+        forEachBoard(SIZES, RULES, check);
+    }
+
+    static int[][] sizesAnd(int[]... more) {
+        int[][] sizes = Arrays.copyOf(SIZES, SIZES.length + more.length);
+        System.arraycopy(more, 0, sizes, SIZES.length, more.length);
+        return sizes;
+    }
+
+    static String[] rulesAnd(String... more) {
+        String[] rules = Arrays.copyOf(RULES, RULES.length + more.length);
+        System.arraycopy(more, 0, rules, RULES.length, more.length);
+        return rules;
+    }
+
+    /**
+     * Two grids of one layout hold the same state: equal, with the same hashes, population and bounds.
+     */
+    static <S extends GridState<S>> void assertSameState(S expected, S actual, String label) {
+        assertEquals(expected, actual, label);
+        assertEquals(expected.hashCode(), actual.hashCode(), label);
+        assertEquals(expected.contentHash(), actual.contentHash(), label);
+        assertEquals(expected.aliveCount(), actual.aliveCount(), label);
+        assertEquals(expected.liveBounds(), actual.liveBounds(), label);
+    }
+
+    /**
+     * Stepping {@code source} left {@code actual} in the state of {@code expected}, counting every cell it
+     * flipped on the way.
+     */
+    static void assertSameStep(Grid source, Grid expected, Grid actual, String label) {
+        assertSameState(expected, actual, label);
+        assertEquals(changedCells(source, expected), actual.flipped(), label);
+    }
+
+    /**
+     * Grids of different layouts hold the same live cells, population and bounds.
+     */
+    static void assertSameCells(GridState<?> expected, GridState<?> actual, String label) {
+        for (int y = 0; y < expected.height(); y++) {
+            for (int x = 0; x < expected.width(); x++) {
+                if (expected.get(x, y) != actual.get(x, y)) {
+                    fail(label + ": cell (" + x + ", " + y + ")");
+                }
+            }
+        }
+        assertEquals(expected.aliveCount(), actual.aliveCount(), label);
+        assertEquals(expected.liveBounds(), actual.liveBounds(), label);
+    }
+
+    static long changedCells(GridView before, GridView after) {
+        long cells = 0L;
+        for (int y = 0; y < before.height(); y++) {
+            for (int x = 0; x < before.width(); x++) {
+                cells += before.get(x, y) != after.get(x, y) ? 1 : 0;
+            }
+        }
+        return cells;
+    }
+}
@@ -0,0 +1,241 @@
+package com.cellmachine.generator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class GridCheckpointTest {
+
+    @Test
+    void encodingRoundTrips() {
+        Random random = new Random(11);
+        for (int width : new int[]{1, 63, 64, 65, 130}) {
+            for (int height : new int[]{1, 7}) {
+                Grid grid = new Grid(width, height);
+                for (int y = 0; y < height; y++) {
+                    for (int x = 0; x < width; x++) {
+                        // Alternate empty, full, soup and lone-cell rows so every run kind shows up.
+                        boolean alive = switch (y % 4) {
+                            case 1 -> true;
+                            case 2 -> random.nextInt(3) == 0;
+                            case 3 -> x == width / 2;
+                            default -> false;
+                        };
+                        if (alive) {
+                            grid.set(x, y, true);
+                        }
+                    }
+                }
+                for (String rule : new String[]{"B3/S23", "B2/S34H", "B2/S34V"}) {
+                    GridCheckpoint decoded = GridCheckpoint.decode(
+                            GridCheckpoint.of(grid, Rule.parse(rule), width % 2 == 0, 17).encode());
+                    String label = width + "x" + height + " " + rule;
+                    assertEquals(Rule.parse(rule).label(), decoded.rule().label(), label);
+                    assertEquals(width % 2 == 0, decoded.wrap(), label);
+                    assertEquals(17, decoded.step(), label);
+                    Grid restored = decoded.restore(new Grid(width, height));
+                    assertEquals(grid, restored, label);
+                    assertEquals(grid.contentHash(), restored.contentHash(), label);
+                    assertEquals(grid.aliveCount(), decoded.population(), label);
+                    assertEquals(0, decoded.period(), label);
+                }
+            }
+        }
+    }
+
+    @Test
+    void sparseBoardsStaySmall() {
+        Grid glider = new Grid(1024, 1024);
+        for (CellCoordinate cell : List.of(new CellCoordinate(501, 500), new CellCoordinate(502, 501),
+                new CellCoordinate(500, 502), new CellCoordinate(501, 502), new CellCoordinate(502, 502))) {
+            glider.set(cell.x(), cell.y(), true);
+        }
+        byte[] encoded = GridCheckpoint.of(glider, Rule.parse("B3/S23"), true, 0).encode();
+        assertTrue(encoded.length < 80, encoded.length + " bytes");
+        assertEquals(glider, GridCheckpoint.decode(encoded).restore(new Grid(1024, 1024)));
+        GridCheckpoint repeating = GridCheckpoint.decode(GridCheckpoint.decode(encoded).repeating(4).encode());
+        assertEquals(4, repeating.period());
+        assertEquals(glider, repeating.restore(new Grid(1024, 1024)));
+
+        Grid soup = new Grid(640, 100);
+        Random random = new Random(5);
+        for (int y = 0; y < soup.height(); y++) {
+            for (int x = 0; x < soup.width(); x++) {
+                soup.set(x, y, random.nextBoolean());
+            }
+        }
+        int soupBytes = GridCheckpoint.of(soup, Rule.parse("B3/S23"), true, 0).encode().length;
+        assertTrue(soupBytes < 640 * 100 / 8 + 100, soupBytes + " bytes");
+    }
+
+    @Test
+    void everyLayoutEncodesTheSameBytes() {
+        Grid grid = new Grid(200, 90);
+        Random random = new Random(3);
+        for (int i = 0; i < 400; i++) {
+            grid.set(random.nextInt(150), random.nextInt(40), true);
+        }
+        Rule life = Rule.parse("B3/S23");
+        byte[] dense = GridCheckpoint.of(grid, life, true, 9).encode();
+        // A plain view has no words to hand over, so it is read cell by cell.
+        GridView view = new GridView() {
+            @Override
+            public int width() {
+                return grid.width();
+            }
+
+            @Override
+            public int height() {
+                return grid.height();
+            }
+
+            @Override
+            public boolean get(int x, int y) {
+                return grid.get(x, y);
+            }
+        };
+        assertArrayEquals(dense, GridCheckpoint.of(SparseGrid.copyOf(grid), life, true, 9).encode());
+        assertArrayEquals(dense, GridCheckpoint.of(view, life, true, 9).encode());
+
+        SparseGrid restored = GridCheckpoint.decode(dense).restore(new SparseGrid(200, 90));
+        assertEquals(grid.aliveCount(), restored.aliveCount());
+        assertArrayEquals(dense, GridCheckpoint.of(restored, life, true, 9).encode());
+    }
+
+    @Test
+    void boardsOverTheBudgetAreNotEncoded() {
+        Grid soup = new Grid(640, 100);
+        Random random = new Random(8);
+        for (int y = 0; y < soup.height(); y++) {
+            for (int x = 0; x < soup.width(); x++) {
+                soup.set(x, y, random.nextBoolean());
+            }
+        }
+        Rule life = Rule.parse("B3/S23");
+        int size = GridCheckpoint.of(soup, life, true, 0).encode().length;
+        assertNull(GridCheckpoint.of(soup, life, true, 0, size - 1));
+        assertNull(GridCheckpoint.of(soup, life, true, 0, 1024));
+        assertEquals(size, GridCheckpoint.of(soup, life, true, 0, size).encode().length);
+    }
+
+    @Test
+    void rejectsWhatItCannotRead() {
+        Grid grid = new Grid(70, 3);
+        grid.set(3, 1, true);
+        grid.set(69, 2, true);
+        byte[] encoded = GridCheckpoint.of(grid, Rule.parse("B3/S23"), false, 4).encode();
+
+        byte[] badMagic = encoded.clone();
+        badMagic[0] ^= 1;
+        byte[] badVersion = encoded.clone();
+        badVersion[4] = 9;
+        byte[] trailing = Arrays.copyOf(encoded, encoded.length + 1);
+        byte[] badPopulation = encoded.clone();
+        // Magic, version, "B3/S23", wrap, generation, width and height take 26 bytes; the population follows.
+        badPopulation[26 + Long.BYTES - 1] ^= 1;
+        for (byte[] corrupt : List.of(badMagic, badVersion, trailing, badPopulation,
+                Arrays.copyOf(encoded, encoded.length - 3))) {
+            assertThrows(IllegalArgumentException.class, () -> GridCheckpoint.decode(corrupt));
+        }
+        assertThrows(IllegalArgumentException.class, () -> GridCheckpoint.of(grid, Rule.parse("B3/S23/C4"), false, 4));
+    }
+
+    @Test
+    void storeDropsTheLeastRecentlyUsed() {
+        Rule life = Rule.parse("B3/S23");
+        GridCheckpoint small = GridCheckpoint.of(new Grid(8, 8), life, true, 1);
+        int size = small.encode().length;
+        CheckpointStore store = new CheckpointStore(3L * size);
+        store.put("a", small);
+        store.put("b", small);
+        store.put("c", small);
+        assertNotNull(store.get("a"));
+        store.put("d", small);
+        assertNull(store.get("b"));
+        assertNotNull(store.get("a"));
+        assertNotNull(store.get("c"));
+        assertEquals(3L * size, store.bytes());
+
+        store.put("a", small);
+        assertEquals(3L * size, store.bytes());
+        Grid soup = new Grid(512, 512);
+        for (int i = 0; i < 512; i++) {
+            soup.set(i, (i * 37) % 512, true);
+        }
+        store.put("big", GridCheckpoint.of(soup, life, true, 1));
+        assertNull(store.get("big"));
+        assertEquals(3L * size, store.bytes());
+    }
+
+    @Test
+    void extendingMatchesOneLongerRun() {
+        SimulationService service = new SimulationService(new ParallelStepper(1, 0),
+                SimulationService.DEFAULT_HASHLIFE_MAX_NODES);
+        for (String rule : new String[]{"B3/S23", "B2/S34H"}) {
+            for (boolean wrap : new boolean[]{true, false}) {
+                SimulationOptions.Builder builder = SimulationOptions.builder()
+                        .rule(Rule.parse(rule))
+                        .wrap(wrap)
+                        .dimensions(new SimulationDimensions(72, 50, 2))
+                        .density(0.3)
+                        .randomSeed(42L)
+                        .stepsPerFrame(2)
+                        .outputFormat(SimulationOutputFormat.GIF);
+                String label = rule + " wrap=" + wrap;
+                SimulationResult first = service.runSimulation(builder.steps(30).build());
+                SimulationResult whole = service.runSimulation(builder.steps(70).build());
+                assertEquals(70, whole.stepsSimulated(), label);
+
+                SimulationResult extended = service.extendSimulation(SimulationOptions.deserialize(first.summary()), 16);
+                assertEquals(46, extended.stepsSimulated(), label);
+                assertEquals(30, extended.statistics().generation(0), label);
+                assertEquals(first.finalAlive(), extended.statistics().population(0), label);
+
+                SimulationResult again = service.extendSimulation(SimulationOptions.deserialize(extended.summary()), 24);
+                assertEquals(70, again.stepsSimulated(), label);
+                assertEquals(whole.finalAlive(), again.finalAlive(), label);
+                assertEquals(whole.statistics().population(whole.statistics().size() - 1),
+                        again.statistics().population(again.statistics().size() - 1), label);
+            }
+        }
+
+        SimulationOptions unknown = SimulationOptions.builder().density(0.2).randomSeed(7L).steps(10).build();
+        assertThrows(IllegalArgumentException.class, () -> service.extendSimulation(unknown, 5));
+    }
+
+    @Test
+    void onlyRunsWithAKeptCheckpointAreExtendable() {
+        SimulationOptions.Builder builder = SimulationOptions.builder()
+                .rule(Rule.parse("B3/S23"))
+                .dimensions(new SimulationDimensions(64, 64, 2))
+                .density(0.4)
+                .randomSeed(3L)
+                .steps(4)
+                .outputFormat(SimulationOutputFormat.GIF);
+        SimulationOptions life = builder.build();
+        SimulationOptions generations = builder.rule(Rule.parse("B2/S/C3")).build();
+        // Room for one glider on a 64x64 board, but neither for a soup nor for two gliders.
+        try (SimulationService service = new SimulationService(new ParallelStepper(1, 0),
+                SimulationService.DEFAULT_HASHLIFE_MAX_NODES, SimulationService.DEFAULT_DISTRIBUTED_WORKERS, 100)) {
+            SimulationResult soup = service.runSimulation(life);
+            assertFalse(soup.extendable());
+            assertFalse(service.canExtend(life));
+            assertFalse(service.runSimulation(generations).extendable());
+
+            SimulationOptions glider = builder.rule(Rule.parse("B3/S23")).density(null).seedCells(List.of(
+                    new CellCoordinate(1, 0), new CellCoordinate(2, 1), new CellCoordinate(0, 2),
+                    new CellCoordinate(1, 2), new CellCoordinate(2, 2))).build();
+            SimulationOptions later = builder.steps(5).build();
+            assertTrue(service.runSimulation(glider).extendable());
+            assertTrue(service.canExtend(glider));
+            // Two checkpoints overflow the budget, so the older one is dropped.
+            assertTrue(service.runSimulation(later).extendable());
+            assertTrue(service.canExtend(later));
+            assertFalse(service.canExtend(glider));
+        }
+    }
+}
@@ -2,6 +2,8 @@ package com.cellmachine.generator;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.util.Random;
+
 import org.junit.jupiter.api.Test;
 
 class GridTest {
@@ -38,4 +40,177 @@ class GridTest {
         assertEquals(0, Grid.neighborCount(grid, 0, 0, false));
         assertEquals(1, Grid.neighborCount(grid, 0, 0, true));
     }
+
+    @Test
+    void bitPackedStepMatchesReferenceAcrossWidthsAndRules() {
+        int[][] sizes = {{1, 1}, {1, 5}, {3, 2}, {63, 7}, {64, 9}, {65, 4}, {130, 11}, {200, 3}};
+        String[] rules = {"B3/S23", "B1/S23456", "B3/S12345", "B0/S8", "B012345678/S012345678", "B/S",
+            "B2-a/S12", "B3-cnqy/S23-k", "B2ce4wz/S1e5-ar"};
+        Random random = new Random(7);
+        for (int[] size : sizes) {
+            for (String raw : rules) {
+                Rule rule = Rule.parse(raw);
+                Grid grid = SeedService.randomGrid(size[0], size[1], 0.35, random.nextLong());
+                for (boolean wrap : new boolean[]{true, false}) {
+                    Grid expected = grid;
+                    Grid actual = grid;
+                    for (int step = 0; step < 4; step++) {
+                        expected = Grid.advanceReference(expected, rule, wrap);
+                        actual = Grid.advance(actual, rule, wrap);
+                        assertEquals(expected, actual, raw + " " + size[0] + "x" + size[1] + " wrap=" + wrap + " step " + step);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void scalarKernelStepsWordRangesLikeWholeRows() {
+        int[][] sizes = {{64, 5}, {65, 6}, {127, 3}, {200, 9}};
+        for (int[] size : sizes) {
+            for (String raw : new String[]{"B3/S23", "B1/S23456"}) {
+                Rule rule = Rule.parse(raw);
+                Grid grid = SeedService.randomGrid(size[0], size[1], 0.4, size[0]);
+                for (boolean wrap : new boolean[]{true, false}) {
+                    Grid expected = Grid.advanceReference(grid, rule, wrap);
+                    Grid actual = new Grid(size[0], size[1]);
+                    Grid.ensureStepTarget(grid, actual, rule);
+                    for (int row = 0; row < size[1]; row += 2) {
+                        for (int word = 0; word < grid.wordsPerRow(); word++) {
+                            BitPackedEngine.stepScalar(grid, actual, rule, wrap,
+                                    row, Math.min(size[1], row + 2), word, word + 1);
+                        }
+                    }
+                    assertEquals(expected, actual, raw + " " + size[0] + "x" + size[1] + " wrap=" + wrap);
+                }
+            }
+        }
+    }
+
+    @Test
+    void advanceIntoAlternatesBuffersLikeAdvance() {
+        Rule rule = Rule.parse("B36/S23");
+        Grid current = SeedService.randomGrid(90, 40, 0.3, 11);
+        Grid next = new Grid(90, 40);
+        Grid expected = current.copy();
+        for (int step = 0; step < 10; step++) {
+            expected = Grid.advance(expected, rule, true);
+            Grid.advanceInto(current, next, rule, true);
+            assertEquals(expected, next);
+            Grid previous = current;
+            current = next;
+            next = previous;
+        }
+    }
+
+    @Test
+    void advanceIntoRejectsAliasedOrMismatchedTarget() {
+        Rule rule = Rule.defaultLife();
+        Grid grid = new Grid(4, 4);
+        assertThrows(IllegalArgumentException.class, () -> Grid.advanceInto(grid, grid, rule, true));
+        assertThrows(IllegalArgumentException.class, () -> Grid.advanceInto(grid, new Grid(4, 5), rule, true));
+    }
+
+    @Test
+    void contentHashTracksEveryWriter() {
+        ParallelStepper bands = new ParallelStepper(3, 0);
+        for (String raw : new String[]{"B3/S23", "B2-a/S12"}) {
+            Rule rule = Rule.parse(raw);
+            Grid current = SeedService.randomGrid(1100, 70, 0.3, 5);
+            Grid next = new Grid(1100, 70);
+            ActiveTileEngine tiles = new ActiveTileEngine(1100, 70, bands);
+            for (int step = 0; step < 6; step++) {
+                if (step % 2 == 0) {
+                    bands.advanceInto(current, next, rule, step < 3);
+                } else {
+                    tiles.advanceInto(current, next, rule, step < 3);
+                }
+                assertEquals(recomputedHash(next), next.contentHash(), raw + " step " + step);
+                Grid previous = current;
+                current = next;
+                next = previous;
+            }
+            Grid copy = current.copy();
+            copy.set(7, 9, !copy.get(7, 9));
+            assertEquals(recomputedHash(copy), copy.contentHash());
+            assertNotEquals(current.contentHash(), copy.contentHash());
+            copy.copyFrom(current);
+            assertEquals(current.contentHash(), copy.contentHash());
+            copy.clear();
+            assertEquals(new Grid(1100, 70).contentHash(), copy.contentHash());
+        }
+    }
+
+    @Test
+    void populationAndLiveBoundsTrackEveryWriter() {
+        ParallelStepper bands = new ParallelStepper(3, 0);
+        for (String raw : new String[]{"B3/S23", "B2-a/S12"}) {
+            Rule rule = Rule.parse(raw);
+            Grid current = SeedService.randomGrid(1100, 70, 0.004, 11);
+            Grid next = new Grid(1100, 70);
+            ActiveTileEngine tiles = new ActiveTileEngine(1100, 70, bands);
+            assertScanned(current, raw + " seed");
+            for (int step = 0; step < 8; step++) {
+                if (step % 2 == 0) {
+                    bands.advanceInto(current, next, rule, step < 4);
+                } else {
+                    tiles.advanceInto(current, next, rule, step < 4);
+                }
+                assertScanned(next, raw + " step " + step);
+                assertEquals(flippedCells(current, next), next.flipped(), raw + " step " + step);
+                Grid previous = current;
+                current = next;
+                next = previous;
+            }
+            Grid copy = current.copy();
+            assertEquals(current.flipped(), copy.flipped(), raw + " copy");
+            copy.set(1099, 69, true);
+            copy.set(0, 0, true);
+            assertScanned(copy, raw + " copy");
+            copy.copyFrom(current);
+            assertScanned(copy, raw + " copyFrom");
+            assertEquals(current.flipped(), copy.flipped(), raw + " copyFrom");
+            copy.clear();
+            assertEquals(0, copy.aliveCount());
+            assertNull(copy.liveBounds());
+        }
+    }
+
+    private static void assertScanned(Grid grid, String label) {
+        int alive = 0;
+        int minX = Integer.MAX_VALUE;
+        int minY = Integer.MAX_VALUE;
+        int maxX = -1;
+        int maxY = -1;
+        for (int y = 0; y < grid.height(); y++) {
+            for (int x = 0; x < grid.width(); x++) {
+                if (grid.get(x, y)) {
+                    alive++;
+                    minX = Math.min(minX, x);
+                    minY = Math.min(minY, y);
+                    maxX = Math.max(maxX, x);
+                    maxY = Math.max(maxY, y);
+                }
+            }
+        }
+        assertEquals(alive, grid.aliveCount(), label);
+        CellRegion expected = alive == 0 ? null : new CellRegion(minX, minY, maxX - minX + 1, maxY - minY + 1);
+        assertEquals(expected, grid.liveBounds(), label);
+    }
+
+    private static long flippedCells(Grid before, Grid after) {
+        long flipped = 0L;
+        for (int i = 0; i < before.words().length; i++) {
+            flipped += Long.bitCount(before.words()[i] ^ after.words()[i]);
+        }
+        return flipped;
+    }
+
+    private static long recomputedHash(Grid grid) {
+        long hash = 0L;
+        for (int i = 0; i < grid.words().length; i++) {
+            hash += grid.words()[i] * Grid.hashKey(i);
+        }
+        return hash;
+    }
 }
@@ -0,0 +1,80 @@
+package com.cellmachine.generator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class HashLifeEngineTest {
+
+    private final ParallelStepper sequential = new ParallelStepper(1, 0);
+
+    @Test
+    void matchesGridAdvanceAtEverySamplingInterval() {
+        boolean[] rPentomino = SeedService.parseInitMask("011110010");
+        for (String raw : new String[]{"B3/S23", "B36/S23", "B2-a/S12"}) {
+            Rule rule = Rule.parse(raw);
+            for (boolean wrap : new boolean[]{true, false}) {
+                for (int interval : new int[]{1, 7, 32}) {
+                    Grid expected = SeedService.gridWithCenteredMask(150, 100, rPentomino);
+                    HashLifeEngine engine = new HashLifeEngine(expected, rule, wrap, sequential, HashLifeEngine.DEFAULT_MAX_NODES);
+                    for (int generation = 0; generation < 320; generation += interval) {
+                        for (int i = 0; i < interval; i++) {
+                            expected = Grid.advance(expected, rule, wrap);
+                        }
+                        engine.advance(interval);
+                        assertEquals(expected, engine.frame(),
+                                raw + " wrap=" + wrap + " every " + interval + " at " + (generation + interval));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void staysExactWithATinyNodeCache() {
+        Rule rule = Rule.defaultLife();
+        Grid expected = SeedService.gridWithCenteredMask(300, 300, SeedService.parseInitMask("011110010"));
+        HashLifeEngine engine = new HashLifeEngine(expected, rule, false, sequential, 64);
+        for (int frame = 0; frame < 20; frame++) {
+            for (int i = 0; i < 16; i++) {
+                expected = Grid.advance(expected, rule, false);
+            }
+            engine.advance(16);
+            assertEquals(expected, engine.frame(), "frame " + frame);
+        }
+    }
+
+    @Test
+    void longJumpsStayWithinTheNodeLimit() {
+        Rule rule = Rule.defaultLife();
+        Grid expected = SeedService.gridWithCenteredMask(600, 600, SeedService.parseInitMask("011110010"));
+        HashLifeEngine engine = new HashLifeEngine(expected, rule, false, sequential, 3000);
+        engine.advance(256);
+        for (int i = 0; i < 256; i++) {
+            expected = Grid.advance(expected, rule, false);
+        }
+        assertEquals(expected, engine.frame());
+        assertTrue(engine.peakNodes() <= 3000, engine.peakNodes() + " nodes");
+    }
+
+    @Test
+    void reportsUnchangedFramesOnceSettled() {
+        Grid grid = new Grid(64, 64);
+        grid.set(30, 30, true);
+        grid.set(31, 30, true);
+        grid.set(30, 31, true);
+        grid.set(31, 31, true);
+        HashLifeEngine engine = new HashLifeEngine(grid, Rule.defaultLife(), true, sequential, 1024);
+        engine.advance(8);
+        assertFalse(engine.changed());
+        assertEquals(grid, engine.frame());
+    }
+
+    @Test
+    void rejectsRulesThatBirthOnEmptyNeighborhoods() {
+        Grid grid = new Grid(8, 8);
+        assertFalse(HashLifeEngine.supports(Rule.parse("B03/S23")));
+        assertThrows(IllegalArgumentException.class,
+                () -> new HashLifeEngine(grid, Rule.parse("B03/S23"), true, sequential, 1024));
+    }
+}
@@ -0,0 +1,141 @@
+package com.cellmachine.generator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class LargerThanLifeEngineTest {
+
+    private static final String BOSCO = "R5,C0,M1,S34..58,B34..45,NM";
+
+    @Test
+    void parsesLargerThanLifeRules() {
+        Rule bosco = Rule.parse(BOSCO);
+        assertTrue(bosco.isLargerThanLife());
+        assertEquals(5, bosco.range());
+        assertEquals(2, bosco.states());
+        assertTrue(bosco.countsCenter());
+        assertEquals(34, bosco.bornMin());
+        assertEquals(45, bosco.bornMax());
+        assertEquals(34, bosco.surviveMin());
+        assertEquals(58, bosco.surviveMax());
+        assertEquals(BOSCO, bosco.label());
+        assertEquals(3, Rule.parse("r3,m0,b4,s5..9").range());
+        assertEquals(1, Rule.parse("B3/S23").range());
+        assertFalse(Rule.parse("B3/S23").isLargerThanLife());
+
+        for (String invalid : new String[]{"R0,C0,M0,S1..2,B3..3,NM", "R501,C0,M0,S1..2,B3..3,NM",
+            "R2,C3,M0,S1..2,B3..3,NM", "R2,C0,M2,S1..2,B3..3,NM", "R2,C0,M0,S1..2,B3..3,NN",
+            "R2,C0,M0,S2..1,B3..3,NM", "R2,C0,M0,S1..26,B3..3,NM", "R2,C0,M0,S1..2,NM", "R2,C0,M0,S1..x,B3,NM",
+            "R2,,S1..2,B3", "R2,X1,S1..2,B3"}) {
+            assertThrows(IllegalArgumentException.class, () -> Rule.parse(invalid));
+        }
+    }
+
+    @Test
+    void rangeOneCompilesToTheMooreTable() {
+        Rule life = Rule.defaultLife();
+        Rule excluded = Rule.parse("R1,C0,M0,S2..3,B3..3,NM");
+        Rule included = Rule.parse("R1,C0,M1,S3..4,B3..3,NM");
+        assertArrayEquals(life.transitions(), excluded.transitions());
+        assertArrayEquals(life.transitions(), included.transitions());
+        assertTrue(included.isTotalistic());
+
+        Random random = new Random(5);
+        LargerThanLifeEngine engine = new LargerThanLifeEngine(new ParallelStepper(1, 0));
+        for (boolean wrap : new boolean[]{true, false}) {
+            Grid current = SeedService.randomGrid(70, 20, 0.35, random.nextLong());
+            Grid next = new Grid(70, 20);
+            engine.advanceInto(current, next, included, wrap);
+            assertEquals(Grid.advanceReference(current, life, wrap), next, "wrap=" + wrap);
+        }
+    }
+
+    @Test
+    void matchesNaiveBoxCounts() {
+        // Tall boards let the widest boxes slide a long way; on the shared ones they wrap onto themselves.
+        int[][] sizes = GridAssertions.sizesAnd(new int[]{70, 33}, new int[]{130, 40});
+        String[] rules = {BOSCO, "R2,C0,M0,S6..11,B7..9,NM", "R7,C0,M1,S0..100,B60..80,NM", "R1,C0,M0,S2..3,B3..3,NM",
+            "R3,C0,M1,S0..0,B0..0,NM"};
+        Random random = new Random(17);
+        GridAssertions.forEachBoard(sizes, rules, (rule, width, height, wrap, board) -> {
+            for (ParallelStepper stepper : new ParallelStepper[]{new ParallelStepper(1, 0), new ParallelStepper(3, 0)}) {
+                LargerThanLifeEngine engine = new LargerThanLifeEngine(stepper);
+                Grid current = SeedService.randomGrid(width, height, 0.45, random.nextLong());
+                Grid next = new Grid(width, height);
+                for (int step = 0; step < 4; step++) {
+                    String label = board + " threads " + stepper.threads() + " step " + step;
+                    Grid expected = advanceReference(current, rule, wrap);
+                    engine.advanceInto(current, next, rule, wrap);
+                    GridAssertions.assertSameStep(current, expected, next, label);
+                    Grid previous = current;
+                    current = next;
+                    next = previous;
+                }
+            }
+        });
+    }
+
+    @Test
+    void runsLargerThanLifeRulesThroughTheService() throws IOException {
+        SimulationOptions options = SimulationOptions.builder()
+                .rule(Rule.parse(BOSCO))
+                .ruleLabel("Bosco's rule")
+                .dimensions(new SimulationDimensions(48, 40, 2))
+                .density(0.5)
+                .steps(10)
+                .outputFormat(SimulationOutputFormat.GIF)
+                .build();
+        SimulationResult result = new SimulationService().runSimulation(options);
+
+        assertEquals("largerthanlife", result.engine());
+        assertTrue(result.bytes().length > 0);
+        assertEquals(options.serialize(), result.summary());
+        SimulationOptions restored = SimulationOptions.deserialize(options.serialize());
+        assertEquals(Rule.parse(BOSCO), restored.rule());
+        assertEquals("Bosco's rule", restored.ruleLabel());
+        assertEquals(options.serialize(), restored.serialize());
+
+        List<SimulationEngine> engines =
+                SimulationEngines.defaults(new ParallelStepper(1, 0), SimulationService.DEFAULT_HASHLIFE_MAX_NODES);
+        for (SimulationEngine engine : engines) {
+            assertEquals(engine.name().equals("largerthanlife"), engine.supports(options), engine.name());
+        }
+        SimulationOptions life = SimulationOptions.builder().build();
+        assertFalse(new EngineSelector(engines, 1).select(life).name().equals("largerthanlife"));
+    }
+
+    private static Grid advanceReference(Grid current, Rule rule, boolean wrap) {
+        int width = current.width();
+        int height = current.height();
+        int range = rule.range();
+        Grid next = new Grid(width, height);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int count = 0;
+                for (int dy = -range; dy <= range; dy++) {
+                    for (int dx = -range; dx <= range; dx++) {
+                        if (dx == 0 && dy == 0 && !rule.countsCenter()) {
+                            continue;
+                        }
+                        int nx = x + dx;
+                        int ny = y + dy;
+                        if (wrap) {
+                            nx = Math.floorMod(nx, width);
+                            ny = Math.floorMod(ny, height);
+                        } else if (nx < 0 || nx >= width || ny < 0 || ny >= height) {
+                            continue;
+                        }
+                        count += current.get(nx, ny) ? 1 : 0;
+                    }
+                }
+                next.set(x, y, rule.nextState(current.get(x, y), count));
+            }
+        }
+        return next;
+    }
+}
@@ -0,0 +1,256 @@
+package com.cellmachine.generator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.Test;
+
+class LeniaEngineTest {
+
+    private static final String ORBIUM = "Lenia/R13,T10,m0.15,s0.015,b1";
+
+    @Test
+    void parsesLeniaRules() {
+        Rule orbium = Rule.parse(ORBIUM);
+        assertTrue(orbium.isContinuous());
+        assertEquals(13, orbium.range());
+        assertEquals(10, orbium.timeSteps());
+        assertEquals(0.15, orbium.growthCenter());
+        assertEquals(0.015, orbium.growthWidth());
+        assertArrayEquals(new double[]{1.0}, orbium.kernelPeaks());
+        assertArrayEquals(new double[]{0.5, 1.0, 0.667}, Rule.parse("lenia/R18,T10,m0.26,s0.036,b0.5;1;0.667").kernelPeaks());
+        assertFalse(Rule.parse("B3/S23").isContinuous());
+
+        for (String invalid : new String[]{"Lenia/T10,m0.15,s0.015", "Lenia/R1,T10,m0.15,s0.015", "Lenia/R13,T0,m0.15,s0.015",
+            "Lenia/R13,T10,m1.5,s0.015", "Lenia/R13,T10,m0.15,s0", "Lenia/R13,T10,m0.15,s0.015,b0", "Lenia/R13,T10,m0.15,s0.015,b",
+            "Lenia/R13,T10,m0.15,s0.015,x1", "Lenia/R13,,T10,m0.15,s0.015"}) {
+            assertThrows(IllegalArgumentException.class, () -> Rule.parse(invalid));
+        }
+    }
+
+    @Test
+    void transformsMatchTheDiscreteFourierTransform() {
+        Random random = new Random(3);
+        for (int size : new int[]{1, 2, 8, 64}) {
+            Fft fft = new Fft(size);
+            float[] re = new float[size];
+            float[] im = new float[size];
+            for (int i = 0; i < size; i++) {
+                re[i] = random.nextFloat() - 0.5f;
+                im[i] = random.nextFloat() - 0.5f;
+            }
+            float[] expectedRe = new float[size];
+            float[] expectedIm = new float[size];
+            dft(re, im, expectedRe, expectedIm);
+            float[] originalRe = re.clone();
+            fft.transform(re, im, false);
+            assertArrayEquals(expectedRe, re, 1e-4f, "size " + size);
+            assertArrayEquals(expectedIm, im, 1e-4f, "size " + size);
+            fft.transform(re, im, true);
+            for (int i = 0; i < size; i++) {
+                assertEquals(originalRe[i] * size, re[i], 1e-4f, "size " + size);
+            }
+
+            float[] signal = new float[2 * size];
+            for (int i = 0; i < signal.length; i++) {
+                signal[i] = random.nextFloat();
+            }
+            float[] bins = new float[size + 1];
+            float[] binsIm = new float[size + 1];
+            fft.realForward(signal, new float[size], new float[size], bins, binsIm, 0);
+            float[] fullRe = new float[2 * size];
+            float[] fullIm = new float[2 * size];
+            dft(signal, new float[2 * size], fullRe, fullIm);
+            for (int k = 0; k <= size; k++) {
+                assertEquals(fullRe[k], bins[k], 1e-4f, "size " + size + " bin " + k);
+                assertEquals(fullIm[k], binsIm[k], 1e-4f, "size " + size + " bin " + k);
+            }
+            float[] restored = new float[2 * size];
+            fft.realInverse(bins, binsIm, 0, new float[size], new float[size], restored);
+            for (int i = 0; i < signal.length; i++) {
+                assertEquals(signal[i] * size, restored[i], 1e-4f, "size " + size);
+            }
+        }
+    }
+
+    @Test
+    void potentialsMatchDirectConvolution() {
+        int[][] sizes = {{16, 16}, {13, 9}, {5, 3}, {40, 24}};
+        String[] rules = {"Lenia/R4,T10,m0.15,s0.015,b1", "Lenia/R6,T5,m0.3,s0.05,b0.5;1;0.25"};
+        Random random = new Random(11);
+        for (int[] size : sizes) {
+            for (String raw : rules) {
+                Rule rule = Rule.parse(raw);
+                for (boolean wrap : new boolean[]{true, false}) {
+                    String label = raw + " " + size[0] + "x" + size[1] + " wrap=" + wrap;
+                    LeniaGrid grid = randomGrid(size[0], size[1], random);
+                    float[] potential = new LeniaEngine(new ParallelStepper(1, 0)).potential(grid, rule, wrap);
+                    double[] expected = directPotential(grid, rule, wrap);
+                    for (int cell = 0; cell < expected.length; cell++) {
+                        assertEquals(expected[cell], potential[cell], 1e-4, label + " cell " + cell);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void stepsMatchTheReferenceGrowth() {
+        Rule rule = Rule.parse("Lenia/R5,T4,m0.2,s0.04,b1;0.5");
+        Random random = new Random(29);
+        for (ParallelStepper stepper : new ParallelStepper[]{new ParallelStepper(1, 0), new ParallelStepper(3, 0)}) {
+            LeniaEngine engine = new LeniaEngine(stepper);
+            for (boolean wrap : new boolean[]{true, false}) {
+                LeniaGrid current = randomGrid(37, 70, random);
+                LeniaGrid next = new LeniaGrid(37, 70);
+                for (int step = 0; step < 5; step++) {
+                    String label = "wrap=" + wrap + " step " + step;
+                    double[] potential = directPotential(current, rule, wrap);
+                    engine.advanceInto(current, next, rule, wrap);
+                    LeniaGrid expected = new LeniaGrid(37, 70);
+                    long flipped = 0L;
+                    for (int y = 0; y < 70; y++) {
+                        for (int x = 0; x < 37; x++) {
+                            double distance = potential[y * 37 + x] - rule.growthCenter();
+                            double growth = 2.0 * Math.exp(-distance * distance
+                                    / (2.0 * rule.growthWidth() * rule.growthWidth())) - 1.0;
+                            double value = current.value(x, y) + growth / rule.timeSteps();
+                            assertEquals(Math.min(1.0, Math.max(0.0, value)), next.value(x, y), 1e-3, label);
+                            expected.setValue(x, y, next.value(x, y));
+                            flipped += current.get(x, y) != next.get(x, y) ? 1 : 0;
+                        }
+                    }
+                    assertEquals(expected.aliveCount(), next.aliveCount(), label);
+                    assertEquals(expected.contentHash(), next.contentHash(), label);
+                    assertEquals(expected.liveBounds(), next.liveBounds(), label);
+                    assertEquals(flipped, next.flipped(), label);
+                    assertEquals(expected, next, label);
+                    LeniaGrid previous = current;
+                    current = next;
+                    next = previous;
+                }
+            }
+        }
+    }
+
+    @Test
+    void runsLeniaRulesThroughTheService() throws IOException {
+        SimulationOptions options = SimulationOptions.builder()
+                .rule(Rule.parse(ORBIUM))
+                .ruleLabel("Orbium")
+                .dimensions(new SimulationDimensions(48, 40, 2))
+                .density(0.3)
+                .steps(8)
+                .outputFormat(SimulationOutputFormat.GIF)
+                .build();
+        SimulationResult result = new SimulationService().runSimulation(options);
+
+        assertEquals("lenia", result.engine());
+        assertTrue(result.bytes().length > 0);
+        assertEquals(options.serialize(), result.summary());
+        SimulationOptions restored = SimulationOptions.deserialize(options.serialize());
+        assertEquals(Rule.parse(ORBIUM), restored.rule());
+        assertEquals(options.serialize(), restored.serialize());
+
+        SimulationOptions mp4 = SimulationOptions.builder()
+                .rule(Rule.parse(ORBIUM))
+                .dimensions(new SimulationDimensions(32, 32, 1))
+                .steps(3)
+                .outputFormat(SimulationOutputFormat.MP4)
+                .build();
+        assertTrue(new SimulationService().runSimulation(mp4).bytes().length > 0);
+
+        List<SimulationEngine> engines =
+                SimulationEngines.defaults(new ParallelStepper(1, 0), SimulationService.DEFAULT_HASHLIFE_MAX_NODES);
+        for (SimulationEngine engine : engines) {
+            assertEquals(engine.name().equals("lenia"), engine.supports(options), engine.name());
+        }
+    }
+
+    @Test
+    void gifFramesShadeValuesAlongThePaletteGradient() throws IOException {
+        LeniaGrid grid = new LeniaGrid(3, 1);
+        grid.setValue(0, 0, 0.25f);
+        grid.setValue(1, 0, 0.5f);
+        grid.setValue(2, 0, 1f);
+        int[] gradient = Palette2D.bitbee.gradient(LeniaGrid.LEVELS);
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (GifWriter writer = new GifWriter(buffer, 3, 1, 1, 5, gradient)) {
+            writer.writeFrame(grid);
+        }
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(buffer.toByteArray()));
+        for (int x = 0; x < 3; x++) {
+            assertEquals(gradient[grid.state(x, 0)], image.getRGB(x, 0) & 0xFFFFFF, "x=" + x);
+        }
+        assertEquals(Palette2D.rgb(Palette2D.bitbee.deadColor), gradient[0]);
+        assertEquals(Palette2D.rgb(Palette2D.bitbee.aliveColor), gradient[LeniaGrid.LEVELS - 1]);
+        assertEquals(255, grid.state(2, 0));
+        assertEquals(3, grid.aliveCount());
+    }
+
+    private static LeniaGrid randomGrid(int width, int height, Random random) {
+        LeniaGrid grid = new LeniaGrid(width, height);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                grid.setValue(x, y, random.nextInt(3) == 0 ? 0f : random.nextFloat());
+            }
+        }
+        return grid;
+    }
+
+    private static double[] directPotential(LeniaGrid grid, Rule rule, boolean wrap) {
+        int width = grid.width();
+        int height = grid.height();
+        int range = rule.range();
+        double total = 0.0;
+        for (int dy = -range; dy <= range; dy++) {
+            for (int dx = -range; dx <= range; dx++) {
+                total += LeniaEngine.kernelWeight(dx, dy, range, rule.kernelPeaks());
+            }
+        }
+        double[] potential = new double[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                double sum = 0.0;
+                for (int dy = -range; dy <= range; dy++) {
+                    for (int dx = -range; dx <= range; dx++) {
+                        int nx = x + dx;
+                        int ny = y + dy;
+                        if (wrap) {
+                            nx = Math.floorMod(nx, width);
+                            ny = Math.floorMod(ny, height);
+                        } else if (nx < 0 || nx >= width || ny < 0 || ny >= height) {
+                            continue;
+                        }
+                        sum += LeniaEngine.kernelWeight(dx, dy, range, rule.kernelPeaks()) * grid.value(nx, ny);
+                    }
+                }
+                potential[y * width + x] = sum / total;
+            }
+        }
+        return potential;
+    }
+
+    private static void dft(float[] re, float[] im, float[] outRe, float[] outIm) {
+        int n = re.length;
+        for (int k = 0; k < n; k++) {
+            double sumRe = 0.0;
+            double sumIm = 0.0;
+            for (int t = 0; t < n; t++) {
+                double angle = -2.0 * Math.PI * k * t / n;
+                sumRe += re[t] * Math.cos(angle) - im[t] * Math.sin(angle);
+                sumIm += re[t] * Math.sin(angle) + im[t] * Math.cos(angle);
+            }
+            outRe[k] = (float) sumRe;
+            outIm[k] = (float) sumIm;
+        }
+    }
+}
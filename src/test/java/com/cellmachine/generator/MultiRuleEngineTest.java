@@ -0,0 +1,101 @@
+package com.cellmachine.generator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class MultiRuleEngineTest {
+
+    @Test
+    void everyLaneMatchesItsOwnRun() {
+        Random random = new Random(17);
+        List<Rule> rules = new ArrayList<>(List.of(Rule.defaultLife(), Rule.parse("B36/S23"), Rule.parse("B0/S8")));
+        while (rules.size() < MultiRuleEngine.MAX_RULES) {
+            rules.add(Rule.parse("B" + digits(random) + "/S" + digits(random)));
+        }
+        Grid seed = SeedService.randomGrid(37, 23, 0.3, 5);
+        for (boolean wrap : new boolean[]{true, false}) {
+            MultiRuleEngine engine = new MultiRuleEngine(rules, seed, wrap);
+            List<Grid> expected = new ArrayList<>(Collections.nCopies(rules.size(), seed));
+            for (int step = 1; step <= 12; step++) {
+                engine.step();
+                for (int r = 0; r < rules.size(); r++) {
+                    String label = rules.get(r).label() + " wrap=" + wrap + " step " + step;
+                    Grid following = Grid.advanceReference(expected.get(r), rules.get(r), wrap);
+                    assertEquals(following, engine.grid(r), label);
+                    assertEquals(following.aliveCount(), engine.population(r), label);
+                    assertEquals(!following.equals(expected.get(r)), (engine.changedRules() >>> r & 1) != 0, label);
+                    expected.set(r, following);
+                }
+            }
+            assertEquals(12, engine.generation());
+        }
+    }
+
+    @Test
+    void populationCurvesStartFromTheSeed() {
+        Grid seed = new Grid(5, 5);
+        seed.set(1, 2, true);
+        seed.set(2, 2, true);
+        seed.set(3, 2, true);
+        MultiRuleEngine engine = new MultiRuleEngine(List.of(Rule.defaultLife(), Rule.parse("B3/S")), seed, false);
+
+        long[][] curves = engine.populationCurves(3);
+        assertArrayEquals(new long[]{3, 3, 3, 3}, curves[0]);
+        assertArrayEquals(new long[]{3, 2, 0, 0}, curves[1]);
+        assertEquals(0L, engine.changedRules() & 2L);
+    }
+
+    @Test
+    void rejectsRulesItCannotSlice() {
+        Grid seed = new Grid(4, 4);
+        assertThrows(IllegalArgumentException.class, () -> new MultiRuleEngine(List.of(), seed, true));
+        assertThrows(IllegalArgumentException.class,
+                () -> new MultiRuleEngine(List.of(Rule.parse("B2-a/S12")), seed, true));
+        assertThrows(IllegalArgumentException.class,
+                () -> new MultiRuleEngine(Collections.nCopies(MultiRuleEngine.MAX_RULES + 1, Rule.defaultLife()), seed, true));
+    }
+
+    @Test
+    void screeningKeepsTheSeedOfTheFirstDraw() {
+        int screened = 0;
+        for (long seed = 1; seed <= 8; seed++) {
+            RandomSimulationFactory.RandomSelection first = RandomSimulationFactory.create(new Random(seed), true);
+            RandomSimulationFactory.RandomSelection selection = RandomSimulationFactory.screen(new Random(seed), true);
+            assertTrue(Arrays.equals(first.mask(), selection.mask()), "seed " + seed);
+            if (selection.ruleLabel().equals(first.ruleLabel())) {
+                continue;
+            }
+            // Any other rule must have passed the screen: still changing, neither nearly empty nor crowded.
+            screened++;
+            SimulationOptions options = RandomSimulationFactory.buildOptions(selection);
+            Grid start = SimulationEngines.denseSeed(options);
+            MultiRuleEngine alone = new MultiRuleEngine(List.of(options.rule()), start, options.wrap());
+            for (int generation = 0; generation < options.steps(); generation++) {
+                alone.step();
+            }
+            double share = alone.population(0) / ((double) start.width() * start.height());
+            assertEquals(1L, alone.changedRules(), "seed " + seed);
+            assertTrue(share >= RandomSimulationFactory.MIN_FINAL_SHARE, "seed " + seed + " share " + share);
+            assertTrue(share <= RandomSimulationFactory.MAX_FINAL_SHARE, "seed " + seed + " share " + share);
+        }
+        assertTrue(screened > 0, "every draw fell back to its first rule");
+    }
+
+    private static String digits(Random random) {
+        int mask = random.nextInt(1, 1 << 9);
+        StringBuilder digits = new StringBuilder();
+        for (int value = 0; value < 9; value++) {
+            if ((mask & (1 << value)) != 0) {
+                digits.append(value);
+            }
+        }
+        return digits.toString();
+    }
+}
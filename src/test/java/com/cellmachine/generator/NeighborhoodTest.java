@@ -0,0 +1,181 @@
+package com.cellmachine.generator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.Test;
+
+class NeighborhoodTest {
+
+    @Test
+    void parsesNeighborhoodSuffixes() {
+        Rule hex = Rule.parse("B2/S34H");
+        assertEquals(Neighborhood.HEXAGONAL, hex.neighborhood());
+        assertTrue(hex.isTotalistic());
+        assertEquals(1 << 2, hex.bornMask());
+        assertEquals(1 << 3 | 1 << 4, hex.surviveMask());
+        assertEquals(Neighborhood.VON_NEUMANN, Rule.parse("b1/s1v").neighborhood());
+        assertEquals(Neighborhood.MOORE, Rule.parse("B3/S23").neighborhood());
+        assertNotEquals(Rule.parse("B2/S34"), hex);
+        assertEquals(hex, Rule.parse("B2/S34").withNeighborhood(Neighborhood.HEXAGONAL));
+        assertEquals(Rule.parse("B2/S34V"), hex.withNeighborhood(Neighborhood.VON_NEUMANN));
+        assertEquals(Rule.parse("B2/S34"), hex.withNeighborhood(Neighborhood.MOORE));
+
+        for (String invalid : new String[]{"B7/S34H", "B5/S1V", "B2-a/S34H", "B2/S34H/C3", "B2/S3X"}) {
+            assertThrows(IllegalArgumentException.class, () -> Rule.parse(invalid), invalid);
+        }
+        assertThrows(IllegalArgumentException.class, () -> Rule.parse("B2-a/S12").withNeighborhood(Neighborhood.HEXAGONAL));
+        assertThrows(IllegalArgumentException.class, () -> Rule.parse("B7/S23").withNeighborhood(Neighborhood.VON_NEUMANN));
+    }
+
+    @Test
+    void loneCellsBirthTheirNeighbors() {
+        assertEquals(Set.of("4,4", "6,4", "4,3", "5,3", "4,5", "5,5"), children("B1/SH", 5, 4));
+        assertEquals(Set.of("4,3", "6,3", "5,2", "6,2", "5,4", "6,4"), children("B1/SH", 5, 3));
+        assertEquals(Set.of("4,4", "6,4", "5,3", "5,5"), children("B1/SV", 5, 4));
+    }
+
+    @Test
+    void kernelsMatchTheReferenceStep() {
+        String[] rules = {"B2/S34H", "B24/S35H", "B/S0123456H", "B0123456/SH", "B1/S1V", "B13/S024V", "B0/S4V",
+            "B01234/S01234V"};
+        Random random = new Random(41);
+        // A 2x2 board wraps every hexagonal diagonal back onto the cell's own row.
+        GridAssertions.forEachBoard(GridAssertions.sizesAnd(new int[]{2, 2}), rules, (rule, width, height, wrap, label) -> {
+            RuleKernels.Kernel specialized = rule.kernel();
+            assertTrue(specialized.getClass().isHidden(), label);
+            RuleKernels.Kernel generic = rule.neighborhood() == Neighborhood.HEXAGONAL
+                    ? new HexagonalKernel(rule.bornMask(), rule.surviveMask())
+                    : new VonNeumannKernel(rule.bornMask(), rule.surviveMask());
+            Grid current = SeedService.randomGrid(width, height, 0.4, random.nextLong());
+            Grid reference = Grid.advanceReference(current, rule, wrap);
+            for (RuleKernels.Kernel kernel : List.of(specialized, generic)) {
+                Grid next = new Grid(width, height);
+                Grid.ensureStepTarget(current, next, rule);
+                int words = current.wordsPerRow();
+                BitPackedEngine.Deltas deltas = new BitPackedEngine.Deltas().reset(words);
+                kernel.step(current, next, wrap, 0, height, 0, words, deltas, 0);
+                deltas.applyTo(next, 0, words);
+                GridAssertions.assertSameStep(current, reference, next, label);
+            }
+            Grid advanced = new Grid(width, height);
+            Grid.advanceInto(current, advanced, rule, wrap);
+            assertEquals(reference, advanced, label);
+        });
+    }
+
+    @Test
+    void onlyTheDenseEnginesCountOtherNeighborhoods() {
+        SimulationOptions options = SimulationOptions.builder()
+                .rule(Rule.parse("B2/S34H"))
+                .dimensions(new SimulationDimensions(96, 48, 2))
+                .steps(20)
+                .outputFormat(SimulationOutputFormat.GIF)
+                .build();
+        List<SimulationEngine> engines =
+                SimulationEngines.defaults(new ParallelStepper(1, 0), SimulationService.DEFAULT_HASHLIFE_MAX_NODES);
+        for (SimulationEngine engine : engines) {
+            boolean expected = engine.name().equals(SimulationEngines.REFERENCE)
+                    || engine.name().equals(SimulationEngines.TILED);
+            assertEquals(expected, engine.supports(options), engine.name());
+        }
+
+        SimulationResult tiled = new SimulationService().runSimulation(options);
+        SimulationResult reference = new SimulationService().runSimulation(SimulationOptions.builder()
+                .rule(Rule.parse("B2/S34H"))
+                .dimensions(new SimulationDimensions(96, 48, 2))
+                .steps(20)
+                .outputFormat(SimulationOutputFormat.GIF)
+                .engine(SimulationEngines.REFERENCE)
+                .build());
+        assertEquals(reference.finalAlive(), tiled.finalAlive());
+        assertEquals(reference.stepsSimulated(), tiled.stepsSimulated());
+    }
+
+    @Test
+    void neighborhoodsSurviveSerialization() {
+        SimulationOptions options = SimulationOptions.builder()
+                .rule(Rule.parse("B2/S34"))
+                .ruleLabel("B2/S34")
+                .neighborhood(Neighborhood.HEXAGONAL)
+                .dimensions(new SimulationDimensions(40, 30, 2))
+                .build();
+        assertEquals(Neighborhood.HEXAGONAL, options.neighborhood());
+        assertEquals(Rule.parse("B2/S34H"), options.rule());
+        assertEquals("B2/S34H", options.ruleLabel());
+        SimulationOptions restored = SimulationOptions.deserialize(options.serialize());
+        assertEquals(options.rule(), restored.rule());
+        assertEquals(options.serialize(), restored.serialize());
+
+        SimulationOptions vonNeumann = SimulationOptions.builder().rule(Rule.parse("B1/S1V")).ruleLabel("B1/S1V").build();
+        assertEquals(Neighborhood.VON_NEUMANN, SimulationOptions.deserialize(vonNeumann.serialize()).neighborhood());
+        assertThrows(IllegalArgumentException.class, () -> SimulationOptions.builder()
+                .rule(Rule.parse("B3/S23/C4"))
+                .neighborhood(Neighborhood.HEXAGONAL)
+                .build());
+    }
+
+    @Test
+    void hexagonalFramesShiftOddRows() throws IOException {
+        Grid grid = new Grid(8, 4);
+        grid.set(0, 0, true);
+        grid.set(0, 1, true);
+        int[] colors = {0x000000, 0xFFFFFF};
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (GifWriter writer = new GifWriter(buffer, 8, 4, 4, 5, colors, true)) {
+            writer.writeFrame(grid);
+        }
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(buffer.toByteArray()));
+        assertEquals(8 * 4 + 2, image.getWidth());
+        assertEquals(4 * 4, image.getHeight());
+        assertEquals(0xFFFFFF, image.getRGB(0, 0) & 0xFFFFFF);
+        assertEquals(0xFFFFFF, image.getRGB(3, 3) & 0xFFFFFF);
+        assertEquals(0x000000, image.getRGB(4, 0) & 0xFFFFFF);
+        assertEquals(0x000000, image.getRGB(1, 5) & 0xFFFFFF);
+        assertEquals(0xFFFFFF, image.getRGB(2, 5) & 0xFFFFFF);
+        assertEquals(0xFFFFFF, image.getRGB(5, 7) & 0xFFFFFF);
+        assertEquals(0x000000, image.getRGB(6, 7) & 0xFFFFFF);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> new GifWriter(new ByteArrayOutputStream(), 8, 4, 1, 5, colors, true));
+        assertThrows(IllegalArgumentException.class, () -> new SimulationService().runSimulation(SimulationOptions.builder()
+                .rule(Rule.parse("B2/S34H"))
+                .dimensions(new SimulationDimensions(16, 16, 1))
+                .outputFormat(SimulationOutputFormat.GIF)
+                .build()));
+
+        SimulationResult mp4 = new SimulationService().runSimulation(SimulationOptions.builder()
+                .rule(Rule.parse("B2/S34H"))
+                .dimensions(new SimulationDimensions(32, 24, 3))
+                .steps(10)
+                .outputFormat(SimulationOutputFormat.MP4)
+                .build());
+        assertTrue(mp4.bytes().length > 0);
+    }
+
+    private static Set<String> children(String raw, int x, int y) {
+        Grid grid = new Grid(12, 8);
+        grid.set(x, y, true);
+        Grid next = Grid.advance(grid, Rule.parse(raw), false);
+        assertEquals(next, Grid.advanceReference(grid, Rule.parse(raw), false), raw);
+        Set<String> cells = new TreeSet<>();
+        for (int cy = 0; cy < next.height(); cy++) {
+            for (int cx = 0; cx < next.width(); cx++) {
+                if (next.get(cx, cy)) {
+                    cells.add(cx + "," + cy);
+                }
+            }
+        }
+        return cells;
+    }
+}
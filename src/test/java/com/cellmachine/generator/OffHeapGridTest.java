@@ -0,0 +1,76 @@
+package com.cellmachine.generator;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import org.junit.jupiter.api.Test;
+
+class OffHeapGridTest {
+
+    @Test
+    void matchesDenseStepInBands() {
+        assumeTrue(OffHeapEngine.AVAILABLE, "needs --enable-preview");
+        ParallelStepper bands = new ParallelStepper(3, 0);
+        // Boards tall enough that each of the three bands holds several rows.
+        int[][] sizes = GridAssertions.sizesAnd(new int[]{150, 70}, new int[]{128, 64}, new int[]{65, 40},
+                new int[]{40, 3});
+        GridAssertions.forEachBoard(sizes, GridAssertions.RULES, (rule, width, height, wrap, board) -> {
+            Grid expected = SeedService.randomGrid(width, height, 0.3, width * 31L + height);
+            try (OffHeapGrid seed = OffHeapGrid.open(width, height)) {
+                OffHeapGrid current = SeedService.withRandomCells(seed, 0.3, width * 31L + height);
+                OffHeapGrid next = current.blank();
+                OffHeapEngine engine = new OffHeapEngine(bands);
+                for (int step = 0; step < 12; step++) {
+                    String label = board + " step " + step;
+                    Grid following = Grid.advanceReference(expected, rule, wrap);
+                    engine.advanceInto(current, next, rule, wrap);
+                    assertEquals(!following.equals(expected), engine.changed(), label);
+                    GridAssertions.assertSameCells(following, next, label);
+                    assertEquals(recomputedHash(next), next.contentHash(), label);
+                    expected = following;
+                    OffHeapGrid previous = current;
+                    current = next;
+                    next = previous;
+                }
+            }
+        });
+    }
+
+    @Test
+    void copiesShareTheArenaAndCloseWithIt() {
+        assumeTrue(OffHeapEngine.AVAILABLE, "needs --enable-preview");
+        OffHeapGrid grid = OffHeapGrid.open(100, 10);
+        grid.set(70, 3, true);
+        OffHeapGrid copy = grid.copy();
+        assertEquals(grid, copy);
+        assertEquals(grid.contentHash(), copy.contentHash());
+        copy.set(70, 3, false);
+        assertNotEquals(grid, copy);
+        assertEquals(0L, copy.contentHash());
+        assertEquals(1, grid.aliveCount());
+        Grid dense = new Grid(100, 10);
+        dense.set(70, 3, true);
+        Rule life = Rule.parse("B3/S23");
+        assertArrayEquals(GridCheckpoint.of(dense, life, false, 0).encode(),
+                GridCheckpoint.of(grid, life, false, 0).encode());
+
+        grid.close();
+        GridView closed = grid;
+        GridView closedCopy = copy;
+        assertThrows(IllegalStateException.class, () -> closed.get(70, 3));
+        assertThrows(IllegalStateException.class, () -> closedCopy.get(70, 3));
+    }
+
+    private static long recomputedHash(GridView grid) {
+        int wordsPerRow = Grid.wordsPerRow(grid.width());
+        long hash = 0L;
+        for (int y = 0; y < grid.height(); y++) {
+            for (int x = 0; x < grid.width(); x++) {
+                if (grid.get(x, y)) {
+                    hash += (1L << x) * Grid.hashKey((long) y * wordsPerRow + (x >>> 6));
+                }
+            }
+        }
+        return hash;
+    }
+}
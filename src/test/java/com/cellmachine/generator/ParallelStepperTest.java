@@ -0,0 +1,36 @@
+package com.cellmachine.generator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class ParallelStepperTest {
+
+    @Test
+    void bandedStepMatchesSequentialStep() {
+        ParallelStepper stepper = new ParallelStepper(4, 0);
+        // Boards with more rows than threads, so every thread gets a band, and one far taller than wide.
+        int[][] sizes = GridAssertions.sizesAnd(new int[]{70, 33}, new int[]{129, 97}, new int[]{64, 200});
+        GridAssertions.forEachBoard(sizes, GridAssertions.RULES, (rule, width, height, wrap, board) -> {
+            Grid sequential = SeedService.randomGrid(width, height, 0.3, 99);
+            Grid parallel = sequential.copy();
+            Grid target = new Grid(width, height);
+            for (int step = 0; step < 6; step++) {
+                String label = board + " step " + step;
+                Grid following = Grid.advance(sequential, rule, wrap);
+                stepper.advanceInto(parallel, target, rule, wrap);
+                GridAssertions.assertSameStep(parallel, following, target, label);
+                sequential = following;
+                Grid previous = parallel;
+                parallel = target;
+                target = previous;
+            }
+        });
+    }
+
+    @Test
+    void rejectsInvalidConfiguration() {
+        assertThrows(IllegalArgumentException.class, () -> new ParallelStepper(0, 0));
+        assertThrows(IllegalArgumentException.class, () -> new ParallelStepper(2, -1));
+    }
+}
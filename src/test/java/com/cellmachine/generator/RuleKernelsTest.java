@@ -0,0 +1,64 @@
+package com.cellmachine.generator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class RuleKernelsTest {
+
+    @Test
+    void specializedKernelsMatchTheGenericKernel() {
+        // Rules past the shared ones hit the kernels' all-or-nothing and alternating count masks.
+        String[] rules = GridAssertions.rulesAnd("B3/S12345", "B8/S0", "B/S", "B012345678/S012345678", "B1357/S02468");
+        Random random = new Random(23);
+        GridAssertions.forEachBoard(GridAssertions.sizesAnd(new int[]{200, 7}), rules, (rule, width, height, wrap, label) -> {
+            RuleKernels.Kernel kernel = rule.kernel();
+            if (!rule.isTotalistic()) {
+                assertNull(kernel, label);
+                return;
+            }
+            assertTrue(kernel.getClass().isHidden(), label);
+            Grid current = SeedService.randomGrid(width, height, 0.4, random.nextLong());
+            Grid expected = new Grid(width, height);
+            Grid actual = new Grid(width, height);
+            Grid.ensureStepTarget(current, expected, rule);
+            Grid.ensureStepTarget(current, actual, rule);
+            int words = current.wordsPerRow();
+            BitPackedEngine.Deltas generic = new BitPackedEngine.Deltas().reset(words);
+            BitPackedEngine.Deltas specialized = new BitPackedEngine.Deltas().reset(words);
+            BitPackedEngine.stepWithSelectors(current, expected, rule.countSelectors(), wrap, 0, height, 0, words,
+                    generic, 0);
+            kernel.step(current, actual, wrap, 0, height, 0, words, specialized, 0);
+            generic.applyTo(expected, 0, words);
+            specialized.applyTo(actual, 0, words);
+
+            assertEquals(Grid.advanceReference(current, rule, wrap), actual, label);
+            GridAssertions.assertSameStep(current, expected, actual, label);
+        });
+    }
+
+    @Test
+    void equalRulesShareOneKernelAndTheCacheStaysBounded() {
+        assertSame(RuleKernels.forRule(Rule.parse("B36/S23")), RuleKernels.forRule(Rule.parse("B36/S23")));
+        assertNotSame(RuleKernels.forRule(Rule.parse("B36/S23")), RuleKernels.forRule(Rule.parse("B3/S23")));
+        assertNull(RuleKernels.forRule(Rule.parse("B2-a/S12")));
+        assertNull(Rule.parse("B2-a/S12").kernel());
+
+        for (int born = 0; born < RuleKernels.MAX_KERNELS + 8; born++) {
+            assertNotNull(RuleKernels.forRule(Rule.parse("B" + digits(born) + "/S4")));
+        }
+        assertEquals(RuleKernels.MAX_KERNELS, RuleKernels.cachedKernels());
+    }
+
+    private static String digits(int mask) {
+        StringBuilder digits = new StringBuilder();
+        for (int value = 0; value < 9; value++) {
+            if ((mask & (1 << value)) != 0) {
+                digits.append(value);
+            }
+        }
+        return digits.toString();
+    }
+}
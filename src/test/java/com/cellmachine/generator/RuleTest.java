@@ -31,4 +31,77 @@ class RuleTest {
         IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, () -> Rule.parse("B9/S23"));
         assertTrue(ex.getMessage().contains("out of range"));
     }
+
+    @Test
+    void compiledTableMatchesNeighborCounts() {
+        Rule rule = Rule.parse("B36/S125");
+        assertTrue(rule.isTotalistic());
+        for (int neighborhood = 0; neighborhood < 512; neighborhood++) {
+            boolean alive = (neighborhood & Rule.CENTER_BIT) != 0;
+            int count = Integer.bitCount(neighborhood & ~Rule.CENTER_BIT);
+            assertEquals(rule.shouldLive(alive, count), rule.nextState(neighborhood), "neighborhood " + neighborhood);
+        }
+    }
+
+    @Test
+    void parsesHenselNotation() {
+        Rule rule = Rule.parse("B2-a/S12");
+        assertFalse(rule.isTotalistic());
+        int north = Rule.neighborhoodIndex(0, 0b100, 0);
+        int northEast = Rule.neighborhoodIndex(0, 0, 0b100);
+        int south = Rule.neighborhoodIndex(0, 0b001, 0);
+        assertFalse(rule.nextState(north | northEast));
+        assertTrue(rule.nextState(north | south));
+        assertTrue(rule.nextState(north | Rule.CENTER_BIT));
+        assertThrows(IllegalStateException.class, () -> rule.shouldLive(false, 2));
+    }
+
+    @Test
+    void henselLettersCoverEveryConfiguration() {
+        Rule listed = Rule.parse("B1ce2cekain3cekainyqjr4cekainyqjrtwz/S5cekainyqjr6cekain7ce");
+        Rule totalistic = Rule.parse("B1234/S567");
+        assertTrue(listed.isTotalistic());
+        assertArrayEquals(totalistic.transitions(), listed.transitions());
+    }
+
+    @Test
+    void henselRulesAreIsotropic() {
+        Rule rule = Rule.parse("B2ik3-ajr4tw/S1c2-n3qy5k6e");
+        for (int neighborhood = 0; neighborhood < 512; neighborhood++) {
+            assertEquals(rule.nextState(neighborhood), rule.nextState(rotate(neighborhood)));
+            assertEquals(rule.nextState(neighborhood), rule.nextState(mirror(neighborhood)));
+        }
+    }
+
+    @Test
+    void rejectsUnknownHenselLetters() {
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, () -> Rule.parse("B1a/S23"));
+        assertTrue(ex.getMessage().contains("not defined"));
+        assertThrows(IllegalArgumentException.class, () -> Rule.parse("B2aa/S23"));
+        assertThrows(IllegalArgumentException.class, () -> Rule.parse("B3-/S23"));
+    }
+
+    private static int rotate(int neighborhood) {
+        return transform(neighborhood, true);
+    }
+
+    private static int mirror(int neighborhood) {
+        return transform(neighborhood, false);
+    }
+
+    private static int transform(int neighborhood, boolean rotate) {
+        int result = 0;
+        for (int column = 0; column < 3; column++) {
+            for (int row = 0; row < 3; row++) {
+                int bit = 8 - (column * 3 + row);
+                if ((neighborhood & (1 << bit)) == 0) {
+                    continue;
+                }
+                int targetColumn = rotate ? 2 - row : 2 - column;
+                int targetRow = rotate ? column : row;
+                result |= 1 << (8 - (targetColumn * 3 + targetRow));
+            }
+        }
+        return result;
+    }
 }
@@ -34,7 +34,7 @@ class SeedServiceTest {
     @Test
     void randomGridRespectsDensity() {
         Grid grid = SeedService.randomGrid(10, 10, 0.5, 42);
-        int alive = grid.aliveCount();
+        long alive = grid.aliveCount();
         assertTrue(alive > 0);
         assertTrue(alive < 100);
     }
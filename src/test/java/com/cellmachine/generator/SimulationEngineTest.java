@@ -0,0 +1,134 @@
+package com.cellmachine.generator;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+class SimulationEngineTest {
+
+    private final ParallelStepper sequential = new ParallelStepper(1, 0);
+    private final List<SimulationEngine> engines =
+            SimulationEngines.defaults(sequential, SimulationService.DEFAULT_HASHLIFE_MAX_NODES);
+
+    @Test
+    void everyEngineMatchesTheReference() {
+        List<SimulationOptions.Builder> workloads = List.of(
+                SimulationOptions.builder()
+                        .dimensions(new SimulationDimensions(150, 100, 1))
+                        .initMask(SeedService.parseInitMask("011110010")),
+                SimulationOptions.builder()
+                        .dimensions(new SimulationDimensions(130, 70, 1))
+                        .density(0.2)
+                        .rule(Rule.parse("B2-a/S12")),
+                SimulationOptions.builder()
+                        .dimensions(new SimulationDimensions(70, 70, 1))
+                        .seedCells(List.of(new CellCoordinate(1, 0), new CellCoordinate(2, 1),
+                                new CellCoordinate(0, 2), new CellCoordinate(1, 2), new CellCoordinate(2, 2))));
+        for (SimulationOptions.Builder workload : workloads) {
+            for (boolean wrap : new boolean[]{true, false}) {
+                for (int stepsPerFrame : new int[]{1, 3}) {
+                    SimulationOptions options = workload.wrap(wrap).stepsPerFrame(stepsPerFrame).build();
+                    for (SimulationEngine engine : engines) {
+                        if (engine.supports(options)) {
+                            assertSameFrames(options, engine, options.serialize() + " on " + engine.name());
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void selectsEngineByWorkload() {
+        EngineSelector selector = new EngineSelector(engines, 1);
+        SimulationOptions.Builder pattern = SimulationOptions.builder()
+                .dimensions(new SimulationDimensions(200, 200, 1))
+                .initMask(SeedService.parseInitMask("011110010"));
+
+        assertEquals("tiled", selector.select(pattern.build()).name());
+        assertEquals("hashlife", selector.select(pattern.stepsPerFrame(8).build()).name());
+        assertEquals("tiled", selector.select(pattern.rule(Rule.parse("B0/S8")).build()).name());
+
+        SimulationOptions.Builder huge = SimulationOptions.builder().dimensions(new SimulationDimensions(4096, 4096, 1));
+        assertEquals("tiled", selector.select(huge.build()).name());
+        assertEquals("sparse", selector.select(huge.density(0.00001).build()).name());
+        assertEquals("sparse", selector.select(huge.density(null).initMask(SeedService.parseInitMask("010010010")).build()).name());
+        assertEquals("tiled", new EngineSelector(engines, 32).select(huge.build()).name());
+    }
+
+    @Test
+    void movesBoardsThatCrowdTheHeapOffIt() {
+        assumeTrue(OffHeapEngine.AVAILABLE, "needs --enable-preview");
+        EngineSelector selector = new EngineSelector(engines, 1, 12L << 20, 1L << 30);
+        // 4096 x 4096 cells take 2 MB per copy of the grid and 8 MB per run: more than half of 12 MB.
+        SimulationOptions.Builder builder = SimulationOptions.builder()
+                .dimensions(new SimulationDimensions(4096, 4096, 1))
+                .stepsPerFrame(8);
+
+        assertEquals("offheap", selector.select(builder.build()).name());
+        assertEquals("tiled", new EngineSelector(engines, 1, 16L << 20, 1L << 30).select(builder.build()).name());
+        assertEquals("offheap", new EngineSelector(engines, 1, (16L << 20) - 2, 1L << 30).select(builder.build()).name());
+        assertEquals("tiled", new EngineSelector(engines, 1, 12L << 20, 4L << 20).select(builder.build()).name());
+        assertEquals("sparse", selector.select(builder.density(0.00001).build()).name());
+        assertEquals("tiled", selector.select(builder.density(null).stepsPerFrame(1)
+                .dimensions(new SimulationDimensions(1024, 1024, 1)).build()).name());
+    }
+
+    @Test
+    void honoursRequestedEngine() {
+        EngineSelector selector = new EngineSelector(engines, 1);
+        SimulationOptions.Builder builder = SimulationOptions.builder().engine("reference");
+
+        assertEquals("reference", selector.select(builder.build()).name());
+        assertThrows(IllegalArgumentException.class, () -> selector.select(builder.engine("missing").build()));
+        assertThrows(IllegalArgumentException.class,
+                () -> selector.select(builder.engine("sparse").rule(Rule.parse("B0/S8")).build()));
+        assertThrows(IllegalArgumentException.class,
+                () -> new EngineSelector(List.of(new SimulationEngines.ReferenceEngine(), new SimulationEngines.ReferenceEngine()), 1));
+    }
+
+    @Test
+    void calibrationPicksASupportedEnginePerWorkload() {
+        EngineSelector selector = new EngineSelector(engines, 1);
+        Map<EngineSelector.Workload, String> choices = selector.calibrate(2);
+
+        assertEquals(6, choices.size());
+        assertTrue(selector.names().containsAll(choices.values()));
+        SimulationOptions soup = SimulationOptions.builder().dimensions(new SimulationDimensions(500, 500, 1)).build();
+        assertEquals(choices.get(new EngineSelector.Workload(1, false)), selector.select(soup).name());
+    }
+
+    private void assertSameFrames(SimulationOptions options, SimulationEngine engine, String label) {
+        try (SimulationEngine.Run<?> expected = new SimulationEngines.ReferenceEngine().start(options);
+             SimulationEngine.Run<?> actual = engine.start(options)) {
+            assertSameFrames(expected, actual, options, label);
+        }
+    }
+
+    private void assertSameFrames(SimulationEngine.Run<?> expected, SimulationEngine.Run<?> actual,
+            SimulationOptions options, String label) {
+        for (int frame = 0; frame < 20; frame++) {
+            assertEquals(expected.advance(options.stepsPerFrame()), actual.advance(options.stepsPerFrame()),
+                    label + " frame " + frame);
+            if (actual.births() >= 0) {
+                assertEquals(expected.births(), actual.births(), label + " births at frame " + frame);
+                assertEquals(expected.deaths(), actual.deaths(), label + " deaths at frame " + frame);
+            }
+            GridState<?> want = expected.current();
+            GridState<?> got = actual.current();
+            assertEquals(want.aliveCount(), got.aliveCount(), label + " population at frame " + frame);
+            assertEquals(want.liveBounds(), got.liveBounds(), label + " live bounds at frame " + frame);
+            for (int y = 0; y < want.height(); y++) {
+                for (int x = 0; x < want.width(); x++) {
+                    if (want.get(x, y) != got.get(x, y)) {
+                        fail(label + " frame " + frame + ": cell (" + x + ", " + y + ")");
+                    }
+                }
+            }
+        }
+    }
+}
@@ -3,6 +3,8 @@ package com.cellmachine.generator;
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.util.List;
 
@@ -75,4 +77,27 @@ class SimulationOptionsSerializationTest {
         assertEquals(options.outputFormat(), restored.outputFormat());
         assertEquals(options.palette(), restored.palette());
     }
+
+    @Test
+    void serializesStepsPerFrameOnlyWhenSet() {
+        SimulationOptions plain = SimulationOptions.builder().build();
+        SimulationOptions timeLapse = SimulationOptions.builder().stepsPerFrame(16).build();
+
+        assertEquals(14, plain.serialize().split("_", -1).length);
+        assertTrue(timeLapse.serialize().endsWith("_every=16"));
+        assertEquals(16, SimulationOptions.deserialize(timeLapse.serialize()).stepsPerFrame());
+        assertEquals(1, SimulationOptions.deserialize(plain.serialize()).stepsPerFrame());
+        assertThrows(IllegalArgumentException.class,
+                () -> SimulationOptions.deserialize(plain.serialize() + "_bogus=1"));
+    }
+
+    @Test
+    void serializesRequestedEngine() {
+        SimulationOptions options = SimulationOptions.builder().stepsPerFrame(4).engine("sparse").build();
+
+        assertTrue(options.serialize().endsWith("_every=4_engine=sparse"));
+        assertEquals("sparse", SimulationOptions.deserialize(options.serialize()).engine());
+        assertNull(SimulationOptions.deserialize(SimulationOptions.builder().build().serialize()).engine());
+        assertThrows(IllegalArgumentException.class, () -> SimulationOptions.builder().engine("Tiled_1"));
+    }
 }
@@ -2,6 +2,9 @@ package com.cellmachine.generator;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.junit.jupiter.api.Test;
 
 class SimulationServiceTest {
@@ -48,4 +51,152 @@ class SimulationServiceTest {
         assertEquals(3, result.stepsRequested());
         assertEquals(options.serialize(), result.summary());
     }
+
+    @Test
+    void timeLapseMatchesFrameByFrameRun() {
+        SimulationOptions.Builder builder = SimulationOptions.builder()
+                .dimensions(new SimulationDimensions(120, 120, 1))
+                .steps(300)
+                .initMask(SeedService.parseInitMask("011110010"))
+                .wrap(false)
+                .outputFormat(SimulationOutputFormat.GIF);
+
+        SimulationResult everyStep = service.runSimulation(builder.build());
+        SimulationResult timeLapse = service.runSimulation(builder.stepsPerFrame(32).build());
+
+        assertEquals(300, timeLapse.stepsSimulated());
+        assertEquals("tiled", everyStep.engine());
+        assertEquals("hashlife", timeLapse.engine());
+        assertEquals(everyStep.finalAlive(), timeLapse.finalAlive());
+        assertEquals(-1L, timeLapse.statistics().births(1));
+        assertEquals(everyStep.statistics().population(300), timeLapse.statistics().population(10));
+        assertTrue(timeLapse.bytes().length < everyStep.bytes().length);
+    }
+
+    @Test
+    void stopsOnceFramesCycle() {
+        SimulationOptions options = SimulationOptions.builder()
+                .dimensions(new SimulationDimensions(16, 16, 1))
+                .steps(100)
+                .initMask(SeedService.parseInitMask("010010010"))
+                .outputFormat(SimulationOutputFormat.GIF)
+                .build();
+
+        SimulationResult result = service.runSimulation(options);
+        assertEquals(2, result.stepsSimulated());
+        assertEquals(2, result.cyclePeriod());
+        assertEquals(3, result.finalAlive());
+    }
+
+    @Test
+    void reportsTheGenerationPeriodWhenFramesSkipGenerations() {
+        List<CellCoordinate> pulsar = new ArrayList<>();
+        for (int i : new int[]{0, 5, 7, 12}) {
+            for (int j : new int[]{2, 3, 4, 8, 9, 10}) {
+                pulsar.add(new CellCoordinate(8 + j, 8 + i));
+                pulsar.add(new CellCoordinate(8 + i, 8 + j));
+            }
+        }
+        SimulationOptions.Builder builder = SimulationOptions.builder()
+                .dimensions(new SimulationDimensions(32, 32, 1))
+                .steps(100)
+                .outputFormat(SimulationOutputFormat.GIF);
+
+        // Frames two generations apart come back after three frames, the pulsar after three generations.
+        SimulationResult oscillator = service.runSimulation(builder.seedCells(pulsar).stepsPerFrame(2).build());
+        assertEquals(3, oscillator.cyclePeriod());
+        assertEquals(48, oscillator.finalAlive());
+        assertEquals(6, oscillator.stepsSimulated());
+
+        List<CellCoordinate> block = List.of(new CellCoordinate(4, 4), new CellCoordinate(5, 4),
+                new CellCoordinate(4, 5), new CellCoordinate(5, 5));
+        assertEquals(1, service.runSimulation(builder.seedCells(block).stepsPerFrame(5).build()).cyclePeriod());
+    }
+
+    @Test
+    void refusesToExtendARunThatStoppedOnACycle() {
+        SimulationOptions blinker = SimulationOptions.builder()
+                .dimensions(new SimulationDimensions(16, 16, 1))
+                .steps(100)
+                .seedCells(List.of(new CellCoordinate(4, 5), new CellCoordinate(5, 5), new CellCoordinate(6, 5)))
+                .outputFormat(SimulationOutputFormat.GIF)
+                .build();
+        SimulationResult result = service.runSimulation(blinker);
+        assertEquals(2, result.cyclePeriod());
+        assertTrue(result.stepsSimulated() < 100);
+        assertFalse(result.extendable());
+        assertFalse(service.canExtend(blinker));
+        IllegalArgumentException refused = assertThrows(IllegalArgumentException.class,
+                () -> service.extendSimulation(blinker, 100));
+        assertTrue(refused.getMessage().contains("cycle of period 2"), refused.getMessage());
+    }
+
+    @Test
+    void runsPatternSeedsOnHugeBoardsSparsely() {
+        SimulationOptions options = SimulationOptions.builder()
+                .dimensions(new SimulationDimensions(1024, 1024, 1))
+                .steps(100)
+                .seedCells(List.of(
+                        new CellCoordinate(1, 0), new CellCoordinate(2, 1),
+                        new CellCoordinate(0, 2), new CellCoordinate(1, 2), new CellCoordinate(2, 2)))
+                .wrap(true)
+                .outputFormat(SimulationOutputFormat.GIF)
+                .build();
+
+        SimulationService singleThreaded = new SimulationService(new ParallelStepper(1, ParallelStepper.DEFAULT_THRESHOLD_CELLS),
+                SimulationService.DEFAULT_HASHLIFE_MAX_NODES);
+        SimulationResult result = singleThreaded.runSimulation(options);
+        assertEquals("sparse", result.engine());
+        assertEquals(100, result.stepsSimulated());
+        assertNull(result.cyclePeriod());
+        assertEquals(5, result.finalAlive());
+        PopulationSeries statistics = result.statistics();
+        assertEquals(101, statistics.size());
+        for (int frame = 0; frame < statistics.size(); frame++) {
+            assertEquals(5, statistics.population(frame));
+            CellRegion bounds = statistics.bounds(frame);
+            assertEquals(3, bounds.width(), "frame " + frame);
+            assertEquals(3, bounds.height(), "frame " + frame);
+        }
+    }
+
+    @Test
+    void recordsPopulationStatisticsPerFrame() {
+        SimulationOptions options = SimulationOptions.builder()
+                .dimensions(new SimulationDimensions(90, 60, 1))
+                .steps(40)
+                .density(0.3)
+                .wrap(true)
+                .outputFormat(SimulationOutputFormat.GIF)
+                .build();
+
+        SimulationResult result = service.runSimulation(options);
+        PopulationSeries statistics = result.statistics();
+        assertEquals(result.stepsSimulated() + 1, statistics.size());
+        assertEquals(0, statistics.generation(0));
+        assertEquals(0L, statistics.births(0));
+        assertEquals(result.finalAlive(), statistics.population(statistics.size() - 1));
+        for (int frame = 1; frame < statistics.size(); frame++) {
+            assertEquals(frame, statistics.generation(frame));
+            assertEquals(statistics.population(frame - 1) + statistics.births(frame) - statistics.deaths(frame),
+                    statistics.population(frame), "frame " + frame);
+        }
+
+        String[] lines = statistics.toCsv().split("\n");
+        assertEquals("generation,population,births,deaths,x,y,width,height", lines[0]);
+        assertEquals(statistics.size() + 1, lines.length);
+        assertTrue(lines[1].startsWith("0," + statistics.population(0) + ",0,0,"), lines[1]);
+    }
+
+    @Test
+    void statisticsHoldPopulationsPastTheIntRange() {
+        // A 60000x60000 board at 90% density: more live cells than an int counts.
+        long population = 3_240_000_000L;
+        PopulationSeries statistics = new PopulationSeries();
+        statistics.add(0, population, 0L, 0L, new CellRegion(0, 0, 60_000, 60_000));
+        statistics.add(4, population - 7, 12L, 19L, new CellRegion(0, 0, 60_000, 60_000));
+        assertEquals(population, statistics.population(0));
+        assertEquals(population - 7, statistics.population(1));
+        assertTrue(statistics.toCsv().contains("\n4,3239999993,12,19,"), statistics.toCsv());
+    }
 }
@@ -0,0 +1,98 @@
+package com.cellmachine.generator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class SparseGridTest {
+
+    @Test
+    void matchesDenseStepAcrossChunkEdges() {
+        // Boards a chunk and more on each side, exactly two chunks, and chunks cut off by the edges.
+        int[][] sizes = GridAssertions.sizesAnd(new int[]{150, 70}, new int[]{128, 64}, new int[]{65, 130},
+                new int[]{40, 3});
+        GridAssertions.forEachBoard(sizes, GridAssertions.RULES, (rule, width, height, wrap, board) -> {
+            if (!SparseChunkEngine.supports(rule)) {
+                return;
+            }
+            Grid expected = SeedService.randomGrid(width, height, 0.3, 11);
+            SparseGrid current = sparseCopy(expected);
+            SparseGrid next = new SparseGrid(width, height);
+            SparseChunkEngine engine = new SparseChunkEngine();
+            for (int step = 0; step < 40; step++) {
+                String label = board + " step " + step;
+                expected = Grid.advance(expected, rule, wrap);
+                engine.advanceInto(current, next, rule, wrap);
+                GridAssertions.assertSameCells(expected, next, label);
+                assertEquals(sparseCopy(expected).contentHash(), next.contentHash(), label);
+                SparseGrid previous = current;
+                current = next;
+                next = previous;
+            }
+        });
+    }
+
+    @Test
+    void keepsOnlyChunksNearLiveCells() {
+        boolean[] rPentomino = SeedService.parseInitMask("011110010");
+        Grid expected = SeedService.gridWithCenteredMask(512, 512, rPentomino);
+        SparseGrid grid = SeedService.withCenteredMask(new SparseGrid(1 << 20, 1 << 20), rPentomino);
+        SparseGrid next = new SparseGrid(1 << 20, 1 << 20);
+        SparseChunkEngine engine = new SparseChunkEngine();
+        for (int step = 0; step < 200; step++) {
+            expected = Grid.advance(expected, Rule.defaultLife(), false);
+            engine.advanceInto(grid, next, Rule.defaultLife(), false);
+            SparseGrid previous = grid;
+            grid = next;
+            next = previous;
+        }
+        assertEquals(expected.aliveCount(), grid.aliveCount());
+        assertTrue(grid.chunkCount() <= 25, "chunks " + grid.chunkCount());
+        assertTrue(engine.changedRegion().width() <= 5 * SparseGrid.CHUNK_SIZE);
+    }
+
+    @Test
+    void dropsEmptyChunksAndComparesByContent() {
+        SparseGrid grid = new SparseGrid(300, 300);
+        grid.set(200, 10, true);
+        grid.set(5, 250, true);
+        assertEquals(2, grid.chunkCount());
+        grid.set(200, 10, false);
+        assertEquals(1, grid.chunkCount());
+        assertFalse(grid.get(200, 10));
+        assertTrue(grid.get(5, 250));
+
+        SparseGrid other = new SparseGrid(300, 300);
+        other.set(6, 250, true);
+        other.set(5, 250, true);
+        other.set(6, 250, false);
+        assertEquals(grid, other);
+        assertEquals(grid.contentHash(), other.contentHash());
+
+        SparseGrid copy = grid.copy();
+        copy.set(299, 299, true);
+        assertNotEquals(grid, copy);
+        copy.copyFrom(grid);
+        assertEquals(grid, copy);
+        assertThrows(IndexOutOfBoundsException.class, () -> grid.get(300, 0));
+    }
+
+    @Test
+    void rejectsRulesThatBirthInEmptySpace() {
+        SparseGrid grid = new SparseGrid(100, 100);
+        assertThrows(IllegalArgumentException.class,
+                () -> new SparseChunkEngine().advanceInto(grid, new SparseGrid(100, 100), Rule.parse("B0/S8"), true));
+    }
+
+    private static SparseGrid sparseCopy(Grid grid) {
+        SparseGrid sparse = new SparseGrid(grid.width(), grid.height());
+        for (int y = 0; y < grid.height(); y++) {
+            for (int x = 0; x < grid.width(); x++) {
+                if (grid.get(x, y)) {
+                    sparse.set(x, y, true);
+                }
+            }
+        }
+        return sparse;
+    }
+}
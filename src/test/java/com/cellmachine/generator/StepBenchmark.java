@@ -0,0 +1,88 @@
+package com.cellmachine.generator;
+
+import java.util.Locale;
+
+/**
+ * Times one generation of a random soup with each kernel, per generation for those stepping several. Run
+ * with {@code ./gradlew benchmark}, optionally {@code --args=2048} for a different grid side.
+ */
+public final class StepBenchmark {
+
+    private static final int WARMUP_SECONDS = 2;
+    private static final int MEASURE_SECONDS = 3;
+
+    private StepBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 1024;
+        Rule rule = Rule.defaultLife();
+        Grid current = SeedService.randomGrid(size, size, 0.35, 42);
+        Grid next = new Grid(size, size);
+        int words = current.wordsPerRow();
+        System.out.printf(Locale.US, "%dx%d, vector kernel %s%n", size, size,
+                BitPackedEngine.VECTORIZED ? VectorBitPackedEngine.lanes() + " lanes" : "disabled");
+
+        report("Grid.advance (reference loop)", size, () -> Grid.advanceReference(current, rule, true));
+        BitPackedEngine.Deltas deltas = new BitPackedEngine.Deltas();
+        report("scalar bit-packed, generic", size, () -> BitPackedEngine.stepWithSelectors(current, next,
+                rule.countSelectors(), true, 0, size, 0, words, deltas.reset(words), 0));
+        report("scalar bit-packed, " + (rule.kernel() != null ? "specialized" : "generic"), size,
+                () -> BitPackedEngine.stepScalar(current, next, rule, true, 0, size, 0, words));
+        if (BitPackedEngine.VECTORIZED) {
+            report("vector bit-packed", size,
+                    () -> VectorBitPackedEngine.step(current, next, rule, true, 0, size, 0, words));
+        }
+        for (String counted : new String[]{"B2/S34H", "B1/S1V"}) {
+            Rule countedRule = Rule.parse(counted);
+            report("scalar bit-packed, " + countedRule.neighborhood().name().toLowerCase(Locale.ROOT), size,
+                    () -> BitPackedEngine.stepScalar(current, next, countedRule, true, 0, size, 0, words));
+        }
+        byte[] blocks = rule.blockTable();
+        report("4x4 block table", size, () -> BlockTableEngine.stepRows(current, next, blocks, true, 0, size));
+        TemporalBlockEngine temporal = new TemporalBlockEngine(new ParallelStepper(1, 0));
+        int depth = 8;
+        report("temporal blocking, " + depth + " deep", size, depth,
+                () -> temporal.advanceInto(current, next, rule, true, depth));
+        LargerThanLifeEngine largerThanLife = new LargerThanLifeEngine(new ParallelStepper(1, 0));
+        for (String wide : new String[]{"R5,C0,M1,S34..58,B34..45,NM", "R20,C0,M1,S500..900,B450..700,NM"}) {
+            Rule wideRule = Rule.parse(wide);
+            report("larger than life, range " + wideRule.range(), size,
+                    () -> largerThanLife.advanceInto(current, next, wideRule, true));
+        }
+        Rule orbium = Rule.parse("Lenia/R13,T10,m0.15,s0.015,b1");
+        LeniaGrid continuous = SeedService.withRandomCells(new LeniaGrid(size, size), 0.35, 42);
+        LeniaGrid continuousNext = new LeniaGrid(size, size);
+        LeniaEngine lenia = new LeniaEngine(new ParallelStepper(1, 0));
+        report("lenia FFT, range " + orbium.range(), size,
+                () -> lenia.advanceInto(continuous, continuousNext, orbium, true));
+        // One row as long as the board has cells, so cells/ns compares with the kernels above.
+        Grid row = SeedService.randomGrid(size * size, 1, 0.35, 42);
+        SpaceTimeDiagram diagram = SpaceTimeDiagram.startingWith(row, 2);
+        ElementaryEngine rule30 = new ElementaryEngine(Rule.parse("W30"));
+        report("elementary W30, one row", size, () -> diagram.advance(rule30, true));
+    }
+
+    private static void report(String name, int size, Runnable step) {
+        report(name, size, 1, step);
+    }
+
+    private static void report(String name, int size, int generations, Runnable step) {
+        run(step, WARMUP_SECONDS);
+        long start = System.nanoTime();
+        int steps = run(step, MEASURE_SECONDS);
+        double micros = (System.nanoTime() - start) / 1_000.0 / steps / generations;
+        double cellsPerNano = (double) size * size / (micros * 1_000.0);
+        System.out.printf(Locale.US, "%-32s %12.1f us/step %8.2f cells/ns%n", name, micros, cellsPerNano);
+    }
+
+    private static int run(Runnable step, int seconds) {
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        int steps = 0;
+        do {
+            step.run();
+            steps++;
+        } while (System.nanoTime() < deadline);
+        return steps;
+    }
+}
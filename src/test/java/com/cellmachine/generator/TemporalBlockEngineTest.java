@@ -0,0 +1,77 @@
+package com.cellmachine.generator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class TemporalBlockEngineTest {
+
+    @Test
+    void matchesGenerationByGenerationStepping() {
+        // Bands deeper than the shared boards are tall, so the halo rows wrap past each other.
+        int[][] sizes = GridAssertions.sizesAnd(new int[]{70, 9}, new int[]{64, 40}, new int[]{130, 61});
+        TemporalBlockEngine engine = new TemporalBlockEngine(new ParallelStepper(1, 0));
+        Random random = new Random(29);
+        GridAssertions.forEachBoard(sizes, GridAssertions.RULES, (rule, width, height, wrap, board) -> {
+            for (int depth : new int[]{1, 2, 5, TemporalBlockEngine.MAX_DEPTH}) {
+                String label = board + " depth " + depth;
+                Grid current = SeedService.randomGrid(width, height, 0.35, random.nextLong());
+                Grid expected = current;
+                long flipped = 0L;
+                for (int generation = 0; generation < depth; generation++) {
+                    expected = Grid.advance(expected, rule, wrap);
+                    flipped += expected.flipped();
+                }
+                Grid target = new Grid(width, height);
+                engine.advanceInto(current, target, rule, wrap, depth);
+
+                GridAssertions.assertSameStep(current, expected, target, label);
+                assertEquals(flipped, engine.flipped(), label);
+            }
+        });
+    }
+
+    @Test
+    void bandsComposeAcrossThreads() {
+        TemporalBlockEngine engine = new TemporalBlockEngine(new ParallelStepper(3, 0));
+        Rule rule = Rule.parse("B36/S23");
+        assertTrue(engine.bandRows(Grid.wordsPerRow(300), 211, 6) < 211);
+        Grid current = SeedService.randomGrid(300, 211, 0.3, 7);
+        Grid next = new Grid(300, 211);
+        Grid expected = current.copy();
+        for (int pass = 0; pass < 4; pass++) {
+            for (int generation = 0; generation < 6; generation++) {
+                expected = Grid.advance(expected, rule, true);
+            }
+            engine.advanceInto(current, next, rule, true, 6);
+            assertEquals(expected, next, "pass " + pass);
+            assertEquals(expected.aliveCount(), next.aliveCount(), "pass " + pass);
+            Grid previous = current;
+            current = next;
+            next = previous;
+        }
+    }
+
+    @Test
+    void runSplitsLongFramesIntoPasses() {
+        SimulationOptions options = SimulationOptions.builder()
+                .dimensions(new SimulationDimensions(90, 50, 1))
+                .density(0.3)
+                .stepsPerFrame(2 * TemporalBlockEngine.MAX_DEPTH + 3)
+                .build();
+        try (SimulationEngine.Run<?> expected = new SimulationEngines.ReferenceEngine().start(options);
+             SimulationEngine.Run<?> actual = new SimulationEngines.TemporalSimulationEngine(new ParallelStepper(1, 0))
+                     .start(options)) {
+            for (int frame = 0; frame < 5; frame++) {
+                assertEquals(expected.advance(options.stepsPerFrame()), actual.advance(options.stepsPerFrame()));
+                assertEquals(expected.current(), actual.current(), "frame " + frame);
+                assertEquals(expected.births(), actual.births(), "frame " + frame);
+                assertEquals(expected.deaths(), actual.deaths(), "frame " + frame);
+            }
+        }
+        assertThrows(IllegalArgumentException.class, () -> new TemporalBlockEngine(new ParallelStepper(1, 0))
+                .advanceInto(new Grid(4, 4), new Grid(4, 4), Rule.defaultLife(), true, TemporalBlockEngine.MAX_DEPTH + 1));
+    }
+}
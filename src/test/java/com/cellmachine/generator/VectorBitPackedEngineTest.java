@@ -0,0 +1,41 @@
+package com.cellmachine.generator;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import org.junit.jupiter.api.Test;
+
+class VectorBitPackedEngineTest {
+
+    @Test
+    void matchesScalarKernelOnWideRows() {
+        assumeTrue(BitPackedEngine.VECTORIZED, "jdk.incubator.vector is not enabled");
+        for (int width : new int[]{256, 1000, 64 * 21, 1345}) {
+            Grid current = SeedService.randomGrid(width, 40, 0.35, width);
+            for (String raw : new String[]{"B3/S23", "B36/S23", "B1/S012345678", "B2/S"}) {
+                Rule rule = Rule.parse(raw);
+                for (boolean wrap : new boolean[]{true, false}) {
+                    Grid expected = new Grid(width, 40);
+                    Grid actual = new Grid(width, 40);
+                    BitPackedEngine.stepScalar(current, expected, rule, wrap, 0, 40, 0, current.wordsPerRow());
+                    VectorBitPackedEngine.step(current, actual, rule, wrap, 0, 40, 0, current.wordsPerRow());
+                    assertEquals(expected, actual, raw + " width=" + width + " wrap=" + wrap);
+                }
+            }
+        }
+    }
+
+    @Test
+    void stepsPartialWordRanges() {
+        assumeTrue(BitPackedEngine.VECTORIZED, "jdk.incubator.vector is not enabled");
+        Rule rule = Rule.defaultLife();
+        Grid current = SeedService.randomGrid(64 * 30, 20, 0.3, 11);
+        Grid expected = Grid.advance(current, rule, true);
+        Grid actual = new Grid(current.width(), current.height());
+        Grid.ensureStepTarget(current, actual, rule);
+        VectorBitPackedEngine.step(current, actual, rule, true, 0, 20, 0, 3);
+        VectorBitPackedEngine.step(current, actual, rule, true, 0, 20, 3, 17);
+        VectorBitPackedEngine.step(current, actual, rule, true, 0, 20, 17, 30);
+        assertEquals(expected, actual);
+    }
+}